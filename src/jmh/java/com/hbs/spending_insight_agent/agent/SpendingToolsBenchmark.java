@@ -0,0 +1,91 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hbs.spending_insight_agent.benchmark.SeededDatabase;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import com.hbs.spending_insight_agent.service.TransactionService;
+import dev.langchain4j.invocation.InvocationParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tool calls as the agent makes them, and the rendering of their result into the text of the
+ * tool message: {@link CompactTransactionFormat} against a plain JSON array of the same rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpendingToolsBenchmark {
+
+    @Param({"10", "500"})
+    int rows;
+
+    private SeededDatabase database;
+
+    private SpendingTools tools;
+
+    private ObjectMapper objectMapper;
+
+    private String accountId;
+
+    private String from;
+
+    private String to;
+
+    private List<TransactionRow> fetched;
+
+    @Setup
+    public void setUp() {
+        database = SeededDatabase.start(rows);
+        tools = database.bean(SpendingTools.class);
+        objectMapper = database.bean(ObjectMapper.class);
+        accountId = SeededDatabase.accountId(rows);
+        from = SeededDatabase.FROM.toString();
+        to = SeededDatabase.TO.toString();
+        fetched = database.bean(TransactionService.class)
+                .getTransactionRows(accountId, SeededDatabase.FROM, SeededDatabase.TO);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public String getRecentTransactions() {
+        return tools.getRecentTransactions(accountId, from, to, new InvocationParameters());
+    }
+
+    @Benchmark
+    public BigDecimal getAccountSummary() {
+        return tools.getAccountSummary(accountId, SeededDatabase.MONTH.getYear(), SeededDatabase.MONTH.getMonthValue());
+    }
+
+    @Benchmark
+    public String formatCompact() {
+        return CompactTransactionFormat.format(fetched, false);
+    }
+
+    @Benchmark
+    public String formatJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(fetched);
+    }
+}
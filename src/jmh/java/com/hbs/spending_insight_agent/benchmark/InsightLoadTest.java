@@ -0,0 +1,166 @@
+package com.hbs.spending_insight_agent.benchmark;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for {@code GET /api/spending/insights}, meant to run against the
+ * application started with the {@code offline} profile.
+ * <p>
+ * Requests are started at a fixed rate whatever the response times, and latency is measured
+ * from each request's scheduled start, so a stalled server shows up as latency rather than as
+ * a lower request rate. Options (all optional):
+ * <pre>
+ * --url http://localhost:8688   --rate 20 (requests/s)   --duration 30s   --warmup 10s
+ * --accounts A123,B456          --months 2025-10,2025-11  --timeout 60s
+ * </pre>
+ * Accounts and months are combined round-robin. Prints throughput, status counts and latency
+ * percentiles of successful responses.
+ */
+public final class InsightLoadTest {
+
+    private final URI baseUri;
+    private final double rate;
+    private final List<String> accounts;
+    private final List<String> months;
+    private final Duration timeout;
+    private final HttpClient client;
+
+    private InsightLoadTest(Map<String, String> options, ExecutorService executor) {
+        this.baseUri = URI.create(options.getOrDefault("url", "http://localhost:8688"));
+        this.rate = Double.parseDouble(options.getOrDefault("rate", "20"));
+        this.accounts = List.of(options.getOrDefault("accounts", "A123").split(","));
+        this.months = List.of(options.getOrDefault("months", "2025-11").split(","));
+        this.timeout = DurationStyle.detectAndParse(options.getOrDefault("timeout", "60s"));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            InsightLoadTest test = new InsightLoadTest(options, executor);
+            if (!warmup.isZero()) {
+                System.out.printf("Warming up for %s at %.1f req/s against %s%n", warmup, test.rate, test.baseUri);
+                test.run(warmup);
+            }
+            System.out.printf("Measuring for %s at %.1f req/s%n", duration, test.rate);
+            test.run(duration).print(test.rate);
+        }
+    }
+
+    private Result run(Duration duration) throws InterruptedException {
+        int total = (int) Math.max(1, Math.round(rate * duration.toNanos() / 1e9));
+        long intervalNanos = (long) (1e9 / rate);
+        Result result = new Result(total);
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[total];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            pending[i] = client.sendAsync(request(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> result.record(scheduled, response, error));
+        }
+        try {
+            CompletableFuture.allOf(pending).get(timeout.toMillis() + 5_000, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Failures are counted per request; only give up waiting here
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private HttpRequest request(int i) {
+        String account = accounts.get(i % accounts.size());
+        String[] month = months.get((i / accounts.size()) % months.size()).split("-");
+        URI uri = baseUri.resolve(String.format("/api/spending/insights?accountId=%s&year=%s&month=%d",
+                account, month[0], Integer.parseInt(month[1])));
+        return HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an --option, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static final class Result {
+
+        private final long[] latencies;
+        private final AtomicInteger successes = new AtomicInteger();
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        private final int sent;
+        private long elapsedNanos;
+
+        private Result(int sent) {
+            this.sent = sent;
+            this.latencies = new long[sent];
+        }
+
+        private void record(long scheduled, HttpResponse<?> response, Throwable error) {
+            long latency = System.nanoTime() - scheduled;
+            String outcome = error != null ? error.getClass().getSimpleName() : String.valueOf(response.statusCode());
+            outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+            if (error == null && response.statusCode() / 100 == 2) {
+                latencies[successes.getAndIncrement()] = latency;
+            }
+        }
+
+        private void print(double targetRate) {
+            int ok = successes.get();
+            long[] sorted = Arrays.copyOf(latencies, ok);
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+
+            System.out.printf("requests: %d sent, %d ok%n", sent, ok);
+            Map<String, Long> byOutcome = new TreeMap<>();
+            outcomes.forEach((outcome, count) -> byOutcome.put(outcome, count.sum()));
+            System.out.printf("outcomes: %s%n", byOutcome);
+            System.out.printf("throughput: target %.1f req/s, ok %.1f req/s over %.1f s%n", targetRate, ok / seconds, seconds);
+            if (ok == 0) {
+                return;
+            }
+            System.out.printf("latency ms (ok): p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    percentile(sorted, 99.9), sorted[sorted.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double pct) {
+            int index = (int) Math.ceil(pct / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.hbs.spending_insight_agent.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files and fails when a benchmark got slower than allowed.
+ * <p>
+ * Usage: {@code JmhResultComparator <baseline.json> <current.json> [max-regression-%]}. A result
+ * regresses when it is worse than the baseline by more than the threshold (default 10%) and
+ * by more than both scores' error margins. Exits with status 1 if anything regressed, and with
+ * status 2 on bad arguments or a missing file (no baseline recorded yet).
+ */
+public final class JmhResultComparator {
+
+    private static final double DEFAULT_MAX_REGRESSION_PCT = 10.0;
+
+    private JmhResultComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhResultComparator <baseline.json> <current.json> [max-regression-%]");
+            System.exit(2);
+        }
+        double maxRegressionPct = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_MAX_REGRESSION_PCT;
+        File baselineFile = new File(args[0]);
+        File currentFile = new File(args[1]);
+        if (!baselineFile.isFile()) {
+            System.err.println("No baseline at " + baselineFile + ". Record one from a benchmark run first, e.g.");
+            System.err.println("  mkdir -p " + parentOf(baselineFile) + " && cp " + currentFile + " " + baselineFile);
+            System.exit(2);
+        }
+        if (!currentFile.isFile()) {
+            System.err.println("No benchmark results at " + currentFile + ". Run the benchmarks first:");
+            System.err.println("  mvn -Pbenchmark test-compile exec:exec");
+            System.exit(2);
+        }
+        Map<String, Score> baseline = read(baselineFile);
+        Map<String, Score> current = read(currentFile);
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Score> entry : new TreeMap<>(current).entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", now.value(), "new");
+                continue;
+            }
+            double changePct = (now.value() - before.value()) * 100.0 / before.value();
+            // Positive means worse, whichever direction the mode counts in
+            double worsePct = now.higherIsBetter() ? -changePct : changePct;
+            boolean regressed = worsePct > maxRegressionPct
+                    && Math.abs(now.value() - before.value()) > now.error() + before.error();
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.value(), now.value(),
+                    changePct, regressed ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d regression(s) above %.1f%%%n", regressions, maxRegressionPct);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String parentOf(File file) {
+        String parent = file.getParent();
+        return parent == null ? "." : parent;
+    }
+
+    static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            result.path("params").properties()
+                    .forEach(param -> key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            String mode = result.path("mode").asText();
+            key.append(" [").append(mode).append(']');
+            JsonNode metric = result.path("primaryMetric");
+            double error = metric.path("scoreError").asDouble(0.0);
+            scores.put(key.toString(), new Score(metric.path("score").asDouble(),
+                    Double.isNaN(error) ? 0.0 : error, "thrpt".equals(mode)));
+        }
+        return scores;
+    }
+
+    record Score(double value, double error, boolean higherIsBetter) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.hbs.spending_insight_agent.benchmark;
+
+import com.hbs.spending_insight_agent.SpendingInsightAgentApplication;
+import com.hbs.spending_insight_agent.service.AccountSummaryService;
+import com.hbs.spending_insight_agent.service.SpendingStatsService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application context without the web layer, on an embedded H2 database seeded with one
+ * account per benchmark size: {@code accountId(n)} has {@code n} transactions spread over
+ * {@link #FROM}..{@link #TO}, a 90-day range (the tool layer's maximum).
+ */
+public final class SeededDatabase implements AutoCloseable {
+
+    public static final LocalDate FROM = LocalDate.of(2025, 6, 1);
+
+    public static final LocalDate TO = FROM.plusDays(90);
+
+    /** A month fully inside the seeded range. */
+    public static final YearMonth MONTH = YearMonth.of(2025, 7);
+
+    private static final String[] CATEGORIES = {"Food", "Transport", "Shopping", "Bills", "Travel", "Entertainment"};
+
+    private final ConfigurableApplicationContext context;
+
+    private SeededDatabase(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static String accountId(int rows) {
+        return "BENCH" + rows;
+    }
+
+    public static SeededDatabase start(int... sizes) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpendingInsightAgentApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command-line arguments, so they override application.yml (SQL and debug logging)
+                .run("--openai_key=benchmark",
+                        "--spring.datasource.url=jdbc:h2:mem:benchdb",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--insights.pregeneration.cron=-",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.com.hbs.spending_insight_agent=ERROR",
+                        "--logging.level.dev.langchain4j=WARN");
+        SeededDatabase database = new SeededDatabase(context);
+        database.seed(sizes);
+        return database;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private void seed(int... sizes) {
+        JdbcTemplate jdbc = bean(JdbcTemplate.class);
+        int days = (int) (TO.toEpochDay() - FROM.toEpochDay()) + 1;
+        for (int size : sizes) {
+            String accountId = accountId(size);
+            jdbc.update("INSERT INTO accounts(id, customer_name, currency, opened_on) VALUES (?, 'Benchmark', 'SGD', ?)",
+                    accountId, Date.valueOf(FROM.minusYears(1)));
+            List<Object[]> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rows.add(new Object[]{
+                        accountId,
+                        CATEGORIES[i % CATEGORIES.length],
+                        BigDecimal.valueOf(100 + (i * 7919L) % 50_000, 2),
+                        Date.valueOf(FROM.plusDays((long) i * days / size)),
+                        "Merchant " + (i % 97)});
+            }
+            jdbc.batchUpdate("INSERT INTO transactions(account_id, category, amount, date, merchant) VALUES (?, ?, ?, ?, ?)",
+                    rows);
+        }
+        bean(AccountSummaryService.class).rebuildRollups();
+        bean(SpendingStatsService.class).rebuildStats();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
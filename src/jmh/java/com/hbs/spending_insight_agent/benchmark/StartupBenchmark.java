@@ -0,0 +1,191 @@
+package com.hbs.spending_insight_agent.benchmark;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cold-start benchmark of the packaged application: starts the jar in a fresh JVM, and measures
+ * from process start to the first successful response of a data endpoint (time to first
+ * successful request) and to {@code /actuator/health/readiness} reporting UP (LLM clients warm).
+ * <p>
+ * Each mode is started {@code --runs} times: {@code plain} runs the repackaged jar,
+ * {@code fast-start} the extracted jar of the {@code fast-start} Maven profile with its CDS
+ * archive and the AOT-generated context; a mode whose files are missing is skipped. Options:
+ * <pre>
+ * --java .../bin/java   --jar target/app.jar   --fast-start-dir target/fast-start
+ * --modes plain,fast-start   --runs 5   --port 18688   --timeout 120s   --result startup-result.json
+ * --path "/api/spending/trend?accountId=A123&amp;year=2025&amp;month=11&amp;months=12"
+ * </pre>
+ * Prints min/median/max per mode and writes them as JSON to {@code --result}.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private final String java;
+    private final Path jar;
+    private final Path fastStartDir;
+    private final int port;
+    private final String path;
+    private final Duration timeout;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    private StartupBenchmark(Map<String, String> options) {
+        this.java = options.getOrDefault("java", Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        this.jar = Path.of(options.getOrDefault("jar", "target/spending-insight-agent-0.0.1-SNAPSHOT.jar"));
+        this.fastStartDir = Path.of(options.getOrDefault("fast-start-dir", "target/fast-start"));
+        this.port = Integer.parseInt(options.getOrDefault("port", "18688"));
+        this.path = options.getOrDefault("path", "/api/spending/trend?accountId=A123&year=2025&month=11&months=12");
+        this.timeout = DurationStyle.detectAndParse(options.getOrDefault("timeout", "120s"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        StartupBenchmark benchmark = new StartupBenchmark(options);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+
+        Map<String, Map<String, Stats>> results = new LinkedHashMap<>();
+        for (String mode : options.getOrDefault("modes", "plain,fast-start").split(",")) {
+            List<String> command = benchmark.command(mode);
+            if (command == null) {
+                System.out.printf("%s: skipped, build it first (see pom.xml)%n", mode);
+                continue;
+            }
+            List<Timing> timings = new ArrayList<>();
+            for (int run = 1; run <= runs; run++) {
+                Timing timing = benchmark.start(command);
+                System.out.printf("%s run %d: first request %d ms, ready %d ms%n",
+                        mode, run, timing.firstRequestMillis(), timing.readyMillis());
+                timings.add(timing);
+            }
+            Map<String, Stats> stats = new LinkedHashMap<>();
+            stats.put("firstRequestMillis", Stats.of(timings.stream().mapToLong(Timing::firstRequestMillis).toArray()));
+            stats.put("readyMillis", Stats.of(timings.stream().mapToLong(Timing::readyMillis).toArray()));
+            results.put(mode, stats);
+        }
+
+        results.forEach((mode, stats) -> stats.forEach((metric, s) ->
+                System.out.printf("%-10s %-18s min %6d  median %6d  max %6d ms%n",
+                        mode, metric, s.min(), s.median(), s.max())));
+        if (options.containsKey("result")) {
+            Files.writeString(Path.of(options.get("result")), toJson(results));
+        }
+    }
+
+    private List<String> command(String mode) {
+        List<String> command = new ArrayList<>(List.of(java));
+        switch (mode) {
+            case "plain" -> {
+                if (!Files.isRegularFile(jar)) {
+                    return null;
+                }
+                command.addAll(List.of("-jar", jar.toString()));
+            }
+            case "fast-start" -> {
+                Path extracted = fastStartDir.resolve(jar.getFileName());
+                Path archive = fastStartDir.resolve("application.jsa");
+                if (!Files.isRegularFile(extracted) || !Files.isRegularFile(archive)) {
+                    return null;
+                }
+                command.addAll(List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                        "-jar", extracted.toString()));
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + ", expected plain or fast-start");
+        }
+        command.add("--server.port=" + port);
+        return command;
+    }
+
+    private Timing start(List<String> command) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().putIfAbsent("openai_key", "startup-benchmark");
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long firstRequest = awaitOk(process, start, path);
+            long ready = awaitOk(process, start, "/actuator/health/readiness");
+            return new Timing(firstRequest, ready);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Milliseconds from process start until GET path first answered 2xx
+    private long awaitOk(Process process, long start, String path) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long deadline = start + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + " before " + path);
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2) {
+                    return (System.nanoTime() - start) / 1_000_000;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(POLL_INTERVAL);
+        }
+        throw new IllegalStateException("No successful response from " + path + " within " + timeout);
+    }
+
+    private static String toJson(Map<String, Map<String, Stats>> results) {
+        return results.entrySet().stream()
+                .map(mode -> "  \"" + mode.getKey() + "\": {" + mode.getValue().entrySet().stream()
+                        .map(e -> String.format("\"%s\": {\"min\": %d, \"median\": %d, \"max\": %d}",
+                                e.getKey(), e.getValue().min(), e.getValue().median(), e.getValue().max()))
+                        .collect(Collectors.joining(", ")) + "}")
+                .collect(Collectors.joining(",\n", "{\n", "\n}\n"));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an --option, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private record Timing(long firstRequestMillis, long readyMillis) {
+    }
+
+    private record Stats(long min, long median, long max) {
+
+        private static Stats of(long[] values) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            return new Stats(sorted[0], sorted[sorted.length / 2], sorted[sorted.length - 1]);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.hbs.spending_insight_agent.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money ({@code long} minor units) against the {@link BigDecimal} code it replaced: summing a
+ * month of amounts, and the percentage-change step of the spending analysis.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyArithmeticBenchmark {
+
+    private static final Currency SGD = Currency.getInstance("SGD");
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private BigDecimal[] decimals;
+
+    private Money[] monies;
+
+    private long[] minorUnits;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        decimals = new BigDecimal[size];
+        monies = new Money[size];
+        minorUnits = new long[size];
+        for (int i = 0; i < size; i++) {
+            long cents = random.nextLong(1, 500_000);
+            decimals[i] = BigDecimal.valueOf(cents, 2);
+            monies[i] = new Money(cents, SGD);
+            minorUnits[i] = cents;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : decimals) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money sumMoney() {
+        Money total = Money.zero(SGD);
+        for (Money amount : monies) {
+            total = total.plus(amount);
+        }
+        return total;
+    }
+
+    /** The columnar store's loop: minor units straight from a primitive array. */
+    @Benchmark
+    public Money sumMinorUnits() {
+        long total = 0;
+        for (long amount : minorUnits) {
+            total = Math.addExact(total, amount);
+        }
+        return new Money(total, SGD);
+    }
+
+    @Benchmark
+    public void percentChangeBigDecimal(Blackhole blackhole) {
+        for (int i = 1; i < decimals.length; i++) {
+            blackhole.consume(decimals[i].subtract(decimals[i - 1]).multiply(HUNDRED)
+                    .divide(decimals[i - 1], 1, RoundingMode.HALF_UP));
+        }
+    }
+
+    @Benchmark
+    public void percentChangeMoney(Blackhole blackhole) {
+        for (int i = 1; i < monies.length; i++) {
+            blackhole.consume(monies[i].percentChangeFrom(monies[i - 1]));
+        }
+    }
+}
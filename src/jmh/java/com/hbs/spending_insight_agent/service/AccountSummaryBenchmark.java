@@ -0,0 +1,74 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.benchmark.SeededDatabase;
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monthly total and category breakdown through {@link AccountSummaryService} (rollups), against
+ * the SQL aggregate over the transactions table that it falls back to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountSummaryBenchmark {
+
+    @Param({"10", "500", "50000"})
+    int rows;
+
+    private SeededDatabase database;
+
+    private AccountSummaryService summaryService;
+
+    private TransactionRepository transactionRepo;
+
+    private String accountId;
+
+    @Setup
+    public void setUp() {
+        database = SeededDatabase.start(rows);
+        summaryService = database.bean(AccountSummaryService.class);
+        transactionRepo = database.bean(TransactionRepository.class);
+        accountId = SeededDatabase.accountId(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public BigDecimal getTotalSpent() {
+        return summaryService.getTotalSpent(accountId, SeededDatabase.MONTH);
+    }
+
+    @Benchmark
+    public List<CategoryTotal> getCategoryTotals() {
+        return summaryService.getCategoryTotals(accountId, SeededDatabase.MONTH);
+    }
+
+    @Benchmark
+    public BigDecimal sumTransactionsInSql() {
+        return transactionRepo.sumAmountByAccountIdAndDateBetween(
+                accountId, SeededDatabase.MONTH.atDay(1), SeededDatabase.MONTH.atEndOfMonth());
+    }
+}
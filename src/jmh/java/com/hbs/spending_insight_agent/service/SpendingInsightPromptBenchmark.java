@@ -0,0 +1,65 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.benchmark.SeededDatabase;
+import com.hbs.spending_insight_agent.model.SpendingAnalysis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt construction for {@code PRECOMPUTED} mode: the analysis queries plus the facts prompt,
+ * and the string building alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpendingInsightPromptBenchmark {
+
+    @Param({"500"})
+    int rows;
+
+    private SeededDatabase database;
+
+    private SpendingAnalysisService analysisService;
+
+    private String accountId;
+
+    private SpendingAnalysis analysis;
+
+    @Setup
+    public void setUp() {
+        database = SeededDatabase.start(rows);
+        analysisService = database.bean(SpendingAnalysisService.class);
+        accountId = SeededDatabase.accountId(rows);
+        analysis = analysisService.analyze(accountId, SeededDatabase.MONTH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public String buildFactsPrompt() {
+        return SpendingInsightService.buildFactsPrompt(analysis);
+    }
+
+    @Benchmark
+    public String analyzeAndBuildFactsPrompt() {
+        return SpendingInsightService.buildFactsPrompt(analysisService.analyze(accountId, SeededDatabase.MONTH));
+    }
+}
@@ -0,0 +1,65 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.benchmark.SeededDatabase;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 90-day range read with 10, 500 and 50k matching rows; results are capped at
+ * {@link TransactionService#MAX_RESULTS} (entities) and {@link TransactionService#MAX_TOOL_ROWS}
+ * (rows), so the largest size measures the cost of the limit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionServiceBenchmark {
+
+    @Param({"10", "500", "50000"})
+    int rows;
+
+    private SeededDatabase database;
+
+    private TransactionService txnService;
+
+    private String accountId;
+
+    @Setup
+    public void setUp() {
+        database = SeededDatabase.start(rows);
+        txnService = database.bean(TransactionService.class);
+        accountId = SeededDatabase.accountId(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Transaction> getTransactions() {
+        return txnService.getTransactions(accountId, SeededDatabase.FROM, SeededDatabase.TO);
+    }
+
+    @Benchmark
+    public List<TransactionRow> getTransactionRows() {
+        return txnService.getTransactionRows(accountId, SeededDatabase.FROM, SeededDatabase.TO);
+    }
+}
@@ -0,0 +1,115 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.listener.AiServiceCompletedListener;
+import dev.langchain4j.observability.api.listener.AiServiceErrorListener;
+import dev.langchain4j.observability.api.listener.AiServiceListener;
+import dev.langchain4j.observability.api.listener.AiServiceResponseReceivedListener;
+import dev.langchain4j.observability.api.listener.ToolExecutedEventListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Agent-side meters:
+ * <ul>
+ *     <li>{@code insights.tool.duration}: latency and count per tool call, tagged by tool and outcome</li>
+ *     <li>{@code insights.tool.rows}: rows returned per call of row-returning tools</li>
+ *     <li>{@code insights.agent.tool.iterations}: model turns that asked for tools, per AI service call</li>
+ *     <li>{@code insights.agent.tool.calls}: tool executions per AI service call</li>
+ * </ul>
+ * The per-run meters are fed by the AI service listeners from {@link #runListeners()}, tagged by
+ * service method and outcome.
+ */
+@Component
+public class AgentMetrics {
+
+    private final MeterRegistry registry;
+
+    // Runs whose completion event never arrives must not pile up
+    private final Cache<UUID, RunCounts> runs = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public AgentMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Runs {@code call} as one timed invocation of {@code tool}.
+     */
+    public <T> T timeTool(String tool, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("insights.tool.duration")
+                    .description("Tool call latency")
+                    .tags("tool", tool, "outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    public void recordRows(String tool, int rows) {
+        DistributionSummary.builder("insights.tool.rows")
+                .description("Rows returned per tool call")
+                .baseUnit("rows")
+                .tags("tool", tool)
+                .register(registry)
+                .record(rows);
+    }
+
+    /**
+     * Listeners to register on every AI service; they count model turns and tool executions per
+     * invocation and record them when it completes or fails.
+     */
+    public List<AiServiceListener<?>> runListeners() {
+        return List.of(
+                (AiServiceResponseReceivedListener) event -> {
+                    if (event.response().aiMessage().hasToolExecutionRequests()) {
+                        counts(event).toolIterations.incrementAndGet();
+                    }
+                },
+                (ToolExecutedEventListener) event -> counts(event).toolCalls.incrementAndGet(),
+                (AiServiceCompletedListener) event -> finish(event, "success"),
+                (AiServiceErrorListener) event -> finish(event, "error"));
+    }
+
+    private RunCounts counts(AiServiceEvent event) {
+        return runs.get(event.invocationContext().invocationId(), id -> new RunCounts());
+    }
+
+    private void finish(AiServiceEvent event, String outcome) {
+        RunCounts counts = runs.asMap().remove(event.invocationContext().invocationId());
+        String method = event.invocationContext().methodName();
+        summary("insights.agent.tool.iterations", "Model turns that requested tools, per AI service call",
+                method, outcome).record(counts == null ? 0 : counts.toolIterations.get());
+        summary("insights.agent.tool.calls", "Tool executions per AI service call",
+                method, outcome).record(counts == null ? 0 : counts.toolCalls.get());
+    }
+
+    private DistributionSummary summary(String name, String description, String method, String outcome) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tags("method", method == null ? "unknown" : method, "outcome", outcome)
+                .register(registry);
+    }
+
+    private static final class RunCounts {
+        private final AtomicInteger toolIterations = new AtomicInteger();
+        private final AtomicInteger toolCalls = new AtomicInteger();
+    }
+}
@@ -0,0 +1,294 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.MerchantTotal;
+import com.hbs.spending_insight_agent.model.SpendingAnomalies;
+import com.hbs.spending_insight_agent.model.SpendingTrend;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token-efficient text rendering of transaction rows for tool results.
+ * <p>
+ * Instead of a JSON object per row (repeating every field name, the id and the account id),
+ * rows are tab-separated under a single header and categories are replaced by a short code
+ * from a dictionary line:
+ * <pre>
+ * categories: 0=Food; 1=Travel
+ * date	amount	cat	merchant
+ * 2025-11-01	121.00	0	GrabFood
+ * 2025-11-18	1400.00	1	Singapore Airlines
+ * rows: 2
+ * </pre>
+ * {@link #summarize} is the degraded form for results too large to list: per-category and
+ * per-merchant aggregates over every fetched row, then only the largest transactions. Aggregates computed
+ * by the database use the same {@code name	total	count} lines.
+ */
+public final class CompactTransactionFormat {
+
+    public static final String HEADER = "date\tamount\tcat\tmerchant";
+
+    private CompactTransactionFormat() {
+    }
+
+    public static String format(List<TransactionRow> rows, boolean truncated) {
+        StringBuilder out = new StringBuilder(rows.size() * 32 + 64);
+        appendRows(out, rows);
+        out.append("rows: ").append(rows.size());
+        appendLimitMarker(out, truncated);
+        return out.toString();
+    }
+
+    /**
+     * Aggregates over all {@code rows} (at most {@code maxGroups} categories and merchants each,
+     * the rest folded into one "other" line), then the {@code topN} largest transactions by amount.
+     * When {@code truncated}, the rows are only the first ones of the range, and the header says so:
+     * <pre>
+     * summary: 1200 transactions, total 53210.00; too many to list, aggregates cover all of them
+     * by category (name	total	count):
+     * Food	12034.50	610
+     * by merchant (name	total	count):
+     * GrabFood	8100.00	402
+     * other (41 merchants)	2210.00	96
+     * largest transactions:
+     * categories: 0=Travel
+     * date	amount	cat	merchant
+     * 2025-11-18	1400.00	0	Singapore Airlines
+     * rows: 1 of 1200 listed, 1199 summarized
+     * </pre>
+     */
+    public static String summarize(List<TransactionRow> rows, boolean truncated, int topN, int maxGroups) {
+        BigDecimal total = BigDecimal.ZERO;
+        Map<String, Group> categories = new HashMap<>();
+        Map<String, Group> merchants = new HashMap<>();
+        for (TransactionRow row : rows) {
+            total = total.add(row.amount());
+            categories.computeIfAbsent(sanitize(row.category()), Group::new).add(row.amount());
+            merchants.computeIfAbsent(sanitize(row.merchant()), Group::new).add(row.amount());
+        }
+
+        List<TransactionRow> largest = rows.stream()
+                .sorted(Comparator.comparing(TransactionRow::amount).reversed())
+                .limit(topN)
+                .toList();
+
+        StringBuilder out = new StringBuilder(1024 + largest.size() * 32);
+        out.append("summary: ").append(rows.size()).append(" transactions, total ").append(total.toPlainString())
+                .append(truncated
+                        ? "; too many to list, aggregates cover only these first " + rows.size() + " of the range\n"
+                        : "; too many to list, aggregates cover all of them\n");
+        appendGroups(out, "category", "categories", categories, maxGroups);
+        appendGroups(out, "merchant", "merchants", merchants, maxGroups);
+        out.append("largest transactions:\n");
+        appendRows(out, largest);
+        out.append("rows: ").append(largest.size()).append(" of ").append(rows.size())
+                .append(" listed, ").append(rows.size() - largest.size()).append(" summarized");
+        appendLimitMarker(out, truncated);
+        return out.toString();
+    }
+
+    /**
+     * Per-category totals, followed by their grand total:
+     * <pre>
+     * category	total	count
+     * Travel	1400.00	1
+     * Food	121.00	1
+     * total: 1521.00 in 2 transactions
+     * </pre>
+     */
+    public static String formatCategoryTotals(List<CategoryTotal> totals) {
+        StringBuilder out = new StringBuilder("category\ttotal\tcount\n");
+        BigDecimal total = BigDecimal.ZERO;
+        long count = 0;
+        for (CategoryTotal category : totals) {
+            appendTotal(out, category.category(), category.total(), category.count());
+            total = total.add(category.total());
+            count += category.count();
+        }
+        out.append("total: ").append(total.toPlainString()).append(" in ").append(count).append(" transactions");
+        return out.toString();
+    }
+
+    /**
+     * Merchant totals, largest first, with a note when there may be more merchants than listed.
+     */
+    public static String formatMerchantTotals(List<MerchantTotal> totals, int requested) {
+        StringBuilder out = new StringBuilder("merchant\ttotal\tcount\n");
+        for (MerchantTotal merchant : totals) {
+            appendTotal(out, merchant.merchant(), merchant.total(), merchant.count());
+        }
+        out.append("merchants: ").append(totals.size());
+        if (totals.size() >= requested) {
+            out.append(" (top ").append(requested).append(" only)");
+        }
+        return out.toString();
+    }
+
+    /**
+     * Spikes and unusual transactions of one month:
+     * <pre>
+     * month: 2025-11	total: 2051.00	baseline: 690.00 (1 months)	change: +197.2%	SPIKE
+     * category spikes (category	amount	baseline	change%):
+     * Travel	1400.00	200.00	+600.0
+     * unusual transactions (date	amount	category	merchant	share%	z):
+     * 2025-11-18	1400.00	Travel	Singapore Airlines	68.3	-
+     * </pre>
+     * A category without a baseline change is new this month; {@code z} is {@code -} while the
+     * category has too little history.
+     */
+    public static String formatAnomalies(SpendingAnomalies anomalies) {
+        StringBuilder out = new StringBuilder("month: ").append(anomalies.month())
+                .append("\ttotal: ").append(anomalies.total().toPlainString());
+        if (anomalies.baseline() == null) {
+            out.append("\tbaseline: none (no earlier spending)\n");
+        } else {
+            out.append("\tbaseline: ").append(anomalies.baseline().toPlainString())
+                    .append(" (").append(anomalies.baselineMonths()).append(" months)")
+                    .append("\tchange: ").append(signedPct(anomalies.changePct()))
+                    .append(anomalies.spike() ? "\tSPIKE" : "").append('\n');
+        }
+
+        if (anomalies.categorySpikes().isEmpty()) {
+            out.append("category spikes: none\n");
+        } else {
+            out.append("category spikes (category\tamount\tbaseline\tchange%):\n");
+            for (SpendingAnomalies.CategorySpike spike : anomalies.categorySpikes()) {
+                out.append(sanitize(spike.category())).append('\t')
+                        .append(spike.amount().toPlainString()).append('\t')
+                        .append(spike.baseline().toPlainString()).append('\t')
+                        .append(spike.changePct() == null ? "new" : signedPct(spike.changePct())).append('\n');
+            }
+        }
+
+        if (anomalies.unusualTransactions().isEmpty()) {
+            out.append("unusual transactions: none");
+        } else {
+            out.append("unusual transactions (date\tamount\tcategory\tmerchant\tshare%\tz):");
+            for (SpendingAnomalies.UnusualTransaction txn : anomalies.unusualTransactions()) {
+                out.append('\n').append(txn.date()).append('\t')
+                        .append(txn.amount().toPlainString()).append('\t')
+                        .append(sanitize(txn.category())).append('\t')
+                        .append(sanitize(txn.merchant())).append('\t')
+                        .append(txn.sharePct().toPlainString()).append('\t')
+                        .append(txn.zScore() == null ? "-" : String.format("%.1f", txn.zScore()));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * One line per month, one column per category (largest over the window first), zeros as {@code 0}:
+     * <pre>
+     * trend: 2025-10..2025-11 (2 months)
+     * month	total	Travel	Shopping
+     * 2025-10	400.00	200.00	200.00
+     * 2025-11	1720.00	1400.00	320.00
+     * </pre>
+     */
+    public static String formatTrend(SpendingTrend trend) {
+        StringBuilder out = new StringBuilder(64 + trend.months().size() * (16 + trend.categories().size() * 8))
+                .append("trend: ").append(trend.from()).append("..").append(trend.to())
+                .append(" (").append(trend.months().size()).append(" months)\nmonth\ttotal");
+        for (String category : trend.categories()) {
+            out.append('\t').append(sanitize(category));
+        }
+        for (SpendingTrend.Month month : trend.months()) {
+            out.append('\n').append(month.month()).append('\t').append(compactAmount(month.total()));
+            for (BigDecimal amount : month.amounts()) {
+                out.append('\t').append(compactAmount(amount));
+            }
+        }
+        return out.toString();
+    }
+
+    private static String compactAmount(BigDecimal amount) {
+        return amount.signum() == 0 ? "0" : amount.toPlainString();
+    }
+
+    private static String signedPct(BigDecimal pct) {
+        return (pct.signum() > 0 ? "+" : "") + pct.toPlainString() + "%";
+    }
+
+    private static void appendTotal(StringBuilder out, String name, BigDecimal total, long count) {
+        out.append(sanitize(name)).append('\t').append(total.toPlainString()).append('\t').append(count).append('\n');
+    }
+
+    private static void appendRows(StringBuilder out, List<TransactionRow> rows) {
+        Map<String, Integer> codes = new LinkedHashMap<>();
+        StringBuilder body = new StringBuilder(rows.size() * 32);
+        for (TransactionRow row : rows) {
+            int code = codes.computeIfAbsent(sanitize(row.category()).replace(';', ','), c -> codes.size());
+            body.append(row.date()).append('\t')
+                    .append(row.amount().toPlainString()).append('\t')
+                    .append(code).append('\t')
+                    .append(sanitize(row.merchant())).append('\n');
+        }
+
+        out.append("categories: ");
+        codes.forEach((category, code) -> {
+            if (code > 0) {
+                out.append("; ");
+            }
+            out.append(code).append('=').append(category);
+        });
+        out.append('\n').append(HEADER).append('\n').append(body);
+    }
+
+    private static void appendGroups(StringBuilder out, String label, String plural,
+                                     Map<String, Group> groups, int maxGroups) {
+        List<Group> sorted = new ArrayList<>(groups.values());
+        sorted.sort(Comparator.comparing((Group g) -> g.total).reversed().thenComparing(g -> g.name));
+
+        out.append("by ").append(label).append(" (name\ttotal\tcount):\n");
+        int listed = Math.min(sorted.size(), maxGroups);
+        for (Group group : sorted.subList(0, listed)) {
+            out.append(group.name).append('\t').append(group.total.toPlainString())
+                    .append('\t').append(group.count).append('\n');
+        }
+        if (listed < sorted.size()) {
+            Group other = new Group("other (" + (sorted.size() - listed) + " " + plural + ")");
+            for (Group group : sorted.subList(listed, sorted.size())) {
+                other.total = other.total.add(group.total);
+                other.count += group.count;
+            }
+            out.append(other.name).append('\t').append(other.total.toPlainString())
+                    .append('\t').append(other.count).append('\n');
+        }
+    }
+
+    private static void appendLimitMarker(StringBuilder out, boolean truncated) {
+        if (truncated) {
+            out.append(" (limit reached, more transactions may exist in this range)");
+        }
+    }
+
+    private static String sanitize(String value) {
+        if (value == null || value.isBlank()) {
+            return "-";
+        }
+        // Keep the row/column structure intact
+        return value.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    private static final class Group {
+        private final String name;
+        private BigDecimal total = BigDecimal.ZERO;
+        private long count;
+
+        private Group(String name) {
+            this.name = name;
+        }
+
+        private void add(BigDecimal amount) {
+            total = total.add(amount);
+            count++;
+        }
+    }
+}
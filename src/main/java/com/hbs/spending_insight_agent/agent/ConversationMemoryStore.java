@@ -0,0 +1,96 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
+import dev.langchain4j.memory.chat.TokenWindowChatMemory;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, in-memory chat memory keyed by memory id.
+ * <p>
+ * Each id gets its own token-window memory, so a request only ever re-sends its own
+ * conversation and never more than {@code maxTokens} of it. Conversations are dropped
+ * least-recently-used once {@code maxConversations} is exceeded, or after {@code idleTimeout}
+ * without access. Listeners registered via {@link #onEvicted(Consumer)} are told about
+ * dropped ids so the AI service can forget its handle to them too.
+ */
+@Slf4j
+public class ConversationMemoryStore implements ChatMemoryStore, ChatMemoryProvider {
+
+    private final Cache<Object, List<ChatMessage>> conversations;
+
+    private final int maxTokens;
+
+    private final TokenCountEstimator tokenCountEstimator;
+
+    private final List<Consumer<Object>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    public ConversationMemoryStore(long maxConversations, Duration idleTimeout,
+                                   int maxTokens, TokenCountEstimator tokenCountEstimator) {
+        this.maxTokens = maxTokens;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.conversations = Caffeine.newBuilder()
+                .maximumSize(maxConversations)
+                .expireAfterAccess(idleTimeout)
+                // Listeners are cheap map removals; run them inline rather than on the common pool
+                .executor(Runnable::run)
+                .removalListener((Object memoryId, List<ChatMessage> messages, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        log.debug("Chat memory: evicted memoryId={} ({})", memoryId, cause);
+                        evictionListeners.forEach(listener -> listener.accept(memoryId));
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public ChatMemory get(Object memoryId) {
+        return TokenWindowChatMemory.builder()
+                .id(memoryId)
+                .maxTokens(maxTokens, tokenCountEstimator)
+                .chatMemoryStore(this)
+                .build();
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        List<ChatMessage> messages = conversations.getIfPresent(memoryId);
+        return messages == null ? List.of() : messages;
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        conversations.put(memoryId, List.copyOf(messages));
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        conversations.invalidate(memoryId);
+    }
+
+    public void onEvicted(Consumer<Object> listener) {
+        evictionListeners.add(listener);
+    }
+
+    public long size() {
+        return conversations.estimatedSize();
+    }
+
+    /**
+     * Runs pending evictions now; Caffeine otherwise does this lazily on later access.
+     */
+    public void cleanUp() {
+        conversations.cleanUp();
+    }
+}
@@ -0,0 +1,286 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.CompleteToolCall;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.PartialThinking;
+import dev.langchain4j.model.chat.response.PartialThinkingContext;
+import dev.langchain4j.model.chat.response.PartialToolCall;
+import dev.langchain4j.model.chat.response.PartialToolCallContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limiter for outbound LLM calls.
+ * <p>
+ * At most {@code maxConcurrent} calls are in flight; up to {@code maxQueue} further callers wait
+ * (each at most {@code maxWait}) in FIFO order. Anyone beyond that is rejected immediately with
+ * {@link LlmCapacityExceededException}, so a burst degrades into fast 429s instead of piling up
+ * blocked threads. The permit is held for one model round trip, not a whole agent run; a stream
+ * cancelled through its {@link StreamingHandle} gives the permit back on cancel, since the model
+ * sends no further callbacks after that.
+ */
+@Slf4j
+public class LlmBulkhead {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+
+    public LlmBulkhead(int maxConcurrent, int maxQueue, Duration maxWait, Duration retryAfter) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Waits for a permit; the returned handle must be closed exactly once when the call ends.
+     */
+    public Permit acquire() {
+        long start = System.nanoTime();
+        if (!permits.tryAcquire()) {
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                throw reject("LLM wait queue is full");
+            }
+            try {
+                if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                    throw reject("Timed out waiting for LLM capacity");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("Interrupted while waiting for LLM capacity");
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        long queuedNanos = System.nanoTime() - start;
+        admitted.increment();
+        totalQueueNanos.add(queuedNanos);
+        maxQueueNanos.accumulateAndGet(queuedNanos, Math::max);
+        if (queuedNanos > TimeUnit.MILLISECONDS.toNanos(100)) {
+            log.debug("LLM bulkhead: admitted after {} ms in queue", TimeUnit.NANOSECONDS.toMillis(queuedNanos));
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+    }
+
+    public Stats stats() {
+        long admittedCount = admitted.sum();
+        return new Stats(
+                maxConcurrent - permits.availablePermits(),
+                waiting.get(),
+                admittedCount,
+                rejected.sum(),
+                admittedCount == 0 ? Duration.ZERO : Duration.ofNanos(totalQueueNanos.sum() / admittedCount),
+                Duration.ofNanos(maxQueueNanos.get()));
+    }
+
+    public ChatModel protect(ChatModel delegate) {
+        return new BulkheadChatModel(delegate);
+    }
+
+    public StreamingChatModel protect(StreamingChatModel delegate) {
+        return new BulkheadStreamingChatModel(delegate);
+    }
+
+    private LlmCapacityExceededException reject(String reason) {
+        rejected.increment();
+        log.warn("LLM bulkhead: rejecting call ({}), inFlight={}, waiting={}",
+                reason, maxConcurrent - permits.availablePermits(), waiting.get());
+        return new LlmCapacityExceededException(reason, retryAfter);
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Point-in-time view of the limiter; queue times cover admitted calls only.
+     */
+    public record Stats(int inFlight, int waiting, long admitted, long rejected,
+                        Duration averageQueueTime, Duration maxQueueTime) {
+    }
+
+    private final class BulkheadChatModel implements ChatModel {
+
+        private final ChatModel delegate;
+
+        private BulkheadChatModel(ChatModel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            try (Permit ignored = acquire()) {
+                return delegate.chat(request);
+            }
+        }
+
+        @Override
+        public ChatRequestParameters defaultRequestParameters() {
+            return delegate.defaultRequestParameters();
+        }
+
+        @Override
+        public List<ChatModelListener> listeners() {
+            return delegate.listeners();
+        }
+
+        @Override
+        public ModelProvider provider() {
+            return delegate.provider();
+        }
+
+        @Override
+        public Set<Capability> supportedCapabilities() {
+            return delegate.supportedCapabilities();
+        }
+    }
+
+    private final class BulkheadStreamingChatModel implements StreamingChatModel {
+
+        private final StreamingChatModel delegate;
+
+        private BulkheadStreamingChatModel(StreamingChatModel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void chat(ChatRequest request, StreamingChatResponseHandler handler) {
+            // Held until the stream completes or fails, not just until it starts
+            Permit permit = acquire();
+            try {
+                delegate.chat(request, new ReleasingHandler(handler, permit));
+            } catch (RuntimeException e) {
+                permit.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public ChatRequestParameters defaultRequestParameters() {
+            return delegate.defaultRequestParameters();
+        }
+
+        @Override
+        public List<ChatModelListener> listeners() {
+            return delegate.listeners();
+        }
+
+        @Override
+        public ModelProvider provider() {
+            return delegate.provider();
+        }
+
+        @Override
+        public Set<Capability> supportedCapabilities() {
+            return delegate.supportedCapabilities();
+        }
+    }
+
+    private record ReleasingHandler(StreamingChatResponseHandler delegate, Permit permit)
+            implements StreamingChatResponseHandler {
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            delegate.onPartialResponse(partialResponse);
+        }
+
+        @Override
+        public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+            delegate.onPartialResponse(partialResponse, new PartialResponseContext(releasing(context.streamingHandle())));
+        }
+
+        @Override
+        public void onPartialThinking(PartialThinking partialThinking) {
+            delegate.onPartialThinking(partialThinking);
+        }
+
+        @Override
+        public void onPartialThinking(PartialThinking partialThinking, PartialThinkingContext context) {
+            delegate.onPartialThinking(partialThinking, new PartialThinkingContext(releasing(context.streamingHandle())));
+        }
+
+        @Override
+        public void onPartialToolCall(PartialToolCall partialToolCall) {
+            delegate.onPartialToolCall(partialToolCall);
+        }
+
+        @Override
+        public void onPartialToolCall(PartialToolCall partialToolCall, PartialToolCallContext context) {
+            delegate.onPartialToolCall(partialToolCall, new PartialToolCallContext(releasing(context.streamingHandle())));
+        }
+
+        @Override
+        public void onCompleteToolCall(CompleteToolCall completeToolCall) {
+            delegate.onCompleteToolCall(completeToolCall);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            // Release first: the next round trip of the same agent run may need a permit
+            permit.close();
+            delegate.onCompleteResponse(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            permit.close();
+            delegate.onError(error);
+        }
+
+        private StreamingHandle releasing(StreamingHandle handle) {
+            return new StreamingHandle() {
+                @Override
+                public void cancel() {
+                    // Only once the model has really stopped; an unsupported cancel keeps the call in flight
+                    handle.cancel();
+                    permit.close();
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return handle.isCancelled();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.hbs.spending_insight_agent.agent;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the LLM bulkhead is saturated: every permit is in use and the wait queue is full,
+ * or the caller waited longer than allowed. Callers should retry after {@link #getRetryAfter()}.
+ */
+@Getter
+public class LlmCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LlmCapacityExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,96 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every model round trip: latency ({@code insights.llm.duration}, tagged by model,
+ * mode and outcome) and token usage ({@code insights.llm.tokens}, tagged by model, mode and
+ * type {@code input}/{@code output}/{@code total}).
+ * <p>
+ * Registered on the raw models, inside the {@link LlmBulkhead}, so queueing for a permit is not
+ * counted as model latency.
+ */
+public class LlmMetricsListener implements ChatModelListener {
+
+    private static final String START_NANOS = LlmMetricsListener.class.getName() + ".start";
+
+    private final MeterRegistry registry;
+
+    private final String mode;
+
+    /**
+     * @param mode {@code sync} or {@code streaming}, to tell the two model beans apart
+     */
+    public LlmMetricsListener(MeterRegistry registry, String mode) {
+        this.registry = registry;
+        this.mode = mode;
+    }
+
+    @Override
+    public void onRequest(ChatModelRequestContext context) {
+        context.attributes().put(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void onResponse(ChatModelResponseContext context) {
+        String model = modelName(context.chatRequest(), context.chatResponse());
+        record(context.attributes(), model, "success");
+
+        TokenUsage usage = context.chatResponse().tokenUsage();
+        if (usage != null) {
+            count(model, "input", usage.inputTokenCount());
+            count(model, "output", usage.outputTokenCount());
+            count(model, "total", usage.totalTokenCount());
+        }
+    }
+
+    @Override
+    public void onError(ChatModelErrorContext context) {
+        record(context.attributes(), modelName(context.chatRequest(), null), "error");
+    }
+
+    private void record(Map<Object, Object> attributes, String model, String outcome) {
+        if (!(attributes.get(START_NANOS) instanceof Long start)) {
+            return;
+        }
+        Timer.builder("insights.llm.duration")
+                .description("Model round-trip latency")
+                .tags("model", model, "mode", mode, "outcome", outcome)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void count(String model, String type, Integer tokens) {
+        if (tokens == null) {
+            return;
+        }
+        Counter.builder("insights.llm.tokens")
+                .description("Tokens reported by the model")
+                .tags("model", model, "mode", mode, "type", type)
+                .register(registry)
+                .increment(tokens);
+    }
+
+    // The configured name is stable; the response may carry a dated snapshot name
+    private static String modelName(ChatRequest request, ChatResponse response) {
+        if (request != null && request.modelName() != null) {
+            return request.modelName();
+        }
+        if (response != null && response.modelName() != null) {
+            return response.modelName();
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,220 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Logs agent traffic without holding up the calls it describes.
+ * <p>
+ * Every model call gets a one-line summary (mode, model, outcome, latency, message count,
+ * requested tools, tokens). The full request and response are added for a sample of calls
+ * ({@code insights.llm.log.sample-rate}) and for every failed call, with account ids and customer
+ * names removed by {@link PayloadRedactor}.
+ * <p>
+ * The model's thread only takes the summary figures and enqueues them, keeping a reference to
+ * the payload when it is sampled. Rendering, redaction and the appender run on one background
+ * thread. The queue holds {@code insights.llm.log.queue-capacity} calls; when it is full the call
+ * is counted as dropped instead of waiting.
+ */
+@Slf4j
+public class LlmTrafficLog implements AutoCloseable {
+
+    private static final String START_NANOS = LlmTrafficLog.class.getName() + ".start";
+
+    private final PayloadRedactor redactor;
+
+    private final double sampleRate;
+
+    private final BlockingQueue<Entry> queue;
+
+    private final Consumer<String> sink;
+
+    private final Thread writer;
+
+    private final LongAdder logged = new LongAdder();
+
+    private final LongAdder payloads = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public LlmTrafficLog(PayloadRedactor redactor, double sampleRate, int queueCapacity) {
+        this(redactor, sampleRate, queueCapacity, log::info);
+    }
+
+    LlmTrafficLog(PayloadRedactor redactor, double sampleRate, int queueCapacity, Consumer<String> sink) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("insights.llm.log.sample-rate must be in [0, 1]");
+        }
+        this.redactor = redactor;
+        this.sampleRate = sampleRate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.sink = sink;
+        this.writer = Thread.ofPlatform().name("llm-traffic-log").daemon().start(this::drain);
+    }
+
+    /**
+     * Listener for one model bean.
+     *
+     * @param mode {@code sync} or {@code streaming}, as for {@link LlmMetricsListener}
+     */
+    public ChatModelListener listener(String mode) {
+        return new ChatModelListener() {
+            @Override
+            public void onRequest(ChatModelRequestContext context) {
+                context.attributes().put(START_NANOS, System.nanoTime());
+            }
+
+            @Override
+            public void onResponse(ChatModelResponseContext context) {
+                boolean sampled = ThreadLocalRandom.current().nextDouble() < sampleRate;
+                submit(mode, context.attributes(), context.chatRequest(), context.chatResponse(), null, sampled);
+            }
+
+            @Override
+            public void onError(ChatModelErrorContext context) {
+                submit(mode, context.attributes(), context.chatRequest(), null, context.error(), true);
+            }
+        };
+    }
+
+    public Stats stats() {
+        return new Stats(queue.size(), logged.sum(), payloads.sum(), dropped.sum());
+    }
+
+    /**
+     * Stops the writer after it has logged what is already queued.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void submit(String mode, Map<Object, Object> attributes, ChatRequest request,
+                        ChatResponse response, Throwable error, boolean withPayload) {
+        long elapsedMillis = attributes.get(START_NANOS) instanceof Long start
+                ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                : -1;
+        TokenUsage usage = response != null ? response.tokenUsage() : null;
+        Entry entry = new Entry(mode,
+                request != null && request.modelName() != null ? request.modelName() : "unknown",
+                error == null ? "success" : "error",
+                elapsedMillis,
+                request != null ? request.messages().size() : 0,
+                response != null && response.aiMessage().hasToolExecutionRequests()
+                        ? response.aiMessage().toolExecutionRequests().stream()
+                                .map(ToolExecutionRequest::name).collect(Collectors.joining(","))
+                        : "",
+                usage != null ? usage.inputTokenCount() : null,
+                usage != null ? usage.outputTokenCount() : null,
+                response != null && response.finishReason() != null ? response.finishReason().name() : null,
+                error != null ? error.getClass().getSimpleName() : null,
+                withPayload ? request : null,
+                withPayload ? response : null,
+                withPayload ? error : null);
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            // Closing: log what was accepted, then stop
+            for (Entry entry = queue.poll(); entry != null; entry = queue.poll()) {
+                write(entry);
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        try {
+            StringBuilder line = new StringBuilder(String.format(
+                    "LLM call: mode=%s, model=%s, outcome=%s, elapsedMs=%d, messages=%d, tools=[%s], inputTokens=%s, outputTokens=%s",
+                    entry.mode(), entry.model(), entry.outcome(), entry.elapsedMillis(), entry.messages(),
+                    entry.toolCalls(), entry.inputTokens(), entry.outputTokens()));
+            if (entry.finishReason() != null) {
+                line.append(", finishReason=").append(entry.finishReason());
+            }
+            if (entry.errorType() != null) {
+                line.append(", error=").append(entry.errorType());
+            }
+            boolean withPayload = entry.request() != null || entry.response() != null || entry.error() != null;
+            if (withPayload) {
+                line.append('\n').append(redactor.redact(payload(entry)));
+                payloads.increment();
+            }
+            sink.accept(line.toString());
+            logged.increment();
+        } catch (RuntimeException e) {
+            log.warn("Failed to log an LLM call: {}", e.toString());
+        }
+    }
+
+    private static String payload(Entry entry) {
+        StringBuilder sb = new StringBuilder();
+        if (entry.request() != null) {
+            for (ChatMessage message : entry.request().messages()) {
+                sb.append("  > ").append(message.type()).append(": ").append(render(message)).append('\n');
+            }
+        }
+        if (entry.response() != null) {
+            sb.append("  < ").append(render(entry.response().aiMessage())).append('\n');
+        }
+        if (entry.error() != null) {
+            sb.append("  ! ").append(entry.error()).append('\n');
+        }
+        return sb.toString().stripTrailing();
+    }
+
+    private static String render(ChatMessage message) {
+        return switch (message) {
+            case SystemMessage system -> system.text();
+            case UserMessage user -> user.hasSingleText() ? user.singleText() : user.contents().toString();
+            case AiMessage ai -> ai.hasToolExecutionRequests()
+                    ? ai.toolExecutionRequests().stream()
+                            .map(t -> t.name() + t.arguments())
+                            .collect(Collectors.joining(", ", "tools: ", ""))
+                    : String.valueOf(ai.text());
+            case ToolExecutionResultMessage result -> result.toolName() + " -> " + result.text();
+            default -> message.toString();
+        };
+    }
+
+    /**
+     * {@code queued}: calls waiting for the writer; {@code logged}: calls written;
+     * {@code payloads}: of which with full payload; {@code dropped}: calls not logged because the queue was full.
+     */
+    public record Stats(int queued, long logged, long payloads, long dropped) {
+    }
+
+    private record Entry(String mode, String model, String outcome, long elapsedMillis, int messages,
+                         String toolCalls, Integer inputTokens, Integer outputTokens, String finishReason,
+                         String errorType, ChatRequest request, ChatResponse response, Throwable error) {
+    }
+}
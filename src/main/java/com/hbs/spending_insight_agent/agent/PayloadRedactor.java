@@ -0,0 +1,95 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hbs.spending_insight_agent.model.Account;
+import com.hbs.spending_insight_agent.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Removes account ids and customer names from LLM payloads before they are logged.
+ * <p>
+ * Account ids are found where the agent's traffic names them: the {@code accountId} argument of
+ * tool calls and "account &lt;id&gt;" in the user message. Every occurrence of those ids, and of
+ * their customers' names (from {@code accounts}), is then replaced. The whole-token pattern of each
+ * id and name is compiled once and cached per account id. Called off the request threads by
+ * {@link LlmTrafficLog}, so the name lookups never add to request latency.
+ */
+@Component
+public class PayloadRedactor {
+
+    static final String ACCOUNT_MASK = "[account]";
+
+    static final String CUSTOMER_MASK = "[customer]";
+
+    private static final List<Pattern> ACCOUNT_ID_PATTERNS = List.of(
+            // Tool arguments ({"accountId":"A123"}) and key=value renderings
+            Pattern.compile("accountId\"?\\s*[:=]\\s*\"?([A-Za-z0-9_-]+)"),
+            // "Analyze spending for account A123": an id contains a digit, an English word does not
+            Pattern.compile("\\b(?i:account) ([A-Za-z_-]*\\d[A-Za-z0-9_-]*)"));
+
+    private static final String TOKEN_BEFORE = "(?<![A-Za-z0-9_-])";
+
+    private static final String TOKEN_AFTER = "(?![A-Za-z0-9_-])";
+
+    private final AccountRepository accountRepo;
+
+    private final Cache<String, Pattern> accountIdPatterns;
+
+    private final Cache<String, Pattern> customerNamePatterns;
+
+    public PayloadRedactor(AccountRepository accountRepo,
+                           @Value("${insights.llm.log.redaction-cache.max-size:10000}") long maxSize) {
+        this.accountRepo = accountRepo;
+        this.accountIdPatterns = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+        this.customerNamePatterns = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public String redact(String text) {
+        Set<String> accountIds = new LinkedHashSet<>();
+        for (Pattern pattern : ACCOUNT_ID_PATTERNS) {
+            Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                accountIds.add(matcher.group(1));
+            }
+        }
+
+        String redacted = text;
+        for (String accountId : accountIds) {
+            Pattern customerName = customerNamePattern(accountId);
+            redacted = replace(redacted, accountIdPatterns.get(accountId, id -> token(id, 0)), ACCOUNT_MASK);
+            if (customerName != null) {
+                redacted = replace(redacted, customerName, CUSTOMER_MASK);
+            }
+        }
+        return redacted;
+    }
+
+    // Unknown accounts are not cached: they may be created later
+    private Pattern customerNamePattern(String accountId) {
+        return customerNamePatterns.get(accountId, id -> accountRepo.findById(id)
+                .map(Account::getCustomerName)
+                .filter(name -> !name.isBlank())
+                .map(name -> token(name.strip(), Pattern.CASE_INSENSITIVE))
+                .orElse(null));
+    }
+
+    private static Pattern token(String literal, int flags) {
+        return Pattern.compile(TOKEN_BEFORE + Pattern.quote(literal) + TOKEN_AFTER, flags);
+    }
+
+    private static String replace(String text, Pattern token, String mask) {
+        return token.matcher(text).replaceAll(Matcher.quoteReplacement(mask));
+    }
+}
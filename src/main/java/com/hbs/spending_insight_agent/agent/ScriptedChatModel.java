@@ -0,0 +1,246 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Offline stand-in for the OpenAI model (profile {@code offline}), for load tests without
+ * network, cost or rate limits.
+ * <p>
+ * For an agent query it plays the tool-call sequence a real run typically makes, against the
+ * {@link SpendingTools} offered in the request: both monthly totals in one turn, then the
+ * category breakdowns of both months and the top merchants (or, without the aggregate tools,
+ * the transactions of both months) and the anomalies of the month, then an answer of about {@code answerTokens} tokens built from
+ * the tool results. Requests without tools (the writer) get the answer directly. Every turn
+ * waits for a latency drawn from a log-normal distribution, separately configured for tool
+ * turns and answers. Token usage is estimated at four characters per token.
+ */
+public class ScriptedChatModel implements ChatModel {
+
+    public static final String MODEL_NAME = "scripted";
+
+    private static final Pattern AGENT_QUERY = Pattern.compile("account (\\S+) for (\\d{4})-(\\d{2})");
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private static final String FILLER = "Most of the change comes from the categories above, "
+            + "and the remaining spending stayed close to the usual pattern for this account. ";
+
+    private final Latency toolTurnLatency;
+
+    private final Latency answerLatency;
+
+    private final int answerTokens;
+
+    private final List<ChatModelListener> listeners;
+
+    private final AtomicLong callIds = new AtomicLong();
+
+    public ScriptedChatModel(Latency toolTurnLatency, Latency answerLatency, int answerTokens,
+                             List<ChatModelListener> listeners) {
+        this.toolTurnLatency = toolTurnLatency;
+        this.answerLatency = answerLatency;
+        this.answerTokens = answerTokens;
+        this.listeners = List.copyOf(listeners);
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+        ChatResponse response = respond(request);
+        sleep(latencyOf(response));
+        return response;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return ChatRequestParameters.builder().modelName(MODEL_NAME).build();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return listeners;
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return ModelProvider.OTHER;
+    }
+
+    /**
+     * The next scripted turn for {@code request}, without waiting.
+     */
+    ChatResponse respond(ChatRequest request) {
+        List<ChatMessage> turn = currentTurn(request.messages());
+        List<ToolExecutionRequest> calls = nextToolCalls(request, turn);
+        AiMessage message = calls.isEmpty() ? AiMessage.from(answer(turn)) : AiMessage.from(calls);
+
+        int inputTokens = request.messages().stream().mapToInt(ScriptedChatModel::estimateTokens).sum();
+        int outputTokens = estimateTokens(message);
+        return ChatResponse.builder()
+                .aiMessage(message)
+                .modelName(MODEL_NAME)
+                .tokenUsage(new TokenUsage(inputTokens, outputTokens))
+                .finishReason(calls.isEmpty() ? FinishReason.STOP : FinishReason.TOOL_EXECUTION)
+                .build();
+    }
+
+    Duration latencyOf(ChatResponse response) {
+        return (response.aiMessage().hasToolExecutionRequests() ? toolTurnLatency : answerLatency).sample();
+    }
+
+    private List<ToolExecutionRequest> nextToolCalls(ChatRequest request, List<ChatMessage> turn) {
+        if (turn.isEmpty() || !(turn.getFirst() instanceof UserMessage user) || !user.hasSingleText()) {
+            return List.of();
+        }
+        Matcher query = AGENT_QUERY.matcher(user.singleText());
+        if (!query.find()) {
+            return List.of();
+        }
+        String accountId = query.group(1);
+        YearMonth month = YearMonth.of(Integer.parseInt(query.group(2)), Integer.parseInt(query.group(3)));
+
+        Set<String> tools = request.toolSpecifications() == null ? Set.of()
+                : request.toolSpecifications().stream().map(ToolSpecification::name).collect(Collectors.toSet());
+        List<List<ToolExecutionRequest>> plan = new ArrayList<>();
+        if (tools.contains("getAccountSummary")) {
+            plan.add(List.of(
+                    call("getAccountSummary", summaryArguments(accountId, month)),
+                    call("getAccountSummary", summaryArguments(accountId, month.minusMonths(1)))));
+        }
+        if (tools.contains("getCategoryBreakdown") && tools.contains("getTopMerchants")) {
+            List<ToolExecutionRequest> breakdowns = new ArrayList<>(List.of(
+                    call("getCategoryBreakdown", rangeArguments(accountId, month, month)),
+                    call("getCategoryBreakdown", rangeArguments(accountId, month.minusMonths(1), month.minusMonths(1))),
+                    call("getTopMerchants", rangeArguments(accountId, month, month).replace("}", ",\"n\":10}"))));
+            if (tools.contains("getAnomalies")) {
+                breakdowns.add(call("getAnomalies", summaryArguments(accountId, month)));
+            }
+            plan.add(breakdowns);
+        } else if (tools.contains("getRecentTransactions")) {
+            plan.add(List.of(call("getRecentTransactions", rangeArguments(accountId, month.minusMonths(1), month))));
+        }
+
+        long toolTurnsSoFar = turn.stream()
+                .filter(m -> m instanceof AiMessage ai && ai.hasToolExecutionRequests())
+                .count();
+        return toolTurnsSoFar < plan.size() ? plan.get((int) toolTurnsSoFar) : List.of();
+    }
+
+    private String answer(List<ChatMessage> turn) {
+        StringBuilder sb = new StringBuilder("Here is an overview of your spending.\n\n");
+        for (ChatMessage message : turn) {
+            if (message instanceof ToolExecutionResultMessage result) {
+                String text = result.text();
+                // One line per tool result keeps the answer tied to the data without echoing it all
+                int end = text.indexOf('\n');
+                sb.append("- ").append(result.toolName()).append(": ")
+                        .append(end < 0 ? text : text.substring(0, end)).append('\n');
+            }
+        }
+        sb.append('\n');
+        while (sb.length() < answerTokens * CHARS_PER_TOKEN) {
+            sb.append(FILLER);
+        }
+        return sb.toString();
+    }
+
+    private ToolExecutionRequest call(String tool, String arguments) {
+        return ToolExecutionRequest.builder()
+                .id("call_" + callIds.incrementAndGet())
+                .name(tool)
+                .arguments(arguments)
+                .build();
+    }
+
+    private static String summaryArguments(String accountId, YearMonth month) {
+        return String.format("{\"accountId\":\"%s\",\"year\":%d,\"month\":%d}",
+                accountId, month.getYear(), month.getMonthValue());
+    }
+
+    private static String rangeArguments(String accountId, YearMonth from, YearMonth to) {
+        return String.format("{\"accountId\":\"%s\",\"fromDate\":\"%s\",\"toDate\":\"%s\"}",
+                accountId, from.atDay(1), to.atEndOfMonth());
+    }
+
+    /** Messages from the latest user message on: one agent run inside a longer conversation. */
+    private static List<ChatMessage> currentTurn(List<ChatMessage> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                return messages.subList(i, messages.size());
+            }
+        }
+        return List.of();
+    }
+
+    private static int estimateTokens(ChatMessage message) {
+        return switch (message) {
+            case SystemMessage system -> estimateTokens(system.text());
+            case UserMessage user -> user.hasSingleText() ? estimateTokens(user.singleText()) : 1;
+            case ToolExecutionResultMessage result -> estimateTokens(result.text());
+            case AiMessage ai -> estimateTokens(ai.text()) + ai.toolExecutionRequests().stream()
+                    .mapToInt(call -> estimateTokens(call.name() + call.arguments()))
+                    .sum();
+            default -> 1;
+        };
+    }
+
+    private static int estimateTokens(String text) {
+        return text == null ? 0 : text.length() / CHARS_PER_TOKEN + 1;
+    }
+
+    private static void sleep(Duration latency) {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating model latency", e);
+        }
+    }
+
+    /**
+     * Log-normal latency given by its median and 99th percentile; constant when they are equal.
+     */
+    public record Latency(Duration median, Duration p99) {
+
+        private static final double Z_99 = 2.326;
+
+        public Latency {
+            if (p99.compareTo(median) < 0) {
+                throw new IllegalArgumentException("p99 " + p99 + " is below the median " + median);
+            }
+        }
+
+        Duration sample() {
+            if (median.isZero() || p99.equals(median)) {
+                return median;
+            }
+            double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+            double nanos = median.toNanos() * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+            return Duration.ofNanos((long) nanos);
+        }
+    }
+}
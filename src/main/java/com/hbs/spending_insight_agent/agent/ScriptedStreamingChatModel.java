@@ -0,0 +1,94 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streaming form of {@link ScriptedChatModel}: the same turns, delivered on a virtual thread
+ * after the sampled latency, with answers split into a few words per partial response.
+ * Supports cancellation: once the handle passed with a partial response is cancelled, no further
+ * callbacks are made.
+ */
+public class ScriptedStreamingChatModel implements StreamingChatModel {
+
+    private static final int WORDS_PER_CHUNK = 3;
+
+    private final ScriptedChatModel script;
+
+    public ScriptedStreamingChatModel(ScriptedChatModel script) {
+        this.script = script;
+    }
+
+    @Override
+    public void doChat(ChatRequest request, StreamingChatResponseHandler handler) {
+        CancellableHandle handle = new CancellableHandle();
+        PartialResponseContext context = new PartialResponseContext(handle);
+        Thread.ofVirtual().name("scripted-model-stream").start(() -> {
+            try {
+                ChatResponse response = script.respond(request);
+                Thread.sleep(script.latencyOf(response));
+                String text = response.aiMessage().text();
+                if (text != null) {
+                    String[] words = text.split("(?<= )");
+                    for (int i = 0; i < words.length; i += WORDS_PER_CHUNK) {
+                        if (handle.isCancelled()) {
+                            return;
+                        }
+                        handler.onPartialResponse(new PartialResponse(String.join("",
+                                List.of(words).subList(i, Math.min(i + WORDS_PER_CHUNK, words.length)))), context);
+                    }
+                }
+                if (handle.isCancelled()) {
+                    return;
+                }
+                handler.onCompleteResponse(response);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                handler.onError(e);
+            } catch (RuntimeException e) {
+                handler.onError(e);
+            }
+        });
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return script.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return script.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return script.provider();
+    }
+
+    private static final class CancellableHandle implements StreamingHandle {
+
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package com.hbs.spending_insight_agent.agent;
 
+import dev.langchain4j.invocation.InvocationParameters;
+import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.memory.ChatMemoryAccess;
 
-public interface SpendingInsightAgent {
+/**
+ * Tool-calling agent. Every call runs in the chat memory named by {@code memoryId}; use a fresh
+ * id for a one-off insight and evict it afterwards, or a stable id to continue a conversation.
+ */
+public interface SpendingInsightAgent extends ChatMemoryAccess {
 
-    @SystemMessage("""
+    String SYSTEM_PROMPT = """
             You are a Spending Insight Agent for a retail bank.
 
             Your goal:
@@ -17,19 +25,33 @@ public interface SpendingInsightAgent {
             You have access to these tools:
             - getAccountSummary(accountId, year, month): Returns ONLY the monthly total
             - getRecentTransactions(accountId, fromDate, toDate): Returns detailed transactions with categories, merchants, and amounts
+              as compact rows: a "categories:" line maps codes to names, then one tab-separated line per transaction
+              If the range has too many transactions, it returns a "summary:" instead: category and merchant totals
+              over ALL transactions, plus only the largest transactions. Use those totals as-is; do not re-add the listed rows.
+              If the summary says "limit reached", its totals cover only the first transactions of the range;
+              use getCategoryBreakdown and getTopMerchants for the full-range totals.
+            - getCategoryBreakdown(accountId, fromDate, toDate): Returns total and count per category, plus the overall total
+            - getTopMerchants(accountId, fromDate, toDate, n): Returns the n merchants with the highest spending (n up to 50)
+            - getSpendingTrend(accountId, year, month, months): Returns monthly totals per category for up to 24 months
+              ending with the given month, in one call
+            - getAnomalies(accountId, year, month): Returns the month's spending spikes against the account's usual
+              spending (total and per category), and transactions that are large for the month or unusual for their category
 
             Important understanding:
             - getAccountSummary gives you totals but NO category information
-            - To provide meaningful insights about spending patterns, you need transaction details
-            - Category breakdowns, top spending areas, and unusual transactions can ONLY come from getRecentTransactions
+            - Prefer getCategoryBreakdown for category breakdowns and getTopMerchants for top spending areas;
+              they are computed over ALL transactions and are much smaller than the transaction list
+            - For questions spanning several months, call getSpendingTrend once instead of getAccountSummary per month
+            - Use getAnomalies for spending spikes and large or unusual transactions; do not compute them yourself
+            - Use getRecentTransactions only when you need other individual transactions
 
             Your autonomy:
             - Decide which tools to call and in what order
             - Decide how many times to call each tool
             - Decide when you have enough information
 
-            But remember: Without transaction details, you cannot explain spending patterns.
-            If the user asks about spending analysis, transaction details are essential.
+            But remember: Without category or merchant breakdowns, you cannot explain spending patterns.
+            If the user asks about spending analysis, breakdowns are essential.
 
             Rules:
             - Never invent transactions or amounts; only use tool outputs.
@@ -38,6 +60,15 @@ public interface SpendingInsightAgent {
             - If data is missing or a tool fails, clearly say that information is unavailable.
             - Only answer about the account and period requested; never speculate about other accounts.
             - Keep responses under 400 words.
-        """)
-    String generateInsight(@UserMessage String input);
+        """;
+
+    @SystemMessage(SYSTEM_PROMPT)
+    String generateInsight(@MemoryId String memoryId, @UserMessage String input);
+
+    /**
+     * Same agent, streaming: tokens and tool executions are delivered as they happen.
+     * {@code parameters} reach the tools, e.g. a request's {@link ToolResultBudget#parameters tool budget}.
+     */
+    @SystemMessage(SYSTEM_PROMPT)
+    TokenStream streamInsight(@MemoryId String memoryId, @UserMessage String input, InvocationParameters parameters);
 }
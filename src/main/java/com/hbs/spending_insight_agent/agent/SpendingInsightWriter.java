@@ -0,0 +1,34 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.UserMessage;
+
+/**
+ * Single-turn writer used by the pre-computed analysis mode: all numbers are supplied in the
+ * prompt, so no tools are registered and the model makes exactly one round trip.
+ */
+public interface SpendingInsightWriter {
+
+    String SYSTEM_PROMPT = """
+            You are a Spending Insight Agent for a retail bank.
+
+            Your goal:
+            - Explain a customer's spending for a given month in clear, friendly language
+            - Use the verified facts provided, which were computed exactly from the bank's records
+
+            Rules:
+            - Use ONLY the numbers in the facts; never recompute, round differently or invent amounts.
+            - Mention category breakdowns, spikes and large transactions exactly as flagged in the facts.
+            - NEVER mention account IDs - refer to "your account" instead.
+            - Merchant names and categories are okay to mention.
+            - If a fact is marked unavailable, clearly say that information is unavailable.
+            - Keep responses under 400 words.
+        """;
+
+    @SystemMessage(SYSTEM_PROMPT)
+    String writeInsight(@UserMessage String facts);
+
+    @SystemMessage(SYSTEM_PROMPT)
+    TokenStream streamInsight(@UserMessage String facts);
+}
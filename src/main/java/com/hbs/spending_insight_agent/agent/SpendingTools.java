@@ -1,10 +1,16 @@
 package com.hbs.spending_insight_agent.agent;
 
-import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.MerchantTotal;
+import com.hbs.spending_insight_agent.model.SpendingAnomalies;
+import com.hbs.spending_insight_agent.model.SpendingTrend;
+import com.hbs.spending_insight_agent.model.TransactionRow;
 import com.hbs.spending_insight_agent.service.AccountSummaryService;
+import com.hbs.spending_insight_agent.service.SpendingStatsService;
 import com.hbs.spending_insight_agent.service.TransactionService;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.invocation.InvocationParameters;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -19,11 +25,23 @@ public class SpendingTools {
 
     private final AccountSummaryService summaryService;
     private final TransactionService txnService;
+    private final ToolResultCache resultCache;
+    private final ToolResultBudget resultBudget;
+    private final SpendingStatsService statsService;
+    private final AgentMetrics metrics;
 
     public SpendingTools(AccountSummaryService summaryService,
-                         TransactionService txnService) {
+                         TransactionService txnService,
+                         ToolResultCache resultCache,
+                         ToolResultBudget resultBudget,
+                         SpendingStatsService statsService,
+                         AgentMetrics metrics) {
         this.summaryService = summaryService;
         this.txnService = txnService;
+        this.statsService = statsService;
+        this.resultCache = resultCache;
+        this.resultBudget = resultBudget;
+        this.metrics = metrics;
     }
 
     @Tool("Get the total amount spent for a given account and month")
@@ -35,28 +53,121 @@ public class SpendingTools {
         log.info("Tool Call: getAccountSummary(accountId={}, year={}, month={})",
                 accountId, year, month);
 
-        BigDecimal total = summaryService.getTotalSpent(accountId, YearMonth.of(year, month));
+        BigDecimal total = metrics.timeTool("getAccountSummary", () -> {
+            YearMonth ym = YearMonth.of(year, month);
+            return resultCache.monthlyTotal(accountId, ym,
+                    () -> summaryService.getTotalSpent(accountId, ym));
+        });
 
         log.info("Tool getAccountSummary Result: total={}", total);
         return total;
     }
 
-    @Tool("Fetch transactions for an account within a date range (inclusive)")
-    public List<Transaction> getRecentTransactions(
+    @Tool("Fetch transactions for an account within a date range (inclusive). "
+            + "Returns a 'categories:' code dictionary, then tab-separated rows: date, amount, category code, merchant. "
+            + "Large results start with 'summary:' and list category and merchant totals plus only the largest transactions")
+    public String getRecentTransactions(
             @P("Account ID") String accountId,
             @P("From date (YYYY-MM-DD)") String fromDate,
-            @P("To date (YYYY-MM-DD)") String toDate) {
+            @P("To date (YYYY-MM-DD)") String toDate,
+            InvocationParameters parameters) {
 
         log.info("Tool Call: getRecentTransactions(accountId={}, from={}, to={})",
                 accountId, fromDate, toDate);
 
-        List<Transaction> transactions = txnService.getTransactions(
-                accountId,
-                LocalDate.parse(fromDate),
-                LocalDate.parse(toDate)
-        );
+        return metrics.timeTool("getRecentTransactions", () -> {
+            LocalDate from = LocalDate.parse(fromDate);
+            LocalDate to = LocalDate.parse(toDate);
+            List<TransactionRow> transactions = resultCache.transactions(accountId, from, to,
+                    () -> txnService.getTransactionRows(accountId, from, to));
+
+            log.info("Tool getRecentTransactions Result: {} transactions returned", transactions.size());
+            metrics.recordRows("getRecentTransactions", transactions.size());
+            return resultBudget.renderTransactions("getRecentTransactions", transactions,
+                    transactions.size() >= TransactionService.MAX_TOOL_ROWS, parameters);
+        });
+    }
+
+    @Tool("Get spending per category for an account within a date range (inclusive), computed by the database. "
+            + "Returns tab-separated lines: category, total, count, then the overall total")
+    public String getCategoryBreakdown(
+            @P("Account ID") String accountId,
+            @P("From date (YYYY-MM-DD)") String fromDate,
+            @P("To date (YYYY-MM-DD)") String toDate) {
+
+        log.info("Tool Call: getCategoryBreakdown(accountId={}, from={}, to={})",
+                accountId, fromDate, toDate);
+
+        return metrics.timeTool("getCategoryBreakdown", () -> {
+            List<CategoryTotal> totals = txnService.getCategoryTotals(
+                    accountId, LocalDate.parse(fromDate), LocalDate.parse(toDate));
+
+            log.info("Tool getCategoryBreakdown Result: {} categories", totals.size());
+            metrics.recordRows("getCategoryBreakdown", totals.size());
+            return CompactTransactionFormat.formatCategoryTotals(totals);
+        });
+    }
+
+    @Tool("Get the merchants with the highest spending for an account within a date range (inclusive). "
+            + "Returns tab-separated lines: merchant, total, count, largest first")
+    public String getTopMerchants(
+            @P("Account ID") String accountId,
+            @P("From date (YYYY-MM-DD)") String fromDate,
+            @P("To date (YYYY-MM-DD)") String toDate,
+            @P("Number of merchants (1-50)") int n) {
+
+        log.info("Tool Call: getTopMerchants(accountId={}, from={}, to={}, n={})",
+                accountId, fromDate, toDate, n);
+
+        return metrics.timeTool("getTopMerchants", () -> {
+            List<MerchantTotal> totals = txnService.getTopMerchants(
+                    accountId, LocalDate.parse(fromDate), LocalDate.parse(toDate), n);
+
+            log.info("Tool getTopMerchants Result: {} merchants", totals.size());
+            metrics.recordRows("getTopMerchants", totals.size());
+            return CompactTransactionFormat.formatMerchantTotals(totals, n);
+        });
+    }
+
+    @Tool("Get spending spikes and unusual transactions for an account and month, measured against the account's history. "
+            + "Returns the month total against its baseline, categories above their baseline, "
+            + "and transactions that are large for the month or for their category")
+    public String getAnomalies(
+            @P("Account ID") String accountId,
+            @P("Year") int year,
+            @P("Month (1-12)") int month) {
+
+        log.info("Tool Call: getAnomalies(accountId={}, year={}, month={})", accountId, year, month);
+
+        return metrics.timeTool("getAnomalies", () -> {
+            SpendingAnomalies anomalies = statsService.getAnomalies(accountId, YearMonth.of(year, month));
+
+            log.info("Tool getAnomalies Result: {} category spikes, {} unusual transactions",
+                    anomalies.categorySpikes().size(), anomalies.unusualTransactions().size());
+            metrics.recordRows("getAnomalies",
+                    anomalies.categorySpikes().size() + anomalies.unusualTransactions().size());
+            return CompactTransactionFormat.formatAnomalies(anomalies);
+        });
+    }
+
+    @Tool("Get monthly spending per category for the given number of months (1-24) ending with the given month, "
+            + "in one call. Returns one tab-separated line per month: month, total, then one column per category")
+    public String getSpendingTrend(
+            @P("Account ID") String accountId,
+            @P("Year of the last month") int year,
+            @P("Last month (1-12)") int month,
+            @P("Number of months (1-24)") int months) {
+
+        log.info("Tool Call: getSpendingTrend(accountId={}, year={}, month={}, months={})",
+                accountId, year, month, months);
+
+        return metrics.timeTool("getSpendingTrend", () -> {
+            SpendingTrend trend = summaryService.getTrend(accountId, YearMonth.of(year, month), months);
 
-        log.info("Tool getRecentTransactions Result: {} transactions returned", transactions.size());
-        return transactions;
+            log.info("Tool getSpendingTrend Result: {} months, {} categories",
+                    trend.months().size(), trend.categories().size());
+            metrics.recordRows("getSpendingTrend", trend.months().size());
+            return CompactTransactionFormat.formatTrend(trend);
+        });
     }
 }
@@ -0,0 +1,158 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import dev.langchain4j.invocation.InvocationParameters;
+import dev.langchain4j.model.TokenCountEstimator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps tool results within a token budget.
+ * <p>
+ * A result is rendered in full when its estimated size fits; otherwise it is replaced by
+ * {@link CompactTransactionFormat#summarize}, shrinking the list of largest transactions and
+ * aggregate groups until it fits. Budgets are set per tool
+ * ({@code insights.tools.token-budget.<tool>}, falling back to {@code .default}) and can be
+ * overridden for one request with {@link #open(Integer)}; like {@link ToolResultCache}, the
+ * override follows tools onto executors wrapped with {@link #propagating(Executor)}. A streamed
+ * run executes its tools from the model client's threads, which no scope reaches, so it passes the
+ * override as {@link #parameters(Integer) invocation parameters} instead.
+ */
+@Component
+@Slf4j
+public class ToolResultBudget {
+
+    private static final String PROPERTY_PREFIX = "insights.tools.token-budget.";
+
+    /** No tokenizer yields fewer tokens than this many characters per token on our rows. */
+    private static final int MAX_CHARS_PER_TOKEN = 8;
+
+    /** Summaries tried in order: (largest transactions listed, aggregate groups per kind). */
+    private static final int[][] SUMMARY_SHAPES = {{50, 20}, {25, 20}, {10, 10}, {5, 5}, {0, 5}};
+
+    private static final ThreadLocal<Integer> REQUEST_BUDGET = new ThreadLocal<>();
+
+    private static final String BUDGET_PARAMETER = "toolTokenBudget";
+
+    private final Environment environment;
+
+    private final TokenCountEstimator estimator;
+
+    private final int defaultBudget;
+
+    public ToolResultBudget(Environment environment,
+                            @Lazy TokenCountEstimator estimator,
+                            @Value("${insights.tools.token-budget.default:4000}") int defaultBudget) {
+        this.environment = environment;
+        this.estimator = estimator;
+        this.defaultBudget = defaultBudget;
+    }
+
+    /**
+     * Sets the budget of every tool to {@code maxTokens} until the scope is closed; {@code null}
+     * keeps the configured budgets. Nested opens keep the outer budget.
+     */
+    public Scope open(Integer maxTokens) {
+        if (maxTokens == null || REQUEST_BUDGET.get() != null) {
+            return () -> { };
+        }
+        REQUEST_BUDGET.set(maxTokens);
+        return REQUEST_BUDGET::remove;
+    }
+
+    /**
+     * Wraps an executor so tasks see the request budget that was current when they were submitted.
+     */
+    public Executor propagating(Executor delegate) {
+        return task -> {
+            Integer budget = REQUEST_BUDGET.get();
+            delegate.execute(() -> {
+                Integer previous = REQUEST_BUDGET.get();
+                REQUEST_BUDGET.set(budget);
+                try {
+                    task.run();
+                } finally {
+                    if (previous == null) {
+                        REQUEST_BUDGET.remove();
+                    } else {
+                        REQUEST_BUDGET.set(previous);
+                    }
+                }
+            });
+        };
+    }
+
+    /**
+     * Invocation parameters for an agent call that carry {@code maxTokens} to its tools;
+     * {@code null} keeps the configured budgets.
+     */
+    public static InvocationParameters parameters(Integer maxTokens) {
+        InvocationParameters parameters = new InvocationParameters();
+        if (maxTokens != null) {
+            parameters.put(BUDGET_PARAMETER, maxTokens);
+        }
+        return parameters;
+    }
+
+    public int budgetFor(String tool) {
+        return budgetFor(tool, null);
+    }
+
+    /**
+     * The open scope's budget, else the one in {@code parameters}, else the configured one.
+     */
+    public int budgetFor(String tool, InvocationParameters parameters) {
+        Integer requested = REQUEST_BUDGET.get();
+        if (requested == null && parameters != null) {
+            requested = parameters.get(BUDGET_PARAMETER);
+        }
+        if (requested != null) {
+            return requested;
+        }
+        return environment.getProperty(PROPERTY_PREFIX + tool, Integer.class, defaultBudget);
+    }
+
+    public String renderTransactions(String tool, List<TransactionRow> rows, boolean truncated) {
+        return renderTransactions(tool, rows, truncated, null);
+    }
+
+    /**
+     * Renders {@code rows} for {@code tool}: every row when they fit its budget, otherwise a summary.
+     */
+    public String renderTransactions(String tool, List<TransactionRow> rows, boolean truncated,
+                                     InvocationParameters parameters) {
+        int budget = budgetFor(tool, parameters);
+        String full = CompactTransactionFormat.format(rows, truncated);
+        if (fits(full, budget)) {
+            return full;
+        }
+
+        String summary = full;
+        for (int[] shape : SUMMARY_SHAPES) {
+            summary = CompactTransactionFormat.summarize(rows, truncated, shape[0], shape[1]);
+            if (fits(summary, budget)) {
+                break;
+            }
+        }
+        log.info("Tool {}: {} rows over the {}-token budget, returning a summary", tool, rows.size(), budget);
+        return summary;
+    }
+
+    // Text far beyond the budget is not worth tokenizing
+    private boolean fits(String text, int budget) {
+        return (long) text.length() <= (long) budget * MAX_CHARS_PER_TOKEN
+                && estimator.estimateTokenCountInText(text) <= budget;
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
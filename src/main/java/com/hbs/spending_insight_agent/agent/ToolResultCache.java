@@ -0,0 +1,183 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import com.hbs.spending_insight_agent.service.TransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Memoizes tool results for the duration of one agent run.
+ * <p>
+ * A run is opened with {@link #open()} on the thread that drives the agent; tools invoked on
+ * that thread share its results. Identical calls are deduplicated, and transaction ranges
+ * (and monthly totals) are served from an already-fetched wider range when that range was
+ * not truncated. Outside a run every call goes straight to the loader. Tools executed
+ * concurrently through {@link #propagating(Executor)} join the run of the submitting thread.
+ */
+@Component
+@Slf4j
+public class ToolResultCache {
+
+    private static final ThreadLocal<Run> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Opens a run on the current thread; nested opens join the outer run.
+     */
+    public Scope open() {
+        if (CURRENT.get() != null) {
+            return () -> { };
+        }
+        Run run = new Run();
+        CURRENT.set(run);
+        return () -> {
+            CURRENT.remove();
+            log.debug("Tool cache: run closed with {} hits, {} misses", run.hits, run.misses);
+        };
+    }
+
+    /**
+     * Wraps an executor so tasks run inside the run that was current when they were submitted.
+     */
+    public Executor propagating(Executor delegate) {
+        return task -> {
+            Run run = CURRENT.get();
+            delegate.execute(() -> {
+                Run previous = CURRENT.get();
+                CURRENT.set(run);
+                try {
+                    task.run();
+                } finally {
+                    if (previous == null) {
+                        CURRENT.remove();
+                    } else {
+                        CURRENT.set(previous);
+                    }
+                }
+            });
+        };
+    }
+
+    public List<TransactionRow> transactions(String accountId, LocalDate from, LocalDate to,
+                                          Supplier<List<TransactionRow>> loader) {
+        Run run = CURRENT.get();
+        if (run == null) {
+            return loader.get();
+        }
+
+        // A truncated range is missing rows, so it can only answer the exact same call
+        Optional<List<TransactionRow>> cached = run.findCovering(accountId, from, to, false)
+                .map(range -> range.slice(from, to));
+        if (cached.isPresent()) {
+            run.hits.incrementAndGet();
+            log.debug("Tool cache: transactions hit accountId={}, from={}, to={}", accountId, from, to);
+            return cached.get();
+        }
+
+        run.misses.incrementAndGet();
+        List<TransactionRow> loaded = loader.get();
+        run.ranges.add(new FetchedRange(accountId, from, to, loaded));
+        return loaded;
+    }
+
+    public BigDecimal monthlyTotal(String accountId, YearMonth ym, Supplier<BigDecimal> loader) {
+        Run run = CURRENT.get();
+        if (run == null) {
+            return loader.get();
+        }
+
+        MonthKey key = new MonthKey(accountId, ym);
+        BigDecimal total = run.totals.get(key);
+        if (total == null) {
+            total = run.findCovering(accountId, ym.atDay(1), ym.atEndOfMonth(), true)
+                    .map(range -> sum(range.slice(ym.atDay(1), ym.atEndOfMonth())))
+                    .orElse(null);
+        }
+        if (total != null) {
+            run.hits.incrementAndGet();
+            log.debug("Tool cache: total hit accountId={}, month={}", accountId, ym);
+        } else {
+            run.misses.incrementAndGet();
+            total = loader.get();
+        }
+        run.totals.put(key, total);
+        return total;
+    }
+
+    /**
+     * Seeds the current run with a range fetched ahead of the agent; no-op outside a run.
+     */
+    public void prefetched(String accountId, LocalDate from, LocalDate to, List<TransactionRow> rows) {
+        Run run = CURRENT.get();
+        if (run != null) {
+            run.ranges.add(new FetchedRange(accountId, from, to, rows));
+        }
+    }
+
+    private static BigDecimal sum(List<TransactionRow> rows) {
+        return rows.stream()
+                .map(TransactionRow::amount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Run {
+        // Tools of one run may execute concurrently
+        private final List<FetchedRange> ranges = new CopyOnWriteArrayList<>();
+        private final Map<MonthKey, BigDecimal> totals = new ConcurrentHashMap<>();
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicInteger misses = new AtomicInteger();
+
+        private Optional<FetchedRange> findCovering(String accountId, LocalDate from, LocalDate to,
+                                                    boolean requireComplete) {
+            return ranges.stream()
+                    .filter(range -> range.covers(accountId, from, to, requireComplete))
+                    .findFirst();
+        }
+    }
+
+    private record FetchedRange(String accountId, LocalDate from, LocalDate to, List<TransactionRow> rows) {
+
+        private boolean covers(String accountId, LocalDate from, LocalDate to, boolean requireComplete) {
+            if (!this.accountId.equals(accountId)) {
+                return false;
+            }
+            if (complete()) {
+                return !from.isBefore(this.from) && !to.isAfter(this.to);
+            }
+            return !requireComplete && this.from.equals(from) && this.to.equals(to);
+        }
+
+        private boolean complete() {
+            return rows.size() < TransactionService.MAX_TOOL_ROWS;
+        }
+
+        private List<TransactionRow> slice(LocalDate from, LocalDate to) {
+            if (this.from.equals(from) && this.to.equals(to)) {
+                return rows;
+            }
+            return rows.stream()
+                    .filter(t -> !t.date().isBefore(from) && !t.date().isAfter(to))
+                    .toList();
+        }
+    }
+
+    private record MonthKey(String accountId, YearMonth month) {
+    }
+}
@@ -1,16 +1,34 @@
 package com.hbs.spending_insight_agent.config;
 
+import com.hbs.spending_insight_agent.agent.AgentMetrics;
+import com.hbs.spending_insight_agent.agent.ConversationMemoryStore;
+import com.hbs.spending_insight_agent.agent.LlmBulkhead;
+import com.hbs.spending_insight_agent.agent.LlmMetricsListener;
+import com.hbs.spending_insight_agent.agent.LlmTrafficLog;
+import com.hbs.spending_insight_agent.agent.PayloadRedactor;
 import com.hbs.spending_insight_agent.agent.SpendingInsightAgent;
+import com.hbs.spending_insight_agent.agent.SpendingInsightWriter;
 import com.hbs.spending_insight_agent.agent.SpendingTools;
+import com.hbs.spending_insight_agent.agent.ToolResultBudget;
+import com.hbs.spending_insight_agent.agent.ToolResultCache;
+import dev.langchain4j.model.TokenCountEstimator;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
 import dev.langchain4j.service.AiServices;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class AgentConfig {
@@ -19,26 +37,112 @@ public class AgentConfig {
     private String apiKey;
 
     @Bean
-    public ChatModel model() {
-        return OpenAiChatModel.builder()
+    public LlmBulkhead llmBulkhead(@Value("${insights.llm.max-concurrent:16}") int maxConcurrent,
+                                   @Value("${insights.llm.max-queue:256}") int maxQueue,
+                                   @Value("${insights.llm.max-wait:10s}") Duration maxWait,
+                                   @Value("${insights.llm.retry-after:5s}") Duration retryAfter) {
+        return new LlmBulkhead(maxConcurrent, maxQueue, maxWait, retryAfter);
+    }
+
+    /**
+     * Summaries of every model call and sampled, redacted payloads, written off the request threads.
+     */
+    @Bean(destroyMethod = "close")
+    public LlmTrafficLog llmTrafficLog(PayloadRedactor redactor,
+                                       @Value("${insights.llm.log.sample-rate:0.01}") double sampleRate,
+                                       @Value("${insights.llm.log.queue-capacity:1000}") int queueCapacity) {
+        return new LlmTrafficLog(redactor, sampleRate, queueCapacity);
+    }
+
+    /**
+     * Runs the tool calls of one model turn in parallel; they are blocking JDBC reads.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService toolExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Round-trip latency, token usage and traffic logs are observed on the raw models, inside the bulkhead.
+     * The {@code offline} profile replaces both models with {@link OfflineModelConfig}.
+     * Models, tokenizer and AI services are {@link Lazy}: {@link AgentWarmup} builds them after
+     * startup, or the first request does if it comes earlier.
+     */
+    @Bean
+    @Lazy
+    @Profile("!offline")
+    public ChatModel model(LlmBulkhead bulkhead, MeterRegistry meterRegistry,
+                           LlmTrafficLog trafficLog) {
+        return bulkhead.protect(OpenAiChatModel.builder()
                 .apiKey(apiKey)
                 .modelName("gpt-4o-mini")
                 .temperature(0.2)
-                .logRequests(true)
-                .logResponses(true)
                 .maxTokens(3000)
                 .timeout(Duration.ofSeconds(30))
-                .build();
+                .listeners(List.of(new LlmMetricsListener(meterRegistry, "sync"), trafficLog.listener("sync")))
+                .build());
+    }
+
+    @Bean
+    @Lazy
+    @Profile("!offline")
+    public StreamingChatModel streamingModel(LlmBulkhead bulkhead, MeterRegistry meterRegistry,
+                                             LlmTrafficLog trafficLog) {
+        return bulkhead.protect(OpenAiStreamingChatModel.builder()
+                .apiKey(apiKey)
+                .modelName("gpt-4o-mini")
+                .temperature(0.2)
+                .maxTokens(3000)
+                .timeout(Duration.ofSeconds(30))
+                .listeners(List.of(new LlmMetricsListener(meterRegistry, "streaming"), trafficLog.listener("streaming")))
+                .build());
+    }
+
+    @Bean
+    @Lazy
+    public TokenCountEstimator tokenCountEstimator() {
+        return new OpenAiTokenCountEstimator("gpt-4o-mini");
+    }
+
+    @Bean
+    public ConversationMemoryStore conversationMemory(@Value("${insights.memory.max-conversations:10000}") long maxConversations,
+                                                      @Value("${insights.memory.idle-timeout:30m}") Duration idleTimeout,
+                                                      @Value("${insights.memory.max-tokens:16000}") int maxTokens,
+                                                      @Lazy TokenCountEstimator tokenCountEstimator) {
+        return new ConversationMemoryStore(maxConversations, idleTimeout, maxTokens, tokenCountEstimator);
     }
 
     @Bean
+    @Lazy
     public SpendingInsightAgent spendingAgent(ChatModel model,
-                                              SpendingTools tools) {
-        return AiServices.builder(SpendingInsightAgent.class)
+                                              StreamingChatModel streamingModel,
+                                              SpendingTools tools,
+                                              ExecutorService toolExecutor,
+                                              ToolResultCache toolResultCache,
+                                              ToolResultBudget toolResultBudget,
+                                              ConversationMemoryStore conversationMemory,
+                                              AgentMetrics agentMetrics) {
+        SpendingInsightAgent agent = AiServices.builder(SpendingInsightAgent.class)
                 .chatModel(model)
+                .streamingChatModel(streamingModel)
                 .tools(tools)
-                .chatMemory(MessageWindowChatMemory.withMaxMessages(20))
+                .executeToolsConcurrently(toolResultBudget.propagating(toolResultCache.propagating(toolExecutor)))
+                .chatMemoryProvider(conversationMemory)
+                .registerListeners(agentMetrics.runListeners())
                 .build();
+        conversationMemory.onEvicted(agent::evictChatMemory);
+        return agent;
     }
-}
 
+    @Bean
+    @Lazy
+    public SpendingInsightWriter spendingWriter(ChatModel model,
+                                                StreamingChatModel streamingModel,
+                                                AgentMetrics agentMetrics) {
+        return AiServices.builder(SpendingInsightWriter.class)
+                .chatModel(model)
+                .streamingChatModel(streamingModel)
+                .registerListeners(agentMetrics.runListeners())
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.hbs.spending_insight_agent.config;
+
+import com.hbs.spending_insight_agent.agent.SpendingInsightAgent;
+import com.hbs.spending_insight_agent.agent.SpendingInsightWriter;
+import dev.langchain4j.model.TokenCountEstimator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Builds the lazily declared LLM clients, tokenizer and AI services in the background once the
+ * application is up, so startup does not wait for them and the first insight request does not
+ * pay for them either.
+ * <p>
+ * Reported as the {@code agentWarmup} health contributor, which is part of the readiness group:
+ * {@code /actuator/health/readiness} stays {@code OUT_OF_SERVICE} until the warm-up has finished,
+ * and is {@code DOWN} while it fails. A failed warm-up is retried with exponential backoff
+ * ({@code insights.warmup.initial-backoff} doubling up to {@code insights.warmup.max-backoff}),
+ * so a transient failure does not keep the instance out of rotation.
+ */
+@Component
+@Slf4j
+public class AgentWarmup implements HealthIndicator {
+
+    private final ObjectProvider<SpendingInsightAgent> agent;
+
+    private final ObjectProvider<SpendingInsightWriter> writer;
+
+    private final ObjectProvider<TokenCountEstimator> tokenCountEstimator;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    private volatile Health health = Health.outOfService().withDetail("warmup", "pending").build();
+
+    public AgentWarmup(ObjectProvider<SpendingInsightAgent> agent,
+                       ObjectProvider<SpendingInsightWriter> writer,
+                       ObjectProvider<TokenCountEstimator> tokenCountEstimator,
+                       @Value("${insights.warmup.initial-backoff:1s}") Duration initialBackoff,
+                       @Value("${insights.warmup.max-backoff:5m}") Duration maxBackoff) {
+        if (initialBackoff.isNegative() || initialBackoff.isZero() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException(
+                    "insights.warmup.initial-backoff must be positive and at most insights.warmup.max-backoff");
+        }
+        this.agent = agent;
+        this.writer = writer;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofVirtual().name("agent-warmup").start(this::warmUntilReady);
+    }
+
+    /**
+     * Repeats {@link #warm()} with exponential backoff until it succeeds or the thread is interrupted.
+     */
+    public void warmUntilReady() {
+        Duration backoff = initialBackoff;
+        while (!warm()) {
+            log.warn("Agent: retrying warm-up in {}", backoff);
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Duration doubled = backoff.multipliedBy(2);
+            backoff = doubled.compareTo(maxBackoff) > 0 ? maxBackoff : doubled;
+        }
+    }
+
+    /**
+     * Builds the agent beans (models included) and loads the tokenizer's encoding.
+     *
+     * @return whether the warm-up succeeded; health is {@code UP} or {@code DOWN} accordingly
+     */
+    public boolean warm() {
+        long start = System.nanoTime();
+        try {
+            agent.getObject();
+            writer.getObject();
+            tokenCountEstimator.getObject().estimateTokenCountInText("warm-up");
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            health = Health.up().withDetail("elapsedMillis", elapsedMillis).build();
+            log.info("Agent: LLM clients warmed up in {} ms", elapsedMillis);
+            return true;
+        } catch (RuntimeException e) {
+            health = Health.down(e).build();
+            log.error("Agent: Failed to warm up LLM clients", e);
+            return false;
+        }
+    }
+
+    @Override
+    public Health health() {
+        return health;
+    }
+}
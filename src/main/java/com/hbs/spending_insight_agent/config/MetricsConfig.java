@@ -0,0 +1,136 @@
+package com.hbs.spending_insight_agent.config;
+
+import com.hbs.spending_insight_agent.agent.ConversationMemoryStore;
+import com.hbs.spending_insight_agent.agent.LlmBulkhead;
+import com.hbs.spending_insight_agent.agent.LlmTrafficLog;
+import com.hbs.spending_insight_agent.repository.ColdTransactionStore;
+import com.hbs.spending_insight_agent.service.ColumnarTransactionStore;
+import com.hbs.spending_insight_agent.service.InsightCache;
+import com.hbs.spending_insight_agent.service.InsightRequestCoalescer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the state of the in-process caches and the LLM bulkhead as meters. Request latency per
+ * endpoint comes from Spring's {@code http.server.requests}; agent and LLM meters are recorded by
+ * {@link com.hbs.spending_insight_agent.agent.AgentMetrics} and
+ * {@link com.hbs.spending_insight_agent.agent.LlmMetricsListener}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder llmBulkheadMetrics(LlmBulkhead bulkhead) {
+        return registry -> {
+            Gauge.builder("insights.llm.bulkhead.in-flight", bulkhead, b -> b.stats().inFlight())
+                    .description("LLM calls holding a permit")
+                    .register(registry);
+            Gauge.builder("insights.llm.bulkhead.waiting", bulkhead, b -> b.stats().waiting())
+                    .description("LLM calls queued for a permit")
+                    .register(registry);
+            FunctionCounter.builder("insights.llm.bulkhead.calls", bulkhead, b -> b.stats().admitted())
+                    .tag("outcome", "admitted")
+                    .register(registry);
+            FunctionCounter.builder("insights.llm.bulkhead.calls", bulkhead, b -> b.stats().rejected())
+                    .tag("outcome", "rejected")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder llmTrafficLogMetrics(LlmTrafficLog trafficLog) {
+        return registry -> {
+            Gauge.builder("insights.llm.log.queued", trafficLog, t -> t.stats().queued())
+                    .description("LLM calls waiting to be logged")
+                    .register(registry);
+            FunctionCounter.builder("insights.llm.log.calls", trafficLog, t -> t.stats().logged())
+                    .tag("result", "logged")
+                    .register(registry);
+            FunctionCounter.builder("insights.llm.log.calls", trafficLog, t -> t.stats().dropped())
+                    .tag("result", "dropped")
+                    .register(registry);
+            FunctionCounter.builder("insights.llm.log.payloads", trafficLog, t -> t.stats().payloads())
+                    .description("Logged LLM calls with full (redacted) payload")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder insightCacheMetrics(InsightCache insightCache) {
+        return registry -> {
+            Gauge.builder("insights.cache.size", insightCache, InsightCache::size)
+                    .tag("cache", "insights")
+                    .register(registry);
+            FunctionCounter.builder("insights.cache.requests", insightCache, c -> c.stats().hitCount())
+                    .tags("cache", "insights", "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("insights.cache.requests", insightCache, c -> c.stats().missCount())
+                    .tags("cache", "insights", "result", "miss")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder insightCoalescingMetrics(InsightRequestCoalescer coalescer) {
+        return registry -> {
+            Gauge.builder("insights.coalescing.in-flight", coalescer, c -> c.stats().inFlight())
+                    .description("Insight generations other identical requests can join")
+                    .register(registry);
+            FunctionCounter.builder("insights.coalescing.requests", coalescer, c -> c.stats().leaders())
+                    .tag("role", "leader")
+                    .register(registry);
+            FunctionCounter.builder("insights.coalescing.requests", coalescer, c -> c.stats().followers())
+                    .tag("role", "follower")
+                    .description("Requests served by an identical request's generation")
+                    .register(registry);
+            FunctionCounter.builder("insights.coalescing.timeouts", coalescer, c -> c.stats().timeouts())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder conversationMemoryMetrics(ConversationMemoryStore conversationMemory) {
+        return registry -> Gauge.builder("insights.cache.size", conversationMemory, ConversationMemoryStore::size)
+                .tag("cache", "conversations")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder columnarStoreMetrics(ColumnarTransactionStore columnarStore) {
+        return registry -> {
+            Gauge.builder("insights.cache.size", columnarStore, s -> s.stats().accounts())
+                    .tag("cache", "columnar")
+                    .register(registry);
+            Gauge.builder("insights.columnar.footprint", columnarStore, ColumnarTransactionStore::footprintBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("insights.cache.requests", columnarStore, s -> s.stats().hits())
+                    .tags("cache", "columnar", "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("insights.cache.requests", columnarStore, s -> s.stats().misses())
+                    .tags("cache", "columnar", "result", "miss")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder coldStoreMetrics(ColdTransactionStore coldStore) {
+        return registry -> {
+            Gauge.builder("insights.tiering.segments", coldStore, s -> s.stats().segments())
+                    .description("Account-months held in cold segment files")
+                    .register(registry);
+            Gauge.builder("insights.tiering.rows", coldStore, s -> s.stats().rows())
+                    .description("Transactions held in cold segment files")
+                    .register(registry);
+            Gauge.builder("insights.tiering.size", coldStore, s -> s.stats().bytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("insights.tiering.rows.moved", coldStore, s -> s.stats().rowsMoved())
+                    .description("Transactions moved from the table into segments")
+                    .register(registry);
+        };
+    }
+}
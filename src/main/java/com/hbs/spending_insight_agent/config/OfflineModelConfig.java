@@ -0,0 +1,67 @@
+package com.hbs.spending_insight_agent.config;
+
+import com.hbs.spending_insight_agent.agent.LlmBulkhead;
+import com.hbs.spending_insight_agent.agent.LlmMetricsListener;
+import com.hbs.spending_insight_agent.agent.LlmTrafficLog;
+import com.hbs.spending_insight_agent.agent.ScriptedChatModel;
+import com.hbs.spending_insight_agent.agent.ScriptedStreamingChatModel;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Scripted models replacing the OpenAI ones under the {@code offline} profile; see
+ * {@link ScriptedChatModel}. Everything else (bulkhead, tools, memory, caches, metrics) is the
+ * production wiring, so load tests measure the service's own overhead.
+ */
+@Configuration
+@Profile("offline")
+public class OfflineModelConfig {
+
+    @Value("${insights.offline.tool-turn-latency.median:600ms}")
+    private Duration toolTurnMedian;
+
+    @Value("${insights.offline.tool-turn-latency.p99:2s}")
+    private Duration toolTurnP99;
+
+    @Value("${insights.offline.answer-latency.median:2s}")
+    private Duration answerMedian;
+
+    @Value("${insights.offline.answer-latency.p99:6s}")
+    private Duration answerP99;
+
+    @Value("${insights.offline.answer-tokens:300}")
+    private int answerTokens;
+
+    @Bean
+    @Lazy
+    public ChatModel model(LlmBulkhead bulkhead, MeterRegistry meterRegistry, LlmTrafficLog trafficLog) {
+        return bulkhead.protect(script(List.of(
+                new LlmMetricsListener(meterRegistry, "sync"), trafficLog.listener("sync"))));
+    }
+
+    @Bean
+    @Lazy
+    public StreamingChatModel streamingModel(LlmBulkhead bulkhead, MeterRegistry meterRegistry,
+                                             LlmTrafficLog trafficLog) {
+        return bulkhead.protect(new ScriptedStreamingChatModel(script(List.of(
+                new LlmMetricsListener(meterRegistry, "streaming"), trafficLog.listener("streaming")))));
+    }
+
+    private ScriptedChatModel script(List<ChatModelListener> listeners) {
+        return new ScriptedChatModel(
+                new ScriptedChatModel.Latency(toolTurnMedian, toolTurnP99),
+                new ScriptedChatModel.Latency(answerMedian, answerP99),
+                answerTokens,
+                listeners);
+    }
+}
@@ -1,50 +1,310 @@
 package com.hbs.spending_insight_agent.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hbs.spending_insight_agent.agent.LlmCapacityExceededException;
+import com.hbs.spending_insight_agent.agent.ToolResultBudget;
+import com.hbs.spending_insight_agent.model.BatchInsightItem;
+import com.hbs.spending_insight_agent.model.BatchInsightResult;
+import com.hbs.spending_insight_agent.service.AccountSummaryService;
+import com.hbs.spending_insight_agent.service.BatchInsightService;
+import com.hbs.spending_insight_agent.service.InsightStream;
+import com.hbs.spending_insight_agent.service.InsightStreamHandler;
 import com.hbs.spending_insight_agent.service.SpendingInsightService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/spending")
 @Slf4j
 public class SpendingInsightController {
 
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final int MIN_TOKEN_BUDGET = 200;
+
+    private static final int MAX_TOKEN_BUDGET = 50_000;
+
+    private static final int MAX_QUESTION_LENGTH = 1_000;
+
     private final SpendingInsightService insightService;
 
-    public SpendingInsightController(SpendingInsightService insightService) {
+    private final BatchInsightService batchService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ToolResultBudget toolResultBudget;
+
+    private final AccountSummaryService summaryService;
+
+    public SpendingInsightController(SpendingInsightService insightService,
+                                     BatchInsightService batchService,
+                                     ObjectMapper objectMapper,
+                                     ToolResultBudget toolResultBudget,
+                                     AccountSummaryService summaryService) {
         this.insightService = insightService;
+        this.batchService = batchService;
+        this.objectMapper = objectMapper;
+        this.toolResultBudget = toolResultBudget;
+        this.summaryService = summaryService;
     }
 
+    /**
+     * Pass {@code conversationId} to ask within an ongoing conversation; omit it for a one-off insight.
+     * Within a conversation, {@code question} is a follow-up asked instead of the standard analysis.
+     * {@code tokenBudget} overrides the configured per-tool result budgets for this request.
+     */
     @GetMapping("/insights")
     public ResponseEntity<String> insights(@RequestParam String accountId,
                                            @RequestParam int year,
-                                           @RequestParam int month) {
+                                           @RequestParam int month,
+                                           @RequestParam(required = false) String conversationId,
+                                           @RequestParam(required = false) String question,
+                                           @RequestParam(required = false) Integer tokenBudget) {
 
         log.info("Request: /api/spending/insights accountId={}, year={}, month={}",
                 accountId, year, month);
 
+        String error = validate(accountId, year, month);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (conversationId != null && !conversationId.matches("^[A-Za-z0-9-]{1,64}$")) {
+            return ResponseEntity.badRequest().body("Invalid conversationId format");
+        }
+
+        if (question != null) {
+            if (conversationId == null) {
+                return ResponseEntity.badRequest().body("question requires a conversationId");
+            }
+            if (question.isBlank() || question.length() > MAX_QUESTION_LENGTH) {
+                return ResponseEntity.badRequest()
+                        .body("question must be between 1 and " + MAX_QUESTION_LENGTH + " characters");
+            }
+        }
+
+        error = validateTokenBudget(tokenBudget);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try (ToolResultBudget.Scope ignored = toolResultBudget.open(tokenBudget)) {
+            String insight = conversationId == null
+                    ? insightService.generateInsight(accountId, year, month)
+                    : insightService.continueConversation(accountId, year, month, conversationId, question);
+            return ResponseEntity.ok(insight);
+        }
+    }
+
+    /**
+     * Streams the insight as Server-Sent Events: {@code token} events carry text as it is
+     * generated, {@code tool} events report tool progress, then a final {@code done} or
+     * {@code error} event. The request thread is released as soon as the stream starts.
+     * If the client disconnects or the stream times out, the generation is cancelled.
+     * {@code tokenBudget} works as for {@code /insights}.
+     */
+    @GetMapping(value = "/insights/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> insightsStream(@RequestParam String accountId,
+                                            @RequestParam int year,
+                                            @RequestParam int month,
+                                            @RequestParam(required = false) Integer tokenBudget) {
+
+        log.info("Request: /api/spending/insights/stream accountId={}, year={}, month={}",
+                accountId, year, month);
+
+        String error = validate(accountId, year, month);
+        if (error == null) {
+            error = validateTokenBudget(tokenBudget);
+        }
+        if (error != null) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(error);
+        }
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        InsightStream stream = insightService.streamInsight(accountId, year, month, tokenBudget,
+                new SseInsightStreamHandler(emitter));
+        emitter.onTimeout(() -> {
+            log.warn("SSE: stream timed out after {}, cancelling generation", STREAM_TIMEOUT);
+            stream.cancel();
+            emitter.complete();
+        });
+        emitter.onError(e -> stream.cancel());
+        // Also covers the normal end, where cancelling is a no-op
+        emitter.onCompletion(stream::cancel);
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Monthly spending per category for the {@code months} months (default 12, at most 24) ending
+     * with {@code year}-{@code month}, as a time series. No LLM involved.
+     */
+    @GetMapping(value = "/trend", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> trend(@RequestParam String accountId,
+                                   @RequestParam int year,
+                                   @RequestParam int month,
+                                   @RequestParam(defaultValue = "12") int months) {
+
+        log.info("Request: /api/spending/trend accountId={}, year={}, month={}, months={}",
+                accountId, year, month, months);
+
+        String error = validate(accountId, year, month);
+        if (error == null && (months < 1 || months > AccountSummaryService.MAX_TREND_MONTHS)) {
+            error = "months must be between 1 and " + AccountSummaryService.MAX_TREND_MONTHS;
+        }
+        if (error != null) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(error);
+        }
+
+        return ResponseEntity.ok(summaryService.getTrend(accountId, YearMonth.of(year, month), months));
+    }
+
+    /**
+     * Generates insights for many {@code (accountId, year, month)} items and streams one NDJSON
+     * line per item as each completes (completion order, not request order). Invalid or failed
+     * items get a line with {@code error} instead of {@code insight}; they never fail the batch.
+     * {@code tokenBudget} works as for {@code /insights}, for every item.
+     */
+    @PostMapping(value = "/insights/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> insightsBatch(@RequestBody List<BatchInsightItem> items,
+                                                               @RequestParam(required = false) Integer tokenBudget) {
+
+        log.info("Request: /api/spending/insights/batch items={}", items.size());
+
+        String invalid = items.isEmpty() || items.size() > batchService.maxItems()
+                ? "Batch must contain between 1 and " + batchService.maxItems() + " items"
+                : validateTokenBudget(tokenBudget);
+        if (invalid != null) {
+            // Streaming return type, so the plain-text error is written as a (one-shot) stream too
+            byte[] error = invalid.getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(out -> out.write(error));
+        }
+
+        List<BatchInsightResult> rejected = new ArrayList<>();
+        List<BatchInsightItem> accepted = new ArrayList<>();
+        for (BatchInsightItem item : items) {
+            String error = item.accountId() == null
+                    ? "Invalid accountId format"
+                    : validate(item.accountId(), item.year(), item.month());
+            if (error != null) {
+                rejected.add(BatchInsightResult.failed(item, error));
+            } else {
+                accepted.add(item);
+            }
+        }
+
+        StreamingResponseBody body = out -> {
+            Consumer<BatchInsightResult> writeLine = result -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            rejected.forEach(writeLine);
+            batchService.generate(accepted, tokenBudget, writeLine);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * The LLM bulkhead is saturated: tell the client when to come back instead of queueing it.
+     */
+    @ExceptionHandler(LlmCapacityExceededException.class)
+    public ResponseEntity<String> capacityExceeded(LlmCapacityExceededException e) {
+        log.warn("Request rejected, LLM capacity exceeded: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .contentType(MediaType.TEXT_PLAIN)
+                .body("Too many insight requests in progress, please retry later");
+    }
+
+    private static String validate(String accountId, int year, int month) {
         if (!accountId.matches("^[A-Za-z0-9]{1,20}$")) {
-            return ResponseEntity.badRequest().body("Invalid accountId format");
+            return "Invalid accountId format";
         }
 
         // Minimal validation
         LocalDate now = LocalDate.now();
         if (year < 2020 || year > now.getYear()) {
-            return ResponseEntity.badRequest().body("Invalid year");
+            return "Invalid year";
         }
         if (month < 1 || month > 12) {
-            return ResponseEntity.badRequest().body("Invalid month");
+            return "Invalid month";
         }
 
         // Reject future month in current year
         if (year == now.getYear() && month > now.getMonthValue()) {
-            return ResponseEntity.badRequest().body("Future months are not allowed");
+            return "Future months are not allowed";
+        }
+        return null;
+    }
+
+    private static String validateTokenBudget(Integer tokenBudget) {
+        if (tokenBudget != null && (tokenBudget < MIN_TOKEN_BUDGET || tokenBudget > MAX_TOKEN_BUDGET)) {
+            return "tokenBudget must be between " + MIN_TOKEN_BUDGET + " and " + MAX_TOKEN_BUDGET;
         }
+        return null;
+    }
+
+    private record SseInsightStreamHandler(SseEmitter emitter) implements InsightStreamHandler {
+
+        @Override
+        public void onToken(String token) {
+            send(SseEmitter.event().name("token").data(token, MediaType.TEXT_PLAIN));
+        }
+
+        @Override
+        public void onToolStarted(String toolName) {
+            send(SseEmitter.event().name("tool").data(new ToolProgress(toolName, "started")));
+        }
+
+        @Override
+        public void onToolCompleted(String toolName) {
+            send(SseEmitter.event().name("tool").data(new ToolProgress(toolName, "completed")));
+        }
+
+        @Override
+        public void onComplete(String insight) {
+            send(SseEmitter.event().name("done").data("", MediaType.TEXT_PLAIN));
+            emitter.complete();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            send(SseEmitter.event().name("error").data("Failed to analyze spending", MediaType.TEXT_PLAIN));
+            emitter.complete();
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already timed out; nothing left to deliver to
+                log.debug("SSE: dropping event, stream closed: {}", e.getMessage());
+            }
+        }
+    }
 
-        String insight = insightService.generateInsight(accountId, year, month);
-        return ResponseEntity.ok(insight);
+    private record ToolProgress(String tool, String status) {
     }
 }
@@ -0,0 +1,102 @@
+package com.hbs.spending_insight_agent.controller;
+
+import com.hbs.spending_insight_agent.model.IngestResult;
+import com.hbs.spending_insight_agent.model.RebuildResult;
+import com.hbs.spending_insight_agent.model.TieringResult;
+import com.hbs.spending_insight_agent.service.AccountSummaryService;
+import com.hbs.spending_insight_agent.service.IngestFormat;
+import com.hbs.spending_insight_agent.service.SpendingStatsService;
+import com.hbs.spending_insight_agent.service.TransactionIngestService;
+import com.hbs.spending_insight_agent.service.TransactionTieringJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/transactions")
+@Slf4j
+public class TransactionIngestController {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final TransactionIngestService ingestService;
+
+    private final AccountSummaryService summaryService;
+
+    private final SpendingStatsService statsService;
+
+    private final TransactionTieringJob tieringJob;
+
+    public TransactionIngestController(TransactionIngestService ingestService,
+                                       AccountSummaryService summaryService,
+                                       SpendingStatsService statsService,
+                                       TransactionTieringJob tieringJob) {
+        this.ingestService = ingestService;
+        this.summaryService = summaryService;
+        this.statsService = statsService;
+        this.tieringJob = tieringJob;
+    }
+
+    /**
+     * Bulk-loads transactions from the request body ({@code text/csv} or {@code application/x-ndjson}),
+     * streamed straight from the socket. All-or-nothing: either every valid line is stored, or
+     * (on a bad feed) none is.
+     */
+    @PostMapping(value = "/ingest",
+            consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> ingest(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                    InputStream body) throws IOException {
+
+        IngestFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? IngestFormat.NDJSON
+                : IngestFormat.CSV;
+        log.info("Request: /api/transactions/ingest format={}", format);
+
+        try {
+            IngestResult result = ingestService.ingest(format, body);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ingest rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes the monthly rollups and the transaction size statistics from the transactions
+     * table, for backfill after writes that bypassed the application (SQL scripts, restores).
+     */
+    @PostMapping(value = "/aggregates/rebuild", produces = MediaType.APPLICATION_JSON_VALUE)
+    public RebuildResult rebuildAggregates() {
+        log.info("Request: /api/transactions/aggregates/rebuild");
+        long start = System.nanoTime();
+        int rollupRows = summaryService.rebuildRollups();
+        int statsRows = statsService.rebuildStats();
+        return new RebuildResult(rollupRows, statsRows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Moves months older than {@code insights.tiering.min-age-months} into cold segment files now,
+     * instead of waiting for the scheduled run.
+     */
+    @PostMapping(value = "/tiering/compact", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> compactOldMonths() {
+        log.info("Request: /api/transactions/tiering/compact");
+        try {
+            TieringResult result = tieringJob.compact();
+            if (result == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.TEXT_PLAIN)
+                        .body("A tiering run is already in progress");
+            }
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * {@link TransactionRow} tagged with its account, for reads that span several accounts at once.
+ */
+public record AccountTransactionRow(String accountId, Long id, LocalDate date, BigDecimal amount,
+                                    String category, String merchant) {
+
+    public TransactionRow row() {
+        return new TransactionRow(id, date, amount, category, merchant);
+    }
+}
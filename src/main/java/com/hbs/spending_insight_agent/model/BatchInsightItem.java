@@ -0,0 +1,7 @@
+package com.hbs.spending_insight_agent.model;
+
+/**
+ * One {@code (accountId, year, month)} entry of a batch insight request.
+ */
+public record BatchInsightItem(String accountId, int year, int month) {
+}
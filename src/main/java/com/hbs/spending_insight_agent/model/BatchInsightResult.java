@@ -0,0 +1,18 @@
+package com.hbs.spending_insight_agent.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one batch item: exactly one of {@code insight} and {@code error} is set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchInsightResult(String accountId, int year, int month, String insight, String error) {
+
+    public static BatchInsightResult ok(BatchInsightItem item, String insight) {
+        return new BatchInsightResult(item.accountId(), item.year(), item.month(), insight, null);
+    }
+
+    public static BatchInsightResult failed(BatchInsightItem item, String error) {
+        return new BatchInsightResult(item.accountId(), item.year(), item.month(), null, error);
+    }
+}
@@ -0,0 +1,64 @@
+package com.hbs.spending_insight_agent.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Running count, mean and sum of squared deviations (Welford's {@code M2}) of transaction amounts
+ * for one account and category, over all time.
+ * Rows are maintained by {@code TransactionRollupListener} and the bulk ingest on every write,
+ * so the outlier threshold of a category is a single-row lookup.
+ */
+@Entity
+@Table(name = "category_amount_stats")
+@IdClass(CategoryAmountStats.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryAmountStats {
+
+    @Id
+    @Column(name = "account_id")
+    private String accountId;
+
+    @Id
+    @Column(name = "category")
+    private String category;
+
+    @Column(name = "txn_count")
+    private Long txnCount;
+
+    @Column(name = "mean_amount")
+    private Double meanAmount;
+
+    @Column(name = "m2")
+    private Double m2;
+
+    /**
+     * Sample standard deviation of the amounts; zero with fewer than two transactions.
+     */
+    public double stdDev() {
+        return txnCount == null || txnCount < 2 ? 0 : Math.sqrt(Math.max(m2, 0) / (txnCount - 1));
+    }
+
+    /**
+     * How many standard deviations {@code amount} lies above the mean, or {@code null} when the
+     * amounts do not vary.
+     */
+    public Double zScore(BigDecimal amount) {
+        double stdDev = stdDev();
+        return stdDev > 0 ? (amount.doubleValue() - meanAmount) / stdDev : null;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String accountId;
+        private String category;
+    }
+}
@@ -0,0 +1,9 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated spend for one category, produced directly by the database.
+ */
+public record CategoryTotal(String category, BigDecimal total, Long count) {
+}
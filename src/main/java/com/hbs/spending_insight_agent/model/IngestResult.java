@@ -0,0 +1,12 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk ingest. {@code errors} lists the first rejected lines (1-based, header included).
+ */
+public record IngestResult(long inserted, long rejected, List<LineError> errors, long elapsedMillis) {
+
+    public record LineError(long line, String message) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated spend at one merchant, produced directly by the database.
+ */
+public record MerchantTotal(String merchant, BigDecimal total, Long count) {
+}
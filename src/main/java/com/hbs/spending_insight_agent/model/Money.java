@@ -0,0 +1,148 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * An amount as a {@code long} count of the currency's minor units (cents for SGD, yen for JPY).
+ * <p>
+ * Used for aggregation, comparison and percentages; convert from and to {@link BigDecimal} only
+ * where amounts enter or leave the application (JPA, JDBC, API responses, prompts). Amounts are
+ * never rounded: overflow and lost decimals throw {@link ArithmeticException}, mixing currencies
+ * throws {@link IllegalArgumentException}.
+ */
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+    };
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+        if (currency.getDefaultFractionDigits() < 0 || currency.getDefaultFractionDigits() >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Currency " + currency + " has no minor unit");
+        }
+    }
+
+    public static Money zero(Currency currency) {
+        return new Money(0L, currency);
+    }
+
+    /**
+     * @throws ArithmeticException if {@code amount} has more decimals than the currency or does
+     *                             not fit in a {@code long}
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        return new Money(amount.setScale(currency.getDefaultFractionDigits(), RoundingMode.UNNECESSARY)
+                .unscaledValue().longValueExact(), currency);
+    }
+
+    /**
+     * Converts {@code unscaled × 10^-scale} without going through {@link BigDecimal}.
+     *
+     * @throws ArithmeticException if the value has more decimals than the currency, or on overflow
+     */
+    public static Money ofScaled(long unscaled, int scale, Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        if (scale == digits) {
+            return new Money(unscaled, currency);
+        }
+        if (scale < digits) {
+            return new Money(Math.multiplyExact(unscaled, powerOfTen(digits - scale)), currency);
+        }
+        long divisor = powerOfTen(scale - digits);
+        if (unscaled % divisor != 0) {
+            throw new ArithmeticException("Rounding necessary: " + BigDecimal.valueOf(unscaled, scale)
+                    + " has more decimals than " + currency);
+        }
+        return new Money(unscaled / divisor, currency);
+    }
+
+    public int scale() {
+        return currency.getDefaultFractionDigits();
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, sameCurrency(other).minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, sameCurrency(other).minorUnits), currency);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, sameCurrency(other).minorUnits);
+    }
+
+    /**
+     * Change from {@code previous} to this amount in percent, one decimal, half-up; {@code null}
+     * when {@code previous} is zero.
+     */
+    public BigDecimal percentChangeFrom(Money previous) {
+        if (sameCurrency(previous).isZero()) {
+            return null;
+        }
+        return tenthsToPercent(divideHalfUp(Math.multiplyExact(
+                Math.subtractExact(minorUnits, previous.minorUnits), 1_000L), previous.minorUnits));
+    }
+
+    /**
+     * This amount as a share of {@code total} in percent, one decimal, half-up.
+     *
+     * @throws ArithmeticException if {@code total} is zero
+     */
+    public BigDecimal percentOf(Money total) {
+        if (sameCurrency(total).isZero()) {
+            throw new ArithmeticException("Share of a zero total");
+        }
+        return tenthsToPercent(divideHalfUp(Math.multiplyExact(minorUnits, 1_000L), total.minorUnits));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, scale());
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency.getCurrencyCode();
+    }
+
+    private Money sameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+        return other;
+    }
+
+    private static BigDecimal tenthsToPercent(long tenths) {
+        return BigDecimal.valueOf(tenths, 1);
+    }
+
+    /** {@code dividend / divisor} rounded half away from zero, like {@link RoundingMode#HALF_UP}. */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Scale difference too large: " + exponent);
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+}
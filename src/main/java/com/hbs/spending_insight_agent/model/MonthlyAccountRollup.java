@@ -0,0 +1,66 @@
+package com.hbs.spending_insight_agent.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Per-account, per-month, per-category spending aggregate.
+ * Rows are maintained by {@code TransactionRollupListener} on every transaction write,
+ * so monthly totals and category breakdowns never need to touch {@code transactions}.
+ */
+@Entity
+@Table(name = "monthly_account_rollups")
+@IdClass(MonthlyAccountRollup.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyAccountRollup {
+
+    public static final String UNCATEGORIZED = "Uncategorized";
+
+    @Id
+    @Column(name = "account_id")
+    private String accountId;
+
+    /** Month encoded as {@code yyyyMM}, e.g. 202511. */
+    @Id
+    @Column(name = "period")
+    private Integer period;
+
+    @Id
+    @Column(name = "category")
+    private String category;
+
+    @Column(name = "total_amount")
+    private BigDecimal totalAmount;
+
+    @Column(name = "txn_count")
+    private Long txnCount;
+
+    public static int periodOf(YearMonth ym) {
+        return ym.getYear() * 100 + ym.getMonthValue();
+    }
+
+    public static int periodOf(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    public static String categoryOf(String category) {
+        return category == null ? UNCATEGORIZED : category;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String accountId;
+        private Integer period;
+        private String category;
+    }
+}
@@ -0,0 +1,10 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A validated transaction about to be inserted; the id is assigned by the database.
+ */
+public record NewTransaction(String accountId, LocalDate date, BigDecimal amount, String category, String merchant) {
+}
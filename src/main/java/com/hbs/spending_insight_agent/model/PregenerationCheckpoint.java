@@ -0,0 +1,39 @@
+package com.hbs.spending_insight_agent.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Progress of the insight pre-generation job for one month: accounts are processed in id
+ * order, so everything up to {@code lastAccountId} has been handled.
+ */
+@Entity
+@Table(name = "insight_pregeneration_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PregenerationCheckpoint {
+
+    /** Month encoded as {@code yyyyMM}. */
+    @Id
+    @Column(name = "period")
+    private Integer period;
+
+    @Column(name = "last_account_id")
+    private String lastAccountId;
+
+    @Column(name = "generated")
+    private int generated;
+
+    @Column(name = "failed")
+    private int failed;
+
+    @Column(name = "completed")
+    private boolean completed;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
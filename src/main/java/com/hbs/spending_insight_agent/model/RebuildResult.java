@@ -0,0 +1,7 @@
+package com.hbs.spending_insight_agent.model;
+
+/**
+ * Outcome of recomputing the write-maintained aggregates from the transactions table.
+ */
+public record RebuildResult(int rollupRows, int statsRows, long elapsedMillis) {
+}
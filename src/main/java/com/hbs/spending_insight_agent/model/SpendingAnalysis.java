@@ -0,0 +1,36 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Exact, pre-computed facts for one account-month compared with the previous month.
+ * Percentages are {@code null} when the previous month had no spending to compare against.
+ */
+public record SpendingAnalysis(
+        YearMonth month,
+        BigDecimal total,
+        BigDecimal previousTotal,
+        BigDecimal changePct,
+        boolean spike,
+        List<CategoryChange> categories,
+        List<LargeTransaction> largeTransactions) {
+
+    public record CategoryChange(
+            String category,
+            BigDecimal amount,
+            BigDecimal previousAmount,
+            BigDecimal changePct,
+            boolean spike) {
+    }
+
+    public record LargeTransaction(
+            LocalDate date,
+            String merchant,
+            String category,
+            BigDecimal amount,
+            BigDecimal sharePct) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Spikes and unusual transactions of one account-month, measured against the account's own
+ * history: an exponentially weighted average of earlier months, and the running mean and
+ * standard deviation of transaction size per category.
+ * Baselines are {@code null} and percentages {@code null} when there is no earlier spending.
+ */
+public record SpendingAnomalies(
+        YearMonth month,
+        BigDecimal total,
+        BigDecimal baseline,
+        int baselineMonths,
+        BigDecimal changePct,
+        boolean spike,
+        List<CategorySpike> categorySpikes,
+        List<UnusualTransaction> unusualTransactions) {
+
+    /**
+     * A category above its baseline by more than the spike threshold, or new this month
+     * ({@code changePct} {@code null}).
+     */
+    public record CategorySpike(
+            String category,
+            BigDecimal amount,
+            BigDecimal baseline,
+            BigDecimal changePct) {
+    }
+
+    /**
+     * A transaction that is large for the month ({@code sharePct}) or for its category
+     * ({@code zScore}, {@code null} while the category has too little history).
+     */
+    public record UnusualTransaction(
+            LocalDate date,
+            String merchant,
+            String category,
+            BigDecimal amount,
+            BigDecimal sharePct,
+            Double zScore) {
+    }
+}
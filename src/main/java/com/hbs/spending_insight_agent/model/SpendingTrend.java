@@ -0,0 +1,23 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Monthly spending of one account as a compact time series: one entry per month from
+ * {@code from} to {@code to}, oldest first, with category amounts aligned to {@code categories}
+ * (largest total over the window first). Months without spending are zeros.
+ */
+public record SpendingTrend(
+        YearMonth from,
+        YearMonth to,
+        List<String> categories,
+        List<Month> months) {
+
+    public record Month(
+            YearMonth month,
+            BigDecimal total,
+            List<BigDecimal> amounts) {
+    }
+}
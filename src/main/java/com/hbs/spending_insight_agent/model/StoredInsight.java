@@ -0,0 +1,44 @@
+package com.hbs.spending_insight_agent.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A generated insight persisted for one account and month ({@code period} as {@code yyyyMM}).
+ * Rows are deleted when the month or the previous month's transactions change.
+ */
+@Entity
+@Table(name = "insights")
+@IdClass(StoredInsight.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredInsight {
+
+    @Id
+    @Column(name = "account_id")
+    private String accountId;
+
+    @Id
+    @Column(name = "period")
+    private Integer period;
+
+    @Lob
+    @Column(name = "insight")
+    private String insight;
+
+    @Column(name = "generated_at")
+    private Instant generatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String accountId;
+        private Integer period;
+    }
+}
@@ -0,0 +1,7 @@
+package com.hbs.spending_insight_agent.model;
+
+/**
+ * Outcome of moving closed account-months from the transactions table into cold segments.
+ */
+public record TieringResult(int segmentsWritten, long rowsMoved, long elapsedMillis) {
+}
@@ -1,5 +1,6 @@
 package com.hbs.spending_insight_agent.model;
 
+import com.hbs.spending_insight_agent.repository.TransactionRollupListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,6 +9,7 @@ import java.time.LocalDate;
 
 @Entity
 @Table(name = "transactions")
+@EntityListeners(TransactionRollupListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,10 @@
+package com.hbs.spending_insight_agent.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a transaction for the tool layer: no account id, no managed entity.
+ */
+public record TransactionRow(Long id, LocalDate date, BigDecimal amount, String category, String merchant) {
+}
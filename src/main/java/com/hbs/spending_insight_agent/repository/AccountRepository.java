@@ -1,8 +1,15 @@
 package com.hbs.spending_insight_agent.repository;
 
 import com.hbs.spending_insight_agent.model.Account;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface AccountRepository extends JpaRepository<Account, String> {
-}
 
+    /**
+     * Keyset page of accounts in id order, starting after {@code accountId}.
+     */
+    List<Account> findByAccountIdGreaterThanOrderByAccountIdAsc(String accountId, Limit limit);
+}
@@ -0,0 +1,42 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.CategoryAmountStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CategoryAmountStatsRepository
+        extends JpaRepository<CategoryAmountStats, CategoryAmountStats.Key> {
+
+    /**
+     * Statistics of every category the account has ever had a transaction in.
+     */
+    @Query("""
+            select s from CategoryAmountStats s
+            where s.accountId = :accountId and s.txnCount > 0
+            """)
+    List<CategoryAmountStats> findByAccountId(@Param("accountId") String accountId);
+
+    @Modifying
+    @Query(value = "DELETE FROM category_amount_stats", nativeQuery = true)
+    int deleteAllStats();
+
+    /**
+     * Recomputes every statistics row from {@code transactions}; used for backfill after bulk loads.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO category_amount_stats(account_id, category, txn_count, mean_amount, m2)
+            SELECT account_id,
+                   COALESCE(category, 'Uncategorized'),
+                   COUNT(*),
+                   AVG(CAST(COALESCE(amount, 0) AS DOUBLE PRECISION)),
+                   VAR_POP(CAST(COALESCE(amount, 0) AS DOUBLE PRECISION)) * COUNT(*)
+            FROM transactions
+            GROUP BY account_id, COALESCE(category, 'Uncategorized')
+            """, nativeQuery = true)
+    int insertStatsFromTransactions();
+}
@@ -0,0 +1,606 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.MerchantTotal;
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Cold tier of the transactions table: closed account-months moved out of {@code transactions}
+ * into immutable {@link TransactionSegment} files, read through memory mapping.
+ * <p>
+ * {@code cold_segments} is the manifest and the source of truth: {@link #compact} writes the new
+ * segment file, then deletes the month's hot rows and records the file in one database
+ * transaction, so a crash leaves either the hot rows or the segment, never both and never
+ * neither (at worst an unreferenced file, which is logged on startup and otherwise ignored).
+ * A month compacted again, e.g. after a late transaction for it, gets a new file generation
+ * holding the old segment's rows plus the new ones.
+ * <p>
+ * Callers merge the cold rows with the hot ones; {@link #read} keeps a compaction from being
+ * published between the two reads, so a row is never seen twice or missed. Segments are
+ * immutable: a correction to a cold month is written as a new transaction.
+ * <p>
+ * Disabled by default ({@code insights.tiering.enabled}); a disabled store holds no segments
+ * and never touches the directory.
+ */
+@Repository
+@Slf4j
+public class ColdTransactionStore {
+
+    private static final String SELECT_HOT_MONTH_SQL = """
+            SELECT id, date, amount, category, merchant FROM transactions
+            WHERE account_id = ? AND date BETWEEN ? AND ?
+            ORDER BY date, id
+            FOR UPDATE
+            """;
+
+    private static final String DELETE_HOT_SQL = "DELETE FROM transactions WHERE id = ?";
+
+    private static final String UPSERT_MANIFEST_SQL = """
+            MERGE INTO cold_segments s
+            USING (VALUES (CAST(? AS VARCHAR(50)), CAST(? AS INT), CAST(? AS INT), CAST(? AS VARCHAR(300)),
+                           CAST(? AS INT), CAST(? AS TIMESTAMP)))
+                  AS d(account_id, period, generation, file_name, row_count, created_at)
+            ON s.account_id = d.account_id AND s.period = d.period
+            WHEN MATCHED THEN UPDATE SET
+                generation = d.generation, file_name = d.file_name,
+                row_count = d.row_count, created_at = d.created_at
+            WHEN NOT MATCHED THEN INSERT (account_id, period, generation, file_name, row_count, created_at)
+                VALUES (d.account_id, d.period, d.generation, d.file_name, d.row_count, d.created_at)
+            """;
+
+    private static final String SELECT_MANIFEST_SQL =
+            "SELECT account_id, period, generation, file_name FROM cold_segments";
+
+    private static final String SELECT_HOT_MONTHS_SQL = """
+            SELECT DISTINCT account_id, EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date) AS period
+            FROM transactions
+            WHERE date < ?
+            ORDER BY account_id, period
+            """;
+
+    private static final RowMapper<TransactionRow> ROW_MAPPER = (rs, i) -> new TransactionRow(
+            rs.getLong("id"), rs.getDate("date").toLocalDate(), rs.getBigDecimal("amount"),
+            rs.getString("category"), rs.getString("merchant"));
+
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private static final Comparator<TransactionRow> DATE_ID_ORDER =
+            Comparator.comparing(TransactionRow::date).thenComparing(TransactionRow::id);
+
+    private final JdbcTemplate jdbc;
+
+    private final PlatformTransactionManager txManager;
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    // Read: a caller's hot-plus-cold read; write: publishing a committed compaction
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, NavigableMap<Integer, Entry>> segments = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    private final LongAdder compactions = new LongAdder();
+
+    private final LongAdder rowsMoved = new LongAdder();
+
+    public ColdTransactionStore(JdbcTemplate jdbc,
+                                PlatformTransactionManager txManager,
+                                @Value("${insights.tiering.enabled:false}") boolean enabled,
+                                @Value("${insights.tiering.directory:${java.io.tmpdir}/spending-insight-agent/cold}")
+                                String directory) {
+        this.jdbc = jdbc;
+        this.txManager = txManager;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs {@code reader}, which reads both tiers, against one consistent split between them.
+     */
+    public <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether any cold month of the account overlaps {@code [from, to]}; when not, the hot table
+     * alone answers the read.
+     */
+    public boolean covers(String accountId, LocalDate from, LocalDate to) {
+        return !segments(accountId, from, to).isEmpty();
+    }
+
+    /**
+     * At most {@code limit} cold rows in {@code [from, to]}, in (date, id) order.
+     */
+    public List<TransactionRow> rows(String accountId, LocalDate from, LocalDate to, int limit) {
+        List<TransactionRow> rows = new ArrayList<>();
+        for (TransactionSegment segment : segments(accountId, from, to)) {
+            int end = segment.upperBound(to);
+            for (int i = segment.lowerBound(from); i < end && rows.size() < limit; i++) {
+                rows.add(segment.row(i));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * The cold rows in {@code [from, to]}, in (date, id) order, decoded one at a time as the
+     * iterator advances. The segments are fixed when this is called; consume it within {@link #read}.
+     */
+    public Iterator<TransactionRow> iterate(String accountId, LocalDate from, LocalDate to) {
+        Iterator<TransactionSegment> months = segments(accountId, from, to).iterator();
+        return new Iterator<>() {
+            private TransactionSegment segment;
+            private int next;
+            private int end;
+
+            @Override
+            public boolean hasNext() {
+                while (next == end) {
+                    if (!months.hasNext()) {
+                        return false;
+                    }
+                    segment = months.next();
+                    next = segment.lowerBound(from);
+                    end = segment.upperBound(to);
+                }
+                return true;
+            }
+
+            @Override
+            public TransactionRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return segment.row(next++);
+            }
+        };
+    }
+
+    /**
+     * Every cold row of the account, in (date, id) order.
+     */
+    public List<TransactionRow> rows(String accountId) {
+        if (!enabled) {
+            return List.of();
+        }
+        ensureLoaded();
+        NavigableMap<Integer, Entry> months = segments.get(accountId);
+        List<TransactionRow> rows = new ArrayList<>();
+        if (months != null) {
+            for (Entry entry : months.values()) {
+                for (int i = 0; i < entry.segment().size(); i++) {
+                    rows.add(entry.segment().row(i));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * At most {@code limit} cold rows in {@code [from, to]} after the keyset position
+     * ({@code afterDate}, {@code afterId}), in (date, id) order.
+     */
+    public List<TransactionRow> rowsAfter(String accountId, LocalDate from, LocalDate to,
+                                          LocalDate afterDate, long afterId, int limit) {
+        LocalDate start = afterDate.isAfter(from) ? afterDate : from;
+        List<TransactionRow> rows = new ArrayList<>();
+        for (TransactionSegment segment : segments(accountId, start, to)) {
+            int end = segment.upperBound(to);
+            for (int i = segment.lowerBound(start); i < end && rows.size() < limit; i++) {
+                // Dates here are on or after afterDate
+                if (segment.date(i).isAfter(afterDate) || segment.id(i) > afterId) {
+                    rows.add(segment.row(i));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Cold rows in {@code [from, to]} with an amount strictly above {@code threshold}, unordered.
+     */
+    public List<TransactionRow> rowsAbove(String accountId, LocalDate from, LocalDate to, BigDecimal threshold) {
+        return rowsAbove(accountId, from, to, threshold, Map.of());
+    }
+
+    /**
+     * Cold rows in {@code [from, to]} strictly above their category's threshold in
+     * {@code categoryThresholds} (keyed as in the rollups), or above {@code threshold} for other
+     * categories; unordered.
+     */
+    public List<TransactionRow> rowsAbove(String accountId, LocalDate from, LocalDate to, BigDecimal threshold,
+                                          Map<String, BigDecimal> categoryThresholds) {
+        long floor = floorMinorUnits(threshold);
+        List<TransactionRow> rows = new ArrayList<>();
+        for (TransactionSegment segment : segments(accountId, from, to)) {
+            String[] categories = segment.categories();
+            long[] floors = new long[categories.length];
+            for (int code = 0; code < categories.length; code++) {
+                BigDecimal categoryThreshold = categoryThresholds.get(MonthlyAccountRollup.categoryOf(categories[code]));
+                floors[code] = categoryThreshold == null ? floor : floorMinorUnits(categoryThreshold);
+            }
+            int end = segment.upperBound(to);
+            for (int i = segment.lowerBound(from); i < end; i++) {
+                if (segment.amount(i) > floors[segment.categoryCode(i)]) {
+                    rows.add(segment.row(i));
+                }
+            }
+        }
+        return rows;
+    }
+
+    // amount > threshold  <=>  minor units > floor(threshold in minor units)
+    private static long floorMinorUnits(BigDecimal threshold) {
+        return threshold.movePointRight(TransactionSegment.SCALE).setScale(0, RoundingMode.FLOOR).longValueExact();
+    }
+
+    /**
+     * Per-category totals of the cold rows in {@code [from, to]}, with missing categories
+     * reported as {@value MonthlyAccountRollup#UNCATEGORIZED}; unordered.
+     */
+    public List<CategoryTotal> categoryTotals(String accountId, LocalDate from, LocalDate to) {
+        Map<String, long[]> byCategory = new LinkedHashMap<>();
+        for (TransactionSegment segment : segments(accountId, from, to)) {
+            String[] categories = segment.categories();
+            long[][] sums = sumByCode(segment, from, to, categories.length, true);
+            for (int code = 0; code < categories.length; code++) {
+                if (sums[1][code] > 0) {
+                    add(byCategory, MonthlyAccountRollup.categoryOf(categories[code]), sums[0][code], sums[1][code]);
+                }
+            }
+        }
+        List<CategoryTotal> totals = new ArrayList<>(byCategory.size());
+        byCategory.forEach((category, acc) -> totals.add(
+                new CategoryTotal(category, BigDecimal.valueOf(acc[0], TransactionSegment.SCALE), acc[1])));
+        return totals;
+    }
+
+    /**
+     * Per-merchant totals of the cold rows in {@code [from, to]}, with missing merchants reported
+     * as {@code Unknown}; unordered.
+     */
+    public List<MerchantTotal> merchantTotals(String accountId, LocalDate from, LocalDate to) {
+        Map<String, long[]> byMerchant = new LinkedHashMap<>();
+        for (TransactionSegment segment : segments(accountId, from, to)) {
+            String[] merchants = segment.merchants();
+            long[][] sums = sumByCode(segment, from, to, merchants.length, false);
+            for (int code = 0; code < merchants.length; code++) {
+                if (sums[1][code] > 0) {
+                    add(byMerchant, merchants[code] == null ? "Unknown" : merchants[code], sums[0][code], sums[1][code]);
+                }
+            }
+        }
+        List<MerchantTotal> totals = new ArrayList<>(byMerchant.size());
+        byMerchant.forEach((merchant, acc) -> totals.add(
+                new MerchantTotal(merchant, BigDecimal.valueOf(acc[0], TransactionSegment.SCALE), acc[1])));
+        return totals;
+    }
+
+    /**
+     * Account-months that still have rows in {@code transactions} dated before {@code cutoff}:
+     * the candidates for {@link #compact}.
+     */
+    public List<AccountMonth> hotMonthsBefore(LocalDate cutoff) {
+        return jdbc.query(SELECT_HOT_MONTHS_SQL, (rs, i) -> {
+            int period = rs.getInt("period");
+            return new AccountMonth(rs.getString("account_id"), YearMonth.of(period / 100, period % 100));
+        }, Date.valueOf(cutoff));
+    }
+
+    /**
+     * Moves the account-month's rows from {@code transactions} into a new segment file, merged
+     * with the month's existing segment, if any. Runs in its own database transaction.
+     *
+     * @return the number of rows moved out of the hot table
+     */
+    public synchronized int compact(String accountId, YearMonth month) {
+        if (!enabled) {
+            throw new IllegalStateException("Transaction tiering is disabled (insights.tiering.enabled)");
+        }
+        ensureLoaded();
+        int period = MonthlyAccountRollup.periodOf(month);
+        NavigableMap<Integer, Entry> months = segments.get(accountId);
+        Entry previous = months == null ? null : months.get(period);
+
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        TransactionStatus status = txManager.getTransaction(definition);
+        Path file = null;
+        boolean committed = false;
+        List<TransactionRow> hot;
+        try {
+            hot = jdbc.query(SELECT_HOT_MONTH_SQL, ROW_MAPPER,
+                    accountId, Date.valueOf(month.atDay(1)), Date.valueOf(month.atEndOfMonth()));
+            if (hot.isEmpty()) {
+                txManager.rollback(status);
+                return 0;
+            }
+            List<TransactionRow> rows = new ArrayList<>(hot);
+            if (previous != null) {
+                for (int i = 0; i < previous.segment().size(); i++) {
+                    rows.add(previous.segment().row(i));
+                }
+                rows.sort(DATE_ID_ORDER);
+            }
+
+            int generation = previous == null ? 1 : previous.generation() + 1;
+            String fileName = accountDirectory(accountId) + "/" + month + ".g" + generation + ".seg";
+            file = directory.resolve(fileName);
+            Files.createDirectories(file.getParent());
+            TransactionSegment.write(file, month, rows);
+            TransactionSegment segment = TransactionSegment.open(file);
+
+            jdbc.batchUpdate(DELETE_HOT_SQL, hot, 1000, (ps, row) -> ps.setLong(1, row.id()));
+            jdbc.update(UPSERT_MANIFEST_SQL, accountId, period, generation, fileName, rows.size(),
+                    Timestamp.from(Instant.now()));
+
+            lock.writeLock().lock();
+            try {
+                txManager.commit(status);
+                committed = true;
+                segments.computeIfAbsent(accountId, k -> new ConcurrentSkipListMap<>())
+                        .put(period, new Entry(segment, generation, fileName));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            abort(status, file);
+            throw new UncheckedIOException("Failed to write the segment of " + accountId + " " + month, e);
+        } catch (RuntimeException e) {
+            if (!committed) {
+                abort(status, file);
+            }
+            throw e;
+        }
+
+        if (previous != null) {
+            deleteQuietly(directory.resolve(previous.fileName()));
+        }
+        compactions.increment();
+        rowsMoved.add(hot.size());
+        log.info("Tiering: compacted accountId={}, month={}, rows={}, file={}", accountId, month, hot.size(), file);
+        return hot.size();
+    }
+
+    /**
+     * Per account-month-category totals of every cold row; added to the rollups rebuilt from
+     * {@code transactions}, which no longer holds these rows.
+     */
+    public List<TransactionBulkWriter.RollupDelta> rollupDeltas() {
+        List<TransactionBulkWriter.RollupDelta> deltas = new ArrayList<>();
+        forEachSegment((accountId, segment) -> {
+            String[] categories = segment.categories();
+            long[][] sums = sumByCode(segment, null, null, categories.length, true);
+            Map<String, long[]> byCategory = new LinkedHashMap<>();
+            for (int code = 0; code < categories.length; code++) {
+                if (sums[1][code] > 0) {
+                    add(byCategory, MonthlyAccountRollup.categoryOf(categories[code]), sums[0][code], sums[1][code]);
+                }
+            }
+            byCategory.forEach((category, acc) -> deltas.add(new TransactionBulkWriter.RollupDelta(accountId,
+                    MonthlyAccountRollup.periodOf(segment.month()), category,
+                    BigDecimal.valueOf(acc[0], TransactionSegment.SCALE), acc[1])));
+        });
+        return deltas;
+    }
+
+    /**
+     * Count, mean and M2 of the cold amounts per account and category; merged into the
+     * statistics rebuilt from {@code transactions}.
+     */
+    public List<TransactionBulkWriter.AmountStatsDelta> amountStatsDeltas() {
+        Map<String, Map<String, double[]>> stats = new HashMap<>();
+        forEachSegment((accountId, segment) -> {
+            Map<String, double[]> byCategory = stats.computeIfAbsent(accountId, k -> new HashMap<>());
+            String[] categories = segment.categories();
+            for (int i = 0; i < segment.size(); i++) {
+                // Welford: count, mean, M2
+                double[] s = byCategory.computeIfAbsent(
+                        MonthlyAccountRollup.categoryOf(categories[segment.categoryCode(i)]), k -> new double[3]);
+                double value = segment.amount(i) / 100.0;
+                s[0]++;
+                double delta = value - s[1];
+                s[1] += delta / s[0];
+                s[2] += delta * (value - s[1]);
+            }
+        });
+        List<TransactionBulkWriter.AmountStatsDelta> deltas = new ArrayList<>();
+        stats.forEach((accountId, byCategory) -> byCategory.forEach((category, s) -> deltas.add(
+                new TransactionBulkWriter.AmountStatsDelta(accountId, category, (long) s[0], s[1], s[2]))));
+        return deltas;
+    }
+
+    public Stats stats() {
+        long count = 0;
+        long rows = 0;
+        long bytes = 0;
+        if (loaded) {
+            for (NavigableMap<Integer, Entry> months : segments.values()) {
+                for (Entry entry : months.values()) {
+                    count++;
+                    rows += entry.segment().size();
+                    bytes += entry.segment().sizeBytes();
+                }
+            }
+        }
+        return new Stats(count, rows, bytes, compactions.sum(), rowsMoved.sum());
+    }
+
+    private Collection<TransactionSegment> segments(String accountId, LocalDate from, LocalDate to) {
+        if (!enabled || from.isAfter(to)) {
+            return List.of();
+        }
+        ensureLoaded();
+        NavigableMap<Integer, Entry> months = segments.get(accountId);
+        if (months == null) {
+            return List.of();
+        }
+        return months.subMap(MonthlyAccountRollup.periodOf(from), true, MonthlyAccountRollup.periodOf(to), true)
+                .values().stream().map(Entry::segment).toList();
+    }
+
+    private void forEachSegment(BiConsumer<String, TransactionSegment> action) {
+        if (!enabled) {
+            return;
+        }
+        ensureLoaded();
+        read(() -> {
+            segments.forEach((accountId, months) -> months.values().forEach(e -> action.accept(accountId, e.segment())));
+            return null;
+        });
+    }
+
+    // sums[0][code]: amount in minor units, sums[1][code]: row count; null bounds mean the whole segment
+    private static long[][] sumByCode(TransactionSegment segment, LocalDate from, LocalDate to,
+                                      int codes, boolean byCategory) {
+        long[][] sums = new long[2][codes];
+        int start = from == null ? 0 : segment.lowerBound(from);
+        int end = to == null ? segment.size() : segment.upperBound(to);
+        for (int i = start; i < end; i++) {
+            int code = byCategory ? segment.categoryCode(i) : segment.merchantCode(i);
+            sums[0][code] = Math.addExact(sums[0][code], segment.amount(i));
+            sums[1][code]++;
+        }
+        return sums;
+    }
+
+    private static void add(Map<String, long[]> totals, String key, long amount, long count) {
+        long[] acc = totals.computeIfAbsent(key, k -> new long[2]);
+        acc[0] = Math.addExact(acc[0], amount);
+        acc[1] += count;
+    }
+
+    // Not under the read/write lock: readers inside read() load the index on first use
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (segments) {
+            if (loaded) {
+                return;
+            }
+            List<String> referenced = new ArrayList<>();
+            jdbc.query(SELECT_MANIFEST_SQL, rs -> {
+                String fileName = rs.getString("file_name");
+                try {
+                    TransactionSegment segment = TransactionSegment.open(directory.resolve(fileName));
+                    segments.computeIfAbsent(rs.getString("account_id"), k -> new ConcurrentSkipListMap<>())
+                            .put(rs.getInt("period"), new Entry(segment, rs.getInt("generation"), fileName));
+                    referenced.add(fileName);
+                } catch (IOException e) {
+                    // The hot rows are gone: serving without this month would silently under-report
+                    throw new UncheckedIOException("Cold segment " + fileName + " is missing or unreadable", e);
+                }
+            });
+            loaded = true;
+            log.info("Tiering: loaded {} cold segments from {}", referenced.size(), directory);
+            logOrphans(referenced);
+        }
+    }
+
+    // Left in place: another instance sharing the directory may be about to record them
+    private void logOrphans(List<String> referenced) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> known = referenced.stream().map(directory::resolve).toList();
+        try (var files = Files.walk(directory)) {
+            files.filter(p -> p.toString().endsWith(".seg") && !known.contains(p))
+                    .forEach(p -> log.warn("Tiering: {} is not in cold_segments, ignoring it", p));
+        } catch (IOException e) {
+            log.warn("Tiering: could not list {}: {}", directory, e.toString());
+        }
+    }
+
+    private void abort(TransactionStatus status, Path file) {
+        if (!status.isCompleted()) {
+            txManager.rollback(status);
+        }
+        if (file != null) {
+            deleteQuietly(file);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Tiering: could not delete {}: {}", file, e.toString());
+        }
+    }
+
+    // Account ids become directory names as they are when that is safe, hex-encoded otherwise
+    private static String accountDirectory(String accountId) {
+        return SAFE_NAME.matcher(accountId).matches()
+                ? accountId
+                : "x" + HexFormat.of().formatHex(accountId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public record AccountMonth(String accountId, YearMonth month) {
+    }
+
+    /**
+     * {@code segments}, {@code rows}, {@code bytes}: what the cold tier holds;
+     * {@code compactions}, {@code rowsMoved}: work done by this instance since startup.
+     */
+    public record Stats(long segments, long rows, long bytes, long compactions, long rowsMoved) {
+    }
+
+    private record Entry(TransactionSegment segment, int generation, String fileName) {
+    }
+}
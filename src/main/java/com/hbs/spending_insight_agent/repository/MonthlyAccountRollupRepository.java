@@ -0,0 +1,66 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface MonthlyAccountRollupRepository
+        extends JpaRepository<MonthlyAccountRollup, MonthlyAccountRollup.Key> {
+
+    /**
+     * Monthly total from the rollup rows, or {@code null} when no rollup exists for that month.
+     */
+    @Query("""
+            select sum(r.totalAmount) from MonthlyAccountRollup r
+            where r.accountId = :accountId and r.period = :period
+            """)
+    BigDecimal sumTotalAmount(@Param("accountId") String accountId, @Param("period") int period);
+
+    @Query("""
+            select new com.hbs.spending_insight_agent.model.CategoryTotal(r.category, r.totalAmount, r.txnCount)
+            from MonthlyAccountRollup r
+            where r.accountId = :accountId and r.period = :period and r.txnCount > 0
+            order by r.totalAmount desc
+            """)
+    List<CategoryTotal> findCategoryTotals(@Param("accountId") String accountId, @Param("period") int period);
+
+    /**
+     * Rollup rows of the months {@code fromPeriod..toPeriod} (inclusive), oldest first.
+     */
+    @Query("""
+            select r from MonthlyAccountRollup r
+            where r.accountId = :accountId and r.period between :fromPeriod and :toPeriod and r.txnCount > 0
+            order by r.period
+            """)
+    List<MonthlyAccountRollup> findByAccountIdAndPeriodBetween(@Param("accountId") String accountId,
+                                                               @Param("fromPeriod") int fromPeriod,
+                                                               @Param("toPeriod") int toPeriod);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_account_rollups", nativeQuery = true)
+    int deleteAllRollups();
+
+    /**
+     * Recomputes every rollup row from {@code transactions}; used for backfill after bulk loads.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO monthly_account_rollups(account_id, period, category, total_amount, txn_count)
+            SELECT account_id,
+                   EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date),
+                   COALESCE(category, 'Uncategorized'),
+                   SUM(amount),
+                   COUNT(*)
+            FROM transactions
+            GROUP BY account_id,
+                     EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date),
+                     COALESCE(category, 'Uncategorized')
+            """, nativeQuery = true)
+    int insertRollupsFromTransactions();
+}
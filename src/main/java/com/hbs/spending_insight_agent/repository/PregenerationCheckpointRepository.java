@@ -0,0 +1,7 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.PregenerationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PregenerationCheckpointRepository extends JpaRepository<PregenerationCheckpoint, Integer> {
+}
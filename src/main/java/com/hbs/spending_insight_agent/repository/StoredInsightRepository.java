@@ -0,0 +1,25 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.StoredInsight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StoredInsightRepository extends JpaRepository<StoredInsight, StoredInsight.Key> {
+
+    @Query("""
+            select s.accountId from StoredInsight s
+            where s.period = :period and s.accountId in :accountIds
+            """)
+    List<String> findStoredAccountIds(@Param("period") int period,
+                                      @Param("accountIds") Collection<String> accountIds);
+
+    @Modifying
+    @Query("delete from StoredInsight s where s.accountId = :accountId and s.period in :periods")
+    int deleteByAccountIdAndPeriodIn(@Param("accountId") String accountId,
+                                     @Param("periods") Collection<Integer> periods);
+}
@@ -0,0 +1,65 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.NewTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Plain JDBC batch writes for bulk loads.
+ * <p>
+ * {@code Transaction} ids are {@code IDENTITY}, which keeps Hibernate from batching inserts,
+ * so bulk loads bypass JPA (and therefore {@link TransactionRollupListener}): callers must
+ * apply the matching rollup and statistics deltas themselves, in the same transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionBulkWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transactions(account_id, category, amount, date, merchant) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+
+    public void insert(List<NewTransaction> rows) {
+        jdbc.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.accountId());
+            ps.setString(2, row.category());
+            ps.setBigDecimal(3, row.amount());
+            ps.setDate(4, Date.valueOf(row.date()));
+            ps.setString(5, row.merchant());
+        });
+    }
+
+    public void applyRollupDeltas(Collection<RollupDelta> deltas) {
+        jdbc.batchUpdate(TransactionRollupListener.UPSERT_SQL, deltas, 1000, (ps, delta) -> {
+            ps.setString(1, delta.accountId());
+            ps.setInt(2, delta.period());
+            ps.setString(3, delta.category());
+            ps.setBigDecimal(4, delta.amount());
+            ps.setLong(5, delta.count());
+        });
+    }
+
+    public void applyAmountStatsDeltas(Collection<AmountStatsDelta> deltas) {
+        jdbc.batchUpdate(TransactionRollupListener.STATS_UPSERT_SQL, deltas, 1000, (ps, delta) -> {
+            ps.setString(1, delta.accountId());
+            ps.setString(2, delta.category());
+            ps.setLong(3, delta.count());
+            ps.setDouble(4, delta.mean());
+            ps.setDouble(5, delta.m2());
+        });
+    }
+
+    public record RollupDelta(String accountId, int period, String category, BigDecimal amount, long count) {
+    }
+
+    /** Count, mean and M2 of a group of new amounts, merged into {@code category_amount_stats}. */
+    public record AmountStatsDelta(String accountId, String category, long count, double mean, double m2) {
+    }
+}
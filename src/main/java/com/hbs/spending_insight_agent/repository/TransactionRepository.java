@@ -1,12 +1,155 @@
 package com.hbs.spending_insight_agent.repository;
 
+import com.hbs.spending_insight_agent.model.AccountTransactionRow;
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.MerchantTotal;
 import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
     List<Transaction> findByAccountIdAndDateBetween(String accountId, LocalDate from, LocalDate to);
+
+    /**
+     * Range read in (date, id) order with the row limit applied by the database.
+     */
+    List<Transaction> findByAccountIdAndDateBetweenOrderByDateAscIdAsc(String accountId,
+                                                                      LocalDate from,
+                                                                      LocalDate to,
+                                                                      Limit limit);
+
+    List<Transaction> findByAccountIdAndDateBetweenAndAmountGreaterThanOrderByAmountDesc(String accountId,
+                                                                                     LocalDate from,
+                                                                                     LocalDate to,
+                                                                                     BigDecimal amount);
+
+    List<Transaction> findByAccountIdAndDateBetweenAndAmountGreaterThanOrderByAmountDesc(String accountId,
+                                                                                     LocalDate from,
+                                                                                     LocalDate to,
+                                                                                     BigDecimal amount,
+                                                                                     Limit limit);
+
+    /**
+     * Transactions of one category ({@code Uncategorized} for missing ones, as in the rollups)
+     * strictly above {@code amount}, largest first.
+     */
+    @Query("""
+            select t from Transaction t
+            where t.accountId = :accountId and t.date between :from and :to
+              and coalesce(t.category, 'Uncategorized') = :category and t.amount > :amount
+            order by t.amount desc
+            """)
+    List<Transaction> findInCategoryAbove(@Param("accountId") String accountId,
+                                          @Param("category") String category,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to,
+                                          @Param("amount") BigDecimal amount,
+                                          Limit limit);
+
+    /**
+     * Same range read as a {@link TransactionRow} projection: only the needed columns are
+     * selected and nothing is added to the persistence context.
+     */
+    List<TransactionRow> findRowsByAccountIdAndDateBetweenOrderByDateAscIdAsc(String accountId,
+                                                                             LocalDate from,
+                                                                             LocalDate to,
+                                                                             Limit limit);
+
+    /**
+     * Every row of one account in (date, id) order; loads the columnar store.
+     */
+    List<TransactionRow> findRowsByAccountIdOrderByDateAscIdAsc(String accountId);
+
+    /**
+     * Rows for several accounts in one query, at most {@code perAccountLimit} per account
+     * (first by date, id), ordered by account then date, id.
+     */
+    @Query("""
+            select new com.hbs.spending_insight_agent.model.AccountTransactionRow(
+                       r.accountId, r.id, r.date, r.amount, r.category, r.merchant)
+            from (select t.accountId as accountId, t.id as id, t.date as date, t.amount as amount,
+                         t.category as category, t.merchant as merchant,
+                         row_number() over (partition by t.accountId order by t.date, t.id) as rn
+                  from Transaction t
+                  where t.accountId in :accountIds and t.date between :from and :to) r
+            where r.rn <= :perAccountLimit
+            order by r.accountId, r.date, r.id
+            """)
+    List<AccountTransactionRow> findRowsByAccountIdInAndDateBetween(@Param("accountIds") Collection<String> accountIds,
+                                                                    @Param("from") LocalDate from,
+                                                                    @Param("to") LocalDate to,
+                                                                    @Param("perAccountLimit") int perAccountLimit);
+
+    /**
+     * Keyset page on (date, id); pass {@code ScrollPosition.keyset()} for the first page and
+     * {@code window.positionAt(window.size() - 1)} for the next one.
+     */
+    Window<Transaction> findByAccountIdAndDateBetweenOrderByDateAscIdAsc(String accountId,
+                                                                        LocalDate from,
+                                                                        LocalDate to,
+                                                                        ScrollPosition position,
+                                                                        Limit limit);
+
+    /**
+     * Cursor-backed, read-only stream for large reads. Must be consumed inside a transaction
+     * and closed by the caller.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Transaction> streamByAccountIdAndDateBetweenOrderByDateAscIdAsc(String accountId,
+                                                                          LocalDate from,
+                                                                          LocalDate to);
+
+    @Query("""
+            select coalesce(sum(t.amount), 0) from Transaction t
+            where t.accountId = :accountId and t.date between :from and :to
+            """)
+    BigDecimal sumAmountByAccountIdAndDateBetween(@Param("accountId") String accountId,
+                                                  @Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to);
+
+    @Query("""
+            select new com.hbs.spending_insight_agent.model.CategoryTotal(
+                coalesce(t.category, 'Uncategorized'), sum(t.amount), count(t))
+            from Transaction t
+            where t.accountId = :accountId and t.date between :from and :to
+            group by coalesce(t.category, 'Uncategorized')
+            order by sum(t.amount) desc
+            """)
+    List<CategoryTotal> sumAmountByCategory(@Param("accountId") String accountId,
+                                            @Param("from") LocalDate from,
+                                            @Param("to") LocalDate to);
+
+    /**
+     * Merchants by total spend, largest first; {@code limit} keeps only the top ones.
+     */
+    @Query("""
+            select new com.hbs.spending_insight_agent.model.MerchantTotal(
+                coalesce(t.merchant, 'Unknown'), sum(t.amount), count(t))
+            from Transaction t
+            where t.accountId = :accountId and t.date between :from and :to
+            group by coalesce(t.merchant, 'Unknown')
+            order by sum(t.amount) desc, coalesce(t.merchant, 'Unknown')
+            """)
+    List<MerchantTotal> sumAmountByMerchant(@Param("accountId") String accountId,
+                                            @Param("from") LocalDate from,
+                                            @Param("to") LocalDate to,
+                                            Limit limit);
 }
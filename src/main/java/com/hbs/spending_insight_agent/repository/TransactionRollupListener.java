@@ -0,0 +1,132 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.Transaction;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PreUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Keeps {@code monthly_account_rollups} and {@code category_amount_stats} in sync with every
+ * {@link Transaction} write and publishes a {@link TransactionsChangedEvent} for each touched
+ * account-month.
+ * <p>
+ * Runs inside the writing transaction (plain JDBC on the same connection), so the deltas
+ * commit or roll back together with the row. Instantiated by Hibernate through
+ * Spring's bean container. Bulk JPQL/SQL deletes bypass entity callbacks; rebuild the
+ * rollups and statistics after those with {@code MonthlyAccountRollupRepository} and
+ * {@code CategoryAmountStatsRepository}.
+ */
+@Slf4j
+public class TransactionRollupListener {
+
+    /** Adds a (amount, count) delta to one rollup row, creating it if needed. Shared with {@link TransactionBulkWriter}. */
+    static final String UPSERT_SQL = """
+            MERGE INTO monthly_account_rollups r
+            USING (VALUES (CAST(? AS VARCHAR(50)), CAST(? AS INT), CAST(? AS VARCHAR(50)),
+                           CAST(? AS DECIMAL(14,2)), CAST(? AS BIGINT)))
+                  AS d(account_id, period, category, amount, cnt)
+            ON r.account_id = d.account_id AND r.period = d.period AND r.category = d.category
+            WHEN MATCHED THEN UPDATE SET
+                total_amount = r.total_amount + d.amount,
+                txn_count = r.txn_count + d.cnt
+            WHEN NOT MATCHED THEN INSERT (account_id, period, category, total_amount, txn_count)
+                VALUES (d.account_id, d.period, d.category, d.amount, d.cnt)
+            """;
+
+    /**
+     * Merges a (count, mean, M2) group into one statistics row with Chan's parallel form of
+     * Welford's update; a single insert is (1, amount, 0) and a single delete (-1, amount, 0).
+     * Shared with {@link TransactionBulkWriter}.
+     */
+    static final String STATS_UPSERT_SQL = """
+            MERGE INTO category_amount_stats s
+            USING (VALUES (CAST(? AS VARCHAR(50)), CAST(? AS VARCHAR(50)), CAST(? AS BIGINT),
+                           CAST(? AS DOUBLE PRECISION), CAST(? AS DOUBLE PRECISION)))
+                  AS d(account_id, category, cnt, mean, m2)
+            ON s.account_id = d.account_id AND s.category = d.category
+            WHEN MATCHED THEN UPDATE SET
+                txn_count = s.txn_count + d.cnt,
+                mean_amount = CASE WHEN s.txn_count + d.cnt = 0 THEN 0
+                    ELSE s.mean_amount + (d.mean - s.mean_amount) * d.cnt / (s.txn_count + d.cnt) END,
+                m2 = CASE WHEN s.txn_count + d.cnt = 0 THEN 0
+                    ELSE GREATEST(0, s.m2 + d.m2 + (d.mean - s.mean_amount) * (d.mean - s.mean_amount)
+                                     * s.txn_count * d.cnt / (s.txn_count + d.cnt)) END
+            WHEN NOT MATCHED THEN INSERT (account_id, category, txn_count, mean_amount, m2)
+                VALUES (d.account_id, d.category, d.cnt, d.mean, d.m2)
+            """;
+
+    private static final String CURRENT_ROW_SQL =
+            "SELECT account_id, category, amount, date FROM transactions WHERE id = ?";
+
+    private final JdbcTemplate jdbc;
+
+    private final ApplicationEventPublisher events;
+
+    // Built from the DataSource: the JdbcTemplate bean itself depends on the EntityManagerFactory
+    // that is instantiating this listener.
+    public TransactionRollupListener(DataSource dataSource, ApplicationEventPublisher events) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.events = events;
+    }
+
+    @PostPersist
+    public void onInsert(Transaction txn) {
+        apply(txn.getAccountId(), txn.getDate(), txn.getCategory(), txn.getAmount(), 1);
+    }
+
+    @PreUpdate
+    public void onUpdate(Transaction txn) {
+        // The UPDATE has not been issued yet, so the stored row still holds the old values.
+        List<Transaction> previous = jdbc.query(CURRENT_ROW_SQL, (rs, i) -> Transaction.builder()
+                .accountId(rs.getString("account_id"))
+                .category(rs.getString("category"))
+                .amount(rs.getBigDecimal("amount"))
+                .date(rs.getObject("date", LocalDate.class))
+                .build(), txn.getId());
+
+        previous.forEach(old -> apply(old.getAccountId(), old.getDate(), old.getCategory(),
+                negate(old.getAmount()), -1));
+        apply(txn.getAccountId(), txn.getDate(), txn.getCategory(), txn.getAmount(), 1);
+    }
+
+    @PostRemove
+    public void onDelete(Transaction txn) {
+        apply(txn.getAccountId(), txn.getDate(), txn.getCategory(), negate(txn.getAmount()), -1);
+    }
+
+    private void apply(String accountId, LocalDate date, String category, BigDecimal amount, int count) {
+        if (accountId == null || date == null) {
+            log.warn("Skipping rollup update for transaction without account or date");
+            return;
+        }
+        BigDecimal value = amount == null ? BigDecimal.ZERO : amount;
+        jdbc.update(UPSERT_SQL,
+                accountId,
+                MonthlyAccountRollup.periodOf(date),
+                MonthlyAccountRollup.categoryOf(category),
+                value,
+                count);
+        // Stats deltas carry the unsigned amount: a removal is count -1 of that amount
+        jdbc.update(STATS_UPSERT_SQL,
+                accountId,
+                MonthlyAccountRollup.categoryOf(category),
+                count,
+                (count < 0 ? value.negate() : value).doubleValue(),
+                0.0);
+        events.publishEvent(new TransactionsChangedEvent(accountId, YearMonth.from(date)));
+    }
+
+    private static BigDecimal negate(BigDecimal amount) {
+        return amount == null ? null : amount.negate();
+    }
+}
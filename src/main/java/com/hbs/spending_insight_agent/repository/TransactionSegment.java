@@ -0,0 +1,339 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.TransactionRow;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, memory-mapped file holding one account-month of transactions, sorted by (date, id).
+ * <p>
+ * Columns are stored one after the other, each in the narrowest fixed width that holds it, so a
+ * scan reads the mapped bytes in place with no decoding step and no per-row objects:
+ * <ul>
+ *   <li>day of month, one byte; a 32-entry day index in the header turns date ranges into row ranges</li>
+ *   <li>id and amount (minor units), frame-of-reference: offset from the segment minimum in 1, 2, 4 or 8 bytes</li>
+ *   <li>category and merchant, as codes into per-segment dictionaries stored at the end of the file</li>
+ * </ul>
+ * The layout is versioned by {@link #MAGIC} and {@link #VERSION}; integers are big-endian.
+ */
+final class TransactionSegment {
+
+    static final int MAGIC = 0x54585347; // "TXSG"
+
+    static final short VERSION = 1;
+
+    /** Amounts are stored as DECIMAL(10,2). */
+    static final int SCALE = 2;
+
+    private static final int DAYS = 32;
+
+    // magic, version, 4 widths, period, row count, id base, amount base, 6 column offsets, day index
+    private static final int HEADER_BYTES = 4 + 2 + 4 + 4 + 4 + 8 + 8 + 6 * 4 + DAYS * 4;
+
+    private final MappedByteBuffer buffer;
+
+    private final YearMonth month;
+
+    private final int rowCount;
+
+    private final int idWidth;
+    private final int amountWidth;
+    private final int categoryWidth;
+    private final int merchantWidth;
+
+    private final long idBase;
+    private final long amountBase;
+
+    private final int dayOffset;
+    private final int idOffset;
+    private final int amountOffset;
+    private final int categoryOffset;
+    private final int merchantOffset;
+
+    /** Entry d: first row on or after day d of the month; the last entry is the row count. */
+    private final int[] dayStarts = new int[DAYS + 1];
+
+    private final String[] categories;
+    private final String[] merchants;
+
+    private TransactionSegment(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            throw new IllegalStateException("Not a transaction segment (version " + VERSION + ")");
+        }
+        this.idWidth = buffer.get(6);
+        this.amountWidth = buffer.get(7);
+        this.categoryWidth = buffer.get(8);
+        this.merchantWidth = buffer.get(9);
+        int period = buffer.getInt(10);
+        this.month = YearMonth.of(period / 100, period % 100);
+        this.rowCount = buffer.getInt(14);
+        this.idBase = buffer.getLong(18);
+        this.amountBase = buffer.getLong(26);
+        this.dayOffset = buffer.getInt(34);
+        this.idOffset = buffer.getInt(38);
+        this.amountOffset = buffer.getInt(42);
+        this.categoryOffset = buffer.getInt(46);
+        this.merchantOffset = buffer.getInt(50);
+        int dictionaryOffset = buffer.getInt(54);
+        for (int day = 0; day < DAYS; day++) {
+            dayStarts[day] = buffer.getInt(58 + 4 * day);
+        }
+        dayStarts[DAYS] = rowCount;
+
+        ByteBuffer dictionaries = buffer.duplicate().position(dictionaryOffset);
+        this.categories = readDictionary(dictionaries);
+        this.merchants = readDictionary(dictionaries);
+    }
+
+    /**
+     * Maps an existing segment file. The mapping stays valid after the file is replaced or
+     * deleted, so readers holding the segment are unaffected by a later compaction.
+     */
+    static TransactionSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new TransactionSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes {@code rows} (one month, sorted by date then id) to {@code file} and forces it to disk.
+     */
+    static void write(Path file, YearMonth month, List<TransactionRow> rows) throws IOException {
+        int n = rows.size();
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        long minAmount = Long.MAX_VALUE;
+        long maxAmount = Long.MIN_VALUE;
+        long[] amounts = new long[n];
+        int[] categoryCodes = new int[n];
+        int[] merchantCodes = new int[n];
+        Map<String, Integer> categoryDict = new HashMap<>();
+        Map<String, Integer> merchantDict = new HashMap<>();
+        List<String> categoryValues = new ArrayList<>();
+        List<String> merchantValues = new ArrayList<>();
+        int[] dayStarts = new int[DAYS];
+        LocalDate previous = null;
+        for (int i = 0; i < n; i++) {
+            TransactionRow row = rows.get(i);
+            if (!YearMonth.from(row.date()).equals(month)) {
+                throw new IllegalArgumentException("Row " + row.id() + " is not in " + month);
+            }
+            if (previous != null && row.date().isBefore(previous)) {
+                throw new IllegalArgumentException("Rows must be sorted by date");
+            }
+            previous = row.date();
+            minId = Math.min(minId, row.id());
+            maxId = Math.max(maxId, row.id());
+            amounts[i] = row.amount().setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+            minAmount = Math.min(minAmount, amounts[i]);
+            maxAmount = Math.max(maxAmount, amounts[i]);
+            categoryCodes[i] = code(categoryDict, categoryValues, row.category());
+            merchantCodes[i] = code(merchantDict, merchantValues, row.merchant());
+        }
+        // dayStarts[d] = first row on or after day d
+        for (int day = 1, i = 0; day < DAYS; day++) {
+            while (i < n && rows.get(i).date().getDayOfMonth() < day) {
+                i++;
+            }
+            dayStarts[day] = i;
+        }
+        if (n == 0) {
+            minId = maxId = minAmount = maxAmount = 0;
+        }
+
+        int idWidth = width(maxId - minId);
+        int amountWidth = width(maxAmount - minAmount);
+        int categoryWidth = width(Math.max(categoryValues.size() - 1, 0));
+        int merchantWidth = width(Math.max(merchantValues.size() - 1, 0));
+        byte[] categoryBytes = dictionaryBytes(categoryValues);
+        byte[] merchantBytes = dictionaryBytes(merchantValues);
+
+        int dayOffset = HEADER_BYTES;
+        int idOffset = dayOffset + n;
+        int amountOffset = idOffset + n * idWidth;
+        int categoryOffset = amountOffset + n * amountWidth;
+        int merchantOffset = categoryOffset + n * categoryWidth;
+        int dictionaryOffset = merchantOffset + n * merchantWidth;
+        ByteBuffer out = ByteBuffer.allocate(dictionaryOffset + categoryBytes.length + merchantBytes.length);
+
+        out.putInt(MAGIC).putShort(VERSION)
+                .put((byte) idWidth).put((byte) amountWidth).put((byte) categoryWidth).put((byte) merchantWidth)
+                .putInt(month.getYear() * 100 + month.getMonthValue())
+                .putInt(n)
+                .putLong(minId)
+                .putLong(minAmount)
+                .putInt(dayOffset).putInt(idOffset).putInt(amountOffset)
+                .putInt(categoryOffset).putInt(merchantOffset).putInt(dictionaryOffset);
+        for (int start : dayStarts) {
+            out.putInt(start);
+        }
+        for (TransactionRow row : rows) {
+            out.put((byte) row.date().getDayOfMonth());
+        }
+        for (TransactionRow row : rows) {
+            put(out, idWidth, row.id() - minId);
+        }
+        for (long amount : amounts) {
+            put(out, amountWidth, amount - minAmount);
+        }
+        for (int code : categoryCodes) {
+            put(out, categoryWidth, code);
+        }
+        for (int code : merchantCodes) {
+            put(out, merchantWidth, code);
+        }
+        out.put(categoryBytes).put(merchantBytes).flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+    }
+
+    YearMonth month() {
+        return month;
+    }
+
+    int size() {
+        return rowCount;
+    }
+
+    long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    /** First row on or after {@code date}, clamped to this month. */
+    int lowerBound(LocalDate date) {
+        if (date.isBefore(month.atDay(1))) {
+            return 0;
+        }
+        return date.isAfter(month.atEndOfMonth()) ? rowCount : dayStarts[date.getDayOfMonth()];
+    }
+
+    /** First row after {@code date}, clamped to this month. */
+    int upperBound(LocalDate date) {
+        if (date.isBefore(month.atDay(1))) {
+            return 0;
+        }
+        return date.isAfter(month.atEndOfMonth()) ? rowCount : dayStarts[date.getDayOfMonth() + 1];
+    }
+
+    long id(int row) {
+        return idBase + get(idOffset, idWidth, row);
+    }
+
+    LocalDate date(int row) {
+        return month.atDay(buffer.get(dayOffset + row));
+    }
+
+    /** Amount in minor units ({@link #SCALE}). */
+    long amount(int row) {
+        return amountBase + get(amountOffset, amountWidth, row);
+    }
+
+    int categoryCode(int row) {
+        return (int) get(categoryOffset, categoryWidth, row);
+    }
+
+    int merchantCode(int row) {
+        return (int) get(merchantOffset, merchantWidth, row);
+    }
+
+    /** Dictionary of {@link #categoryCode}; may contain {@code null}. */
+    String[] categories() {
+        return categories;
+    }
+
+    /** Dictionary of {@link #merchantCode}; may contain {@code null}. */
+    String[] merchants() {
+        return merchants;
+    }
+
+    TransactionRow row(int row) {
+        return new TransactionRow(id(row), date(row), BigDecimal.valueOf(amount(row), SCALE),
+                categories[categoryCode(row)], merchants[merchantCode(row)]);
+    }
+
+    private long get(int columnOffset, int width, int row) {
+        int position = columnOffset + row * width;
+        return switch (width) {
+            case 1 -> buffer.get(position) & 0xFFL;
+            case 2 -> buffer.getShort(position) & 0xFFFFL;
+            case 4 -> buffer.getInt(position) & 0xFFFF_FFFFL;
+            default -> buffer.getLong(position);
+        };
+    }
+
+    private static void put(ByteBuffer out, int width, long value) {
+        switch (width) {
+            case 1 -> out.put((byte) value);
+            case 2 -> out.putShort((short) value);
+            case 4 -> out.putInt((int) value);
+            default -> out.putLong(value);
+        }
+    }
+
+    // Unsigned range of the offsets from the minimum
+    private static int width(long range) {
+        if (range < 0 || range > 0xFFFF_FFFFL) {
+            return 8;
+        }
+        return range <= 0xFF ? 1 : range <= 0xFFFF ? 2 : 4;
+    }
+
+    private static int code(Map<String, Integer> dictionary, List<String> values, String value) {
+        return dictionary.computeIfAbsent(value, v -> {
+            values.add(v);
+            return values.size() - 1;
+        });
+    }
+
+    // Count, then per entry a length (-1 for null) and the UTF-8 bytes
+    private static byte[] dictionaryBytes(List<String> values) {
+        int size = 4;
+        List<byte[]> encoded = new ArrayList<>(values.size());
+        for (String value : values) {
+            byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            size += 4 + (bytes == null ? 0 : bytes.length);
+        }
+        ByteBuffer out = ByteBuffer.allocate(size).putInt(values.size());
+        for (byte[] bytes : encoded) {
+            out.putInt(bytes == null ? -1 : bytes.length);
+            if (bytes != null) {
+                out.put(bytes);
+            }
+        }
+        return out.array();
+    }
+
+    private static String[] readDictionary(ByteBuffer in) {
+        String[] values = new String[in.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            int length = in.getInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+}
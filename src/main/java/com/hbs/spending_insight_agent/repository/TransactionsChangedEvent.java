@@ -0,0 +1,9 @@
+package com.hbs.spending_insight_agent.repository;
+
+import java.time.YearMonth;
+
+/**
+ * Published whenever a transaction in the given account-month is inserted, updated or deleted.
+ */
+public record TransactionsChangedEvent(String accountId, YearMonth month) {
+}
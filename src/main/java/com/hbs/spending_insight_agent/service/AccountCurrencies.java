@@ -0,0 +1,54 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hbs.spending_insight_agent.model.Account;
+import com.hbs.spending_insight_agent.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Currency;
+import java.util.Optional;
+
+/**
+ * Currency of each account, which fixes the scale of its {@link com.hbs.spending_insight_agent.model.Money}.
+ * Known accounts are cached; an account's currency does not change.
+ */
+@Component
+public class AccountCurrencies {
+
+    private final AccountRepository accountRepo;
+
+    private final Currency defaultCurrency;
+
+    private final Cache<String, Currency> currencies;
+
+    public AccountCurrencies(AccountRepository accountRepo,
+                             @Value("${insights.default-currency:SGD}") String defaultCurrency,
+                             @Value("${insights.currency-cache.max-size:10000}") long maxSize) {
+        this.accountRepo = accountRepo;
+        this.defaultCurrency = Currency.getInstance(defaultCurrency);
+        this.currencies = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * The account's currency, or empty if the account does not exist.
+     */
+    public Optional<Currency> find(String accountId) {
+        // Unknown accounts are not cached: they may be created later
+        return Optional.ofNullable(currencies.get(accountId, id -> accountRepo.findById(id)
+                .map(Account::getCurrency)
+                .map(Currency::getInstance)
+                .orElse(null)));
+    }
+
+    /**
+     * The account's currency, or {@code insights.default-currency} for an unknown account (whose
+     * totals are zero anyway).
+     */
+    public Currency of(String accountId) {
+        return find(accountId).orElse(defaultCurrency);
+    }
+}
@@ -1,30 +1,148 @@
 package com.hbs.spending_insight_agent.service;
 
-import com.hbs.spending_insight_agent.model.Transaction;
-import com.hbs.spending_insight_agent.repository.TransactionRepository;
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.Money;
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.SpendingTrend;
+import com.hbs.spending_insight_agent.repository.ColdTransactionStore;
+import com.hbs.spending_insight_agent.repository.MonthlyAccountRollupRepository;
+import com.hbs.spending_insight_agent.repository.TransactionBulkWriter;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AccountSummaryService {
 
-    private final TransactionRepository transactionRepo;
+    /** Longest trend window, in months. */
+    public static final int MAX_TREND_MONTHS = 24;
+
+    private final TransactionService txnService;
+
+    private final MonthlyAccountRollupRepository rollupRepo;
+
+    private final ColumnarTransactionStore columnarStore;
+
+    private final AccountCurrencies currencies;
+
+    private final ColdTransactionStore coldStore;
+
+    private final TransactionBulkWriter bulkWriter;
 
     public BigDecimal getTotalSpent(String accountId, YearMonth ym) {
+        return getMonthlyTotal(accountId, ym).toBigDecimal();
+    }
+
+    /**
+     * Monthly total in the account's currency, for further arithmetic.
+     */
+    public Money getMonthlyTotal(String accountId, YearMonth ym) {
+        Currency currency = currencies.of(accountId);
+        if (columnarStore.isEnabled()) {
+            return columnarStore.total(accountId, ym.atDay(1), ym.atEndOfMonth(), currency);
+        }
 
-        List<Transaction> txns = transactionRepo.findByAccountIdAndDateBetween(
-                accountId,
-                ym.atDay(1),
-                ym.atEndOfMonth()
-        );
+        // Fast path: a handful of pre-aggregated rows per month
+        BigDecimal rolledUp = rollupRepo.sumTotalAmount(accountId, MonthlyAccountRollup.periodOf(ym));
+        if (rolledUp != null) {
+            return Money.of(rolledUp, currency);
+        }
+
+        // Fallback: aggregate in the database, never hydrate entities; includes archived rows
+        return Money.of(txnService.getTotalSpent(accountId, ym.atDay(1), ym.atEndOfMonth()), currency);
+    }
+
+    public List<CategoryTotal> getCategoryTotals(String accountId, YearMonth ym) {
+        if (columnarStore.isEnabled()) {
+            return columnarStore.categoryTotals(accountId, ym.atDay(1), ym.atEndOfMonth());
+        }
+
+        List<CategoryTotal> rolledUp = rollupRepo.findCategoryTotals(accountId, MonthlyAccountRollup.periodOf(ym));
+        if (!rolledUp.isEmpty()) {
+            return rolledUp;
+        }
+
+        return txnService.getCategoryTotals(accountId, ym.atDay(1), ym.atEndOfMonth());
+    }
+
+    /**
+     * Per-category monthly totals for the {@code months} months ending with {@code to}.
+     * <p>
+     * One ordered range read of the rollups (a handful of rows per month, however many
+     * transactions), bucketed by month and category in a single pass. Unlike the single-month
+     * reads there is no fallback to {@code transactions}: every write path maintains the rollups,
+     * and bulk SQL is followed by {@link #rebuildRollups()}.
+     */
+    public SpendingTrend getTrend(String accountId, YearMonth to, int months) {
+        if (months < 1 || months > MAX_TREND_MONTHS) {
+            throw new IllegalArgumentException("Number of months must be between 1 and " + MAX_TREND_MONTHS);
+        }
+        Currency currency = currencies.of(accountId);
+        YearMonth from = to.minusMonths(months - 1);
+
+        Map<String, long[]> byCategory = new HashMap<>();
+        for (MonthlyAccountRollup rollup : rollupRepo.findByAccountIdAndPeriodBetween(
+                accountId, MonthlyAccountRollup.periodOf(from), MonthlyAccountRollup.periodOf(to))) {
+            YearMonth month = YearMonth.of(rollup.getPeriod() / 100, rollup.getPeriod() % 100);
+            long[] amounts = byCategory.computeIfAbsent(rollup.getCategory(), c -> new long[months + 1]);
+            int index = (int) from.until(month, ChronoUnit.MONTHS);
+            long amount = Money.of(rollup.getTotalAmount(), currency).minorUnits();
+            amounts[index] = Math.addExact(amounts[index], amount);
+            // Last slot: the window total, for ordering the categories
+            amounts[months] = Math.addExact(amounts[months], amount);
+        }
+
+        List<String> categories = new ArrayList<>(byCategory.keySet());
+        categories.sort(Comparator.comparingLong((String c) -> byCategory.get(c)[months]).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        List<SpendingTrend.Month> points = new ArrayList<>(months);
+        for (int i = 0; i < months; i++) {
+            Money total = Money.zero(currency);
+            List<BigDecimal> amounts = new ArrayList<>(categories.size());
+            for (String category : categories) {
+                Money amount = new Money(byCategory.get(category)[i], currency);
+                total = total.plus(amount);
+                amounts.add(amount.toBigDecimal());
+            }
+            points.add(new SpendingTrend.Month(from.plusMonths(i), total.toBigDecimal(), amounts));
+        }
+        return new SpendingTrend(from, to, categories, points);
+    }
 
-        return txns.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Recomputes all monthly rollups from the transactions table and the cold segments
+     * (backfill after bulk loads).
+     */
+    @Transactional
+    public int rebuildRollups() {
+        rollupRepo.deleteAllRollups();
+        // Both tiers at one split: a compaction published in between would be counted twice
+        int rows = coldStore.read(() -> {
+            int inserted = rollupRepo.insertRollupsFromTransactions();
+            List<TransactionBulkWriter.RollupDelta> cold = coldStore.rollupDeltas();
+            if (cold.isEmpty()) {
+                return inserted;
+            }
+            bulkWriter.applyRollupDeltas(cold);
+            return Math.toIntExact(rollupRepo.count());
+        });
+        // Bulk loads that need a rollup rebuild bypassed the change events, too
+        columnarStore.invalidateAll();
+        log.info("Rebuilt {} monthly rollup rows", rows);
+        return rows;
     }
 }
@@ -0,0 +1,190 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.agent.LlmCapacityExceededException;
+import com.hbs.spending_insight_agent.agent.ToolResultBudget;
+import com.hbs.spending_insight_agent.agent.ToolResultCache;
+import com.hbs.spending_insight_agent.model.BatchInsightItem;
+import com.hbs.spending_insight_agent.model.BatchInsightResult;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Generates insights for many {@code (account, month)} items at once.
+ * <p>
+ * Items are processed in chunks: for each chunk the transactions every agent run will ask for
+ * first are loaded with one {@code account_id IN (...)} query per month and seeded into that run's
+ * tool cache. Up to {@code concurrency} insights are generated in parallel and each result is
+ * handed to the sink as soon as it completes, so results arrive in completion order.
+ */
+@Service
+@Slf4j
+public class BatchInsightService {
+
+    private final SpendingInsightService insightService;
+
+    private final TransactionService txnService;
+
+    private final InsightCache insightCache;
+
+    private final ToolResultCache toolResultCache;
+
+    private final ToolResultBudget toolResultBudget;
+
+    private final InsightMode defaultMode;
+
+    private final int concurrency;
+
+    private final int maxItems;
+
+    private final int prefetchChunkSize;
+
+    public BatchInsightService(SpendingInsightService insightService,
+                               TransactionService txnService,
+                               InsightCache insightCache,
+                               ToolResultCache toolResultCache,
+                               ToolResultBudget toolResultBudget,
+                               @Value("${insights.mode:AGENT}") InsightMode defaultMode,
+                               @Value("${insights.batch.concurrency:8}") int concurrency,
+                               @Value("${insights.batch.max-items:1000}") int maxItems,
+                               @Value("${insights.batch.prefetch-chunk-size:200}") int prefetchChunkSize) {
+        this.insightService = insightService;
+        this.txnService = txnService;
+        this.insightCache = insightCache;
+        this.toolResultCache = toolResultCache;
+        this.toolResultBudget = toolResultBudget;
+        this.defaultMode = defaultMode;
+        this.concurrency = concurrency;
+        this.maxItems = maxItems;
+        this.prefetchChunkSize = prefetchChunkSize;
+    }
+
+    public int maxItems() {
+        return maxItems;
+    }
+
+    public void generate(List<BatchInsightItem> items, Consumer<BatchInsightResult> sink) {
+        generate(items, null, sink);
+    }
+
+    /**
+     * Blocks until every item has a result (or the sink failed). The sink is called from worker
+     * threads but never concurrently; once it throws, e.g. because the client disconnected,
+     * no further items are started. A non-null {@code tokenBudget} overrides the configured
+     * tool result budgets for every item.
+     */
+    public void generate(List<BatchInsightItem> items, Integer tokenBudget, Consumer<BatchInsightResult> sink) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Batch too large. Max " + maxItems + " items.");
+        }
+        log.info("Batch: generating {} insights with concurrency {}", items.size(), concurrency);
+
+        AtomicBoolean aborted = new AtomicBoolean();
+        Consumer<BatchInsightResult> deliver = result -> {
+            synchronized (sink) {
+                if (aborted.get()) {
+                    return;
+                }
+                try {
+                    sink.accept(result);
+                } catch (RuntimeException e) {
+                    log.warn("Batch: result sink failed, abandoning remaining items: {}", e.getMessage());
+                    aborted.set(true);
+                }
+            }
+        };
+
+        Semaphore slots = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int start = 0; start < items.size() && !aborted.get(); start += prefetchChunkSize) {
+                List<BatchInsightItem> chunk = items.subList(start, Math.min(start + prefetchChunkSize, items.size()));
+                Map<BatchInsightItem, Prefetched> prefetched = prefetch(chunk);
+
+                for (BatchInsightItem item : chunk) {
+                    // Blocks here rather than queueing tasks, so at most one chunk of rows is held
+                    slots.acquireUninterruptibly();
+                    if (aborted.get()) {
+                        slots.release();
+                        break;
+                    }
+                    executor.execute(() -> {
+                        try {
+                            deliver.accept(generateOne(item, prefetched.get(item), tokenBudget));
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                }
+            }
+        }
+        log.info("Batch: finished {} items{}", items.size(), aborted.get() ? " (aborted)" : "");
+    }
+
+    private BatchInsightResult generateOne(BatchInsightItem item, Prefetched prefetched, Integer tokenBudget) {
+        try (ToolResultCache.Scope ignored = toolResultCache.open();
+             ToolResultBudget.Scope ignoredBudget = toolResultBudget.open(tokenBudget)) {
+            if (prefetched != null) {
+                toolResultCache.prefetched(item.accountId(), prefetched.from(), prefetched.to(), prefetched.rows());
+            }
+            return BatchInsightResult.ok(item,
+                    insightService.generateInsight(item.accountId(), item.year(), item.month()));
+        } catch (LlmCapacityExceededException e) {
+            return BatchInsightResult.failed(item, "LLM capacity exceeded, retry later");
+        } catch (Exception e) {
+            log.warn("Batch: item failed accountId={}, year={}, month={}: {}",
+                    item.accountId(), item.year(), item.month(), e.getMessage());
+            return BatchInsightResult.failed(item, "Failed to analyze spending");
+        }
+    }
+
+    /**
+     * Loads the previous-month-to-month-end range the agent reads first, for every uncached agent
+     * item in the chunk: one query per distinct month instead of one per item.
+     */
+    private Map<BatchInsightItem, Prefetched> prefetch(List<BatchInsightItem> chunk) {
+        Map<BatchInsightItem, Prefetched> prefetched = new HashMap<>();
+        if (defaultMode != InsightMode.AGENT) {
+            return prefetched;
+        }
+
+        Map<YearMonth, List<BatchInsightItem>> byMonth = chunk.stream()
+                .filter(item -> insightCache.get(item.accountId(), monthOf(item)).isEmpty())
+                .collect(Collectors.groupingBy(BatchInsightService::monthOf));
+
+        byMonth.forEach((ym, monthItems) -> {
+            LocalDate from = ym.minusMonths(1).atDay(1);
+            LocalDate to = ym.atEndOfMonth();
+            try {
+                Map<String, List<TransactionRow>> rows = txnService.getTransactionRows(
+                        monthItems.stream().map(BatchInsightItem::accountId).toList(), from, to);
+                monthItems.forEach(item -> prefetched.put(item,
+                        new Prefetched(from, to, rows.get(item.accountId()))));
+            } catch (Exception e) {
+                // Best effort: each run prefetches on its own
+                log.warn("Batch: prefetch failed for month {}, continuing without it", ym, e);
+            }
+        });
+        log.debug("Batch: prefetched {} of {} items across {} months", prefetched.size(), chunk.size(), byMonth.size());
+        return prefetched;
+    }
+
+    private static YearMonth monthOf(BatchInsightItem item) {
+        return YearMonth.of(item.year(), item.month());
+    }
+
+    private record Prefetched(LocalDate from, LocalDate to, List<TransactionRow> rows) {
+    }
+}
@@ -0,0 +1,305 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.Money;
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import com.hbs.spending_insight_agent.repository.ColdTransactionStore;
+import com.hbs.spending_insight_agent.repository.TransactionRepository;
+import com.hbs.spending_insight_agent.repository.TransactionsChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-optimized, per-account copy of the transactions table for the aggregation hot path.
+ * <p>
+ * Each account is held as parallel primitive arrays sorted by date: epoch day, amount in minor
+ * units, and dictionary codes for category and merchant. Range aggregates are a binary search
+ * plus a loop over {@code long}s, with no per-row objects. Accounts are loaded on first use and
+ * dropped on every committed write to them, then reloaded lazily; the cache is bounded by an
+ * estimate of its heap footprint and evicts cold accounts first.
+ * <p>
+ * Accounts are loaded from both tiers: the hot table plus any months in {@link ColdTransactionStore}.
+ * <p>
+ * It serves committed data only: unlike the rollups, a transaction does not see its own
+ * uncommitted writes here.
+ * <p>
+ * Disabled by default ({@code insights.columnar.enabled}); callers check {@link #isEnabled()}.
+ */
+@Component
+@Slf4j
+public class ColumnarTransactionStore {
+
+    /** Amounts are stored as DECIMAL(10,2). */
+    static final int SCALE = 2;
+
+    private final TransactionRepository transactionRepo;
+
+    private final ColdTransactionStore coldStore;
+
+    private final boolean enabled;
+
+    private final Cache<String, AccountColumns> accounts;
+
+    public ColumnarTransactionStore(TransactionRepository transactionRepo,
+                                    ColdTransactionStore coldStore,
+                                    @Value("${insights.columnar.enabled:false}") boolean enabled,
+                                    @Value("${insights.columnar.max-size:64MB}") DataSize maxSize) {
+        this.transactionRepo = transactionRepo;
+        this.coldStore = coldStore;
+        this.enabled = enabled;
+        this.accounts = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String accountId, AccountColumns columns) -> columns.footprintBytes())
+                // Evict on the calling thread, so the footprint never lags behind a load
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sum of amounts in {@code [from, to]} in {@code currency}; zero when there are none.
+     */
+    public Money total(String accountId, LocalDate from, LocalDate to, Currency currency) {
+        AccountColumns columns = columns(accountId);
+        int end = columns.upperBound(to);
+        long total = 0;
+        for (int i = columns.lowerBound(from); i < end; i++) {
+            total = Math.addExact(total, columns.amounts[i]);
+        }
+        return Money.ofScaled(total, SCALE, currency);
+    }
+
+    /**
+     * Per-category totals in {@code [from, to]}, largest first, with missing categories reported
+     * as {@value MonthlyAccountRollup#UNCATEGORIZED}; same shape as the rollup and SQL paths.
+     */
+    public List<CategoryTotal> categoryTotals(String accountId, LocalDate from, LocalDate to) {
+        AccountColumns columns = columns(accountId);
+        long[] sums = new long[columns.categories.length];
+        long[] counts = new long[columns.categories.length];
+        int end = columns.upperBound(to);
+        for (int i = columns.lowerBound(from); i < end; i++) {
+            int code = columns.categoryCodes[i];
+            sums[code] = Math.addExact(sums[code], columns.amounts[i]);
+            counts[code]++;
+        }
+
+        // null and a literal "Uncategorized" are different codes but the same category
+        Map<String, long[]> byCategory = new LinkedHashMap<>();
+        for (int code = 0; code < sums.length; code++) {
+            if (counts[code] > 0) {
+                long[] acc = byCategory.computeIfAbsent(
+                        MonthlyAccountRollup.categoryOf(columns.categories[code]), k -> new long[2]);
+                acc[0] = Math.addExact(acc[0], sums[code]);
+                acc[1] += counts[code];
+            }
+        }
+        List<CategoryTotal> totals = new ArrayList<>(byCategory.size());
+        byCategory.forEach((category, acc) ->
+                totals.add(new CategoryTotal(category, BigDecimal.valueOf(acc[0], SCALE), acc[1])));
+        totals.sort(Comparator.comparing(CategoryTotal::total).reversed());
+        return totals;
+    }
+
+    /**
+     * At most {@code limit} rows in {@code [from, to]}, in (date, id) order.
+     */
+    public List<TransactionRow> rows(String accountId, LocalDate from, LocalDate to, int limit) {
+        AccountColumns columns = columns(accountId);
+        int start = columns.lowerBound(from);
+        int end = Math.min(columns.upperBound(to), start + limit);
+        List<TransactionRow> rows = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = start; i < end; i++) {
+            rows.add(columns.row(i));
+        }
+        return rows;
+    }
+
+    /**
+     * Drops every account, e.g. after bulk SQL that bypassed {@link TransactionsChangedEvent}.
+     */
+    public void invalidateAll() {
+        accounts.invalidateAll();
+    }
+
+    // A load racing with this write either finishes first and is then removed, or starts
+    // afterwards and reads the committed rows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionsChanged(TransactionsChangedEvent event) {
+        accounts.invalidate(event.accountId());
+    }
+
+    public Stats stats() {
+        CacheStats stats = accounts.stats();
+        return new Stats(accounts.estimatedSize(), footprintBytes(),
+                stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
+    /**
+     * Estimated heap held by resident accounts, in bytes.
+     */
+    public long footprintBytes() {
+        return accounts.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private AccountColumns columns(String accountId) {
+        return accounts.get(accountId, this::load);
+    }
+
+    private AccountColumns load(String accountId) {
+        List<TransactionRow> rows = coldStore.read(() -> {
+            List<TransactionRow> hot = transactionRepo.findRowsByAccountIdOrderByDateAscIdAsc(accountId);
+            List<TransactionRow> cold = coldStore.rows(accountId);
+            if (cold.isEmpty()) {
+                return hot;
+            }
+            List<TransactionRow> all = new ArrayList<>(hot);
+            all.addAll(cold);
+            all.sort(Comparator.comparing(TransactionRow::date).thenComparing(TransactionRow::id));
+            return all;
+        });
+        AccountColumns columns = AccountColumns.of(rows);
+        log.debug("Columnar store: loaded accountId={}, rows={}, bytes={}",
+                accountId, rows.size(), columns.footprintBytes());
+        return columns;
+    }
+
+    public record Stats(long accounts, long footprintBytes, long hits, long misses, long evictions) {
+    }
+
+    /**
+     * Immutable column set of one account, sorted by (date, id).
+     */
+    static final class AccountColumns {
+
+        private static final int ARRAY_HEADER_BYTES = 16;
+
+        private static final int STRING_OVERHEAD_BYTES = 56;
+
+        private final long[] ids;
+        private final int[] epochDays;
+        private final long[] amounts;
+        private final int[] categoryCodes;
+        private final int[] merchantCodes;
+        private final String[] categories;
+        private final String[] merchants;
+        private final int footprintBytes;
+
+        private AccountColumns(long[] ids, int[] epochDays, long[] amounts, int[] categoryCodes,
+                               int[] merchantCodes, String[] categories, String[] merchants) {
+            this.ids = ids;
+            this.epochDays = epochDays;
+            this.amounts = amounts;
+            this.categoryCodes = categoryCodes;
+            this.merchantCodes = merchantCodes;
+            this.categories = categories;
+            this.merchants = merchants;
+            long bytes = 7L * ARRAY_HEADER_BYTES
+                    + ids.length * (8L + 4 + 8 + 4 + 4)
+                    + 8L * (categories.length + merchants.length)
+                    + dictionaryBytes(categories) + dictionaryBytes(merchants);
+            this.footprintBytes = (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @param rows rows of one account in (date, id) order
+         */
+        static AccountColumns of(List<TransactionRow> rows) {
+            int n = rows.size();
+            long[] ids = new long[n];
+            int[] epochDays = new int[n];
+            long[] amounts = new long[n];
+            int[] categoryCodes = new int[n];
+            int[] merchantCodes = new int[n];
+            Map<String, Integer> categoryDict = new HashMap<>();
+            Map<String, Integer> merchantDict = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                TransactionRow row = rows.get(i);
+                ids[i] = row.id();
+                epochDays[i] = Math.toIntExact(row.date().toEpochDay());
+                amounts[i] = row.amount().setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+                categoryCodes[i] = categoryDict.computeIfAbsent(row.category(), k -> categoryDict.size());
+                merchantCodes[i] = merchantDict.computeIfAbsent(row.merchant(), k -> merchantDict.size());
+            }
+            return new AccountColumns(ids, epochDays, amounts, categoryCodes, merchantCodes,
+                    toArray(categoryDict), toArray(merchantDict));
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int footprintBytes() {
+            return footprintBytes;
+        }
+
+        /** First index whose date is on or after {@code date}. */
+        int lowerBound(LocalDate date) {
+            return search(date.toEpochDay());
+        }
+
+        /** First index whose date is after {@code date}. */
+        int upperBound(LocalDate date) {
+            return search(date.toEpochDay() + 1);
+        }
+
+        TransactionRow row(int i) {
+            return new TransactionRow(ids[i], LocalDate.ofEpochDay(epochDays[i]),
+                    BigDecimal.valueOf(amounts[i], SCALE), categories[categoryCodes[i]], merchants[merchantCodes[i]]);
+        }
+
+        private int search(long epochDay) {
+            int low = 0;
+            int high = epochDays.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochDays[mid] < epochDay) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static String[] toArray(Map<String, Integer> dictionary) {
+            String[] values = new String[dictionary.size()];
+            dictionary.forEach((value, code) -> values[code] = value);
+            return values;
+        }
+
+        private static long dictionaryBytes(String[] values) {
+            long bytes = 0;
+            for (String value : values) {
+                if (value != null) {
+                    bytes += STRING_OVERHEAD_BYTES + value.length();
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.hbs.spending_insight_agent.service;
+
+/**
+ * Wire formats accepted by {@link TransactionIngestService}.
+ * <ul>
+ *   <li>{@code CSV}: header line naming {@code account_id,date,amount[,category][,merchant]}, then one row per line</li>
+ *   <li>{@code NDJSON}: one object per line with {@code accountId}, {@code date}, {@code amount},
+ *       {@code category}, {@code merchant}</li>
+ * </ul>
+ */
+public enum IngestFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,127 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hbs.spending_insight_agent.repository.TransactionsChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of generated insights keyed by account and month.
+ * <p>
+ * An insight depends on its month and the previous month, so each entry remembers the data
+ * versions of both as observed <em>before</em> generation started. Versions are bumped after
+ * every committed transaction write; an entry whose versions no longer match is never served.
+ * <p>
+ * A version is forgotten once it has not been read or bumped for longer than the TTL plus
+ * {@link #VERSION_RETENTION_MARGIN}. Every snapshot is compared within that time (a cached entry
+ * lives at most the TTL, a generation takes minutes), so a forgotten version reading as 0 again
+ * can never make a stale entry look current.
+ */
+@Component
+@Slf4j
+public class InsightCache {
+
+    /** Longer than any insight generation, from version snapshot to cache put. */
+    static final Duration VERSION_RETENTION_MARGIN = Duration.ofHours(1);
+
+    private final Cache<Key, Entry> cache;
+
+    private final Cache<Key, AtomicLong> dataVersions;
+
+    @Autowired
+    public InsightCache(@Value("${insights.cache.max-size:10000}") long maxSize,
+                        @Value("${insights.cache.ttl:24h}") Duration ttl) {
+        this(maxSize, ttl, Ticker.systemTicker());
+    }
+
+    InsightCache(long maxSize, Duration ttl, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.dataVersions = Caffeine.newBuilder()
+                .expireAfterAccess(ttl.plus(VERSION_RETENTION_MARGIN))
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Snapshot of the data this insight depends on; take it before reading any data.
+     */
+    public DataVersion currentVersion(String accountId, YearMonth month) {
+        return new DataVersion(versionOf(accountId, month), versionOf(accountId, month.minusMonths(1)));
+    }
+
+    public Optional<String> get(String accountId, YearMonth month) {
+        Key key = new Key(accountId, month);
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (!entry.version().equals(currentVersion(accountId, month))) {
+            // Stale: data changed after this insight was generated
+            cache.asMap().remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.insight());
+    }
+
+    public void put(String accountId, YearMonth month, DataVersion observed, String insight) {
+        cache.put(new Key(accountId, month), new Entry(observed, insight));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /** Account-months whose data version is currently remembered. */
+    long trackedVersions() {
+        dataVersions.cleanUp();
+        return dataVersions.estimatedSize();
+    }
+
+    // Runs before other listeners of this event, so they can rely on the bumped version
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onTransactionsChanged(TransactionsChangedEvent event) {
+        dataVersions.get(new Key(event.accountId(), event.month()), k -> new AtomicLong())
+                .incrementAndGet();
+        // Insights for this month and the next one (which compares against it) are now stale
+        cache.invalidate(new Key(event.accountId(), event.month()));
+        cache.invalidate(new Key(event.accountId(), event.month().plusMonths(1)));
+        log.debug("Insight cache: invalidated accountId={}, month={}", event.accountId(), event.month());
+    }
+
+    private long versionOf(String accountId, YearMonth month) {
+        AtomicLong version = dataVersions.getIfPresent(new Key(accountId, month));
+        return version == null ? 0L : version.get();
+    }
+
+    public record DataVersion(long month, long previousMonth) {
+    }
+
+    private record Key(String accountId, YearMonth month) {
+    }
+
+    private record Entry(DataVersion version, String insight) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.hbs.spending_insight_agent.service;
+
+/**
+ * How {@link SpendingInsightService} produces an insight.
+ */
+public enum InsightMode {
+
+    /** The agent plans and calls tools itself (several LLM round trips). */
+    AGENT,
+
+    /** Facts are computed in Java and narrated in a single LLM call without tools. */
+    PRECOMPUTED
+}
@@ -0,0 +1,158 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.Account;
+import com.hbs.spending_insight_agent.model.BatchInsightItem;
+import com.hbs.spending_insight_agent.model.BatchInsightResult;
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.PregenerationCheckpoint;
+import com.hbs.spending_insight_agent.repository.AccountRepository;
+import com.hbs.spending_insight_agent.repository.PregenerationCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-generates every account's insight for the month that just closed, so the first-days-of-month
+ * peak is served from {@link InsightStore} instead of the LLM.
+ * <p>
+ * Accounts are walked in id order, one page at a time; each page goes through
+ * {@link BatchInsightService} (shared prefetch, bounded parallelism) and the last account id of
+ * the page is checkpointed. The schedule fires daily, so a run interrupted by a restart resumes
+ * from its checkpoint the next day, and a completed month is skipped.
+ */
+@Service
+@Slf4j
+public class InsightPregenerationJob {
+
+    private final AccountRepository accountRepo;
+
+    private final PregenerationCheckpointRepository checkpointRepo;
+
+    private final BatchInsightService batchService;
+
+    private final InsightStore insightStore;
+
+    private final InsightCache insightCache;
+
+    private final Clock clock;
+
+    private final int pageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public InsightPregenerationJob(AccountRepository accountRepo,
+                                   PregenerationCheckpointRepository checkpointRepo,
+                                   BatchInsightService batchService,
+                                   InsightStore insightStore,
+                                   InsightCache insightCache,
+                                   Clock clock,
+                                   @Value("${insights.pregeneration.page-size:100}") int pageSize) {
+        this.accountRepo = accountRepo;
+        this.checkpointRepo = checkpointRepo;
+        this.batchService = batchService;
+        this.insightStore = insightStore;
+        this.insightCache = insightCache;
+        this.clock = clock;
+        this.pageSize = pageSize;
+    }
+
+    @Scheduled(cron = "${insights.pregeneration.cron:0 30 1 * * *}")
+    public void pregenerateLastMonth() {
+        pregenerate(YearMonth.now(clock).minusMonths(1));
+    }
+
+    /**
+     * Generates and stores insights for all accounts for {@code month}, resuming from the checkpoint.
+     *
+     * @return the checkpoint after this run, or {@code null} if another run was in progress
+     */
+    public PregenerationCheckpoint pregenerate(YearMonth month) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Pre-generation: a run is already in progress, skipping month={}", month);
+            return null;
+        }
+        try {
+            return run(month);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private PregenerationCheckpoint run(YearMonth month) {
+        int period = MonthlyAccountRollup.periodOf(month);
+        PregenerationCheckpoint checkpoint = checkpointRepo.findById(period)
+                .orElseGet(() -> PregenerationCheckpoint.builder().period(period).build());
+        if (checkpoint.isCompleted()) {
+            log.info("Pre-generation: month={} already completed", month);
+            return checkpoint;
+        }
+        log.info("Pre-generation: starting month={} after accountId={}", month, checkpoint.getLastAccountId());
+
+        while (true) {
+            String after = checkpoint.getLastAccountId() == null ? "" : checkpoint.getLastAccountId();
+            List<Account> page = accountRepo.findByAccountIdGreaterThanOrderByAccountIdAsc(after, Limit.of(pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            processPage(month, page, checkpoint);
+            checkpoint.setLastAccountId(page.getLast().getAccountId());
+            checkpoint = saveCheckpoint(checkpoint);
+        }
+
+        checkpoint.setCompleted(true);
+        checkpoint = saveCheckpoint(checkpoint);
+        log.info("Pre-generation: month={} completed, generated={}, failed={}",
+                month, checkpoint.getGenerated(), checkpoint.getFailed());
+        return checkpoint;
+    }
+
+    private void processPage(YearMonth month, List<Account> page, PregenerationCheckpoint checkpoint) {
+        List<String> accountIds = page.stream().map(Account::getAccountId).toList();
+        // Already stored, e.g. by an earlier run that stopped before checkpointing this page
+        Set<String> stored = insightStore.storedAccounts(month, accountIds);
+
+        Map<String, InsightCache.DataVersion> versions = new HashMap<>();
+        List<BatchInsightItem> items = new ArrayList<>();
+        for (String accountId : accountIds) {
+            if (!stored.contains(accountId)) {
+                // Taken before generation, so data that changes meanwhile is never stored
+                versions.put(accountId, insightCache.currentVersion(accountId, month));
+                items.add(new BatchInsightItem(accountId, month.getYear(), month.getMonthValue()));
+            }
+        }
+
+        AtomicInteger generated = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        batchService.generate(items, (BatchInsightResult result) -> {
+            if (result.error() != null) {
+                // Left for on-demand generation; a failed account does not block the month
+                failed.incrementAndGet();
+            } else if (insightStore.save(result.accountId(), month, versions.get(result.accountId()), result.insight())) {
+                generated.incrementAndGet();
+            }
+        });
+
+        checkpoint.setGenerated(checkpoint.getGenerated() + generated.get());
+        checkpoint.setFailed(checkpoint.getFailed() + failed.get());
+        log.debug("Pre-generation: month={}, page ending {}: generated={}, failed={}, skipped={}",
+                month, accountIds.getLast(), generated.get(), failed.get(), stored.size());
+    }
+
+    private PregenerationCheckpoint saveCheckpoint(PregenerationCheckpoint checkpoint) {
+        checkpoint.setUpdatedAt(Instant.now(clock));
+        return checkpointRepo.save(checkpoint);
+    }
+}
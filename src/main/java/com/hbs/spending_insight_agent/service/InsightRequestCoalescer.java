@@ -0,0 +1,107 @@
+package com.hbs.spending_insight_agent.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for insight generation: while an insight for an account-month is being
+ * generated, identical requests wait for that generation instead of starting their own.
+ * <p>
+ * The first caller (the leader) generates on its own thread; later callers (followers) attach to
+ * its future and get the same result or the same exception. Requests are only identical when they
+ * observed the same {@link InsightCache.DataVersion}, so a request that arrives after a
+ * transaction write never receives an insight generated from older data. A follower waits at most
+ * {@code insights.coalescing.max-wait}; giving up does not affect the leader or other followers.
+ */
+@Component
+@Slf4j
+public class InsightRequestCoalescer {
+
+    private final Map<Key, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final Duration maxWait;
+
+    private final LongAdder leaders = new LongAdder();
+
+    private final LongAdder followers = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    public InsightRequestCoalescer(@Value("${insights.coalescing.max-wait:2m}") Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Runs {@code generation} unless an identical one is in flight, in which case its outcome is
+     * returned (or rethrown) instead.
+     *
+     * @throws IllegalStateException if this caller waited longer than {@code max-wait}
+     */
+    public String generate(String accountId, YearMonth month, InsightCache.DataVersion version,
+                           Supplier<String> generation) {
+        Key key = new Key(accountId, month, version);
+        CompletableFuture<String> started = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, started);
+        if (existing == null) {
+            leaders.increment();
+            try {
+                String result = generation.get();
+                started.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                started.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, started);
+            }
+        }
+
+        followers.increment();
+        log.info("Agent: Joining in-flight insight for accountId={}, month={}", accountId, month);
+        try {
+            return existing.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The leader's exception, so every caller fails (and maps to a status) the same way
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to analyze spending: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new IllegalStateException("Failed to analyze spending: timed out after " + maxWait
+                    + " waiting for the same insight in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the same insight in progress", e);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(inFlight.size(), leaders.sum(), followers.sum(), timeouts.sum());
+    }
+
+    /**
+     * {@code inFlight}: generations running now; {@code leaders}: generations started;
+     * {@code followers}: requests served by another request's generation; {@code timeouts}: followers that gave up.
+     */
+    public record Stats(int inFlight, long leaders, long followers, long timeouts) {
+    }
+
+    private record Key(String accountId, YearMonth month, InsightCache.DataVersion version) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.StoredInsight;
+import com.hbs.spending_insight_agent.repository.StoredInsightRepository;
+import com.hbs.spending_insight_agent.repository.TransactionsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Persistent insights, written by the pre-generation job and read before any generation.
+ * <p>
+ * Like {@link InsightCache}, a stored insight is only valid while its month and the previous
+ * month are unchanged: committed transaction writes delete the affected rows, and a result
+ * whose data changed while it was being generated is never kept.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InsightStore {
+
+    private final StoredInsightRepository storedInsightRepo;
+
+    private final InsightCache insightCache;
+
+    public Optional<String> find(String accountId, YearMonth month) {
+        return storedInsightRepo.findById(new StoredInsight.Key(accountId, MonthlyAccountRollup.periodOf(month)))
+                .map(StoredInsight::getInsight);
+    }
+
+    /**
+     * Accounts among {@code accountIds} that already have an insight stored for {@code month}.
+     */
+    public Set<String> storedAccounts(YearMonth month, Collection<String> accountIds) {
+        if (accountIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(storedInsightRepo.findStoredAccountIds(MonthlyAccountRollup.periodOf(month), accountIds));
+    }
+
+    /**
+     * Persists {@code insight} unless the data changed after {@code observed} was taken.
+     *
+     * @return whether the insight was kept
+     */
+    public boolean save(String accountId, YearMonth month, InsightCache.DataVersion observed, String insight) {
+        if (!observed.equals(insightCache.currentVersion(accountId, month))) {
+            return false;
+        }
+        storedInsightRepo.save(StoredInsight.builder()
+                .accountId(accountId)
+                .period(MonthlyAccountRollup.periodOf(month))
+                .insight(insight)
+                .generatedAt(Instant.now())
+                .build());
+        // A write that raced the save has bumped the version first; its delete may have run already
+        if (!observed.equals(insightCache.currentVersion(accountId, month))) {
+            delete(accountId, month);
+            return false;
+        }
+        return true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onTransactionsChanged(TransactionsChangedEvent event) {
+        int deleted = storedInsightRepo.deleteByAccountIdAndPeriodIn(event.accountId(), List.of(
+                MonthlyAccountRollup.periodOf(event.month()),
+                MonthlyAccountRollup.periodOf(event.month().plusMonths(1))));
+        if (deleted > 0) {
+            log.debug("Insight store: deleted {} stale insights for accountId={}, month={}",
+                    deleted, event.accountId(), event.month());
+        }
+    }
+
+    private void delete(String accountId, YearMonth month) {
+        storedInsightRepo.deleteById(new StoredInsight.Key(accountId, MonthlyAccountRollup.periodOf(month)));
+    }
+}
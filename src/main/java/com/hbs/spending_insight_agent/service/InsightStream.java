@@ -0,0 +1,17 @@
+package com.hbs.spending_insight_agent.service;
+
+/**
+ * A started insight stream, returned so the caller can stop it when its client goes away.
+ */
+public interface InsightStream {
+
+    /** A stream that already ended, e.g. one served from the cache. */
+    InsightStream COMPLETED = () -> {
+    };
+
+    /**
+     * Stops the generation: the handler gets no further callbacks and the model call is cancelled
+     * at its next partial response, releasing its LLM permit. Does nothing once the stream ended.
+     */
+    void cancel();
+}
@@ -0,0 +1,21 @@
+package com.hbs.spending_insight_agent.service;
+
+/**
+ * Receives a streamed insight. Callbacks usually arrive on the model client's threads (a cached
+ * insight is delivered immediately on the caller's thread); exactly one of {@link #onComplete}
+ * or {@link #onError} ends the stream.
+ */
+public interface InsightStreamHandler {
+
+    void onToken(String token);
+
+    default void onToolStarted(String toolName) {
+    }
+
+    default void onToolCompleted(String toolName) {
+    }
+
+    void onComplete(String insight);
+
+    void onError(Throwable error);
+}
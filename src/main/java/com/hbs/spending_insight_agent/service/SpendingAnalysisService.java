@@ -0,0 +1,105 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.Money;
+import com.hbs.spending_insight_agent.model.SpendingAnalysis;
+import com.hbs.spending_insight_agent.model.SpendingAnalysis.CategoryChange;
+import com.hbs.spending_insight_agent.model.SpendingAnalysis.LargeTransaction;
+import com.hbs.spending_insight_agent.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes the facts the insight prompt asks for (category breakdown, spikes, large
+ * transactions) exactly in Java, so the model only has to narrate them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendingAnalysisService {
+
+    /** A month or category is a spike when it grew by more than this percentage. */
+    public static final BigDecimal SPIKE_THRESHOLD_PCT = new BigDecimal("20");
+
+    /** A transaction is large when it exceeds this share of the monthly total. */
+    public static final BigDecimal LARGE_TRANSACTION_SHARE = new BigDecimal("0.40");
+
+    private final AccountSummaryService summaryService;
+
+    private final TransactionService txnService;
+
+    public SpendingAnalysis analyze(String accountId, YearMonth ym) {
+        YearMonth previous = ym.minusMonths(1);
+
+        // Arithmetic in Money; BigDecimal only for the query parameter and the result
+        Money total = summaryService.getMonthlyTotal(accountId, ym);
+        Money previousTotal = summaryService.getMonthlyTotal(accountId, previous);
+        BigDecimal changePct = total.percentChangeFrom(previousTotal);
+
+        List<CategoryChange> categories = compareCategories(
+                summaryService.getCategoryTotals(accountId, ym),
+                summaryService.getCategoryTotals(accountId, previous),
+                total.currency());
+
+        List<LargeTransaction> largeTransactions = total.signum() > 0
+                ? txnService.getTransactionsAbove(accountId, ym.atDay(1), ym.atEndOfMonth(),
+                        total.toBigDecimal().multiply(LARGE_TRANSACTION_SHARE)).stream()
+                    .map(t -> toLargeTransaction(t, total))
+                    .toList()
+                : List.of();
+
+        log.debug("Analysis: accountId={}, month={}, categories={}, largeTransactions={}",
+                accountId, ym, categories.size(), largeTransactions.size());
+        return new SpendingAnalysis(ym, total.toBigDecimal(), previousTotal.toBigDecimal(), changePct,
+                isSpike(changePct), categories, largeTransactions);
+    }
+
+    private static List<CategoryChange> compareCategories(List<CategoryTotal> current, List<CategoryTotal> previous,
+                                                          Currency currency) {
+        Map<String, Money> currentByCategory = byCategory(current, currency);
+        Map<String, Money> previousByCategory = byCategory(previous, currency);
+        Money zero = Money.zero(currency);
+
+        // Categories present in either month, largest current spend first
+        record Change(String category, Money amount, Money previousAmount) {
+        }
+        return Stream.concat(currentByCategory.keySet().stream(), previousByCategory.keySet().stream())
+                .distinct()
+                .map(category -> new Change(category,
+                        currentByCategory.getOrDefault(category, zero),
+                        previousByCategory.getOrDefault(category, zero)))
+                .sorted(Comparator.comparing(Change::amount).reversed()
+                        .thenComparing(Change::category))
+                .map(change -> {
+                    BigDecimal changePct = change.amount().percentChangeFrom(change.previousAmount());
+                    return new CategoryChange(change.category(), change.amount().toBigDecimal(),
+                            change.previousAmount().toBigDecimal(), changePct, isSpike(changePct));
+                })
+                .toList();
+    }
+
+    private static Map<String, Money> byCategory(List<CategoryTotal> totals, Currency currency) {
+        return totals.stream().collect(Collectors.toMap(
+                CategoryTotal::category, t -> Money.of(t.total(), currency), Money::plus, LinkedHashMap::new));
+    }
+
+    private static LargeTransaction toLargeTransaction(Transaction txn, Money total) {
+        return new LargeTransaction(txn.getDate(), txn.getMerchant(), txn.getCategory(), txn.getAmount(),
+                Money.of(txn.getAmount(), total.currency()).percentOf(total));
+    }
+
+    private static boolean isSpike(BigDecimal changePct) {
+        return changePct != null && changePct.compareTo(SPIKE_THRESHOLD_PCT) > 0;
+    }
+}
@@ -1,24 +1,373 @@
 package com.hbs.spending_insight_agent.service;
 
+import com.hbs.spending_insight_agent.agent.LlmCapacityExceededException;
 import com.hbs.spending_insight_agent.agent.SpendingInsightAgent;
+import com.hbs.spending_insight_agent.agent.SpendingInsightWriter;
+import com.hbs.spending_insight_agent.agent.ToolResultBudget;
+import com.hbs.spending_insight_agent.agent.ToolResultCache;
+import com.hbs.spending_insight_agent.model.SpendingAnalysis;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import dev.langchain4j.data.message.ChatMessageType;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import dev.langchain4j.service.TokenStream;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
 @Service
 @Slf4j
 public class SpendingInsightService {
 
     private final SpendingInsightAgent agent;
 
-    public SpendingInsightService(SpendingInsightAgent agent) {
+    private final SpendingInsightWriter writer;
+
+    private final SpendingAnalysisService analysisService;
+
+    private final InsightCache insightCache;
+
+    private final InsightStore insightStore;
+
+    private final InsightRequestCoalescer coalescer;
+
+    private final ToolResultCache toolResultCache;
+
+    private final TransactionService txnService;
+
+    private final InsightMode defaultMode;
+
+    public SpendingInsightService(@Lazy SpendingInsightAgent agent,
+                                  @Lazy SpendingInsightWriter writer,
+                                  SpendingAnalysisService analysisService,
+                                  InsightCache insightCache,
+                                  InsightStore insightStore,
+                                  InsightRequestCoalescer coalescer,
+                                  ToolResultCache toolResultCache,
+                                  TransactionService txnService,
+                                  @Value("${insights.mode:AGENT}") InsightMode defaultMode) {
         this.agent = agent;
+        this.writer = writer;
+        this.analysisService = analysisService;
+        this.insightCache = insightCache;
+        this.insightStore = insightStore;
+        this.coalescer = coalescer;
+        this.toolResultCache = toolResultCache;
+        this.txnService = txnService;
+        this.defaultMode = defaultMode;
     }
 
     public String generateInsight(String accountId, int year, int month) {
-        log.info("Agent: Received request for accountId={}, year={}, month={}",
-                accountId, year, month);
+        return generateInsight(accountId, year, month, defaultMode);
+    }
+
+    /**
+     * Generates (or serves from cache) the insight for one account-month. Both modes answer
+     * the same question, so they share cache entries, and concurrent requests for the same
+     * account-month and data share one generation.
+     */
+    public String generateInsight(String accountId, int year, int month, InsightMode mode) {
+        log.info("Agent: Received request for accountId={}, year={}, month={}, mode={}",
+                accountId, year, month, mode);
+
+        YearMonth ym = YearMonth.of(year, month);
+        Optional<String> cached = insightCache.get(accountId, ym);
+        if (cached.isPresent()) {
+            log.info("Agent: Serving cached insight for accountId={}, month={}", accountId, ym);
+            return cached.get();
+        }
+        // Captured before the agent reads any data, so a concurrent write invalidates this result
+        InsightCache.DataVersion version = insightCache.currentVersion(accountId, ym);
+
+        Optional<String> stored = findStored(accountId, ym, version);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        return coalescer.generate(accountId, ym, version, () -> {
+            String result = generate(() -> mode == InsightMode.PRECOMPUTED
+                    ? generatePrecomputed(accountId, ym)
+                    : generateOneOff(accountId, ym));
+            insightCache.put(accountId, ym, version, result);
+            return result;
+        });
+    }
+
+    /**
+     * Agent insight within a client-supplied conversation: the agent sees the earlier turns of
+     * {@code conversationId} (bounded by the memory's token window). Answers depend on that history,
+     * so they bypass the insight cache.
+     * <p>
+     * Without a {@code question} the turn asks for the standard analysis of the month. A follow-up
+     * {@code question} is sent as the user turn as-is; only when the conversation has no earlier
+     * turns yet does it get the analysis request in front, so the agent knows the account and month.
+     */
+    public String continueConversation(String accountId, int year, int month, String conversationId,
+                                       String question) {
+        log.info("Agent: Received conversation request for accountId={}, year={}, month={}, followUp={}",
+                accountId, year, month, question != null);
+
+        YearMonth ym = YearMonth.of(year, month);
+        String memoryId = conversationMemoryId(accountId, conversationId);
+        return generate(() -> generateWithAgent(accountId, ym, memoryId, conversationQuery(accountId, ym, memoryId, question)));
+    }
+
+    private String conversationQuery(String accountId, YearMonth ym, String memoryId, String question) {
+        if (question == null) {
+            return buildAgentQuery(accountId, ym);
+        }
+        ChatMemory memory = agent.getChatMemory(memoryId);
+        boolean hasEarlierTurns = memory != null && memory.messages().stream()
+                .anyMatch(message -> message.type() == ChatMessageType.USER);
+        return hasEarlierTurns ? question : buildAgentQuery(accountId, ym) + "\nQuestion: " + question;
+    }
+
+    private String generate(Supplier<String> generation) {
+        try {
+            String result = generation.get();
+            log.info("Agent: Insight generated successfully");
+            log.debug("Agent result length: {} characters", result.length());
+            return result;
+        } catch (LlmCapacityExceededException e) {
+            // Surfaced as-is so the caller can answer 429 with Retry-After
+            throw e;
+        } catch (Exception e) {
+            log.error("Agent: Failed to generate insight", e);
+            throw new RuntimeException("Failed to analyze spending: " + e.getMessage(), e);
+        }
+    }
+
+    public InsightStream streamInsight(String accountId, int year, int month, InsightStreamHandler handler) {
+        return streamInsight(accountId, year, month, null, handler);
+    }
+
+    public InsightStream streamInsight(String accountId, int year, int month, Integer tokenBudget,
+                                       InsightStreamHandler handler) {
+        return streamInsight(accountId, year, month, defaultMode, tokenBudget, handler);
+    }
+
+    /**
+     * Streaming variant of {@link #generateInsight(String, int, int, InsightMode)}: returns as soon
+     * as the stream is started and reports tokens and tool progress to {@code handler}.
+     * Tool calls made while streaming run on the model client's threads, outside the per-run
+     * tool cache and any {@link ToolResultBudget} scope, so a non-null {@code tokenBudget} is handed
+     * to the agent's tools as invocation parameters instead. Cancelling the returned stream ends the
+     * generation without a final callback.
+     */
+    public InsightStream streamInsight(String accountId, int year, int month, InsightMode mode,
+                                       Integer tokenBudget, InsightStreamHandler handler) {
+        log.info("Agent: Received streaming request for accountId={}, year={}, month={}, mode={}",
+                accountId, year, month, mode);
+
+        YearMonth ym = YearMonth.of(year, month);
+        Optional<String> cached = insightCache.get(accountId, ym);
+        if (cached.isPresent()) {
+            log.info("Agent: Serving cached insight for accountId={}, month={}", accountId, ym);
+            handler.onToken(cached.get());
+            handler.onComplete(cached.get());
+            return InsightStream.COMPLETED;
+        }
+        InsightCache.DataVersion version = insightCache.currentVersion(accountId, ym);
+
+        Optional<String> stored = findStored(accountId, ym, version);
+        if (stored.isPresent()) {
+            handler.onToken(stored.get());
+            handler.onComplete(stored.get());
+            return InsightStream.COMPLETED;
+        }
+
+        String memoryId = oneOffMemoryId();
+        CancellableStream control = new CancellableStream(() -> forget(memoryId));
+        try {
+            TokenStream stream = mode == InsightMode.PRECOMPUTED
+                    ? writer.streamInsight(buildFactsPrompt(analysisService.analyze(accountId, ym)))
+                    : agent.streamInsight(memoryId, buildAgentQuery(accountId, ym),
+                            ToolResultBudget.parameters(tokenBudget));
+
+            stream.onPartialResponseWithContext((partial, context) -> {
+                        if (control.attach(context.streamingHandle())) {
+                            handler.onToken(partial.text());
+                        }
+                    })
+                    .beforeToolExecution(before -> {
+                        if (control.isActive()) {
+                            handler.onToolStarted(before.request().name());
+                        }
+                    })
+                    .onToolExecuted(execution -> {
+                        if (control.isActive()) {
+                            handler.onToolCompleted(execution.request().name());
+                        }
+                    })
+                    .onCompleteResponse(response -> {
+                        String result = response.aiMessage().text();
+                        log.info("Agent: Streamed insight completed");
+                        forget(memoryId);
+                        insightCache.put(accountId, ym, version, result);
+                        if (control.finish()) {
+                            handler.onComplete(result);
+                        }
+                    })
+                    .onError(e -> {
+                        forget(memoryId);
+                        if (control.finish()) {
+                            log.error("Agent: Failed to stream insight", e);
+                            handler.onError(e);
+                        } else {
+                            log.debug("Agent: Cancelled insight stream ended with: {}", e.toString());
+                        }
+                    })
+                    .start();
+            return control;
+        } catch (LlmCapacityExceededException e) {
+            forget(memoryId);
+            // Nothing has been streamed yet, so the caller can still reject the request outright
+            throw e;
+        } catch (Exception e) {
+            log.error("Agent: Failed to start insight stream", e);
+            forget(memoryId);
+            handler.onError(e);
+            return InsightStream.COMPLETED;
+        }
+    }
 
-        String query = String.format("""
+    /**
+     * Tracks whether a stream is still wanted. The model's handle only arrives with the first
+     * partial response of each round trip, so a cancel before then takes effect on arrival.
+     */
+    private static final class CancellableStream implements InsightStream {
+
+        private final AtomicBoolean ended = new AtomicBoolean();
+
+        private final Runnable onCancel;
+
+        private volatile StreamingHandle handle;
+
+        private CancellableStream(Runnable onCancel) {
+            this.onCancel = onCancel;
+        }
+
+        /**
+         * Remembers the current round trip's handle; cancels it right away if the stream was
+         * cancelled meanwhile. Returns whether the stream is still active.
+         */
+        boolean attach(StreamingHandle current) {
+            handle = current;
+            if (ended.get()) {
+                // Finished streams get no more partial responses, so this one was cancelled
+                cancelQuietly(current);
+                return false;
+            }
+            return true;
+        }
+
+        boolean isActive() {
+            return !ended.get();
+        }
+
+        /**
+         * Marks the stream as ended by the model; false if it was cancelled first.
+         */
+        boolean finish() {
+            return ended.compareAndSet(false, true);
+        }
+
+        @Override
+        public void cancel() {
+            if (!ended.compareAndSet(false, true)) {
+                return;
+            }
+            log.info("Agent: Insight stream cancelled");
+            StreamingHandle current = handle;
+            if (current != null) {
+                cancelQuietly(current);
+            }
+            onCancel.run();
+        }
+
+        private static void cancelQuietly(StreamingHandle handle) {
+            try {
+                if (!handle.isCancelled()) {
+                    handle.cancel();
+                }
+            } catch (RuntimeException e) {
+                // e.g. a model without cancellation support: its output is dropped until it ends
+                log.debug("Agent: Could not cancel model stream: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Looks in the persistent store (filled by the pre-generation job) and promotes a hit to the cache.
+     */
+    private Optional<String> findStored(String accountId, YearMonth ym, InsightCache.DataVersion version) {
+        try {
+            Optional<String> stored = insightStore.find(accountId, ym);
+            if (stored.isPresent()) {
+                log.info("Agent: Serving stored insight for accountId={}, month={}", accountId, ym);
+                insightCache.put(accountId, ym, version, stored.get());
+            }
+            return stored;
+        } catch (Exception e) {
+            // The store is an optimization; fall back to generating
+            log.warn("Agent: Insight store lookup failed, generating instead", e);
+            return Optional.empty();
+        }
+    }
+
+    private String generateOneOff(String accountId, YearMonth ym) {
+        String memoryId = oneOffMemoryId();
+        try {
+            return generateWithAgent(accountId, ym, memoryId, buildAgentQuery(accountId, ym));
+        } finally {
+            forget(memoryId);
+        }
+    }
+
+    private String generateWithAgent(String accountId, YearMonth ym, String memoryId, String query) {
+        log.debug("Agent user query: {}", query);
+
+        try (ToolResultCache.Scope ignored = toolResultCache.open()) {
+            prefetch(accountId, ym);
+            log.info("Agent: Planning - analyzing spending patterns...");
+            return agent.generateInsight(memoryId, query);
+        }
+    }
+
+    private static String oneOffMemoryId() {
+        return "insight:" + UUID.randomUUID();
+    }
+
+    /**
+     * Client-supplied ids are namespaced by account so one account can never resume another's conversation.
+     */
+    static String conversationMemoryId(String accountId, String conversationId) {
+        return "conversation:" + accountId + ":" + conversationId;
+    }
+
+    /**
+     * Drops a one-off memory right away instead of leaving it for idle eviction.
+     */
+    private void forget(String memoryId) {
+        ChatMemory memory = agent.getChatMemory(memoryId);
+        if (memory != null) {
+            memory.clear();
+        }
+        agent.evictChatMemory(memoryId);
+    }
+
+    private static String buildAgentQuery(String accountId, YearMonth ym) {
+        return String.format("""
                 Analyze spending for account %s for %d-%02d.
                 Compare with the previous month.
                 
@@ -32,19 +381,84 @@ public class SpendingInsightService {
                 Refer to it as "your account" instead.
                 
                 Keep the explanation clear, concise, and friendly.
-                """, accountId, year, month, accountId);
+                """, accountId, ym.getYear(), ym.getMonthValue(), accountId);
+    }
 
-        log.debug("Agent user query: {}", query);
+    private String generatePrecomputed(String accountId, YearMonth ym) {
+        log.info("Agent: Computing spending facts for a single-call insight...");
+        String facts = buildFactsPrompt(analysisService.analyze(accountId, ym));
+
+        log.debug("Agent facts prompt: {}", facts);
+        return writer.writeInsight(facts);
+    }
+
+    /**
+     * Renders the analysis as the user message for {@link SpendingInsightWriter}.
+     * Deliberately contains no account identifier.
+     */
+    static String buildFactsPrompt(SpendingAnalysis analysis) {
+        YearMonth ym = analysis.month();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Explain spending for your account for %d-%02d compared with %d-%02d.%n%n",
+                ym.getYear(), ym.getMonthValue(),
+                ym.minusMonths(1).getYear(), ym.minusMonths(1).getMonthValue()));
 
+        sb.append("Verified facts:\n");
+        sb.append("- Total this month: ").append(analysis.total().toPlainString()).append('\n');
+        sb.append("- Total previous month: ").append(analysis.previousTotal().toPlainString()).append('\n');
+        sb.append("- Change: ").append(formatChange(analysis.changePct()))
+                .append(analysis.spike() ? " (SPIKE, >20% increase)" : "").append('\n');
+
+        sb.append("\nCategory breakdown (this month | previous month | change):\n");
+        if (analysis.categories().isEmpty()) {
+            sb.append("- unavailable: no transactions in either month\n");
+        }
+        for (SpendingAnalysis.CategoryChange c : analysis.categories()) {
+            sb.append("- ").append(c.category()).append(": ")
+                    .append(c.amount().toPlainString()).append(" | ")
+                    .append(c.previousAmount().toPlainString()).append(" | ")
+                    .append(formatChange(c.changePct()))
+                    .append(c.spike() ? " (SPIKE)" : "").append('\n');
+        }
+
+        sb.append("\nLarge single transactions (>40% of this month's total):\n");
+        if (analysis.largeTransactions().isEmpty()) {
+            sb.append("- none\n");
+        }
+        for (SpendingAnalysis.LargeTransaction t : analysis.largeTransactions()) {
+            sb.append("- ").append(t.date()).append(' ').append(t.merchant())
+                    .append(" (").append(t.category()).append("): ")
+                    .append(t.amount().toPlainString())
+                    .append(" = ").append(t.sharePct().toPlainString()).append("% of total\n");
+        }
+
+        sb.append("\nProvide a category breakdown, top spending categories, spikes and large transactions. ")
+                .append("Keep the explanation clear, concise, and friendly.");
+        return sb.toString();
+    }
+
+    private static String formatChange(BigDecimal changePct) {
+        if (changePct == null) {
+            return "n/a (no spending in previous month)";
+        }
+        return (changePct.signum() > 0 ? "+" : "") + changePct.toPlainString() + "%";
+    }
+
+    /**
+     * Warms the tool cache with the requested and previous month in one range query,
+     * since the agent almost always asks for both. Skipped when the run was already seeded,
+     * e.g. by a batch prefetch.
+     */
+    private void prefetch(String accountId, YearMonth ym) {
+        LocalDate from = ym.minusMonths(1).atDay(1);
+        LocalDate to = ym.atEndOfMonth();
         try {
-            log.info("Agent: Planning - analyzing spending patterns...");
-            String result = agent.generateInsight(query);
-            log.info("Agent: Insight generated successfully");
-            log.debug("Agent result length: {} characters", result.length());
-            return result;
+            List<TransactionRow> rows = toolResultCache.transactions(accountId, from, to,
+                    () -> txnService.getTransactionRows(accountId, from, to));
+            log.debug("Agent: Prefetched {} transactions from {} to {}", rows.size(), from, to);
         } catch (Exception e) {
-            log.error("Agent: Failed to generate insight", e);
-            throw new RuntimeException("Failed to analyze spending: " + e.getMessage(), e);
+            // Best effort: the tools will load on demand
+            log.warn("Agent: Prefetch failed, continuing without it", e);
         }
     }
 }
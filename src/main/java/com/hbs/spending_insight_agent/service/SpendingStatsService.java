@@ -0,0 +1,236 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.CategoryAmountStats;
+import com.hbs.spending_insight_agent.model.Money;
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.SpendingAnomalies;
+import com.hbs.spending_insight_agent.model.SpendingAnomalies.CategorySpike;
+import com.hbs.spending_insight_agent.model.SpendingAnomalies.UnusualTransaction;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.repository.CategoryAmountStatsRepository;
+import com.hbs.spending_insight_agent.repository.ColdTransactionStore;
+import com.hbs.spending_insight_agent.repository.MonthlyAccountRollupRepository;
+import com.hbs.spending_insight_agent.repository.TransactionBulkWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Spike and outlier detection from the incrementally maintained aggregates, without reading the
+ * month's transactions back.
+ * <p>
+ * The baseline of a category is an exponentially weighted moving average (EWMA) of its monthly
+ * totals from the rollups of the preceding {@code window-months}, starting at the account's
+ * first month with spending in that window. Unlike the amount statistics it is not stored and
+ * updated per write: it is derived on read, so a back-dated transaction shifts it exactly, and
+ * the read is bounded by the window (a few rollup rows per month), never by the number of
+ * transactions. A running EWMA would have to be replayed from the changed month on every
+ * back-dated write.
+ * <p>
+ * A transaction is unusual when it exceeds {@link SpendingAnalysisService#LARGE_TRANSACTION_SHARE}
+ * of the month, or lies {@code outlier-z} standard deviations above its category's running mean
+ * ({@code category_amount_stats}). Only those candidates are fetched, each category against its
+ * own threshold, at most {@value #MAX_UNUSUAL_TRANSACTIONS} of them, largest first.
+ */
+@Service
+@Slf4j
+public class SpendingStatsService {
+
+    static final int MAX_UNUSUAL_TRANSACTIONS = 50;
+
+    private final MonthlyAccountRollupRepository rollupRepo;
+
+    private final CategoryAmountStatsRepository statsRepo;
+
+    private final TransactionService txnService;
+
+    private final AccountCurrencies currencies;
+
+    private final ColdTransactionStore coldStore;
+
+    private final TransactionBulkWriter bulkWriter;
+
+    private final double ewmaAlpha;
+
+    private final int windowMonths;
+
+    private final double outlierZ;
+
+    private final long outlierMinCount;
+
+    public SpendingStatsService(MonthlyAccountRollupRepository rollupRepo,
+                                CategoryAmountStatsRepository statsRepo,
+                                TransactionService txnService,
+                                AccountCurrencies currencies,
+                                ColdTransactionStore coldStore,
+                                TransactionBulkWriter bulkWriter,
+                                @Value("${insights.stats.ewma-alpha:0.3}") double ewmaAlpha,
+                                @Value("${insights.stats.window-months:12}") int windowMonths,
+                                @Value("${insights.stats.outlier-z:3.0}") double outlierZ,
+                                @Value("${insights.stats.outlier-min-count:5}") long outlierMinCount) {
+        if (ewmaAlpha <= 0 || ewmaAlpha > 1) {
+            throw new IllegalArgumentException("insights.stats.ewma-alpha must be in (0, 1]");
+        }
+        this.rollupRepo = rollupRepo;
+        this.statsRepo = statsRepo;
+        this.txnService = txnService;
+        this.currencies = currencies;
+        this.coldStore = coldStore;
+        this.bulkWriter = bulkWriter;
+        this.ewmaAlpha = ewmaAlpha;
+        this.windowMonths = windowMonths;
+        this.outlierZ = outlierZ;
+        this.outlierMinCount = outlierMinCount;
+    }
+
+    public SpendingAnomalies getAnomalies(String accountId, YearMonth ym) {
+        Currency currency = currencies.of(accountId);
+        int period = MonthlyAccountRollup.periodOf(ym);
+
+        // Category -> amount per month, oldest first; the requested month is the last entry
+        TreeMap<Integer, Map<String, Money>> months = new TreeMap<>();
+        for (MonthlyAccountRollup rollup : rollupRepo.findByAccountIdAndPeriodBetween(
+                accountId, MonthlyAccountRollup.periodOf(ym.minusMonths(windowMonths)), period)) {
+            months.computeIfAbsent(rollup.getPeriod(), p -> new HashMap<>())
+                    .merge(rollup.getCategory(), Money.of(rollup.getTotalAmount(), currency), Money::plus);
+        }
+        Map<String, Money> current = months.getOrDefault(period, Map.of());
+        Money total = sum(current.values(), currency);
+
+        Baseline baseline = baseline(months.headMap(period), ym, currency);
+        Money baselineTotal = sum(baseline.byCategory().values(), currency);
+        BigDecimal changePct = baseline.months() > 0 ? total.percentChangeFrom(baselineTotal) : null;
+
+        List<CategorySpike> spikes = new ArrayList<>();
+        if (baseline.months() > 0) {
+            current.forEach((category, amount) -> {
+                Money expected = baseline.byCategory().getOrDefault(category, Money.zero(currency));
+                BigDecimal categoryChange = amount.percentChangeFrom(expected);
+                if (expected.isZero() ? amount.signum() > 0 : isSpike(categoryChange)) {
+                    spikes.add(new CategorySpike(category, amount.toBigDecimal(),
+                            expected.toBigDecimal(), categoryChange));
+                }
+            });
+            spikes.sort(Comparator.comparing(CategorySpike::amount).reversed()
+                    .thenComparing(CategorySpike::category));
+        }
+
+        List<UnusualTransaction> unusual = total.signum() > 0
+                ? unusualTransactions(accountId, ym, total)
+                : List.of();
+
+        log.debug("Anomalies: accountId={}, month={}, baselineMonths={}, spikes={}, unusual={}",
+                accountId, ym, baseline.months(), spikes.size(), unusual.size());
+        return new SpendingAnomalies(ym, total.toBigDecimal(),
+                baseline.months() > 0 ? baselineTotal.toBigDecimal() : null, baseline.months(),
+                changePct, isSpike(changePct), spikes, unusual);
+    }
+
+    /**
+     * Recomputes all transaction size statistics from the transactions table and the cold
+     * segments (backfill after bulk loads).
+     */
+    @Transactional
+    public int rebuildStats() {
+        statsRepo.deleteAllStats();
+        // Both tiers at one split: a compaction published in between would be counted twice
+        int rows = coldStore.read(() -> {
+            int inserted = statsRepo.insertStatsFromTransactions();
+            List<TransactionBulkWriter.AmountStatsDelta> cold = coldStore.amountStatsDeltas();
+            if (cold.isEmpty()) {
+                return inserted;
+            }
+            bulkWriter.applyAmountStatsDeltas(cold);
+            return Math.toIntExact(statsRepo.count());
+        });
+        log.info("Rebuilt {} category amount statistics rows", rows);
+        return rows;
+    }
+
+    // Missing months count as zero once the account has started spending
+    private Baseline baseline(Map<Integer, Map<String, Money>> history, YearMonth ym, Currency currency) {
+        if (history.isEmpty()) {
+            return new Baseline(Map.of(), 0);
+        }
+        int first = history.keySet().iterator().next();
+        Map<String, Double> ewma = new HashMap<>();
+        int count = 0;
+        for (YearMonth m = YearMonth.of(first / 100, first % 100); m.isBefore(ym); m = m.plusMonths(1), count++) {
+            Map<String, Money> month = history.getOrDefault(MonthlyAccountRollup.periodOf(m), Map.of());
+            if (count == 0) {
+                month.forEach((category, amount) -> ewma.put(category, (double) amount.minorUnits()));
+                continue;
+            }
+            ewma.replaceAll((category, value) -> (1 - ewmaAlpha) * value);
+            month.forEach((category, amount) ->
+                    ewma.merge(category, ewmaAlpha * amount.minorUnits(), Double::sum));
+        }
+        Map<String, Money> byCategory = ewma.entrySet().stream().collect(Collectors.toMap(
+                Map.Entry::getKey, e -> new Money(Math.round(e.getValue()), currency)));
+        return new Baseline(byCategory, count);
+    }
+
+    private List<UnusualTransaction> unusualTransactions(String accountId, YearMonth ym, Money total) {
+        BigDecimal largeAbove = total.toBigDecimal().multiply(SpendingAnalysisService.LARGE_TRANSACTION_SHARE);
+        Map<String, CategoryAmountStats> stats = statsRepo.findByAccountId(accountId).stream()
+                .collect(Collectors.toMap(CategoryAmountStats::getCategory, Function.identity()));
+
+        // Fetch only what can qualify: per category, the lower of its outlier threshold and the share threshold
+        Map<String, BigDecimal> outlierAbove = new HashMap<>();
+        stats.forEach((category, s) -> {
+            if (hasOutlierThreshold(s)) {
+                BigDecimal threshold = BigDecimal.valueOf(s.getMeanAmount() + outlierZ * s.stdDev());
+                if (threshold.compareTo(largeAbove) < 0) {
+                    outlierAbove.put(category, threshold);
+                }
+            }
+        });
+
+        List<UnusualTransaction> unusual = new ArrayList<>();
+        for (Transaction txn : txnService.getTransactionsAbove(accountId, ym.atDay(1), ym.atEndOfMonth(),
+                largeAbove, outlierAbove, MAX_UNUSUAL_TRANSACTIONS)) {
+            CategoryAmountStats categoryStats = stats.get(MonthlyAccountRollup.categoryOf(txn.getCategory()));
+            Double zScore = categoryStats != null && hasOutlierThreshold(categoryStats)
+                    ? categoryStats.zScore(txn.getAmount())
+                    : null;
+            boolean large = txn.getAmount().compareTo(largeAbove) > 0;
+            if (large || (zScore != null && zScore >= outlierZ)) {
+                unusual.add(new UnusualTransaction(txn.getDate(), txn.getMerchant(), txn.getCategory(),
+                        txn.getAmount(), Money.of(txn.getAmount(), total.currency()).percentOf(total), zScore));
+            }
+        }
+        return unusual;
+    }
+
+    private boolean hasOutlierThreshold(CategoryAmountStats stats) {
+        return stats.getTxnCount() >= outlierMinCount && stats.stdDev() > 0;
+    }
+
+    private static Money sum(Iterable<Money> amounts, Currency currency) {
+        Money sum = Money.zero(currency);
+        for (Money amount : amounts) {
+            sum = sum.plus(amount);
+        }
+        return sum;
+    }
+
+    private static boolean isSpike(BigDecimal changePct) {
+        return changePct != null && changePct.compareTo(SpendingAnalysisService.SPIKE_THRESHOLD_PCT) > 0;
+    }
+
+    private record Baseline(Map<String, Money> byCategory, int months) {
+    }
+}
@@ -0,0 +1,171 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a CSV or NDJSON transaction feed one line at a time, so the payload is never buffered
+ * whole. Yields raw field values; validation is left to the caller. A malformed line yields a
+ * record with {@code error} set instead of aborting the feed.
+ */
+final class TransactionFeedReader implements Closeable {
+
+    private final IngestFormat format;
+
+    private final BufferedReader reader;
+
+    private final ObjectReader json;
+
+    private Map<String, Integer> csvColumns;
+
+    private long lineNumber;
+
+    TransactionFeedReader(IngestFormat format, InputStream in, ObjectMapper objectMapper) {
+        this.format = format;
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        // Amounts must not pass through double
+        this.json = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
+    /**
+     * Next non-blank line, or {@code null} at end of input.
+     *
+     * @throws IllegalArgumentException if a CSV header is missing or lacks a required column
+     */
+    Fields next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        if (format == IngestFormat.NDJSON) {
+            return parseJson(line);
+        }
+        if (csvColumns == null) {
+            csvColumns = parseHeader(line);
+            return next();
+        }
+        return parseCsv(line);
+    }
+
+    private Fields parseJson(String line) {
+        try {
+            JsonNode node = json.readTree(line);
+            if (!node.isObject()) {
+                return Fields.error(lineNumber, "Expected a JSON object");
+            }
+            return new Fields(lineNumber,
+                    text(node, "accountId"), text(node, "date"), text(node, "amount"),
+                    text(node, "category"), text(node, "merchant"), null);
+        } catch (IOException e) {
+            return Fields.error(lineNumber, "Malformed JSON");
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        if (names == null) {
+            throw new IllegalArgumentException("Malformed CSV header");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        for (String required : List.of("accountid", "date", "amount")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header must name account_id, date and amount columns");
+            }
+        }
+        return columns;
+    }
+
+    private Fields parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        if (values == null) {
+            return Fields.error(lineNumber, "Unterminated quoted field");
+        }
+        return new Fields(lineNumber,
+                column(values, "accountid"), column(values, "date"), column(values, "amount"),
+                column(values, "category"), column(values, "merchant"), null);
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = csvColumns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * RFC 4180 field split for a single line: quoted fields may contain commas and doubled quotes,
+     * but not line breaks. Returns {@code null} for an unterminated quote.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    record Fields(long line, String accountId, String date, String amount, String category, String merchant,
+                  String error) {
+
+        static Fields error(long line, String error) {
+            return new Fields(line, null, null, null, null, null, error);
+        }
+    }
+}
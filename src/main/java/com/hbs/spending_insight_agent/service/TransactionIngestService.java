@@ -0,0 +1,278 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hbs.spending_insight_agent.model.IngestResult;
+import com.hbs.spending_insight_agent.model.Money;
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.NewTransaction;
+import com.hbs.spending_insight_agent.repository.TransactionBulkWriter;
+import com.hbs.spending_insight_agent.repository.TransactionBulkWriter.AmountStatsDelta;
+import com.hbs.spending_insight_agent.repository.TransactionBulkWriter.RollupDelta;
+import com.hbs.spending_insight_agent.repository.TransactionsChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bulk-loads transactions from a CSV or NDJSON stream.
+ * <p>
+ * The feed is parsed line by line and written with JDBC batches of {@code batchSize} rows, each
+ * sorted by account and date first.
+ * Rollup and transaction-size statistics deltas are accumulated in memory and applied once at
+ * the end, and a {@link TransactionsChangedEvent} is published per touched account-month; all of
+ * it runs in one transaction, so a failed load leaves neither rows nor aggregates behind. Invalid lines
+ * are skipped and reported; more than {@code maxErrors} of them rejects the whole load.
+ */
+@Service
+@Slf4j
+public class TransactionIngestService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    /** DECIMAL(10,2): eight integer digits, two decimals. */
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("100000000");
+
+    private static final int MAX_SCALE = 2;
+
+    /** Key order of {@code idx_transactions_account_date_id}. */
+    private static final Comparator<NewTransaction> INDEX_ORDER =
+            Comparator.comparing(NewTransaction::accountId).thenComparing(NewTransaction::date);
+
+    private final TransactionBulkWriter bulkWriter;
+
+    private final AccountCurrencies currencies;
+
+    private final ApplicationEventPublisher events;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    private final long maxErrors;
+
+    public TransactionIngestService(TransactionBulkWriter bulkWriter,
+                                    AccountCurrencies currencies,
+                                    ApplicationEventPublisher events,
+                                    ObjectMapper objectMapper,
+                                    @Value("${insights.ingest.batch-size:5000}") int batchSize,
+                                    @Value("${insights.ingest.max-errors:1000}") long maxErrors) {
+        this.bulkWriter = bulkWriter;
+        this.currencies = currencies;
+        this.events = events;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the feed is unusable or has more than {@code maxErrors}
+     *                                  invalid lines; nothing is written in that case
+     */
+    @Transactional
+    public IngestResult ingest(IngestFormat format, InputStream body) throws IOException {
+        long start = System.nanoTime();
+        Load load = new Load();
+
+        try (TransactionFeedReader reader = new TransactionFeedReader(format, body, objectMapper)) {
+            TransactionFeedReader.Fields fields;
+            while ((fields = reader.next()) != null) {
+                String error = fields.error() != null ? fields.error() : load.accept(fields);
+                if (error != null) {
+                    load.reject(fields.line(), error);
+                }
+            }
+        }
+        load.flush();
+
+        List<RollupDelta> deltas = load.deltas.values().stream()
+                .map(Delta::toRollupDelta)
+                .toList();
+        bulkWriter.applyRollupDeltas(deltas);
+        bulkWriter.applyAmountStatsDeltas(load.stats.entrySet().stream()
+                .map(e -> e.getValue().toStatsDelta(e.getKey()))
+                .toList());
+        // Delivered after commit: caches and stored insights for these months are then stale
+        deltas.stream()
+                .map(d -> new TransactionsChangedEvent(d.accountId(), YearMonth.of(d.period() / 100, d.period() % 100)))
+                .distinct()
+                .forEach(events::publishEvent);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Ingest: {} rows inserted, {} rejected, {} rollup rows touched in {} ms",
+                load.inserted, load.rejected, deltas.size(), elapsedMillis);
+        return new IngestResult(load.inserted, load.rejected, load.errors, elapsedMillis);
+    }
+
+    private NewTransaction validate(TransactionFeedReader.Fields fields, Map<String, Optional<Currency>> knownAccounts) {
+        String accountId = trimToNull(fields.accountId());
+        if (accountId == null || accountId.length() > 50) {
+            throw new InvalidLineException("accountId is required (max 50 characters)");
+        }
+        Currency currency = knownAccounts.computeIfAbsent(accountId, currencies::find)
+                .orElseThrow(() -> new InvalidLineException("Unknown account " + accountId));
+
+        LocalDate date;
+        try {
+            date = LocalDate.parse(trimToNull(fields.date()));
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new InvalidLineException("date must be yyyy-MM-dd");
+        }
+
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(trimToNull(fields.amount()));
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new InvalidLineException("amount must be a decimal number");
+        }
+        if (amount.abs().compareTo(MAX_AMOUNT) >= 0) {
+            throw new InvalidLineException("amount must have at most 8 integer digits");
+        }
+        // Stored amounts must convert to Money exactly
+        int maxScale = Math.min(MAX_SCALE, currency.getDefaultFractionDigits());
+        if (amount.stripTrailingZeros().scale() > maxScale) {
+            throw new InvalidLineException("amount must have at most " + maxScale + " decimals for " + currency);
+        }
+
+        String category = trimToNull(fields.category());
+        if (category != null && category.length() > 50) {
+            throw new InvalidLineException("category is longer than 50 characters");
+        }
+        String merchant = trimToNull(fields.merchant());
+        if (merchant != null && merchant.length() > 100) {
+            throw new InvalidLineException("merchant is longer than 100 characters");
+        }
+        return new NewTransaction(accountId, date, amount, category, merchant);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * State of one ingest call: the pending batch, accumulated rollup and statistics deltas and the
+     * error report.
+     */
+    private final class Load {
+
+        private final List<NewTransaction> batch = new ArrayList<>(batchSize);
+        private final Map<RollupKey, Delta> deltas = new HashMap<>();
+        private final Map<StatsKey, RunningStats> stats = new HashMap<>();
+        private final Map<String, Optional<Currency>> knownAccounts = new HashMap<>();
+        private final List<IngestResult.LineError> errors = new ArrayList<>();
+        private long inserted;
+        private long rejected;
+
+        private String accept(TransactionFeedReader.Fields fields) {
+            NewTransaction txn;
+            try {
+                txn = validate(fields, knownAccounts);
+            } catch (InvalidLineException e) {
+                return e.getMessage();
+            }
+            batch.add(txn);
+            Currency currency = knownAccounts.get(txn.accountId()).orElseThrow();
+            deltas.computeIfAbsent(new RollupKey(txn.accountId(), MonthlyAccountRollup.periodOf(txn.date()),
+                            MonthlyAccountRollup.categoryOf(txn.category())), key -> new Delta(key, currency))
+                    .add(Money.of(txn.amount(), currency));
+            stats.computeIfAbsent(new StatsKey(txn.accountId(), MonthlyAccountRollup.categoryOf(txn.category())),
+                            key -> new RunningStats())
+                    .add(txn.amount().doubleValue());
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+            return null;
+        }
+
+        private void reject(long line, String error) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new IngestResult.LineError(line, error));
+            }
+            if (rejected > maxErrors) {
+                throw new IllegalArgumentException("Too many invalid lines (more than " + maxErrors
+                        + "); first error at line " + errors.getFirst().line() + ": " + errors.getFirst().message());
+            }
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                // Index order: neighbouring inserts land on the same index pages. The sort is stable,
+                // so same-day rows of an account keep their feed order in (date, id)
+                batch.sort(INDEX_ORDER);
+                bulkWriter.insert(batch);
+                inserted += batch.size();
+                batch.clear();
+            }
+        }
+    }
+
+    private record RollupKey(String accountId, int period, String category) {
+    }
+
+    private static final class Delta {
+        private final RollupKey key;
+        private Money amount;
+        private long count;
+
+        private Delta(RollupKey key, Currency currency) {
+            this.key = key;
+            this.amount = Money.zero(currency);
+        }
+
+        private void add(Money value) {
+            amount = amount.plus(value);
+            count++;
+        }
+
+        private RollupDelta toRollupDelta() {
+            return new RollupDelta(key.accountId(), key.period(), key.category(), amount.toBigDecimal(), count);
+        }
+    }
+
+    private record StatsKey(String accountId, String category) {
+    }
+
+    /** Welford's running mean and M2 of the amounts loaded for one account and category. */
+    private static final class RunningStats {
+        private long count;
+        private double mean;
+        private double m2;
+
+        private void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        private AmountStatsDelta toStatsDelta(StatsKey key) {
+            return new AmountStatsDelta(key.accountId(), key.category(), count, mean, m2);
+        }
+    }
+
+    private static final class InvalidLineException extends RuntimeException {
+        private InvalidLineException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
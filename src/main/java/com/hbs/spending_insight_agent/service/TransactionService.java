@@ -1,41 +1,401 @@
 package com.hbs.spending_insight_agent.service;
 
+import com.hbs.spending_insight_agent.model.AccountTransactionRow;
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.MerchantTotal;
 import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import com.hbs.spending_insight_agent.repository.ColdTransactionStore;
 import com.hbs.spending_insight_agent.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Gateway for transaction reads. Months moved to the {@link ColdTransactionStore} are merged back
+ * in here, so callers see one table whichever tier a month lives in.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionService {
 
+    private static final Comparator<Transaction> DATE_ID_ORDER =
+            Comparator.comparing(Transaction::getDate).thenComparing(Transaction::getId);
+
+    private static final Comparator<TransactionRow> ROW_DATE_ID_ORDER =
+            Comparator.comparing(TransactionRow::date).thenComparing(TransactionRow::id);
+
     private final TransactionRepository transactionRepo;
 
+    private final ColumnarTransactionStore columnarStore;
+
+    private final ColdTransactionStore coldStore;
+
     private static final int MAX_DAYS = 90;
 
-    private static final int MAX_RESULTS = 500;
+    public static final int MAX_RESULTS = 500;
+
+    /**
+     * Row cap of the tool reads; what reaches the model is bounded by {@code ToolResultBudget}, which
+     * summarizes large results, so this only guards memory.
+     */
+    public static final int MAX_TOOL_ROWS = 5_000;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_TOP_MERCHANTS = 50;
+
+    /** Keeps {@code IN (...)} lists to a size every database plans well. */
+    private static final int MAX_ACCOUNTS_PER_QUERY = 500;
 
     public List<Transaction> getTransactions(String accountId, LocalDate from, LocalDate to) {
         // Guardrail - 1: Date range validation
-        long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(from, to);
-        if (daysBetween > MAX_DAYS) {
-            throw new IllegalArgumentException("Date range too large. Max " + MAX_DAYS + " days.");
+        validateRange(from, to);
+
+        // Guardrail - 2: Result Limit, applied by the database (one extra row detects truncation)
+        List<Transaction> transactions = coldStore.read(() -> merge(
+                transactionRepo.findByAccountIdAndDateBetweenOrderByDateAscIdAsc(
+                        accountId, from, to, Limit.of(MAX_RESULTS + 1)),
+                cold(accountId, coldStore.rows(accountId, from, to, MAX_RESULTS + 1)),
+                DATE_ID_ORDER, MAX_RESULTS + 1));
+        if (transactions.size() > MAX_RESULTS) {
+            log.warn("Transaction count exceeds limit {}, truncating", MAX_RESULTS);
+            return transactions.subList(0, MAX_RESULTS);
         }
 
-        // Guardrail - 2: Result Limit
-        List<Transaction> allTransactions = transactionRepo.findByAccountIdAndDateBetween(accountId, from, to);
-        if (allTransactions.size() > MAX_RESULTS) {
-            log.warn("Transaction count {} exceeds limit, truncating",
-                    allTransactions.size());
-            return allTransactions.subList(0, MAX_RESULTS);
+        return transactions;
+    }
+
+    /**
+     * Projection variant of {@link #getTransactions} for the tool layer: same range guardrail,
+     * capped at {@link #MAX_TOOL_ROWS}.
+     */
+    public List<TransactionRow> getTransactionRows(String accountId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+
+        List<TransactionRow> rows = columnarStore.isEnabled()
+                ? columnarStore.rows(accountId, from, to, MAX_TOOL_ROWS + 1)
+                : coldStore.read(() -> merge(
+                        transactionRepo.findRowsByAccountIdAndDateBetweenOrderByDateAscIdAsc(
+                                accountId, from, to, Limit.of(MAX_TOOL_ROWS + 1)),
+                        coldStore.rows(accountId, from, to, MAX_TOOL_ROWS + 1),
+                        ROW_DATE_ID_ORDER, MAX_TOOL_ROWS + 1));
+        if (rows.size() > MAX_TOOL_ROWS) {
+            log.warn("Transaction count exceeds limit {}, truncating", MAX_TOOL_ROWS);
+            return rows.subList(0, MAX_TOOL_ROWS);
         }
 
-        return allTransactions;
+        return rows;
+    }
+
+    /**
+     * {@link #getTransactionRows} for many accounts in a few {@code IN (...)} queries, with the same
+     * guardrails applied per account. Every requested account is present in the result.
+     */
+    public Map<String, List<TransactionRow>> getTransactionRows(Collection<String> accountIds,
+                                                                LocalDate from, LocalDate to) {
+        validateRange(from, to);
+
+        Map<String, List<TransactionRow>> rowsByAccount = new HashMap<>();
+        List<String> distinct = accountIds.stream().distinct().toList();
+        return coldStore.read(() -> {
+            for (int start = 0; start < distinct.size(); start += MAX_ACCOUNTS_PER_QUERY) {
+                List<String> chunk = distinct.subList(start, Math.min(start + MAX_ACCOUNTS_PER_QUERY, distinct.size()));
+                for (AccountTransactionRow row : transactionRepo.findRowsByAccountIdInAndDateBetween(
+                        chunk, from, to, MAX_TOOL_ROWS)) {
+                    rowsByAccount.computeIfAbsent(row.accountId(), k -> new ArrayList<>()).add(row.row());
+                }
+            }
+            for (String accountId : distinct) {
+                List<TransactionRow> hot = rowsByAccount.getOrDefault(accountId, List.of());
+                rowsByAccount.put(accountId, merge(hot, coldStore.rows(accountId, from, to, MAX_TOOL_ROWS),
+                        ROW_DATE_ID_ORDER, MAX_TOOL_ROWS));
+            }
+            return rowsByAccount;
+        });
+    }
+
+    /**
+     * Per-category totals in the range, largest first, aggregated without loading rows.
+     */
+    public List<CategoryTotal> getCategoryTotals(String accountId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        if (columnarStore.isEnabled()) {
+            return columnarStore.categoryTotals(accountId, from, to);
+        }
+        return coldStore.read(() -> {
+            List<CategoryTotal> hot = transactionRepo.sumAmountByCategory(accountId, from, to);
+            if (!coldStore.covers(accountId, from, to)) {
+                return hot;
+            }
+            return mergeTotals(hot, coldStore.categoryTotals(accountId, from, to), CategoryTotal::category,
+                    (a, b) -> new CategoryTotal(a.category(), a.total().add(b.total()), a.count() + b.count()),
+                    Comparator.comparing(CategoryTotal::total).reversed());
+        });
+    }
+
+    /**
+     * Total spent in the range over both tiers; the hot side is one {@code sum} in the database.
+     */
+    public BigDecimal getTotalSpent(String accountId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return coldStore.read(() -> {
+            BigDecimal total = transactionRepo.sumAmountByAccountIdAndDateBetween(accountId, from, to);
+            if (!coldStore.covers(accountId, from, to)) {
+                return total;
+            }
+            for (CategoryTotal category : coldStore.categoryTotals(accountId, from, to)) {
+                total = total.add(category.total());
+            }
+            return total;
+        });
+    }
+
+    /**
+     * The {@code n} merchants with the highest spend in the range, largest first.
+     */
+    public List<MerchantTotal> getTopMerchants(String accountId, LocalDate from, LocalDate to, int n) {
+        validateRange(from, to);
+        if (n < 1 || n > MAX_TOP_MERCHANTS) {
+            throw new IllegalArgumentException("Number of merchants must be between 1 and " + MAX_TOP_MERCHANTS);
+        }
+        return coldStore.read(() -> {
+            if (!coldStore.covers(accountId, from, to)) {
+                return transactionRepo.sumAmountByMerchant(accountId, from, to, Limit.of(n));
+            }
+            // A merchant's rank depends on both tiers, so neither side can be cut to n first
+            List<MerchantTotal> merged = mergeTotals(
+                    transactionRepo.sumAmountByMerchant(accountId, from, to, Limit.unlimited()),
+                    coldStore.merchantTotals(accountId, from, to), MerchantTotal::merchant,
+                    (a, b) -> new MerchantTotal(a.merchant(), a.total().add(b.total()), a.count() + b.count()),
+                    Comparator.comparing(MerchantTotal::total).reversed().thenComparing(MerchantTotal::merchant));
+            return merged.subList(0, Math.min(n, merged.size()));
+        });
+    }
+
+    /**
+     * Transactions strictly above {@code threshold}, largest first; the filter runs in the database.
+     */
+    public List<Transaction> getTransactionsAbove(String accountId, LocalDate from, LocalDate to,
+                                                  BigDecimal threshold) {
+        validateRange(from, to);
+        return coldStore.read(() -> {
+            List<Transaction> hot = transactionRepo.findByAccountIdAndDateBetweenAndAmountGreaterThanOrderByAmountDesc(
+                    accountId, from, to, threshold);
+            List<Transaction> cold = cold(accountId, coldStore.rowsAbove(accountId, from, to, threshold));
+            if (cold.isEmpty()) {
+                return hot;
+            }
+            List<Transaction> merged = new ArrayList<>(hot);
+            merged.addAll(cold);
+            merged.sort(Comparator.comparing(Transaction::getAmount).reversed());
+            return merged;
+        });
+    }
+
+    /**
+     * Transactions strictly above their category's threshold in {@code categoryThresholds}
+     * (keyed as in the rollups) or, for other categories, above {@code threshold}; largest first,
+     * at most {@code limit}. Each category with its own threshold is one capped query, so a low
+     * threshold in one category does not pull in the rest of the range.
+     */
+    public List<Transaction> getTransactionsAbove(String accountId, LocalDate from, LocalDate to,
+                                                  BigDecimal threshold, Map<String, BigDecimal> categoryThresholds,
+                                                  int limit) {
+        validateRange(from, to);
+        return coldStore.read(() -> {
+            // By id: a row above the general threshold may also qualify in its category
+            Map<Long, Transaction> candidates = new LinkedHashMap<>();
+            for (Transaction txn : transactionRepo.findByAccountIdAndDateBetweenAndAmountGreaterThanOrderByAmountDesc(
+                    accountId, from, to, threshold, Limit.of(limit))) {
+                candidates.put(txn.getId(), txn);
+            }
+            categoryThresholds.forEach((category, categoryThreshold) -> {
+                for (Transaction txn : transactionRepo.findInCategoryAbove(
+                        accountId, category, from, to, categoryThreshold, Limit.of(limit))) {
+                    candidates.putIfAbsent(txn.getId(), txn);
+                }
+            });
+            for (Transaction txn : cold(accountId, coldStore.rowsAbove(accountId, from, to, threshold, categoryThresholds))) {
+                candidates.putIfAbsent(txn.getId(), txn);
+            }
+            return candidates.values().stream()
+                    .sorted(Comparator.comparing(Transaction::getAmount).reversed())
+                    .limit(limit)
+                    .toList();
+        });
     }
-}
 
+    /**
+     * Keyset-paginated read on (date, id): each page costs the same regardless of how deep it is.
+     */
+    public Window<Transaction> getTransactionPage(String accountId, LocalDate from, LocalDate to,
+                                                  ScrollPosition position, int pageSize) {
+        validateRange(from, to);
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        return coldStore.read(() -> {
+            Window<Transaction> hot = transactionRepo.findByAccountIdAndDateBetweenOrderByDateAscIdAsc(
+                    accountId, from, to, position, Limit.of(pageSize));
+            if (!coldStore.covers(accountId, from, to)) {
+                return hot;
+            }
+            if (!(position instanceof KeysetScrollPosition keyset) || keyset.scrollsBackward()) {
+                throw new IllegalArgumentException("Only forward keyset positions are supported");
+            }
+            List<TransactionRow> coldRows = keyset.isInitial()
+                    ? coldStore.rows(accountId, from, to, pageSize + 1)
+                    : coldStore.rowsAfter(accountId, from, to, (LocalDate) keyset.getKeys().get("date"),
+                            ((Number) keyset.getKeys().get("id")).longValue(), pageSize + 1);
+            List<Transaction> merged = merge(hot.getContent(), cold(accountId, coldRows), DATE_ID_ORDER, pageSize + 1);
+            boolean hasNext = merged.size() > pageSize || hot.hasNext();
+            List<Transaction> page = merged.subList(0, Math.min(pageSize, merged.size()));
+            return Window.from(page, i -> ScrollPosition.forward(
+                    Map.of("date", page.get(i).getDate(), "id", page.get(i).getId())), hasNext);
+        });
+    }
+
+    /**
+     * Streams every transaction in the range through {@code reader} without materializing a list.
+     * No date-range or result guardrails apply; intended for internal batch and analytics reads.
+     */
+    @Transactional(readOnly = true)
+    public <R> R readTransactions(String accountId, LocalDate from, LocalDate to,
+                                  Function<Stream<Transaction>, R> reader) {
+        return coldStore.read(() -> {
+            try (Stream<Transaction> stream = transactionRepo.streamByAccountIdAndDateBetweenOrderByDateAscIdAsc(
+                    accountId, from, to)) {
+                if (!coldStore.covers(accountId, from, to)) {
+                    return reader.apply(stream);
+                }
+                // Interleaved lazily: the hot side stays a cursor, cold rows are decoded as they are reached
+                return reader.apply(mergeSorted(stream.iterator(),
+                        cold(accountId, coldStore.iterate(accountId, from, to)), DATE_ID_ORDER));
+            }
+        });
+    }
+
+    private static List<Transaction> cold(String accountId, List<TransactionRow> rows) {
+        List<Transaction> transactions = new ArrayList<>(rows.size());
+        for (TransactionRow row : rows) {
+            transactions.add(cold(accountId, row));
+        }
+        return transactions;
+    }
+
+    private static Iterator<Transaction> cold(String accountId, Iterator<TransactionRow> rows) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Transaction next() {
+                return cold(accountId, rows.next());
+            }
+        };
+    }
+
+    // Detached entity for a cold row: reads only, never saved
+    private static Transaction cold(String accountId, TransactionRow row) {
+        return Transaction.builder()
+                .id(row.id())
+                .accountId(accountId)
+                .date(row.date())
+                .amount(row.amount())
+                .category(row.category())
+                .merchant(row.merchant())
+                .build();
+    }
+
+    // Both inputs sorted by order; at most limit rows of their union
+    private static <T> List<T> merge(List<T> hot, List<T> cold, Comparator<T> order, int limit) {
+        if (cold.isEmpty()) {
+            return hot;
+        }
+        List<T> merged = new ArrayList<>(Math.min(hot.size() + cold.size(), limit));
+        int h = 0;
+        int c = 0;
+        while (merged.size() < limit && (h < hot.size() || c < cold.size())) {
+            if (c == cold.size() || (h < hot.size() && order.compare(hot.get(h), cold.get(c)) <= 0)) {
+                merged.add(hot.get(h++));
+            } else {
+                merged.add(cold.get(c++));
+            }
+        }
+        return merged;
+    }
+
+    private static <T> Stream<T> mergeSorted(Iterator<T> hot, Iterator<T> cold, Comparator<T> order) {
+        Iterator<T> merged = new Iterator<>() {
+            private T nextHot = hot.hasNext() ? hot.next() : null;
+            private T nextCold = cold.hasNext() ? cold.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextHot != null || nextCold != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T result;
+                if (nextCold == null || (nextHot != null && order.compare(nextHot, nextCold) <= 0)) {
+                    result = nextHot;
+                    nextHot = hot.hasNext() ? hot.next() : null;
+                } else {
+                    result = nextCold;
+                    nextCold = cold.hasNext() ? cold.next() : null;
+                }
+                return result;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false);
+    }
+
+    private static <T> List<T> mergeTotals(List<T> hot, List<T> cold, Function<T, String> key,
+                                           BinaryOperator<T> add, Comparator<T> order) {
+        Map<String, T> byKey = new LinkedHashMap<>();
+        hot.forEach(total -> byKey.merge(key.apply(total), total, add));
+        cold.forEach(total -> byKey.merge(key.apply(total), total, add));
+        List<T> merged = new ArrayList<>(byKey.values());
+        merged.sort(order);
+        return merged;
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(from, to);
+        if (daysBetween > MAX_DAYS) {
+            throw new IllegalArgumentException("Date range too large. Max " + MAX_DAYS + " days.");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.TieringResult;
+import com.hbs.spending_insight_agent.repository.ColdTransactionStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves old months from the transactions table into {@link ColdTransactionStore}, one
+ * account-month per database transaction. The current month and the
+ * {@code insights.tiering.min-age-months} closed months before it stay hot.
+ * <p>
+ * Any hot row of an old month is a candidate, so a late transaction booked into a month that was
+ * already moved is folded into that month's segment on the next run.
+ */
+@Service
+@Slf4j
+public class TransactionTieringJob {
+
+    private final ColdTransactionStore coldStore;
+
+    private final Clock clock;
+
+    private final int minAgeMonths;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public TransactionTieringJob(ColdTransactionStore coldStore,
+                                 Clock clock,
+                                 @Value("${insights.tiering.min-age-months:6}") int minAgeMonths) {
+        if (minAgeMonths < 1) {
+            throw new IllegalArgumentException("insights.tiering.min-age-months must be at least 1");
+        }
+        this.coldStore = coldStore;
+        this.clock = clock;
+        this.minAgeMonths = minAgeMonths;
+    }
+
+    @Scheduled(cron = "${insights.tiering.cron:-}")
+    public void compactOldMonths() {
+        if (coldStore.isEnabled()) {
+            compact();
+        }
+    }
+
+    /**
+     * Compacts every account-month before the hot window.
+     *
+     * @return what was moved, or {@code null} if another run was in progress
+     */
+    public TieringResult compact() {
+        if (!coldStore.isEnabled()) {
+            throw new IllegalStateException("Transaction tiering is disabled (insights.tiering.enabled)");
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Tiering: a run is already in progress, skipping");
+            return null;
+        }
+        try {
+            return run(YearMonth.now(clock).minusMonths(minAgeMonths).atDay(1));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private TieringResult run(LocalDate cutoff) {
+        long start = System.nanoTime();
+        int segments = 0;
+        long rows = 0;
+        for (ColdTransactionStore.AccountMonth candidate : coldStore.hotMonthsBefore(cutoff)) {
+            int moved = coldStore.compact(candidate.accountId(), candidate.month());
+            if (moved > 0) {
+                segments++;
+                rows += moved;
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Tiering: months before {} compacted, segments={}, rows={}, elapsedMs={}",
+                cutoff, segments, rows, elapsedMillis);
+        return new TieringResult(segments, rows, elapsedMillis);
+    }
+}
@@ -23,3 +23,28 @@ INSERT INTO transactions(account_id, category, amount, date, merchant) VALUES
                                                                            ('A123', 'Shopping', 200.00, '2025-10-09', 'Shopee'),
                                                                            ('A123', 'Bills', 180.00, '2025-10-19', 'SP Services'),
                                                                            ('A123', 'Travel', 200.00, '2025-10-21', 'Bus Ticket');
+
+
+------------------------------------------------------------
+-- Backfill monthly rollups for the seeded transactions
+------------------------------------------------------------
+INSERT INTO monthly_account_rollups(account_id, period, category, total_amount, txn_count)
+SELECT account_id,
+       EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date),
+       COALESCE(category, 'Uncategorized'),
+       SUM(amount),
+       COUNT(*)
+FROM transactions
+GROUP BY account_id, EXTRACT(YEAR FROM date) * 100 + EXTRACT(MONTH FROM date), COALESCE(category, 'Uncategorized');
+
+------------------------------------------------------------
+-- Backfill transaction size statistics for the seeded transactions
+------------------------------------------------------------
+INSERT INTO category_amount_stats(account_id, category, txn_count, mean_amount, m2)
+SELECT account_id,
+       COALESCE(category, 'Uncategorized'),
+       COUNT(*),
+       AVG(CAST(COALESCE(amount, 0) AS DOUBLE PRECISION)),
+       VAR_POP(CAST(COALESCE(amount, 0) AS DOUBLE PRECISION)) * COUNT(*)
+FROM transactions
+GROUP BY account_id, COALESCE(category, 'Uncategorized');
@@ -20,3 +20,64 @@ CREATE TABLE transactions (
                               merchant VARCHAR(100),
                               FOREIGN KEY (account_id) REFERENCES accounts(id)
 );
+
+-- Serves every per-account range read and the (date, id) keyset order without a sort
+CREATE INDEX idx_transactions_account_date_id ON transactions(account_id, date, id);
+
+------------------------------------------------------------
+-- COLD SEGMENTS (closed account-months moved out of transactions into segment files)
+------------------------------------------------------------
+CREATE TABLE cold_segments (
+                               account_id VARCHAR(50),
+                               period INT,
+                               generation INT,
+                               file_name VARCHAR(300),
+                               row_count INT,
+                               created_at TIMESTAMP,
+                               PRIMARY KEY (account_id, period)
+);
+
+------------------------------------------------------------
+-- MONTHLY ACCOUNT ROLLUPS (maintained on every transaction write)
+------------------------------------------------------------
+CREATE TABLE monthly_account_rollups (
+                                         account_id VARCHAR(50),
+                                         period INT,
+                                         category VARCHAR(50),
+                                         total_amount DECIMAL(14,2),
+                                         txn_count BIGINT,
+                                         PRIMARY KEY (account_id, period, category)
+);
+
+------------------------------------------------------------
+-- CATEGORY AMOUNT STATISTICS (running mean / variance of transaction size, maintained on every write)
+------------------------------------------------------------
+CREATE TABLE category_amount_stats (
+                                       account_id VARCHAR(50),
+                                       category VARCHAR(50),
+                                       txn_count BIGINT,
+                                       mean_amount DOUBLE PRECISION,
+                                       m2 DOUBLE PRECISION,
+                                       PRIMARY KEY (account_id, category)
+);
+
+------------------------------------------------------------
+-- PRE-GENERATED INSIGHTS (served before asking the LLM)
+------------------------------------------------------------
+CREATE TABLE insights (
+                          account_id VARCHAR(50),
+                          period INT,
+                          insight CLOB,
+                          generated_at TIMESTAMP,
+                          PRIMARY KEY (account_id, period)
+);
+
+-- One row per month: how far the pre-generation job got, so a restart resumes there
+CREATE TABLE insight_pregeneration_checkpoints (
+                                                   period INT PRIMARY KEY,
+                                                   last_account_id VARCHAR(50),
+                                                   generated INT,
+                                                   failed INT,
+                                                   completed BOOLEAN,
+                                                   updated_at TIMESTAMP
+);
@@ -0,0 +1,112 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.observability.api.event.AiServiceCompletedEvent;
+import dev.langchain4j.observability.api.event.AiServiceErrorEvent;
+import dev.langchain4j.observability.api.event.AiServiceEvent;
+import dev.langchain4j.observability.api.event.AiServiceResponseReceivedEvent;
+import dev.langchain4j.observability.api.event.ToolExecutedEvent;
+import dev.langchain4j.observability.api.listener.AiServiceListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AgentMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AgentMetrics metrics = new AgentMetrics(registry);
+
+    @Test
+    void shouldTimeToolCallsByOutcome() {
+        // When
+        metrics.timeTool("getAccountSummary", () -> 1);
+        assertThatThrownBy(() -> metrics.timeTool("getAccountSummary", () -> {
+            throw new IllegalArgumentException("bad month");
+        })).isInstanceOf(IllegalArgumentException.class);
+        metrics.recordRows("getRecentTransactions", 42);
+
+        // Then
+        assertThat(registry.get("insights.tool.duration")
+                .tags("tool", "getAccountSummary", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("insights.tool.duration")
+                .tags("tool", "getAccountSummary", "outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.get("insights.tool.rows").summary().totalAmount()).isEqualTo(42);
+    }
+
+    @Test
+    void shouldCountToolIterationsAndCallsPerRun() {
+        // Given: two tool turns (three tools in total), then the final answer
+        InvocationContext run = invocation();
+        ToolExecutionRequest tool = ToolExecutionRequest.builder().name("getRecentTransactions").build();
+        AiMessage toolTurn = AiMessage.from(List.of(tool, tool));
+
+        // When
+        publish(responseReceived(run, toolTurn));
+        publish(toolExecuted(run, tool));
+        publish(toolExecuted(run, tool));
+        publish(responseReceived(run, AiMessage.from(List.of(tool))));
+        publish(toolExecuted(run, tool));
+        publish(responseReceived(run, AiMessage.from("answer")));
+        publish(AiServiceCompletedEvent.builder().invocationContext(run).result("answer").build());
+
+        // Then
+        assertThat(summary("insights.agent.tool.iterations", "success").totalAmount()).isEqualTo(2);
+        assertThat(summary("insights.agent.tool.calls", "success").totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRecordFailedRuns() {
+        // Given
+        InvocationContext run = invocation();
+
+        // When
+        publish(AiServiceErrorEvent.builder().invocationContext(run).error(new RuntimeException("boom")).build());
+
+        // Then
+        assertThat(summary("insights.agent.tool.calls", "error").count()).isEqualTo(1);
+        assertThat(summary("insights.agent.tool.calls", "error").totalAmount()).isZero();
+    }
+
+    private DistributionSummary summary(String name, String outcome) {
+        return registry.get(name).tags("method", "generateInsight", "outcome", outcome).summary();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void publish(AiServiceEvent event) {
+        for (AiServiceListener listener : metrics.runListeners()) {
+            if (listener.getEventClass().isInstance(event)) {
+                listener.onEvent(event);
+            }
+        }
+    }
+
+    private static InvocationContext invocation() {
+        return InvocationContext.builder()
+                .invocationId(UUID.randomUUID())
+                .interfaceName(SpendingInsightAgent.class.getName())
+                .methodName("generateInsight")
+                .timestampNow()
+                .build();
+    }
+
+    private static AiServiceResponseReceivedEvent responseReceived(InvocationContext run, AiMessage message) {
+        return AiServiceResponseReceivedEvent.builder()
+                .invocationContext(run)
+                .response(ChatResponse.builder().aiMessage(message).build())
+                .build();
+    }
+
+    private static ToolExecutedEvent toolExecuted(InvocationContext run, ToolExecutionRequest request) {
+        return ToolExecutedEvent.builder().invocationContext(run).request(request).resultText("rows: 0").build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactTransactionFormatTest {
+
+    private static final String[] CATEGORIES = {"Food", "Shopping", "Travel", "Bills", "Transport"};
+    private static final String[] MERCHANTS = {"GrabFood", "Uniqlo", "Singapore Airlines", "SP Services", "Gojek"};
+
+    @Test
+    void shouldRenderDictionaryHeaderAndRows() {
+        String out = CompactTransactionFormat.format(List.of(
+                new TransactionRow(1L, LocalDate.of(2025, 11, 1), new BigDecimal("121.00"), "Food", "GrabFood"),
+                new TransactionRow(2L, LocalDate.of(2025, 11, 18), new BigDecimal("1400.00"), "Travel", "Singapore Airlines"),
+                new TransactionRow(3L, LocalDate.of(2025, 11, 20), new BigDecimal("15.00"), "Food", "Toast\tBox")
+        ), false);
+
+        assertThat(out).isEqualTo("""
+                categories: 0=Food; 1=Travel
+                date\tamount\tcat\tmerchant
+                2025-11-01\t121.00\t0\tGrabFood
+                2025-11-18\t1400.00\t1\tSingapore Airlines
+                2025-11-20\t15.00\t0\tToast Box
+                rows: 3""");
+    }
+
+    @Test
+    void shouldFlagTruncatedResults() {
+        assertThat(CompactTransactionFormat.format(List.of(), true))
+                .endsWith("rows: 0 (limit reached, more transactions may exist in this range)");
+    }
+
+    @Test
+    void shouldSummarizeWithAggregatesOverAllRowsAndTheLargestTransactions() {
+        String out = CompactTransactionFormat.summarize(List.of(
+                new TransactionRow(1L, LocalDate.of(2025, 11, 1), new BigDecimal("121.00"), "Food", "GrabFood"),
+                new TransactionRow(2L, LocalDate.of(2025, 11, 18), new BigDecimal("1400.00"), "Travel", "Singapore Airlines"),
+                new TransactionRow(3L, LocalDate.of(2025, 11, 20), new BigDecimal("15.00"), "Food", "Toast Box"),
+                new TransactionRow(4L, LocalDate.of(2025, 11, 21), new BigDecimal("9.00"), null, "GrabFood")
+        ), false, 1, 2);
+
+        assertThat(out).isEqualTo("""
+                summary: 4 transactions, total 1545.00; too many to list, aggregates cover all of them
+                by category (name\ttotal\tcount):
+                Travel\t1400.00\t1
+                Food\t136.00\t2
+                other (1 categories)\t9.00\t1
+                by merchant (name\ttotal\tcount):
+                Singapore Airlines\t1400.00\t1
+                GrabFood\t130.00\t2
+                other (1 merchants)\t15.00\t1
+                largest transactions:
+                categories: 0=Travel
+                date\tamount\tcat\tmerchant
+                2025-11-18\t1400.00\t0\tSingapore Airlines
+                rows: 1 of 4 listed, 3 summarized""");
+    }
+
+    @Test
+    void shouldNotClaimAggregatesCoverTheRangeWhenTheRowsWereTruncated() {
+        String out = CompactTransactionFormat.summarize(List.of(
+                new TransactionRow(1L, LocalDate.of(2025, 11, 1), new BigDecimal("121.00"), "Food", "GrabFood"),
+                new TransactionRow(2L, LocalDate.of(2025, 11, 18), new BigDecimal("1400.00"), "Travel", "Singapore Airlines")
+        ), true, 1, 2);
+
+        assertThat(out)
+                .startsWith("summary: 2 transactions, total 1521.00; too many to list, aggregates cover only these first 2 of the range\n")
+                .doesNotContain("all of them")
+                .endsWith("rows: 1 of 2 listed, 1 summarized (limit reached, more transactions may exist in this range)");
+    }
+
+    @Test
+    void shouldUseFarFewerTokensThanEntityJson() throws Exception {
+        // Given: a full result at the tool's row limit
+        List<Transaction> entities = new ArrayList<>();
+        List<TransactionRow> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Transaction txn = Transaction.builder()
+                    .id((long) i + 1)
+                    .accountId("A123")
+                    .amount(new BigDecimal(10 + (i * 7) % 400 + ".50"))
+                    .category(CATEGORIES[i % CATEGORIES.length])
+                    .merchant(MERCHANTS[(i / 2) % MERCHANTS.length])
+                    .date(LocalDate.of(2025, 11, 1).plusDays(i % 30))
+                    .build();
+            entities.add(txn);
+            rows.add(new TransactionRow(txn.getId(), txn.getDate(), txn.getAmount(), txn.getCategory(), txn.getMerchant()));
+        }
+        OpenAiTokenCountEstimator estimator = new OpenAiTokenCountEstimator("gpt-4o-mini");
+        ObjectMapper json = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        // When: previous format (entities serialized to JSON by the tool executor) vs compact
+        int jsonTokens = estimator.estimateTokenCountInText(json.writeValueAsString(entities));
+        int compactTokens = estimator.estimateTokenCountInText(CompactTransactionFormat.format(rows, true));
+
+        // Then
+        assertThat(compactTokens)
+                .as("tokens for 500 rows: json=%d, compact=%d", jsonTokens, compactTokens)
+                .isLessThan(jsonTokens / 2);
+    }
+}
@@ -0,0 +1,78 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversationMemoryStoreTest {
+
+    private final OpenAiTokenCountEstimator estimator = new OpenAiTokenCountEstimator("gpt-4o-mini");
+
+    @Test
+    void shouldKeepConversationsApart() {
+        ConversationMemoryStore store = new ConversationMemoryStore(100, Duration.ofMinutes(5), 1000, estimator);
+
+        store.get("a").add(UserMessage.from("November please"));
+        store.get("b").add(UserMessage.from("October please"));
+
+        assertThat(store.get("a").messages()).containsExactly(UserMessage.from("November please"));
+        assertThat(store.get("b").messages()).containsExactly(UserMessage.from("October please"));
+    }
+
+    @Test
+    void shouldBoundPromptByTokensNotMessageCount() {
+        // Given a small token window
+        ConversationMemoryStore store = new ConversationMemoryStore(100, Duration.ofMinutes(5), 200, estimator);
+        ChatMemory memory = store.get("a");
+        memory.add(SystemMessage.from("You are a Spending Insight Agent."));
+
+        // When a long conversation is added
+        for (int i = 0; i < 50; i++) {
+            memory.add(UserMessage.from("Explain my spending for month " + i + " in detail, please."));
+            memory.add(AiMessage.from("Here is a detailed explanation for month " + i + "."));
+        }
+
+        // Then only the newest turns that fit are kept, plus the system message
+        assertThat(estimator.estimateTokenCountInMessages(memory.messages())).isLessThanOrEqualTo(200);
+        assertThat(memory.messages().getFirst()).isInstanceOf(SystemMessage.class);
+        assertThat(memory.messages().getLast()).isEqualTo(AiMessage.from("Here is a detailed explanation for month 49."));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedConversationAndNotifyListeners() {
+        ConversationMemoryStore store = new ConversationMemoryStore(1, Duration.ofMinutes(5), 1000, estimator);
+        List<Object> evicted = new CopyOnWriteArrayList<>();
+        store.onEvicted(evicted::add);
+
+        store.updateMessages("old", List.of(UserMessage.from("first")));
+        store.updateMessages("new", List.of(UserMessage.from("second")));
+        store.cleanUp();
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.getMessages("old")).isEmpty();
+        assertThat(evicted).containsExactly("old");
+    }
+
+    @Test
+    void shouldNotNotifyListenersOnExplicitDelete() {
+        ConversationMemoryStore store = new ConversationMemoryStore(10, Duration.ofMinutes(5), 1000, estimator);
+        List<Object> evicted = new CopyOnWriteArrayList<>();
+        store.onEvicted(evicted::add);
+        store.updateMessages("a", List.of(UserMessage.from("hi")));
+
+        store.deleteMessages("a");
+        store.cleanUp();
+
+        assertThat(store.getMessages("a")).isEmpty();
+        assertThat(evicted).isEmpty();
+    }
+}
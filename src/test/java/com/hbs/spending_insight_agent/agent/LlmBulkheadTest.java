@@ -0,0 +1,151 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LlmBulkheadTest {
+
+    private static final ChatRequest REQUEST = ChatRequest.builder()
+            .messages(UserMessage.from("hi"))
+            .build();
+
+    private static final ChatResponse RESPONSE = ChatResponse.builder()
+            .aiMessage(AiMessage.from("ok"))
+            .build();
+
+    @Test
+    void shouldRejectImmediatelyWhenPermitsAndQueueAreExhausted() throws Exception {
+        // Given one permit, no queue, and a call holding the permit
+        LlmBulkhead bulkhead = new LlmBulkhead(1, 0, Duration.ofSeconds(5), Duration.ofSeconds(3));
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ChatModel delegate = mock(ChatModel.class);
+        when(delegate.chat(any(ChatRequest.class))).thenAnswer(invocation -> {
+            inCall.countDown();
+            release.await();
+            return RESPONSE;
+        });
+        ChatModel model = bulkhead.protect(delegate);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<ChatResponse> first = executor.submit(() -> model.chat(REQUEST));
+            assertThat(inCall.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When / Then
+            assertThatThrownBy(() -> model.chat(REQUEST))
+                    .isInstanceOf(LlmCapacityExceededException.class)
+                    .satisfies(e -> assertThat(((LlmCapacityExceededException) e).getRetryAfter())
+                            .isEqualTo(Duration.ofSeconds(3)));
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(RESPONSE);
+        }
+
+        assertThat(bulkhead.stats().admitted()).isEqualTo(1);
+        assertThat(bulkhead.stats().rejected()).isEqualTo(1);
+        assertThat(bulkhead.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void shouldTimeOutQueuedCallerAfterMaxWait() {
+        // Given the only permit is taken
+        LlmBulkhead bulkhead = new LlmBulkhead(1, 10, Duration.ofMillis(50), Duration.ofSeconds(1));
+        LlmBulkhead.Permit held = bulkhead.acquire();
+
+        // When / Then
+        assertThatThrownBy(bulkhead::acquire).isInstanceOf(LlmCapacityExceededException.class);
+        assertThat(bulkhead.stats().waiting()).isZero();
+
+        held.close();
+        held.close();
+        assertThat(bulkhead.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void shouldHoldStreamingPermitUntilTheResponseCompletes() {
+        // Given a streaming model that completes only when we say so
+        LlmBulkhead bulkhead = new LlmBulkhead(1, 0, Duration.ofMillis(10), Duration.ofSeconds(1));
+        AtomicReference<StreamingChatResponseHandler> started = new AtomicReference<>();
+        StreamingChatModel delegate = mock(StreamingChatModel.class);
+        doAnswer(invocation -> {
+            started.set(invocation.getArgument(1));
+            return null;
+        }).when(delegate).chat(any(ChatRequest.class), any(StreamingChatResponseHandler.class));
+        StreamingChatModel model = bulkhead.protect(delegate);
+        StreamingChatResponseHandler handler = mock(StreamingChatResponseHandler.class);
+
+        // When
+        model.chat(REQUEST, handler);
+
+        // Then
+        assertThat(bulkhead.stats().inFlight()).isEqualTo(1);
+        assertThatThrownBy(() -> model.chat(REQUEST, handler))
+                .isInstanceOf(LlmCapacityExceededException.class);
+
+        started.get().onPartialResponse("ok");
+        started.get().onCompleteResponse(RESPONSE);
+        assertThat(bulkhead.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void shouldReleaseStreamingPermitWhenTheStreamIsCancelled() {
+        // Given a streaming call that has started producing tokens
+        LlmBulkhead bulkhead = new LlmBulkhead(1, 0, Duration.ofMillis(10), Duration.ofSeconds(1));
+        AtomicReference<StreamingChatResponseHandler> started = new AtomicReference<>();
+        StreamingChatModel delegate = mock(StreamingChatModel.class);
+        doAnswer(invocation -> {
+            started.set(invocation.getArgument(1));
+            return null;
+        }).when(delegate).chat(any(ChatRequest.class), any(StreamingChatResponseHandler.class));
+        AtomicReference<StreamingHandle> seen = new AtomicReference<>();
+        StreamingChatResponseHandler handler = new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+                seen.set(context.streamingHandle());
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+        };
+        bulkhead.protect(delegate).chat(REQUEST, handler);
+        StreamingHandle modelHandle = mock(StreamingHandle.class);
+        started.get().onPartialResponse(new PartialResponse("o"), new PartialResponseContext(modelHandle));
+
+        // When: the model stops sending callbacks once cancelled
+        seen.get().cancel();
+
+        // Then
+        verify(modelHandle).cancel();
+        assertThat(bulkhead.stats().inFlight()).isZero();
+    }
+}
@@ -0,0 +1,67 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LlmMetricsListenerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final LlmMetricsListener listener = new LlmMetricsListener(registry, "sync");
+
+    private final ChatRequest request = ChatRequest.builder()
+            .messages(UserMessage.from("hi"))
+            .modelName("gpt-4o-mini")
+            .build();
+
+    @Test
+    void shouldRecordLatencyAndTokensOfASuccessfulCall() {
+        // Given
+        Map<Object, Object> attributes = new HashMap<>();
+        listener.onRequest(new ChatModelRequestContext(request, ModelProvider.OPEN_AI, attributes));
+        ChatResponse response = ChatResponse.builder()
+                .aiMessage(AiMessage.from("hello"))
+                .modelName("gpt-4o-mini-2024-07-18")
+                .tokenUsage(new TokenUsage(120, 30))
+                .build();
+
+        // When
+        listener.onResponse(new ChatModelResponseContext(response, request, ModelProvider.OPEN_AI, attributes));
+
+        // Then
+        assertThat(registry.get("insights.llm.duration")
+                .tags("model", "gpt-4o-mini", "mode", "sync", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("insights.llm.tokens").tags("type", "input").counter().count()).isEqualTo(120);
+        assertThat(registry.get("insights.llm.tokens").tags("type", "output").counter().count()).isEqualTo(30);
+        assertThat(registry.get("insights.llm.tokens").tags("type", "total").counter().count()).isEqualTo(150);
+    }
+
+    @Test
+    void shouldRecordFailedCallsWithoutTokens() {
+        // Given
+        Map<Object, Object> attributes = new HashMap<>();
+        listener.onRequest(new ChatModelRequestContext(request, ModelProvider.OPEN_AI, attributes));
+
+        // When
+        listener.onError(new ChatModelErrorContext(new RuntimeException("timeout"), request,
+                ModelProvider.OPEN_AI, attributes));
+
+        // Then
+        assertThat(registry.get("insights.llm.duration").tags("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.find("insights.llm.tokens").counters()).isEmpty();
+    }
+}
@@ -0,0 +1,154 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.hbs.spending_insight_agent.repository.AccountRepository;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LlmTrafficLogTest {
+
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+
+    private final ChatRequest request = ChatRequest.builder()
+            .messages(UserMessage.from("Analyze spending for account A123 for 2025-11."))
+            .modelName("gpt-4o-mini")
+            .build();
+
+    private final ChatResponse response = ChatResponse.builder()
+            .aiMessage(AiMessage.from(ToolExecutionRequest.builder()
+                    .name("getCategoryBreakdown")
+                    .arguments("{\"accountId\":\"A123\"}")
+                    .build()))
+            .tokenUsage(new TokenUsage(900, 40))
+            .build();
+
+    private LlmTrafficLog trafficLog;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        trafficLog.close();
+    }
+
+    @Test
+    void shouldLogASummaryOfEveryCallWithoutThePayload() throws InterruptedException {
+        // Given
+        trafficLog = create(0.0, 10, lines::add);
+
+        // When
+        call(trafficLog.listener("sync"));
+
+        // Then
+        await(() -> trafficLog.stats().logged() == 1);
+        assertThat(lines).singleElement().satisfies(line -> assertThat(line)
+                .contains("mode=sync", "model=gpt-4o-mini", "outcome=success", "messages=1",
+                        "tools=[getCategoryBreakdown]", "inputTokens=900", "outputTokens=40")
+                .doesNotContain("\n", "A123"));
+        assertThat(trafficLog.stats().payloads()).isZero();
+    }
+
+    @Test
+    void shouldLogRedactedPayloadsOfSampledAndFailedCalls() throws InterruptedException {
+        // Given: nothing is sampled, but failures always are
+        trafficLog = create(0.0, 10, lines::add);
+        ChatModelListener listener = trafficLog.listener("streaming");
+        Map<Object, Object> attributes = new HashMap<>();
+        listener.onRequest(new ChatModelRequestContext(request, ModelProvider.OPEN_AI, attributes));
+
+        // When
+        listener.onError(new ChatModelErrorContext(new IllegalStateException("timeout for A123"), request,
+                ModelProvider.OPEN_AI, attributes));
+
+        // Then
+        await(() -> trafficLog.stats().logged() == 1);
+        assertThat(lines).singleElement().satisfies(line -> assertThat(line)
+                .contains("outcome=error", "error=IllegalStateException",
+                        "> USER: Analyze spending for account [account] for 2025-11.",
+                        "! java.lang.IllegalStateException: timeout for [account]")
+                .doesNotContain("A123"));
+        assertThat(trafficLog.stats().payloads()).isEqualTo(1);
+
+        // And with sampling every call, successful payloads too
+        lines.clear();
+        LlmTrafficLog sampling = create(1.0, 10, lines::add);
+        call(sampling.listener("sync"));
+        await(() -> sampling.stats().logged() == 1);
+        assertThat(lines.getFirst()).contains("< tools: getCategoryBreakdown{\"accountId\":\"[account]\"}");
+        sampling.close();
+    }
+
+    @Test
+    void shouldDropCallsInsteadOfBlockingWhenTheQueueIsFull() throws InterruptedException {
+        // Given: the writer is stuck on the first call and the queue holds one more
+        CountDownLatch release = new CountDownLatch(1);
+        trafficLog = create(0.0, 1, line -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lines.add(line);
+        });
+        ChatModelListener listener = trafficLog.listener("sync");
+        call(listener);
+        await(() -> trafficLog.stats().queued() == 0);
+
+        // When
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            call(listener);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertThat(elapsedMillis).isLessThan(1000);
+        assertThat(trafficLog.stats().dropped()).isEqualTo(4);
+        release.countDown();
+        await(() -> trafficLog.stats().logged() == 2);
+        assertThat(lines).hasSize(2);
+    }
+
+    private LlmTrafficLog create(double sampleRate, int capacity, Consumer<String> sink) {
+        AccountRepository accountRepo = mock(AccountRepository.class);
+        when(accountRepo.findById(anyString())).thenReturn(Optional.empty());
+        return new LlmTrafficLog(new PayloadRedactor(accountRepo, 100), sampleRate, capacity, sink);
+    }
+
+    private void call(ChatModelListener listener) {
+        Map<Object, Object> attributes = new HashMap<>();
+        listener.onRequest(new ChatModelRequestContext(request, ModelProvider.OPEN_AI, attributes));
+        listener.onResponse(new ChatModelResponseContext(response, request, ModelProvider.OPEN_AI, attributes));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.hbs.spending_insight_agent.model.Account;
+import com.hbs.spending_insight_agent.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PayloadRedactorTest {
+
+    private AccountRepository accountRepo;
+    private PayloadRedactor redactor;
+
+    @BeforeEach
+    void setup() {
+        accountRepo = mock(AccountRepository.class);
+        when(accountRepo.findById("A123")).thenReturn(Optional.of(
+                Account.builder().accountId("A123").customerName("Tan Wei Ming").build()));
+        redactor = new PayloadRedactor(accountRepo, 100);
+    }
+
+    @Test
+    void shouldRedactAccountIdsAndTheirCustomersNames() {
+        // Given
+        String payload = """
+                USER: Analyze spending for account A123 for 2025-11.
+                IMPORTANT: Never mention the account ID (A123) in your response.
+                AI: tools: getCategoryBreakdown{"accountId":"A123","fromDate":"2025-11-01"}
+                AI: Hi TAN WEI MING, Uniqlo A1234 was your largest purchase.""";
+
+        // When
+        String redacted = redactor.redact(payload);
+
+        // Then
+        assertThat(redacted).doesNotContain("A123\"", "(A123)", "account A123 ", "TAN WEI MING")
+                .contains("for account [account] for 2025-11", "ID ([account])",
+                        "{\"accountId\":\"[account]\",\"fromDate\"", "Hi [customer],")
+                // Only whole ids are replaced
+                .contains("Uniqlo A1234 was");
+    }
+
+    @Test
+    void shouldLookUpEachAccountOnce() {
+        // When
+        redactor.redact("accountId=A123");
+        redactor.redact("Analyze spending for account A123");
+
+        // Then
+        verify(accountRepo, times(1)).findById("A123");
+    }
+
+    @Test
+    void shouldLeaveTextWithoutAccountsUnchanged() {
+        // Given
+        String text = "You are a Spending Insight Agent. NEVER mention account IDs.";
+
+        // When / Then
+        assertThat(redactor.redact(text)).isEqualTo(text);
+    }
+}
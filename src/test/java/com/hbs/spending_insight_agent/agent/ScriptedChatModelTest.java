@@ -0,0 +1,160 @@
+package com.hbs.spending_insight_agent.agent;
+
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.invocation.InvocationParameters;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.service.AiServices;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScriptedChatModelTest {
+
+    private static final ScriptedChatModel.Latency NONE = new ScriptedChatModel.Latency(Duration.ZERO, Duration.ZERO);
+
+    private final ScriptedChatModel model = new ScriptedChatModel(NONE, NONE, 200, List.of());
+
+    private final RecordingTools tools = new RecordingTools();
+
+    private final String query = "Analyze spending for account A123 for 2025-11.\nCompare with the previous month.";
+
+    @Test
+    void shouldPlayTheToolSequenceAndAnswerFromTheResults() {
+        // Given
+        SpendingInsightAgent agent = AiServices.builder(SpendingInsightAgent.class)
+                .chatModel(model)
+                .tools(tools)
+                .chatMemoryProvider(id -> MessageWindowChatMemory.withMaxMessages(50))
+                .build();
+
+        // When
+        String answer = agent.generateInsight("run-1", query);
+
+        // Then
+        assertThat(tools.calls).containsExactlyInAnyOrder(
+                "getAccountSummary A123 2025-11", "getAccountSummary A123 2025-10",
+                "getRecentTransactions A123 2025-10-01..2025-11-30");
+        assertThat(answer).contains("getRecentTransactions: categories: 0=Food");
+        assertThat(answer.length()).isGreaterThanOrEqualTo(200 * 4);
+    }
+
+    @Test
+    void shouldPreferAggregateToolsWhenOffered() {
+        // Given
+        AggregateTools aggregateTools = new AggregateTools();
+        SpendingInsightAgent agent = AiServices.builder(SpendingInsightAgent.class)
+                .chatModel(model)
+                .tools(aggregateTools)
+                .chatMemoryProvider(id -> MessageWindowChatMemory.withMaxMessages(50))
+                .build();
+
+        // When
+        String answer = agent.generateInsight("run-3", query);
+
+        // Then
+        assertThat(aggregateTools.calls).containsExactlyInAnyOrder(
+                "getAccountSummary A123 2025-11", "getAccountSummary A123 2025-10",
+                "getCategoryBreakdown A123 2025-11-01..2025-11-30", "getCategoryBreakdown A123 2025-10-01..2025-10-31",
+                "getTopMerchants A123 2025-11-01..2025-11-30 10");
+        assertThat(answer).contains("getTopMerchants: merchant\ttotal\tcount");
+    }
+
+    @Test
+    void shouldStreamTheSameSequence() throws Exception {
+        // Given
+        SpendingInsightAgent agent = AiServices.builder(SpendingInsightAgent.class)
+                .streamingChatModel(new ScriptedStreamingChatModel(model))
+                .tools(tools)
+                .chatMemoryProvider(id -> MessageWindowChatMemory.withMaxMessages(50))
+                .build();
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        CompletableFuture<ChatResponse> done = new CompletableFuture<>();
+
+        InvocationParameters parameters = ToolResultBudget.parameters(900);
+
+        // When
+        agent.streamInsight("run-2", query, parameters)
+                .onPartialResponse(tokens::add)
+                .onCompleteResponse(done::complete)
+                .onError(done::completeExceptionally)
+                .start();
+
+        // Then
+        String answer = done.get(10, TimeUnit.SECONDS).aiMessage().text();
+        assertThat(tools.calls).hasSize(3);
+        assertThat(tools.parameters).containsExactly(parameters);
+        assertThat(tokens).hasSizeGreaterThan(1);
+        assertThat(String.join("", tokens)).isEqualTo(answer);
+    }
+
+    @Test
+    void shouldSampleLatencyAroundTheMedian() {
+        ScriptedChatModel.Latency latency = new ScriptedChatModel.Latency(Duration.ofMillis(100), Duration.ofMillis(400));
+
+        long below = IntStream.range(0, 2000)
+                .filter(i -> latency.sample().compareTo(Duration.ofMillis(100)) < 0)
+                .count();
+
+        assertThat(below).isBetween(850L, 1150L);
+        assertThatThrownBy(() -> new ScriptedChatModel.Latency(Duration.ofSeconds(2), Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static class RecordingTools {
+
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+
+        private final List<InvocationParameters> parameters = new CopyOnWriteArrayList<>();
+
+        @Tool("Get the total amount spent for a given account and month")
+        public String getAccountSummary(@P("Account ID") String accountId, @P("Year") int year,
+                                        @P("Month (1-12)") int month) {
+            calls.add(String.format("getAccountSummary %s %d-%02d", accountId, year, month));
+            return "2051.00";
+        }
+
+        @Tool("Fetch transactions for an account within a date range (inclusive)")
+        public String getRecentTransactions(@P("Account ID") String accountId, @P("From date (YYYY-MM-DD)") String fromDate,
+                                            @P("To date (YYYY-MM-DD)") String toDate, InvocationParameters invocation) {
+            calls.add("getRecentTransactions " + accountId + " " + fromDate + ".." + toDate);
+            parameters.add(invocation);
+            return "categories: 0=Food\ndate\tamount\tcat\tmerchant\n2025-11-01\t121.00\t0\tGrabFood\nrows: 1";
+        }
+    }
+
+    static class AggregateTools {
+
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+
+        @Tool("Get the total amount spent for a given account and month")
+        public String getAccountSummary(@P("Account ID") String accountId, @P("Year") int year,
+                                        @P("Month (1-12)") int month) {
+            calls.add(String.format("getAccountSummary %s %d-%02d", accountId, year, month));
+            return "2051.00";
+        }
+
+        @Tool("Get spending per category for an account within a date range (inclusive)")
+        public String getCategoryBreakdown(@P("Account ID") String accountId, @P("From date (YYYY-MM-DD)") String fromDate,
+                                           @P("To date (YYYY-MM-DD)") String toDate) {
+            calls.add("getCategoryBreakdown " + accountId + " " + fromDate + ".." + toDate);
+            return "category\ttotal\tcount\nFood\t121.00\t1\ntotal: 121.00 in 1 transactions";
+        }
+
+        @Tool("Get the merchants with the highest spending for an account within a date range (inclusive)")
+        public String getTopMerchants(@P("Account ID") String accountId, @P("From date (YYYY-MM-DD)") String fromDate,
+                                      @P("To date (YYYY-MM-DD)") String toDate, @P("Number of merchants (1-50)") int n) {
+            calls.add("getTopMerchants " + accountId + " " + fromDate + ".." + toDate + " " + n);
+            return "merchant\ttotal\tcount\nGrabFood\t121.00\t1\nmerchants: 1";
+        }
+    }
+}
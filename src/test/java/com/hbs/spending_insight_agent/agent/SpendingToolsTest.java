@@ -1,12 +1,12 @@
 package com.hbs.spending_insight_agent.agent;
 
-import com.hbs.spending_insight_agent.model.Transaction;
+import dev.langchain4j.invocation.InvocationParameters;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.math.BigDecimal;
-import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -16,6 +16,9 @@ class SpendingToolsTest {
     @Autowired
     private SpendingTools spendingTools;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void accountSummaryShouldMatchSeedDataForNovember() {
         BigDecimal total = spendingTools.getAccountSummary("A123", 2025, 11);
@@ -24,12 +27,70 @@ class SpendingToolsTest {
 
     @Test
     void getRecentTransactionsShouldReturnFiveRowsForNovember() {
-        List<Transaction> november = spendingTools.getRecentTransactions(
+        String november = spendingTools.getRecentTransactions(
                 "A123",
                 "2025-11-01",
-                "2025-11-30"
+                "2025-11-30",
+                new InvocationParameters()
         );
 
-        assertThat(november).hasSize(4);
+        assertThat(november).endsWith("rows: 4");
+        assertThat(november).contains("2025-11-18\t1400.00\t");
+        assertThat(november).doesNotContain("A123");
+    }
+
+    @Test
+    void getCategoryBreakdownShouldReturnDatabaseTotalsForNovember() {
+        String breakdown = spendingTools.getCategoryBreakdown("A123", "2025-11-01", "2025-11-30");
+
+        assertThat(breakdown).startsWith("category\ttotal\tcount\nTravel\t1400.00\t1\n");
+        assertThat(breakdown).endsWith("total: 2051.00 in 4 transactions");
+        assertThat(breakdown).doesNotContain("A123");
+    }
+
+    @Test
+    void getTopMerchantsShouldListLargestMerchantsFirst() {
+        String merchants = spendingTools.getTopMerchants("A123", "2025-11-01", "2025-11-30", 2);
+
+        assertThat(merchants).isEqualTo("merchant\ttotal\tcount\n"
+                + "Singapore Airlines\t1400.00\t1\nUniqlo\t320.00\t1\nmerchants: 2 (top 2 only)");
+    }
+
+    @Test
+    void getAnomaliesShouldFlagTheNovemberTravelSpike() {
+        String anomalies = spendingTools.getAnomalies("A123", 2025, 11);
+
+        assertThat(anomalies).startsWith("month: 2025-11\ttotal: 2051.00\tbaseline: 690.00 (1 months)");
+        assertThat(anomalies).contains("Travel\t1400.00\t200.00\t+600.0%");
+        assertThat(anomalies).contains("2025-11-18\t1400.00\tTravel\tSingapore Airlines\t68.3\t-");
+        assertThat(anomalies).doesNotContain("A123");
+    }
+
+    @Test
+    void getSpendingTrendShouldReturnOneLinePerMonth() {
+        String trend = spendingTools.getSpendingTrend("A123", 2025, 11, 3);
+
+        assertThat(trend).startsWith("trend: 2025-09..2025-11 (3 months)\nmonth\ttotal\tTravel\t");
+        assertThat(trend).contains("\n2025-09\t0\t0\t0\t0\t0\n2025-10\t690.00\t");
+        assertThat(trend).contains("\n2025-11\t2051.00\t1400.00\t");
+    }
+
+    @Test
+    void toolCallsShouldBeTimedAndCountRows() {
+        // Given
+        long callsBefore = toolCalls("getRecentTransactions");
+
+        // When
+        spendingTools.getRecentTransactions("A123", "2025-11-01", "2025-11-30", new InvocationParameters());
+
+        // Then
+        assertThat(toolCalls("getRecentTransactions")).isEqualTo(callsBefore + 1);
+        assertThat(meterRegistry.get("insights.tool.rows").tag("tool", "getRecentTransactions")
+                .summary().max()).isGreaterThanOrEqualTo(4);
+    }
+
+    private long toolCalls(String tool) {
+        var timer = meterRegistry.find("insights.tool.duration").tags("tool", tool, "outcome", "success").timer();
+        return timer == null ? 0 : timer.count();
     }
 }
@@ -0,0 +1,107 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import dev.langchain4j.invocation.InvocationParameters;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolResultBudgetTest {
+
+    private final OpenAiTokenCountEstimator estimator = new OpenAiTokenCountEstimator("gpt-4o-mini");
+
+    private final ToolResultBudget budget = new ToolResultBudget(
+            new MockEnvironment().withProperty("insights.tools.token-budget.getRecentTransactions", "1500"),
+            estimator, 4000);
+
+    @Test
+    void shouldResolveBudgetPerToolAndPerRequest() {
+        assertThat(budget.budgetFor("getRecentTransactions")).isEqualTo(1500);
+        assertThat(budget.budgetFor("getAccountSummary")).isEqualTo(4000);
+
+        try (ToolResultBudget.Scope ignored = budget.open(800)) {
+            assertThat(budget.budgetFor("getRecentTransactions")).isEqualTo(800);
+            assertThat(budget.budgetFor("getAccountSummary")).isEqualTo(800);
+        }
+        assertThat(budget.budgetFor("getRecentTransactions")).isEqualTo(1500);
+    }
+
+    @Test
+    void shouldTakeTheBudgetFromInvocationParametersOutsideAScope() {
+        InvocationParameters parameters = ToolResultBudget.parameters(800);
+
+        assertThat(budget.budgetFor("getRecentTransactions", parameters)).isEqualTo(800);
+        assertThat(budget.budgetFor("getRecentTransactions", ToolResultBudget.parameters(null))).isEqualTo(1500);
+        try (ToolResultBudget.Scope ignored = budget.open(600)) {
+            assertThat(budget.budgetFor("getRecentTransactions", parameters)).isEqualTo(600);
+        }
+    }
+
+    @Test
+    void shouldReturnEveryRowWhenTheResultFits() {
+        List<TransactionRow> rows = rows(5);
+
+        String out = budget.renderTransactions("getRecentTransactions", rows, false);
+
+        assertThat(out).isEqualTo(CompactTransactionFormat.format(rows, false));
+    }
+
+    @Test
+    void shouldSummarizeWithinBudgetWhenTheResultIsTooLarge() {
+        // Given: far more rows than 1500 tokens can hold
+        List<TransactionRow> rows = rows(2000);
+
+        // When
+        String out = budget.renderTransactions("getRecentTransactions", rows, false);
+
+        // Then
+        assertThat(out).startsWith("summary: 2000 transactions");
+        assertThat(out).contains("rows: 50 of 2000 listed, 1950 summarized");
+        assertThat(estimator.estimateTokenCountInText(out)).isLessThanOrEqualTo(1500);
+    }
+
+    @Test
+    void shouldShrinkTheSummaryForASmallRequestBudget() {
+        List<TransactionRow> rows = rows(2000);
+
+        String out;
+        try (ToolResultBudget.Scope ignored = budget.open(300)) {
+            out = budget.renderTransactions("getRecentTransactions", rows, false);
+        }
+
+        assertThat(estimator.estimateTokenCountInText(out)).isLessThanOrEqualTo(300);
+        assertThat(out).contains("by category");
+    }
+
+    @Test
+    void shouldPropagateTheRequestBudgetToToolThreads() throws Exception {
+        try (ExecutorService executor = Executors.newSingleThreadExecutor();
+             ToolResultBudget.Scope ignored = budget.open(900)) {
+            CompletableFuture<Integer> seen = new CompletableFuture<>();
+            budget.propagating(executor).execute(() -> seen.complete(budget.budgetFor("getRecentTransactions")));
+
+            assertThat(seen.get()).isEqualTo(900);
+        }
+    }
+
+    private static List<TransactionRow> rows(int count) {
+        String[] categories = {"Food", "Shopping", "Travel", "Bills", "Transport"};
+        List<TransactionRow> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new TransactionRow((long) i + 1, LocalDate.of(2025, 9, 1).plusDays(i % 90),
+                    new BigDecimal(10 + (i * 7) % 400 + ".50"), categories[i % categories.length],
+                    "Merchant " + (i % 40)));
+        }
+        return rows;
+    }
+}
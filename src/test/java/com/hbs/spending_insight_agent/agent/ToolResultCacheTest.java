@@ -0,0 +1,109 @@
+package com.hbs.spending_insight_agent.agent;
+
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolResultCacheTest {
+
+    private final ToolResultCache cache = new ToolResultCache();
+
+    private final List<TransactionRow> octAndNov = List.of(
+            txn("110.00", LocalDate.of(2025, 10, 3)),
+            txn("200.00", LocalDate.of(2025, 10, 9)),
+            txn("121.00", LocalDate.of(2025, 11, 1)),
+            txn("1400.00", LocalDate.of(2025, 11, 18)));
+
+    @Test
+    void shouldDeduplicateIdenticalCallsWithinARun() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<TransactionRow>> loader = () -> {
+            loads.incrementAndGet();
+            return octAndNov;
+        };
+
+        try (ToolResultCache.Scope ignored = cache.open()) {
+            cache.transactions("A123", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30), loader);
+            cache.transactions("A123", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30), loader);
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldServeSubRangeAndMonthlyTotalFromPrefetchedRange() {
+        AtomicInteger loads = new AtomicInteger();
+
+        try (ToolResultCache.Scope ignored = cache.open()) {
+            cache.prefetched("A123", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30), octAndNov);
+
+            List<TransactionRow> november = cache.transactions("A123",
+                    LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30), () -> {
+                        loads.incrementAndGet();
+                        return List.of();
+                    });
+            BigDecimal octoberTotal = cache.monthlyTotal("A123", YearMonth.of(2025, 10), () -> {
+                loads.incrementAndGet();
+                return BigDecimal.ZERO;
+            });
+
+            assertThat(november).hasSize(2);
+            assertThat(octoberTotal).isEqualByComparingTo("310");
+        }
+
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void shouldNotReuseResultsOutsideARunOrAcrossAccounts() {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<TransactionRow>> loader = () -> {
+            loads.incrementAndGet();
+            return octAndNov;
+        };
+
+        cache.transactions("A123", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30), loader);
+        cache.transactions("A123", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30), loader);
+        try (ToolResultCache.Scope ignored = cache.open()) {
+            cache.prefetched("A123", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30), octAndNov);
+            cache.transactions("B456", LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30), loader);
+        }
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void shouldShareRunWithToolsExecutedOnOtherThreads() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<TransactionRow>> loader = () -> {
+            loads.incrementAndGet();
+            return octAndNov;
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             ToolResultCache.Scope ignored = cache.open()) {
+            cache.transactions("A123", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30), loader);
+
+            CompletableFuture.runAsync(() -> cache.transactions("A123",
+                    LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30), loader),
+                    cache.propagating(executor)).get();
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    private static TransactionRow txn(String amount, LocalDate date) {
+        return new TransactionRow(null, date, new BigDecimal(amount), "Test", "Merchant");
+    }
+}
@@ -0,0 +1,81 @@
+package com.hbs.spending_insight_agent.config;
+
+import com.hbs.spending_insight_agent.agent.SpendingInsightAgent;
+import com.hbs.spending_insight_agent.agent.SpendingInsightWriter;
+import dev.langchain4j.model.TokenCountEstimator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AgentWarmupTest {
+
+    private ObjectProvider<SpendingInsightAgent> agent;
+    private ObjectProvider<SpendingInsightWriter> writer;
+    private TokenCountEstimator estimator;
+    private AgentWarmup warmup;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        agent = mock(ObjectProvider.class);
+        writer = mock(ObjectProvider.class);
+        ObjectProvider<TokenCountEstimator> estimatorProvider = mock(ObjectProvider.class);
+        estimator = mock(TokenCountEstimator.class);
+        when(estimatorProvider.getObject()).thenReturn(estimator);
+        warmup = new AgentWarmup(agent, writer, estimatorProvider, Duration.ofMillis(1), Duration.ofMillis(4));
+    }
+
+    @Test
+    void shouldReportOutOfServiceUntilWarm() {
+        // Given
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        // When
+        warmup.warm();
+
+        // Then
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        verify(agent).getObject();
+        verify(writer).getObject();
+        verify(estimator).estimateTokenCountInText("warm-up");
+    }
+
+    @Test
+    void shouldReportDownWhenTheAgentCannotBeBuilt() {
+        // Given
+        when(agent.getObject()).thenThrow(new IllegalStateException("missing api key"));
+
+        // When
+        warmup.warm();
+
+        // Then
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(warmup.health().getDetails()).containsEntry("error", "java.lang.IllegalStateException: missing api key");
+    }
+
+    @Test
+    void shouldRetryAFailedWarmUpUntilItIsReady() {
+        // Given: the model client fails to build twice, e.g. while a secret is not yet mounted
+        when(agent.getObject())
+                .thenThrow(new IllegalStateException("missing api key"))
+                .thenThrow(new IllegalStateException("missing api key"))
+                .thenReturn(mock(SpendingInsightAgent.class));
+
+        // When
+        warmup.warmUntilReady();
+
+        // Then: readiness recovers instead of staying DOWN
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        verify(agent, times(3)).getObject();
+        verify(writer).getObject();
+    }
+}
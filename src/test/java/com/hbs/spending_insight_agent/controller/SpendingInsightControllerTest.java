@@ -1,21 +1,52 @@
 package com.hbs.spending_insight_agent.controller;
 
+import com.hbs.spending_insight_agent.agent.LlmCapacityExceededException;
+import com.hbs.spending_insight_agent.agent.ToolResultBudget;
+import com.hbs.spending_insight_agent.model.BatchInsightItem;
+import com.hbs.spending_insight_agent.model.BatchInsightResult;
+import com.hbs.spending_insight_agent.model.SpendingTrend;
+import com.hbs.spending_insight_agent.service.AccountSummaryService;
+import com.hbs.spending_insight_agent.service.BatchInsightService;
+import com.hbs.spending_insight_agent.service.InsightStream;
+import com.hbs.spending_insight_agent.service.InsightStreamHandler;
 import com.hbs.spending_insight_agent.service.SpendingInsightService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.stringContainsInOrder;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(SpendingInsightController.class)
@@ -27,6 +58,15 @@ class SpendingInsightControllerTest {
     @MockitoBean
     private SpendingInsightService spendingInsightService;
 
+    @MockitoBean
+    private BatchInsightService batchInsightService;
+
+    @MockitoBean
+    private ToolResultBudget toolResultBudget;
+
+    @MockitoBean
+    private AccountSummaryService accountSummaryService;
+
     @Test
     void shouldReturnInsightResponse() throws Exception {
 
@@ -42,6 +82,34 @@ class SpendingInsightControllerTest {
                 .andExpect(content().string("Sample Insight"));
     }
 
+    @Test
+    void shouldApplyRequestTokenBudgetToTools() throws Exception {
+        when(spendingInsightService.generateInsight(anyString(), anyInt(), anyInt()))
+                .thenReturn("Sample Insight");
+
+        mockMvc.perform(get("/api/spending/insights")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("tokenBudget", "2000"))
+                .andExpect(status().isOk());
+
+        verify(toolResultBudget).open(2000);
+    }
+
+    @Test
+    void shouldRejectTokenBudgetOutOfRange() throws Exception {
+        mockMvc.perform(get("/api/spending/insights")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("tokenBudget", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("tokenBudget must be between 200 and 50000"));
+
+        verifyNoInteractions(spendingInsightService);
+    }
+
     @Test
     void shouldReturnBadRequestForYearLessThan2020() throws Exception {
         mockMvc.perform(get("/api/spending/insights")
@@ -123,4 +191,237 @@ class SpendingInsightControllerTest {
                 .andExpect(content().string("Future months are not allowed"));
     }
 
+    @Test
+    void shouldStreamTokensAndToolProgressAsServerSentEvents() throws Exception {
+        doAnswer(invocation -> {
+            InsightStreamHandler handler = invocation.getArgument(4);
+            handler.onToolStarted("getRecentTransactions");
+            handler.onToolCompleted("getRecentTransactions");
+            handler.onToken("Hello ");
+            handler.onToken("there");
+            handler.onComplete("Hello there");
+            return InsightStream.COMPLETED;
+        }).when(spendingInsightService).streamInsight(anyString(), anyInt(), anyInt(), eq(2000), any(InsightStreamHandler.class));
+
+        MvcResult result = mockMvc.perform(get("/api/spending/insights/stream")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("tokenBudget", "2000")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(stringContainsInOrder(
+                        "event:tool", "getRecentTransactions", "started",
+                        "event:token", "data:Hello ",
+                        "event:token", "data:there",
+                        "event:done")));
+    }
+
+    @Test
+    void shouldCancelGenerationWhenStreamTimesOut() throws Exception {
+        InsightStream stream = mock(InsightStream.class);
+        doAnswer(invocation -> {
+            invocation.<InsightStreamHandler>getArgument(4).onToken("Hello ");
+            return stream;
+        }).when(spendingInsightService).streamInsight(anyString(), anyInt(), anyInt(), any(), any(InsightStreamHandler.class));
+
+        MvcResult result = mockMvc.perform(get("/api/spending/insights/stream")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // The servlet container reports the async timeout to its listeners
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        verify(stream, atLeastOnce()).cancel();
+    }
+
+    @Test
+    void shouldRejectInvalidStreamRequestWithoutStartingStream() throws Exception {
+        mockMvc.perform(get("/api/spending/insights/stream")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "13")
+                        .accept(MediaType.TEXT_EVENT_STREAM, MediaType.TEXT_PLAIN))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid month"));
+
+        verifyNoInteractions(spendingInsightService);
+    }
+
+    @Test
+    void shouldReturnTooManyRequestsWithRetryAfterWhenLlmIsSaturated() throws Exception {
+        when(spendingInsightService.generateInsight(anyString(), anyInt(), anyInt()))
+                .thenThrow(new LlmCapacityExceededException("LLM wait queue is full", Duration.ofSeconds(7)));
+
+        mockMvc.perform(get("/api/spending/insights")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "7"));
+    }
+
+    @Test
+    void shouldContinueConversationWhenConversationIdIsGiven() throws Exception {
+        when(spendingInsightService.continueConversation("A123", 2025, 11, "chat-1", "Why was travel so high?"))
+                .thenReturn("Follow-up Insight");
+
+        mockMvc.perform(get("/api/spending/insights")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("conversationId", "chat-1")
+                        .param("question", "Why was travel so high?")
+                        .accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Follow-up Insight"));
+    }
+
+    @Test
+    void shouldRejectQuestionOutsideAConversation() throws Exception {
+        mockMvc.perform(get("/api/spending/insights")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("question", "Why was travel so high?")
+                        .accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("question requires a conversationId"));
+
+        mockMvc.perform(get("/api/spending/insights")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("conversationId", "chat-1")
+                        .param("question", " ")
+                        .accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(spendingInsightService);
+    }
+
+    @Test
+    void shouldRejectMalformedConversationId() throws Exception {
+        mockMvc.perform(get("/api/spending/insights")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("conversationId", "../other")
+                        .accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid conversationId format"));
+
+        verifyNoInteractions(spendingInsightService);
+    }
+
+    @Test
+    void shouldStreamBatchResultsAsNdjsonIncludingPerItemErrors() throws Exception {
+        when(batchInsightService.maxItems()).thenReturn(1000);
+        doAnswer(invocation -> {
+            List<BatchInsightItem> items = invocation.getArgument(0);
+            Consumer<BatchInsightResult> sink = invocation.getArgument(2);
+            items.forEach(item -> sink.accept(BatchInsightResult.ok(item, "Insight " + item.accountId())));
+            return null;
+        }).when(batchInsightService).generate(any(), any(), any());
+
+        MvcResult result = mockMvc.perform(post("/api/spending/insights/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"accountId":"A123","year":2025,"month":11},
+                                 {"accountId":"B456","year":2025,"month":10},
+                                 {"accountId":"A123","year":2025,"month":13}]
+                                """)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("""
+                        {"accountId":"A123","year":2025,"month":13,"error":"Invalid month"}
+                        {"accountId":"A123","year":2025,"month":11,"insight":"Insight A123"}
+                        {"accountId":"B456","year":2025,"month":10,"insight":"Insight B456"}
+                        """));
+    }
+
+    @Test
+    void shouldRejectEmptyBatch() throws Exception {
+        when(batchInsightService.maxItems()).thenReturn(1000);
+
+        mockMvc.perform(post("/api/spending/insights/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]")
+                        .accept(MediaType.APPLICATION_NDJSON, MediaType.TEXT_PLAIN))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectOutOfRangeTokenBudgetForStreamAndBatch() throws Exception {
+        when(batchInsightService.maxItems()).thenReturn(1000);
+
+        mockMvc.perform(get("/api/spending/insights/stream")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("tokenBudget", "10")
+                        .accept(MediaType.TEXT_EVENT_STREAM, MediaType.TEXT_PLAIN))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("tokenBudget must be between 200 and 50000"));
+
+        mockMvc.perform(post("/api/spending/insights/batch")
+                        .param("tokenBudget", "60000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"accountId":"A123","year":2025,"month":11}]
+                                """)
+                        .accept(MediaType.APPLICATION_NDJSON, MediaType.TEXT_PLAIN))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(spendingInsightService);
+        verify(batchInsightService, never()).generate(any(), any(), any());
+    }
+
+    @Test
+    void shouldReturnTrendAsTimeSeries() throws Exception {
+        YearMonth november = YearMonth.of(2025, 11);
+        when(accountSummaryService.getTrend(eq("A123"), eq(november), eq(2))).thenReturn(new SpendingTrend(
+                november.minusMonths(1), november, List.of("Travel"),
+                List.of(new SpendingTrend.Month(november.minusMonths(1), new BigDecimal("200.00"), List.of(new BigDecimal("200.00"))),
+                        new SpendingTrend.Month(november, new BigDecimal("1400.00"), List.of(new BigDecimal("1400.00"))))));
+
+        mockMvc.perform(get("/api/spending/trend")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("months", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categories[0]").value("Travel"))
+                .andExpect(jsonPath("$.months[1].month").value("2025-11"))
+                .andExpect(jsonPath("$.months[1].amounts[0]").value(1400.0));
+    }
+
+    @Test
+    void shouldRejectTrendOverTwoYears() throws Exception {
+        mockMvc.perform(get("/api/spending/trend")
+                        .param("accountId", "A123")
+                        .param("year", "2025")
+                        .param("month", "11")
+                        .param("months", "25"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("months must be between 1 and 24"));
+
+        verifyNoInteractions(accountSummaryService);
+    }
 }
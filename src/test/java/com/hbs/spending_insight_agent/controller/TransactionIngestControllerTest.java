@@ -0,0 +1,103 @@
+package com.hbs.spending_insight_agent.controller;
+
+import com.hbs.spending_insight_agent.model.IngestResult;
+import com.hbs.spending_insight_agent.model.TieringResult;
+import com.hbs.spending_insight_agent.service.AccountSummaryService;
+import com.hbs.spending_insight_agent.service.IngestFormat;
+import com.hbs.spending_insight_agent.service.SpendingStatsService;
+import com.hbs.spending_insight_agent.service.TransactionIngestService;
+import com.hbs.spending_insight_agent.service.TransactionTieringJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TransactionIngestController.class)
+class TransactionIngestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TransactionIngestService ingestService;
+
+    @MockitoBean
+    private AccountSummaryService summaryService;
+
+    @MockitoBean
+    private SpendingStatsService statsService;
+
+    @MockitoBean
+    private TransactionTieringJob tieringJob;
+
+    @Test
+    void shouldIngestNdjsonBody() throws Exception {
+        when(ingestService.ingest(eq(IngestFormat.NDJSON), any(InputStream.class)))
+                .thenReturn(new IngestResult(2, 1, List.of(new IngestResult.LineError(3, "Unknown account X")), 5));
+
+        mockMvc.perform(post("/api/transactions/ingest")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenLoadIsRejected() throws Exception {
+        when(ingestService.ingest(eq(IngestFormat.CSV), any(InputStream.class)))
+                .thenThrow(new IllegalArgumentException("CSV header must name account_id, date and amount columns"));
+
+        mockMvc.perform(post("/api/transactions/ingest")
+                        .contentType("text/csv")
+                        .accept(MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN)
+                        .content("a,b\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("CSV header must name account_id, date and amount columns"));
+    }
+
+    @Test
+    void shouldRebuildRollupsAndStatistics() throws Exception {
+        when(summaryService.rebuildRollups()).thenReturn(8);
+        when(statsService.rebuildStats()).thenReturn(4);
+
+        mockMvc.perform(post("/api/transactions/aggregates/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rollupRows").value(8))
+                .andExpect(jsonPath("$.statsRows").value(4));
+    }
+
+    @Test
+    void shouldCompactOldMonthsOnDemand() throws Exception {
+        when(tieringJob.compact()).thenReturn(new TieringResult(3, 120, 15));
+
+        mockMvc.perform(post("/api/transactions/tiering/compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.segmentsWritten").value(3))
+                .andExpect(jsonPath("$.rowsMoved").value(120));
+    }
+
+    @Test
+    void shouldReturnConflictWhenTieringIsDisabled() throws Exception {
+        when(tieringJob.compact())
+                .thenThrow(new IllegalStateException("Transaction tiering is disabled (insights.tiering.enabled)"));
+
+        mockMvc.perform(post("/api/transactions/tiering/compact")
+                        .accept(MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Transaction tiering is disabled (insights.tiering.enabled)"));
+    }
+}
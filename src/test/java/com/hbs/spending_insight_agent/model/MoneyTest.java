@@ -0,0 +1,69 @@
+package com.hbs.spending_insight_agent.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private static final Currency SGD = Currency.getInstance("SGD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    @Test
+    void shouldUseTheCurrencyScale() {
+        // When
+        Money sgd = Money.of(new BigDecimal("12.5"), SGD);
+        Money jpy = Money.of(new BigDecimal("1500.00"), JPY);
+
+        // Then
+        assertThat(sgd.minorUnits()).isEqualTo(1250);
+        assertThat(sgd.toBigDecimal()).isEqualTo(new BigDecimal("12.50"));
+        assertThat(jpy.minorUnits()).isEqualTo(1500);
+        assertThat(jpy.toBigDecimal()).isEqualTo(new BigDecimal("1500"));
+        assertThat(Money.ofScaled(150_000, 2, JPY)).isEqualTo(jpy);
+        assertThat(Money.ofScaled(125, 1, SGD)).isEqualTo(sgd);
+        assertThat(jpy).hasToString("1500 JPY");
+    }
+
+    @Test
+    void shouldNeverRoundOrOverflowSilently() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("0.5"), JPY)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofScaled(150, 2, JPY)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> new Money(Long.MAX_VALUE, SGD).plus(new Money(1, SGD)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> new Money(Long.MIN_VALUE, SGD).minus(new Money(1, SGD)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1E+30"), SGD)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> new Money(1, SGD).plus(new Money(1, JPY)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.zero(Currency.getInstance("XAU"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldComputePercentagesLikeBigDecimalHalfUp() {
+        long[][] cases = {{69000, 205100}, {20000, 22000}, {3, 2}, {-400, 100}, {1000, -999}, {8, 1}, {7, -2}};
+        for (long[] c : cases) {
+            Money from = new Money(c[0], SGD);
+            Money to = new Money(c[1], SGD);
+            BigDecimal expected = BigDecimal.valueOf(c[1] - c[0]).multiply(BigDecimal.valueOf(100))
+                    .divide(BigDecimal.valueOf(c[0]), 1, RoundingMode.HALF_UP);
+            assertThat(to.percentChangeFrom(from)).as("%s -> %s", from, to).isEqualTo(expected);
+        }
+        assertThat(new Money(100, SGD).percentChangeFrom(Money.zero(SGD))).isNull();
+        assertThat(new Money(140000, SGD).percentOf(new Money(205100, SGD))).isEqualTo(new BigDecimal("68.3"));
+    }
+
+    @Test
+    void shouldCompareWithinOneCurrency() {
+        assertThat(new Money(5, SGD)).isLessThan(new Money(6, SGD));
+        assertThat(new Money(-5, SGD).signum()).isEqualTo(-1);
+        assertThat(Money.zero(SGD).isZero()).isTrue();
+        assertThatThrownBy(() -> new Money(5, SGD).compareTo(new Money(5, JPY)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,307 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.MerchantTotal;
+import com.hbs.spending_insight_agent.model.MonthlyAccountRollup;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import com.hbs.spending_insight_agent.service.AccountCurrencies;
+import com.hbs.spending_insight_agent.service.AccountSummaryService;
+import com.hbs.spending_insight_agent.service.ColumnarTransactionStore;
+import com.hbs.spending_insight_agent.service.SpendingStatsService;
+import com.hbs.spending_insight_agent.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+class ColdTransactionStoreTest {
+
+    private static final String ACCOUNT = "COLD1";
+
+    private static final YearMonth MARCH = YearMonth.of(2025, 3);
+
+    private static final LocalDate FROM = LocalDate.of(2025, 3, 1);
+
+    private static final LocalDate TO = LocalDate.of(2025, 4, 30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ColumnarTransactionStore columnarStore;
+
+    @Autowired
+    private MonthlyAccountRollupRepository rollupRepository;
+
+    @Autowired
+    private CategoryAmountStatsRepository statsRepository;
+
+    @Autowired
+    private AccountCurrencies currencies;
+
+    @Autowired
+    private TransactionBulkWriter bulkWriter;
+
+    @TempDir
+    private Path dir;
+
+    private ColdTransactionStore coldStore;
+
+    private TransactionService transactionService;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private Future<Integer> compaction;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("MERGE INTO accounts(id, customer_name, currency, opened_on) KEY(id) "
+                + "VALUES ('" + ACCOUNT + "', 'Cold Storage', 'SGD', DATE '2024-01-01')");
+        insert("2025-03-02", "120.00", "Food", "GrabFood");
+        insert("2025-03-15", "900.00", "Travel", "Scoot Airlines");
+        insert("2025-03-15", "35.40", null, null);
+        insert("2025-04-03", "60.00", "Food", "GrabFood");
+        coldStore = newStore();
+        transactionService = new TransactionService(transactionRepository, columnarStore, coldStore);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        jdbcTemplate.update("DELETE FROM monthly_account_rollups WHERE account_id = ?", ACCOUNT);
+        jdbcTemplate.update("DELETE FROM category_amount_stats WHERE account_id = ?", ACCOUNT);
+        jdbcTemplate.update("DELETE FROM cold_segments WHERE account_id = ?", ACCOUNT);
+        jdbcTemplate.update("DELETE FROM transactions WHERE account_id = ?", ACCOUNT);
+        jdbcTemplate.update("DELETE FROM accounts WHERE id = ?", ACCOUNT);
+    }
+
+    @Test
+    void shouldMoveAClosedMonthOutOfTheTableWithoutChangingReads() {
+        // Given
+        List<TransactionRow> rowsBefore = transactionService.getTransactionRows(ACCOUNT, FROM, TO);
+        List<CategoryTotal> categoriesBefore = transactionService.getCategoryTotals(ACCOUNT, FROM, TO);
+        List<MerchantTotal> merchantsBefore = transactionService.getTopMerchants(ACCOUNT, FROM, TO, 2);
+        List<Transaction> aboveBefore = transactionService.getTransactionsAbove(ACCOUNT, FROM, TO, new BigDecimal("50"));
+        Map<String, BigDecimal> byCategory = Map.of(MonthlyAccountRollup.UNCATEGORIZED, new BigDecimal("30"));
+        List<Transaction> categoryAboveBefore = transactionService.getTransactionsAbove(
+                ACCOUNT, FROM, TO, new BigDecimal("500"), byCategory, 10);
+
+        // When
+        int moved = coldStore.compact(ACCOUNT, MARCH);
+
+        // Then: the rows left the hot table and are served from the segment
+        assertThat(moved).isEqualTo(3);
+        assertThat(hotRows()).isEqualTo(1);
+        assertThat(coldStore.stats().segments()).isEqualTo(1);
+        assertThat(coldStore.hotMonthsBefore(LocalDate.of(2025, 4, 1)))
+                .noneMatch(m -> m.accountId().equals(ACCOUNT));
+
+        assertThat(transactionService.getTransactionRows(ACCOUNT, FROM, TO)).isEqualTo(rowsBefore);
+        assertThat(transactionService.getTransactionRows(List.of(ACCOUNT), FROM, TO).get(ACCOUNT)).isEqualTo(rowsBefore);
+        assertThat(transactionService.getTransactions(ACCOUNT, FROM, TO))
+                .extracting(Transaction::getId)
+                .containsExactlyElementsOf(rowsBefore.stream().map(TransactionRow::id).toList());
+        assertThat(transactionService.getCategoryTotals(ACCOUNT, FROM, TO)).isEqualTo(categoriesBefore);
+        assertThat(transactionService.getTopMerchants(ACCOUNT, FROM, TO, 2)).isEqualTo(merchantsBefore);
+        assertThat(transactionService.getTransactionsAbove(ACCOUNT, FROM, TO, new BigDecimal("50")))
+                .extracting(Transaction::getId)
+                .containsExactlyElementsOf(aboveBefore.stream().map(Transaction::getId).toList());
+        assertThat(categoryAboveBefore).extracting(Transaction::getMerchant).containsExactly("Scoot Airlines", null);
+        assertThat(transactionService.getTransactionsAbove(ACCOUNT, FROM, TO, new BigDecimal("500"), byCategory, 10))
+                .extracting(Transaction::getId)
+                .containsExactlyElementsOf(categoryAboveBefore.stream().map(Transaction::getId).toList());
+        // Built by hand, so no @Transactional proxy: the stream needs a surrounding transaction
+        BigDecimal streamed = new TransactionTemplate(txManager).execute(status -> transactionService.readTransactions(
+                ACCOUNT, FROM, TO, stream -> stream.map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add)));
+        assertThat(streamed).isEqualByComparingTo("1115.40");
+        assertThat(coldStore.iterate(ACCOUNT, LocalDate.of(2025, 3, 10), TO)).toIterable()
+                .extracting(TransactionRow::date)
+                .containsExactly(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 15));
+    }
+
+    @Test
+    void shouldIncludeArchivedRowsInTheSummaryFallbackWithoutRollups() {
+        // Given: no rollups for the account, so the summary falls back to the transactions
+        AccountSummaryService summaryService = new AccountSummaryService(
+                transactionService, rollupRepository, columnarStore, currencies, coldStore, bulkWriter);
+        List<CategoryTotal> categoriesBefore = summaryService.getCategoryTotals(ACCOUNT, MARCH);
+
+        // When
+        coldStore.compact(ACCOUNT, MARCH);
+
+        // Then
+        assertThat(summaryService.getTotalSpent(ACCOUNT, MARCH)).isEqualByComparingTo("1055.40");
+        assertThat(summaryService.getCategoryTotals(ACCOUNT, MARCH)).isEqualTo(categoriesBefore);
+        assertThat(categoriesBefore).extracting(CategoryTotal::category)
+                .containsExactly("Travel", "Food", MonthlyAccountRollup.UNCATEGORIZED);
+    }
+
+    @Test
+    void shouldCountEveryRowOnceWhenAMonthIsCompactedDuringARollupRebuild() throws Exception {
+        // Given: March is compacted right after the rebuild has read the hot table
+        MonthlyAccountRollupRepository rollups = mock(MonthlyAccountRollupRepository.class, delegatesTo(rollupRepository));
+        doAnswer(invocation -> compactingAfter(rollupRepository::insertRollupsFromTransactions))
+                .when(rollups).insertRollupsFromTransactions();
+        AccountSummaryService summaryService = new AccountSummaryService(
+                transactionService, rollups, columnarStore, currencies, coldStore, bulkWriter);
+
+        // When
+        new TransactionTemplate(txManager).execute(status -> summaryService.rebuildRollups());
+
+        // Then: the compaction went through, and March's rows are in the rollups once
+        assertThat(compaction.get(10, TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForMap("SELECT SUM(total_amount) AS amount, SUM(txn_count) AS txns "
+                + "FROM monthly_account_rollups WHERE account_id = ? AND period = 202503", ACCOUNT))
+                .satisfies(march -> {
+                    assertThat((BigDecimal) march.get("AMOUNT")).isEqualByComparingTo("1055.40");
+                    assertThat(((Number) march.get("TXNS")).longValue()).isEqualTo(3);
+                });
+    }
+
+    @Test
+    void shouldCountEveryRowOnceWhenAMonthIsCompactedDuringAStatsRebuild() throws Exception {
+        // Given
+        CategoryAmountStatsRepository stats = mock(CategoryAmountStatsRepository.class, delegatesTo(statsRepository));
+        doAnswer(invocation -> compactingAfter(statsRepository::insertStatsFromTransactions))
+                .when(stats).insertStatsFromTransactions();
+        SpendingStatsService statsService = new SpendingStatsService(rollupRepository, stats, transactionService,
+                currencies, coldStore, bulkWriter, 0.3, 12, 3.0, 5);
+
+        // When
+        new TransactionTemplate(txManager).execute(status -> statsService.rebuildStats());
+
+        // Then: four transactions in all, Food holding the two GrabFood ones
+        assertThat(compaction.get(10, TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(txn_count) FROM category_amount_stats WHERE account_id = ?",
+                Long.class, ACCOUNT)).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT txn_count FROM category_amount_stats "
+                + "WHERE account_id = ? AND category = 'Food'", Long.class, ACCOUNT)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPageAcrossBothTiers() {
+        // Given
+        coldStore.compact(ACCOUNT, MARCH);
+
+        // When: walk the range two rows at a time
+        List<Transaction> seen = new ArrayList<>();
+        Window<Transaction> page = transactionService.getTransactionPage(ACCOUNT, FROM, TO, ScrollPosition.keyset(), 2);
+        seen.addAll(page.getContent());
+        while (page.hasNext()) {
+            page = transactionService.getTransactionPage(ACCOUNT, FROM, TO, page.positionAt(page.size() - 1), 2);
+            seen.addAll(page.getContent());
+        }
+
+        // Then: every row exactly once, in (date, id) order
+        assertThat(seen).extracting(Transaction::getId)
+                .containsExactlyElementsOf(transactionService.getTransactionRows(ACCOUNT, FROM, TO).stream()
+                        .map(TransactionRow::id).toList());
+        assertThat(seen).extracting(Transaction::getDate).isSorted();
+    }
+
+    @Test
+    void shouldFoldLateRowsIntoANewGenerationAndSurviveARestart() throws Exception {
+        // Given
+        coldStore.compact(ACCOUNT, MARCH);
+        insert("2025-03-31", "10.00", "Food", "GrabFood");
+
+        // When
+        int moved = coldStore.compact(ACCOUNT, MARCH);
+
+        // Then: one segment per month; the previous generation's file is gone
+        assertThat(moved).isEqualTo(1);
+        assertThat(segmentFiles()).singleElement()
+                .satisfies(file -> assertThat(file.getFileName().toString()).isEqualTo("2025-03.g2.seg"));
+
+        // And a new instance reads the same data back from the manifest
+        ColdTransactionStore restarted = newStore();
+        assertThat(restarted.rows(ACCOUNT)).hasSize(4).isEqualTo(coldStore.rows(ACCOUNT));
+        assertThat(restarted.rollupDeltas())
+                .filteredOn(d -> d.accountId().equals(ACCOUNT) && d.category().equals("Food"))
+                .singleElement()
+                .satisfies(d -> {
+                    assertThat(d.period()).isEqualTo(202503);
+                    assertThat(d.amount()).isEqualByComparingTo("130.00");
+                    assertThat(d.count()).isEqualTo(2);
+                });
+        assertThat(restarted.amountStatsDeltas())
+                .filteredOn(d -> d.accountId().equals(ACCOUNT) && d.category().equals("Uncategorized"))
+                .singleElement()
+                .satisfies(d -> assertThat(d.mean()).isEqualTo(35.40));
+    }
+
+    @Test
+    void shouldLeaveTheTableUntouchedWhenThereIsNothingToMove() {
+        assertThat(coldStore.compact(ACCOUNT, YearMonth.of(2024, 1))).isZero();
+        assertThat(coldStore.stats().segments()).isZero();
+        assertThat(hotRows()).isEqualTo(4);
+    }
+
+    // Runs the rebuild's hot read, then starts compacting March and gives it time to be published
+    // before the rebuild reads the cold tier; a rebuild holding both reads at one split blocks it
+    private int compactingAfter(Callable<Integer> hotRead) throws Exception {
+        int inserted = hotRead.call();
+        compaction = executor.submit(() -> coldStore.compact(ACCOUNT, MARCH));
+        try {
+            compaction.get(300, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException expected) {
+            // Held back until the rebuild's read ends
+        }
+        return inserted;
+    }
+
+    private ColdTransactionStore newStore() {
+        return new ColdTransactionStore(jdbcTemplate, txManager, true, dir.toString());
+    }
+
+    private void insert(String date, String amount, String category, String merchant) {
+        jdbcTemplate.update("INSERT INTO transactions(account_id, category, amount, date, merchant) VALUES (?, ?, ?, ?, ?)",
+                ACCOUNT, category, new BigDecimal(amount), java.sql.Date.valueOf(date), merchant);
+    }
+
+    private int hotRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE account_id = ?", Integer.class, ACCOUNT);
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).toList();
+        }
+    }
+}
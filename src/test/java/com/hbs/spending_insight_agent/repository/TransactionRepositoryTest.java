@@ -1,10 +1,14 @@
 package com.hbs.spending_insight_agent.repository;
 
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.MerchantTotal;
 import com.hbs.spending_insight_agent.model.Transaction;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -48,4 +52,38 @@ class TransactionRepositoryTest {
 
         assertThat(november).isEmpty();
     }
+
+    @Test
+    void shouldSumNovemberAmountsInTheDatabase() {
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        LocalDate to = LocalDate.of(2025, 11, 30);
+
+        BigDecimal total = transactionRepository
+                .sumAmountByAccountIdAndDateBetween("A123", from, to);
+        List<CategoryTotal> byCategory = transactionRepository
+                .sumAmountByCategory("A123", from, to);
+
+        assertThat(total).isEqualByComparingTo("2051");
+        assertThat(byCategory).hasSize(4);
+        assertThat(byCategory.get(0).category()).isEqualTo("Travel");
+        assertThat(byCategory.get(0).total()).isEqualByComparingTo("1400");
+    }
+
+    @Test
+    void shouldGroupNovemberSpendByMerchantLargestFirst() {
+        List<MerchantTotal> top = transactionRepository.sumAmountByMerchant(
+                "A123", LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30), Limit.of(2));
+
+        assertThat(top).extracting(MerchantTotal::merchant).containsExactly("Singapore Airlines", "Uniqlo");
+        assertThat(top.get(1).total()).isEqualByComparingTo("320");
+        assertThat(top.get(1).count()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldSumToZeroForUnknownAccount() {
+        BigDecimal total = transactionRepository.sumAmountByAccountIdAndDateBetween(
+                "NO_SUCH", LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30));
+
+        assertThat(total).isEqualByComparingTo(BigDecimal.ZERO);
+    }
 }
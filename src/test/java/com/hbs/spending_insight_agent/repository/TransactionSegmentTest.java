@@ -0,0 +1,106 @@
+package com.hbs.spending_insight_agent.repository;
+
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionSegmentTest {
+
+    private static final YearMonth MAY = YearMonth.of(2025, 5);
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void shouldReadBackEveryRowAsWritten() throws Exception {
+        // Given: nulls, a negative amount and ids/amounts far apart (8-byte columns)
+        List<TransactionRow> rows = List.of(
+                new TransactionRow(7L, MAY.atDay(1), new BigDecimal("-15.20"), "Food", null),
+                new TransactionRow(3_000_000_000L, MAY.atDay(1), new BigDecimal("99999999.99"), null, "Scoot"),
+                new TransactionRow(9L, MAY.atDay(17), new BigDecimal("4.50"), "Food", "GrabFood"),
+                new TransactionRow(8L, MAY.atDay(31), new BigDecimal("0.00"), "Travel", "Scoot"));
+        Path file = dir.resolve("2025-05.seg");
+
+        // When
+        TransactionSegment.write(file, MAY, rows);
+        TransactionSegment segment = TransactionSegment.open(file);
+
+        // Then
+        assertThat(segment.month()).isEqualTo(MAY);
+        assertThat(segment.size()).isEqualTo(4);
+        assertThat(segment.sizeBytes()).isEqualTo(Files.size(file));
+        List<TransactionRow> read = new ArrayList<>();
+        for (int i = 0; i < segment.size(); i++) {
+            read.add(segment.row(i));
+        }
+        assertThat(read).containsExactlyElementsOf(rows);
+        assertThat(segment.amount(2)).isEqualTo(450);
+    }
+
+    @Test
+    void shouldStoreNarrowColumnsForACompactMonth() throws Exception {
+        // Given: 1 000 rows with small id and amount ranges
+        List<TransactionRow> rows = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            rows.add(new TransactionRow(50_000L + i, MAY.atDay(1 + i * 31 / 1_000),
+                    BigDecimal.valueOf(i % 500, 2), "Cat" + (i % 5), "Merchant" + (i % 40)));
+        }
+        Path file = dir.resolve("compact.seg");
+
+        // When
+        TransactionSegment.write(file, MAY, rows);
+
+        // Then: 1 byte day + 2 byte id + 2 byte amount + 1 + 1 byte codes per row, plus header and dictionaries
+        assertThat(Files.size(file)).isLessThan(1_000 * 7 + 1_000);
+        assertThat(TransactionSegment.open(file).row(999)).isEqualTo(rows.get(999));
+    }
+
+    @Test
+    void shouldTurnDateRangesIntoRowRanges() throws Exception {
+        // Given
+        List<TransactionRow> rows = List.of(
+                new TransactionRow(1L, MAY.atDay(2), BigDecimal.ONE, "Food", "A"),
+                new TransactionRow(2L, MAY.atDay(2), BigDecimal.ONE, "Food", "A"),
+                new TransactionRow(3L, MAY.atDay(10), BigDecimal.ONE, "Food", "A"),
+                new TransactionRow(4L, MAY.atDay(31), BigDecimal.ONE, "Food", "A"));
+        Path file = dir.resolve("bounds.seg");
+        TransactionSegment.write(file, MAY, rows);
+        TransactionSegment segment = TransactionSegment.open(file);
+
+        // When / Then
+        assertThat(segment.lowerBound(MAY.atDay(2))).isZero();
+        assertThat(segment.upperBound(MAY.atDay(2))).isEqualTo(2);
+        assertThat(segment.lowerBound(MAY.atDay(3))).isEqualTo(2);
+        assertThat(segment.upperBound(MAY.atDay(30))).isEqualTo(3);
+        assertThat(segment.upperBound(MAY.atDay(31))).isEqualTo(4);
+        assertThat(segment.lowerBound(LocalDate.of(2025, 4, 15))).isZero();
+        assertThat(segment.upperBound(LocalDate.of(2025, 4, 30))).isZero();
+        assertThat(segment.lowerBound(LocalDate.of(2025, 6, 1))).isEqualTo(4);
+    }
+
+    @Test
+    void shouldRejectRowsOutsideTheMonthAndExistingFiles() throws Exception {
+        Path file = dir.resolve("bad.seg");
+        List<TransactionRow> june = List.of(new TransactionRow(1L, LocalDate.of(2025, 6, 1), BigDecimal.ONE, "Food", "A"));
+
+        assertThatThrownBy(() -> TransactionSegment.write(file, MAY, june))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        TransactionSegment.write(file, MAY, List.of());
+        assertThat(TransactionSegment.open(file).size()).isZero();
+        assertThatThrownBy(() -> TransactionSegment.write(file, MAY, List.of()))
+                .isInstanceOf(FileAlreadyExistsException.class);
+    }
+}
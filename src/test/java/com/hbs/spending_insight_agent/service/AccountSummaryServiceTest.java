@@ -1,13 +1,24 @@
 package com.hbs.spending_insight_agent.service;
 
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.Money;
+import com.hbs.spending_insight_agent.model.SpendingTrend;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.repository.TransactionRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.Currency;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 class AccountSummaryServiceTest {
@@ -15,6 +26,12 @@ class AccountSummaryServiceTest {
     @Autowired
     private AccountSummaryService accountSummaryService;
 
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void shouldCalculateTotalSpentForNovember2025ForA123() {
         // Given
@@ -40,4 +57,123 @@ class AccountSummaryServiceTest {
         // Then
         assertThat(total).isEqualByComparingTo(BigDecimal.ZERO);
     }
+
+    @Test
+    @Transactional
+    void shouldKeepRollupsInSyncWhenTransactionsAreWritten() {
+        // Given: a month with no rows in data.sql
+        YearMonth ym = YearMonth.of(2024, 6);
+        Transaction food = transactionRepository.save(Transaction.builder()
+                .accountId("A123")
+                .amount(new BigDecimal("40.00"))
+                .category("Food")
+                .merchant("GrabFood")
+                .date(LocalDate.of(2024, 6, 2))
+                .build());
+        transactionRepository.save(Transaction.builder()
+                .accountId("A123")
+                .amount(new BigDecimal("60.00"))
+                .category("Bills")
+                .merchant("SP Services")
+                .date(LocalDate.of(2024, 6, 3))
+                .build());
+        transactionRepository.flush();
+        assertThat(accountSummaryService.getTotalSpent("A123", ym)).isEqualByComparingTo("100");
+
+        // When: one row is updated and the other deleted
+        food.setAmount(new BigDecimal("45.00"));
+        transactionRepository.saveAndFlush(food);
+        transactionRepository.findByAccountIdAndDateBetween("A123", ym.atDay(1), ym.atEndOfMonth()).stream()
+                .filter(t -> "Bills".equals(t.getCategory()))
+                .forEach(transactionRepository::delete);
+        transactionRepository.flush();
+
+        // Then
+        assertThat(accountSummaryService.getTotalSpent("A123", ym)).isEqualByComparingTo("45");
+        List<CategoryTotal> categories = accountSummaryService.getCategoryTotals("A123", ym);
+        assertThat(categories).singleElement().satisfies(c -> {
+            assertThat(c.category()).isEqualTo("Food");
+            assertThat(c.total()).isEqualByComparingTo("45");
+            assertThat(c.count()).isEqualTo(1L);
+        });
+    }
+
+    @Test
+    @Transactional
+    void shouldReturnCategoryTotalsAfterRebuild() {
+        // Given
+        YearMonth ym = YearMonth.of(2025, 10);
+
+        // When
+        accountSummaryService.rebuildRollups();
+        List<CategoryTotal> categories = accountSummaryService.getCategoryTotals("A123", ym);
+
+        // Then: totals match a direct GROUP BY over the transactions table
+        assertThat(categories).containsExactlyInAnyOrderElementsOf(
+                transactionRepository.sumAmountByCategory("A123", ym.atDay(1), ym.atEndOfMonth()));
+    }
+
+    @Test
+    @Transactional
+    void shouldTotalInTheAccountCurrency() {
+        // Given: a yen account (no minor unit)
+        jdbcTemplate.update("MERGE INTO accounts(id, customer_name, currency, opened_on) KEY(id) "
+                + "VALUES ('JPY1', 'Yamada', 'JPY', DATE '2024-01-01')");
+        YearMonth ym = YearMonth.of(2024, 8);
+        for (String amount : new String[]{"1500", "980"}) {
+            transactionRepository.save(Transaction.builder()
+                    .accountId("JPY1")
+                    .amount(new BigDecimal(amount))
+                    .category("Food")
+                    .date(LocalDate.of(2024, 8, 1))
+                    .build());
+        }
+        transactionRepository.flush();
+
+        // When
+        Money total = accountSummaryService.getMonthlyTotal("JPY1", ym);
+
+        // Then
+        assertThat(total).isEqualTo(new Money(2480, Currency.getInstance("JPY")));
+        assertThat(accountSummaryService.getTotalSpent("JPY1", ym)).isEqualTo(new BigDecimal("2480"));
+    }
+
+    @Test
+    @Transactional
+    void shouldBucketTheTrendWindowByMonthAndCategory() {
+        // Given: months with no rows in data.sql, one of them empty
+        save("Food", "10.00", LocalDate.of(2023, 1, 4));
+        save("Travel", "50.00", LocalDate.of(2023, 3, 9));
+        save("Food", "5.00", LocalDate.of(2023, 3, 12));
+        transactionRepository.flush();
+
+        // When
+        SpendingTrend trend = accountSummaryService.getTrend("A123", YearMonth.of(2023, 3), 3);
+
+        // Then
+        assertThat(trend.from()).isEqualTo(YearMonth.of(2023, 1));
+        assertThat(trend.categories()).containsExactly("Travel", "Food");
+        assertThat(trend.months()).extracting(SpendingTrend.Month::month)
+                .containsExactly(YearMonth.of(2023, 1), YearMonth.of(2023, 2), YearMonth.of(2023, 3));
+        assertThat(trend.months().get(0).total()).isEqualByComparingTo("10.00");
+        assertThat(trend.months().get(1).total()).isEqualByComparingTo("0");
+        assertThat(trend.months().get(2).amounts()).containsExactly(new BigDecimal("50.00"), new BigDecimal("5.00"));
+    }
+
+    @Test
+    void shouldRejectTrendWindowsOverTwoYears() {
+        assertThatThrownBy(() -> accountSummaryService.getTrend(
+                "A123", YearMonth.of(2025, 11), AccountSummaryService.MAX_TREND_MONTHS + 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Number of months");
+    }
+
+    private void save(String category, String amount, LocalDate date) {
+        transactionRepository.save(Transaction.builder()
+                .accountId("A123")
+                .amount(new BigDecimal(amount))
+                .category(category)
+                .date(date)
+                .build());
+    }
 }
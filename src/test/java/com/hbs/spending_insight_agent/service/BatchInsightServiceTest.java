@@ -0,0 +1,178 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.agent.LlmCapacityExceededException;
+import com.hbs.spending_insight_agent.agent.ToolResultBudget;
+import com.hbs.spending_insight_agent.agent.ToolResultCache;
+import com.hbs.spending_insight_agent.model.BatchInsightItem;
+import com.hbs.spending_insight_agent.model.BatchInsightResult;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchInsightServiceTest {
+
+    private SpendingInsightService insightService;
+    private TransactionService txnService;
+    private ToolResultCache toolResultCache;
+    private ToolResultBudget toolResultBudget;
+    private BatchInsightService batchService;
+
+    @BeforeEach
+    void setup() {
+        insightService = mock(SpendingInsightService.class);
+        txnService = mock(TransactionService.class);
+        toolResultCache = new ToolResultCache();
+        // Only budgets are resolved here, nothing is rendered, so no estimator
+        toolResultBudget = new ToolResultBudget(new MockEnvironment(), null, 4000);
+        batchService = new BatchInsightService(insightService, txnService, new InsightCache(100, Duration.ofHours(1)),
+                toolResultCache, toolResultBudget, InsightMode.AGENT, 2, 10, 200);
+    }
+
+    @Test
+    void shouldPrefetchOncePerMonthAndSeedEachRun() {
+        // Given three accounts for November and one for October
+        List<BatchInsightItem> items = List.of(
+                new BatchInsightItem("A1", 2025, 11),
+                new BatchInsightItem("A2", 2025, 11),
+                new BatchInsightItem("A3", 2025, 11),
+                new BatchInsightItem("A1", 2025, 10));
+        when(txnService.getTransactionRows(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            List<String> accounts = invocation.getArgument(0);
+            return accounts.stream().collect(Collectors.toMap(a -> a, a -> List.<TransactionRow>of()));
+        });
+        // The run sees the seeded range without touching the loader
+        when(insightService.generateInsight(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            YearMonth ym = YearMonth.of(invocation.<Integer>getArgument(1), invocation.<Integer>getArgument(2));
+            return toolResultCache.transactions(invocation.getArgument(0),
+                    ym.minusMonths(1).atDay(1), ym.atEndOfMonth(), () -> {
+                        throw new IllegalStateException("not prefetched");
+                    }).isEmpty() ? "OK" : "unexpected";
+        });
+
+        // When
+        List<BatchInsightResult> results = new CopyOnWriteArrayList<>();
+        batchService.generate(items, results::add);
+
+        // Then
+        verify(txnService, times(1)).getTransactionRows(
+                eq(List.of("A1", "A2", "A3")), eq(LocalDate.of(2025, 10, 1)), eq(LocalDate.of(2025, 11, 30)));
+        verify(txnService, times(1)).getTransactionRows(
+                eq(List.of("A1")), eq(LocalDate.of(2025, 9, 1)), eq(LocalDate.of(2025, 10, 31)));
+        assertThat(results).hasSize(4);
+        assertThat(results).extracting(BatchInsightResult::insight).containsOnly("OK");
+    }
+
+    @Test
+    void shouldApplyTheRequestedTokenBudgetToEveryRun() {
+        // Given
+        List<BatchInsightItem> items = List.of(
+                new BatchInsightItem("A1", 2025, 11),
+                new BatchInsightItem("A2", 2025, 11));
+        when(txnService.getTransactionRows(anyCollection(), any(), any())).thenReturn(Map.of());
+        when(insightService.generateInsight(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> String.valueOf(toolResultBudget.budgetFor("getRecentTransactions")));
+
+        // When
+        List<BatchInsightResult> results = new CopyOnWriteArrayList<>();
+        batchService.generate(items, 800, results::add);
+        batchService.generate(items.subList(0, 1), results::add);
+
+        // Then: the override reaches the worker threads and ends with the batch
+        assertThat(results).extracting(BatchInsightResult::insight).containsExactly("800", "800", "4000");
+    }
+
+    @Test
+    void shouldReportPerItemErrorsWithoutFailingTheBatch() {
+        List<BatchInsightItem> items = List.of(
+                new BatchInsightItem("A1", 2025, 11),
+                new BatchInsightItem("A2", 2025, 11),
+                new BatchInsightItem("A3", 2025, 11));
+        when(txnService.getTransactionRows(anyCollection(), any(), any())).thenReturn(Map.of());
+        when(insightService.generateInsight("A1", 2025, 11)).thenReturn("Insight A1");
+        when(insightService.generateInsight("A2", 2025, 11)).thenThrow(new RuntimeException("boom"));
+        when(insightService.generateInsight("A3", 2025, 11))
+                .thenThrow(new LlmCapacityExceededException("full", Duration.ofSeconds(1)));
+
+        List<BatchInsightResult> results = new CopyOnWriteArrayList<>();
+        batchService.generate(items, results::add);
+
+        assertThat(results).containsExactlyInAnyOrder(
+                new BatchInsightResult("A1", 2025, 11, "Insight A1", null),
+                new BatchInsightResult("A2", 2025, 11, null, "Failed to analyze spending"),
+                new BatchInsightResult("A3", 2025, 11, null, "LLM capacity exceeded, retry later"));
+    }
+
+    @Test
+    void shouldNeverRunMoreThanConfiguredConcurrency() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(txnService.getTransactionRows(anyCollection(), any(), any())).thenReturn(Map.of());
+        when(insightService.generateInsight(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return "OK";
+        });
+        List<BatchInsightItem> items = IntStream.rangeClosed(1, 8)
+                .mapToObj(i -> new BatchInsightItem("A" + i, 2025, 11))
+                .toList();
+
+        List<BatchInsightResult> results = new CopyOnWriteArrayList<>();
+        batchService.generate(items, results::add);
+
+        assertThat(results).hasSize(8);
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldStopStartingItemsOnceTheSinkFails() {
+        when(txnService.getTransactionRows(anyCollection(), any(), any())).thenReturn(Map.of());
+        when(insightService.generateInsight(anyString(), anyInt(), anyInt())).thenReturn("OK");
+        BatchInsightService serial = new BatchInsightService(insightService, txnService,
+                new InsightCache(100, Duration.ofHours(1)), toolResultCache, toolResultBudget, InsightMode.AGENT, 1, 10, 200);
+        List<BatchInsightItem> items = List.of(
+                new BatchInsightItem("A1", 2025, 11),
+                new BatchInsightItem("A2", 2025, 11),
+                new BatchInsightItem("A3", 2025, 11));
+
+        serial.generate(items, result -> {
+            throw new IllegalStateException("client went away");
+        });
+
+        verify(insightService, never()).generateInsight("A3", 2025, 11);
+    }
+
+    @Test
+    void shouldRejectOversizedBatch() {
+        List<BatchInsightItem> items = IntStream.rangeClosed(1, 11)
+                .mapToObj(i -> new BatchInsightItem("A" + i, 2025, 11))
+                .toList();
+
+        assertThatThrownBy(() -> batchService.generate(items, result -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
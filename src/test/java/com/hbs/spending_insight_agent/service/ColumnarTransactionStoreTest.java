@@ -0,0 +1,132 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.model.TransactionRow;
+import com.hbs.spending_insight_agent.repository.ColdTransactionStore;
+import com.hbs.spending_insight_agent.repository.TransactionRepository;
+import com.hbs.spending_insight_agent.repository.TransactionsChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Currency;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ColumnarTransactionStoreTest {
+
+    private static final Currency SGD = Currency.getInstance("SGD");
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ColdTransactionStore coldStore;
+
+    @Test
+    void shouldAggregateLikeTheDatabase() {
+        // Given
+        ColumnarTransactionStore store = newStore(DataSize.ofMegabytes(1));
+        LocalDate from = LocalDate.of(2025, 10, 1);
+        LocalDate to = LocalDate.of(2025, 11, 30);
+
+        // When / Then
+        assertThat(store.total("A123", from, to, SGD).toBigDecimal())
+                .isEqualByComparingTo(transactionRepository.sumAmountByAccountIdAndDateBetween("A123", from, to));
+        assertThat(store.categoryTotals("A123", from, to))
+                .containsExactlyElementsOf(transactionRepository.sumAmountByCategory("A123", from, to));
+        assertThat(store.rows("A123", from, to, 500))
+                .containsExactlyElementsOf(transactionRepository.findRowsByAccountIdAndDateBetweenOrderByDateAscIdAsc(
+                        "A123", from, to, Limit.of(500)));
+        assertThat(store.rows("A123", from, to, 2)).hasSize(2);
+    }
+
+    @Test
+    void shouldReturnEmptyResultsOutsideTheLoadedRange() {
+        ColumnarTransactionStore store = newStore(DataSize.ofMegabytes(1));
+        LocalDate from = LocalDate.of(1999, 1, 1);
+        LocalDate to = LocalDate.of(1999, 1, 31);
+
+        assertThat(store.total("A123", from, to, SGD).toBigDecimal()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(store.categoryTotals("A123", from, to)).isEmpty();
+        assertThat(store.rows("A123", from, to, 500)).isEmpty();
+        assertThat(store.total("UNKNOWN", from, to, SGD).toBigDecimal()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    @Transactional
+    void shouldReloadAccountAfterAWrite() {
+        // Given: the account is resident
+        ColumnarTransactionStore store = newStore(DataSize.ofMegabytes(1));
+        YearMonth ym = YearMonth.of(2024, 7);
+        assertThat(store.total("A123", ym.atDay(1), ym.atEndOfMonth(), SGD).toBigDecimal()).isEqualByComparingTo("0");
+
+        // When
+        transactionRepository.saveAndFlush(Transaction.builder()
+                .accountId("A123")
+                .amount(new BigDecimal("12.34"))
+                .merchant("Cash")
+                .date(LocalDate.of(2024, 7, 4))
+                .build());
+        store.onTransactionsChanged(new TransactionsChangedEvent("A123", ym));
+
+        // Then
+        assertThat(store.total("A123", ym.atDay(1), ym.atEndOfMonth(), SGD).toBigDecimal()).isEqualByComparingTo("12.34");
+        assertThat(store.categoryTotals("A123", ym.atDay(1), ym.atEndOfMonth()))
+                .containsExactly(new CategoryTotal("Uncategorized", new BigDecimal("12.34"), 1L));
+        assertThat(store.stats().misses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStayWithinItsMemoryBudget() {
+        // Given: room for roughly one account
+        ColumnarTransactionStore store = newStore(DataSize.ofBytes(1));
+        LocalDate day = LocalDate.of(2025, 11, 1);
+
+        // When
+        store.total("A123", day, day, SGD);
+        store.total("OTHER", day, day, SGD);
+        store.total("A123", day, day, SGD);
+
+        // Then
+        ColumnarTransactionStore.Stats stats = store.stats();
+        assertThat(stats.evictions()).isPositive();
+        assertThat(stats.footprintBytes()).isEqualTo(store.footprintBytes());
+    }
+
+    @Test
+    void shouldEncodeColumnsAndFindDateBounds() {
+        // Given
+        List<TransactionRow> rows = List.of(
+                new TransactionRow(1L, LocalDate.of(2025, 1, 1), new BigDecimal("1.5"), "Food", "A"),
+                new TransactionRow(2L, LocalDate.of(2025, 1, 3), new BigDecimal("2.00"), null, "B"),
+                new TransactionRow(3L, LocalDate.of(2025, 1, 3), new BigDecimal("-3.25"), "Food", "A"));
+
+        // When
+        ColumnarTransactionStore.AccountColumns columns = ColumnarTransactionStore.AccountColumns.of(rows);
+
+        // Then
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.lowerBound(LocalDate.of(2025, 1, 2))).isEqualTo(1);
+        assertThat(columns.upperBound(LocalDate.of(2025, 1, 3))).isEqualTo(3);
+        assertThat(columns.lowerBound(LocalDate.of(2025, 1, 4))).isEqualTo(3);
+        assertThat(columns.row(0)).isEqualTo(
+                new TransactionRow(1L, LocalDate.of(2025, 1, 1), new BigDecimal("1.50"), "Food", "A"));
+        assertThat(columns.row(1).category()).isNull();
+        assertThat(columns.row(2).amount()).isEqualByComparingTo("-3.25");
+        assertThat(columns.footprintBytes()).isPositive();
+    }
+
+    private ColumnarTransactionStore newStore(DataSize maxSize) {
+        return new ColumnarTransactionStore(transactionRepository, coldStore, true, maxSize);
+    }
+}
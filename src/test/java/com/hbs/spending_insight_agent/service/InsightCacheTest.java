@@ -0,0 +1,52 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.repository.TransactionsChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InsightCacheTest {
+
+    private static final Duration TTL = Duration.ofHours(24);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final InsightCache cache = new InsightCache(100, TTL, nanos::get);
+
+    @Test
+    void shouldInvalidateAnEntryWhenItsDataChanges() {
+        // Given
+        YearMonth nov = YearMonth.of(2025, 11);
+        cache.put("A123", nov, cache.currentVersion("A123", nov), "insight");
+
+        // When: a write to the previous month
+        cache.onTransactionsChanged(new TransactionsChangedEvent("A123", nov.minusMonths(1)));
+
+        // Then
+        assertThat(cache.get("A123", nov)).isEmpty();
+    }
+
+    @Test
+    void shouldForgetVersionsOfMonthsNoLongerWrittenOrRead() {
+        // Given: continuous ingest touching many account-months
+        for (int i = 0; i < 1_000; i++) {
+            cache.onTransactionsChanged(new TransactionsChangedEvent("ACC" + i, YearMonth.of(2025, 1 + i % 12)));
+        }
+        assertThat(cache.trackedVersions()).isEqualTo(1_000);
+
+        // When: one month keeps being written, the rest go quiet past the retention
+        YearMonth nov = YearMonth.of(2025, 11);
+        for (int hour = 0; hour < 26; hour++) {
+            nanos.addAndGet(Duration.ofHours(1).toNanos());
+            cache.onTransactionsChanged(new TransactionsChangedEvent("A123", nov));
+        }
+
+        // Then: only the active month is remembered, with its full count
+        assertThat(cache.trackedVersions()).isEqualTo(1);
+        assertThat(cache.currentVersion("A123", nov).month()).isEqualTo(26);
+    }
+}
@@ -0,0 +1,153 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.agent.ToolResultBudget;
+import com.hbs.spending_insight_agent.agent.ToolResultCache;
+import com.hbs.spending_insight_agent.model.PregenerationCheckpoint;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.repository.AccountRepository;
+import com.hbs.spending_insight_agent.repository.PregenerationCheckpointRepository;
+import com.hbs.spending_insight_agent.repository.StoredInsightRepository;
+import com.hbs.spending_insight_agent.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+class InsightPregenerationJobTest {
+
+    // A month data.sql does not touch
+    private static final YearMonth MONTH = YearMonth.of(2024, 8);
+
+    @Autowired
+    private InsightStore insightStore;
+
+    @Autowired
+    private InsightCache insightCache;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ToolResultCache toolResultCache;
+
+    @Autowired
+    private ToolResultBudget toolResultBudget;
+
+    @Autowired
+    private StoredInsightRepository storedInsightRepository;
+
+    @Autowired
+    private PregenerationCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SpendingInsightService spendingInsightService;
+
+    private InsightPregenerationJob job;
+
+    @BeforeEach
+    void setUp() {
+        // Real store and repositories, with the LLM-backed service stubbed out
+        spendingInsightService = mock(SpendingInsightService.class);
+        BatchInsightService batchService = new BatchInsightService(spendingInsightService, transactionService,
+                insightCache, toolResultCache, toolResultBudget, InsightMode.AGENT, 4, 1000, 200);
+        job = new InsightPregenerationJob(accountRepository, checkpointRepository, batchService,
+                insightStore, insightCache, Clock.systemDefaultZone(), 1);
+
+        jdbcTemplate.update("MERGE INTO accounts(id, customer_name, currency, opened_on) KEY(id) "
+                + "VALUES ('B200', 'Second Customer', 'SGD', DATE '2023-01-01')");
+        when(spendingInsightService.generateInsight(anyString(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> "Insight for " + invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        storedInsightRepository.deleteAll();
+        checkpointRepository.deleteAll();
+    }
+
+    @Test
+    void shouldStoreInsightForEveryAccountAndCompleteTheMonth() {
+        // When
+        PregenerationCheckpoint checkpoint = job.pregenerate(MONTH);
+
+        // Then
+        assertThat(checkpoint.isCompleted()).isTrue();
+        assertThat(checkpoint.getGenerated()).isEqualTo(2);
+        assertThat(checkpoint.getFailed()).isZero();
+        assertThat(insightStore.find("A123", MONTH)).contains("Insight for A123");
+        assertThat(insightStore.find("B200", MONTH)).contains("Insight for B200");
+
+        // A second run finds the month completed
+        job.pregenerate(MONTH);
+        verify(spendingInsightService, times(1)).generateInsight("A123", 2024, 8);
+    }
+
+    @Test
+    void shouldResumeAfterTheCheckpointedAccount() {
+        // Given a run that stopped after A123
+        checkpointRepository.save(PregenerationCheckpoint.builder()
+                .period(202408)
+                .lastAccountId("A123")
+                .generated(1)
+                .build());
+
+        // When
+        PregenerationCheckpoint checkpoint = job.pregenerate(MONTH);
+
+        // Then
+        verify(spendingInsightService, never()).generateInsight(eq("A123"), anyInt(), anyInt());
+        verify(spendingInsightService).generateInsight("B200", 2024, 8);
+        assertThat(checkpoint.getGenerated()).isEqualTo(2);
+        assertThat(checkpoint.getLastAccountId()).isEqualTo("B200");
+    }
+
+    @Test
+    void shouldDropStoredInsightsWhenTheirTransactionsChange() {
+        // Given stored insights for August and September
+        insightStore.save("A123", MONTH, new InsightCache.DataVersion(0, 0), "August");
+        job.pregenerate(MONTH.plusMonths(1));
+        assertThat(insightStore.find("A123", MONTH.plusMonths(1))).isPresent();
+
+        // When an August transaction is written
+        Transaction txn = transactionRepository.save(Transaction.builder()
+                .accountId("A123")
+                .amount(new BigDecimal("12.00"))
+                .category("Food")
+                .merchant("Hawker")
+                .date(LocalDate.of(2024, 8, 15))
+                .build());
+
+        // Then August and September (which compares against August) are gone
+        assertThat(insightStore.find("A123", MONTH)).isEmpty();
+        assertThat(insightStore.find("A123", MONTH.plusMonths(1))).isEmpty();
+        assertThat(insightStore.find("B200", MONTH.plusMonths(1))).isPresent();
+
+        transactionRepository.delete(txn);
+    }
+}
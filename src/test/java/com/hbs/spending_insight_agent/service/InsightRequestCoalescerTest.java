@@ -0,0 +1,152 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.agent.LlmCapacityExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InsightRequestCoalescerTest {
+
+    private static final YearMonth NOVEMBER = YearMonth.of(2025, 11);
+
+    private static final InsightCache.DataVersion VERSION = new InsightCache.DataVersion(0, 0);
+
+    private final InsightRequestCoalescer coalescer = new InsightRequestCoalescer(Duration.ofSeconds(5));
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicInteger generations = new AtomicInteger();
+
+    @Test
+    void shouldShareOneGenerationBetweenConcurrentIdenticalRequests() throws Exception {
+        // Given
+        Supplier<String> generation = blocking(() -> "Insight");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // When: five identical requests arrive while the first is still generating
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                results.add(CompletableFuture.supplyAsync(
+                        () -> coalescer.generate("A123", NOVEMBER, VERSION, generation), executor));
+            }
+            await(() -> coalescer.stats().followers() == 4);
+            release.countDown();
+
+            // Then
+            for (CompletableFuture<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("Insight");
+            }
+        }
+        assertThat(generations).hasValue(1);
+        assertThat(coalescer.stats()).isEqualTo(new InsightRequestCoalescer.Stats(0, 1, 4, 0));
+    }
+
+    @Test
+    void shouldPropagateTheLeadersFailureToFollowers() throws Exception {
+        // Given
+        LlmCapacityExceededException failure = new LlmCapacityExceededException("busy", Duration.ofSeconds(5));
+        Supplier<String> generation = blocking(() -> {
+            throw failure;
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<String> leader = CompletableFuture.supplyAsync(
+                    () -> coalescer.generate("A123", NOVEMBER, VERSION, generation), executor);
+            await(() -> generations.get() == 1);
+            CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                    () -> coalescer.generate("A123", NOVEMBER, VERSION, generation), executor);
+            await(() -> coalescer.stats().followers() == 1);
+
+            // When
+            release.countDown();
+
+            // Then: both fail with the same exception, so both map to 429
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+        }
+
+        // And the failure is not remembered
+        assertThat(coalescer.generate("A123", NOVEMBER, VERSION, () -> "Retried")).isEqualTo("Retried");
+    }
+
+    @Test
+    void shouldLetAFollowerGiveUpWithoutAffectingTheLeader() throws Exception {
+        // Given
+        InsightRequestCoalescer impatient = new InsightRequestCoalescer(Duration.ofMillis(50));
+        Supplier<String> generation = blocking(() -> "Insight");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<String> leader = CompletableFuture.supplyAsync(
+                    () -> impatient.generate("A123", NOVEMBER, VERSION, generation), executor);
+            await(() -> generations.get() == 1);
+
+            // When
+            assertThatThrownBy(() -> impatient.generate("A123", NOVEMBER, VERSION, generation))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("timed out");
+            release.countDown();
+
+            // Then
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("Insight");
+        }
+        assertThat(impatient.stats().timeouts()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCoalesceRequestsThatSawDifferentData() throws Exception {
+        // Given
+        Supplier<String> generation = blocking(() -> "Insight");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<String> before = CompletableFuture.supplyAsync(
+                    () -> coalescer.generate("A123", NOVEMBER, VERSION, generation), executor);
+            await(() -> generations.get() == 1);
+
+            // When: a transaction write bumped the version in between
+            String after = coalescer.generate("A123", NOVEMBER, new InsightCache.DataVersion(1, 0), () -> "Fresh");
+            release.countDown();
+
+            // Then
+            assertThat(after).isEqualTo("Fresh");
+            assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("Insight");
+        }
+        assertThat(coalescer.stats().followers()).isZero();
+    }
+
+    private Supplier<String> blocking(Supplier<String> result) {
+        return () -> {
+            generations.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result.get();
+        };
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
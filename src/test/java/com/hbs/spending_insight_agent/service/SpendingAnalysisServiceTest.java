@@ -0,0 +1,111 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.Money;
+import com.hbs.spending_insight_agent.model.SpendingAnalysis;
+import com.hbs.spending_insight_agent.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Currency;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SpendingAnalysisServiceTest {
+
+    private static final YearMonth NOV = YearMonth.of(2025, 11);
+    private static final YearMonth OCT = YearMonth.of(2025, 10);
+    private static final Currency SGD = Currency.getInstance("SGD");
+
+    private AccountSummaryService summaryService;
+    private TransactionService txnService;
+    private SpendingAnalysisService analysisService;
+
+    @BeforeEach
+    void setup() {
+        summaryService = mock(AccountSummaryService.class);
+        txnService = mock(TransactionService.class);
+        analysisService = new SpendingAnalysisService(summaryService, txnService);
+    }
+
+    @Test
+    void shouldComputeBreakdownSpikesAndLargeTransactionsFromSeedShapedData() {
+        // Given: the November / October figures from data.sql
+        when(summaryService.getMonthlyTotal("A123", NOV)).thenReturn(sgd("2051.00"));
+        when(summaryService.getMonthlyTotal("A123", OCT)).thenReturn(sgd("690.00"));
+        when(summaryService.getCategoryTotals("A123", NOV)).thenReturn(List.of(
+                new CategoryTotal("Travel", new BigDecimal("1400.00"), 1L),
+                new CategoryTotal("Shopping", new BigDecimal("320.00"), 1L),
+                new CategoryTotal("Bills", new BigDecimal("210.00"), 1L),
+                new CategoryTotal("Food", new BigDecimal("121.00"), 1L)));
+        when(summaryService.getCategoryTotals("A123", OCT)).thenReturn(List.of(
+                new CategoryTotal("Shopping", new BigDecimal("200.00"), 1L),
+                new CategoryTotal("Travel", new BigDecimal("200.00"), 1L),
+                new CategoryTotal("Bills", new BigDecimal("180.00"), 1L),
+                new CategoryTotal("Food", new BigDecimal("110.00"), 1L)));
+        when(txnService.getTransactionsAbove(eq("A123"), eq(NOV.atDay(1)), eq(NOV.atEndOfMonth()), any()))
+                .thenReturn(List.of(Transaction.builder()
+                        .accountId("A123")
+                        .amount(new BigDecimal("1400.00"))
+                        .category("Travel")
+                        .merchant("Singapore Airlines")
+                        .date(LocalDate.of(2025, 11, 18))
+                        .build()));
+
+        // When
+        SpendingAnalysis analysis = analysisService.analyze("A123", NOV);
+
+        // Then
+        assertThat(analysis.changePct()).isEqualByComparingTo("197.2");
+        assertThat(analysis.spike()).isTrue();
+        assertThat(analysis.categories()).extracting(SpendingAnalysis.CategoryChange::category)
+                .containsExactly("Travel", "Shopping", "Bills", "Food");
+        assertThat(analysis.categories()).filteredOn(SpendingAnalysis.CategoryChange::spike)
+                .extracting(SpendingAnalysis.CategoryChange::category)
+                .containsExactly("Travel", "Shopping");
+        assertThat(analysis.largeTransactions()).singleElement().satisfies(t -> {
+            assertThat(t.merchant()).isEqualTo("Singapore Airlines");
+            assertThat(t.sharePct()).isEqualByComparingTo("68.3");
+        });
+        verify(txnService).getTransactionsAbove(eq("A123"), any(), any(),
+                eq(new BigDecimal("2051.00").multiply(SpendingAnalysisService.LARGE_TRANSACTION_SHARE)));
+    }
+
+    @Test
+    void shouldReportNoChangeWhenPreviousMonthIsEmpty() {
+        when(summaryService.getMonthlyTotal(any(), any())).thenReturn(sgd("0"));
+        when(summaryService.getMonthlyTotal("A123", NOV)).thenReturn(sgd("50.00"));
+        when(summaryService.getCategoryTotals("A123", NOV)).thenReturn(List.of(
+                new CategoryTotal("Food", new BigDecimal("50.00"), 2L)));
+        when(summaryService.getCategoryTotals("A123", OCT)).thenReturn(List.of());
+
+        SpendingAnalysis analysis = analysisService.analyze("A123", NOV);
+
+        assertThat(analysis.changePct()).isNull();
+        assertThat(analysis.spike()).isFalse();
+        assertThat(analysis.categories()).singleElement()
+                .satisfies(c -> assertThat(c.changePct()).isNull());
+    }
+
+    @Test
+    void shouldSkipLargeTransactionLookupWhenNothingWasSpent() {
+        when(summaryService.getMonthlyTotal(any(), any())).thenReturn(sgd("0"));
+        when(summaryService.getCategoryTotals(any(), any())).thenReturn(List.of());
+
+        SpendingAnalysis analysis = analysisService.analyze("A123", NOV);
+
+        assertThat(analysis.largeTransactions()).isEmpty();
+        verifyNoInteractions(txnService);
+    }
+
+    private static Money sgd(String amount) {
+        return Money.of(new BigDecimal(amount), SGD);
+    }
+}
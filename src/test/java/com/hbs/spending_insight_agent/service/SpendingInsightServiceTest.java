@@ -1,23 +1,74 @@
 package com.hbs.spending_insight_agent.service;
 
 import com.hbs.spending_insight_agent.agent.SpendingInsightAgent;
+import com.hbs.spending_insight_agent.agent.SpendingInsightWriter;
+import com.hbs.spending_insight_agent.agent.ToolResultBudget;
+import com.hbs.spending_insight_agent.agent.ToolResultCache;
+import com.hbs.spending_insight_agent.model.SpendingAnalysis;
+import com.hbs.spending_insight_agent.repository.TransactionsChangedEvent;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageType;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.invocation.InvocationParameters;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.service.TokenStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class SpendingInsightServiceTest {
 
     private SpendingInsightAgent agent;
     private SpendingInsightService service;
+    private InsightCache insightCache;
+    private TransactionService txnService;
+    private SpendingInsightWriter writer;
+    private SpendingAnalysisService analysisService;
+    private InsightStore insightStore;
 
     @BeforeEach
     void setup() {
         agent = mock(SpendingInsightAgent.class);
-        service = new SpendingInsightService(agent);
+        writer = mock(SpendingInsightWriter.class);
+        analysisService = mock(SpendingAnalysisService.class);
+        txnService = mock(TransactionService.class);
+        insightCache = new InsightCache(100, Duration.ofHours(1));
+        insightStore = mock(InsightStore.class);
+        service = new SpendingInsightService(agent, writer, analysisService, insightCache, insightStore,
+                new InsightRequestCoalescer(Duration.ofSeconds(5)), new ToolResultCache(), txnService, InsightMode.AGENT);
     }
 
     @Test
@@ -27,14 +78,14 @@ class SpendingInsightServiceTest {
         int year = 2025;
         int month = 11;
 
-        when(agent.generateInsight(anyString())).thenReturn("Sample Insight");
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("Sample Insight");
 
         // Act
         String result = service.generateInsight(accountId, year, month);
 
         // Assert
         assertEquals("Sample Insight", result);
-        verify(agent, times(1)).generateInsight(anyString());
+        verify(agent, times(1)).generateInsight(anyString(), anyString());
     }
 
     @Test
@@ -44,7 +95,7 @@ class SpendingInsightServiceTest {
         int year = 2025;
         int month = 11;
 
-        when(agent.generateInsight(anyString()))
+        when(agent.generateInsight(anyString(), anyString()))
                 .thenThrow(new RuntimeException("Agent failure"));
 
         // Act + Assert
@@ -55,7 +106,7 @@ class SpendingInsightServiceTest {
 
         assertTrue(ex.getMessage().contains("Failed to analyze spending"));
         assertTrue(ex.getMessage().contains("Agent failure"));
-        verify(agent, times(1)).generateInsight(anyString());
+        verify(agent, times(1)).generateInsight(anyString(), anyString());
     }
 
     @Test
@@ -65,7 +116,7 @@ class SpendingInsightServiceTest {
         int year = 2025;
         int month = 11;
 
-        when(agent.generateInsight(anyString())).thenReturn("OK");
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("OK");
 
         ArgumentCaptor<String> promptCaptor = ArgumentCaptor.forClass(String.class);
 
@@ -73,7 +124,7 @@ class SpendingInsightServiceTest {
         service.generateInsight(accountId, year, month);
 
         // Assert – verify query content
-        verify(agent).generateInsight(promptCaptor.capture());
+        verify(agent).generateInsight(anyString(), promptCaptor.capture());
         String prompt = promptCaptor.getValue();
 
         assertNotNull(prompt);
@@ -83,4 +134,302 @@ class SpendingInsightServiceTest {
                         || prompt.contains(String.valueOf(month)),
                 "Prompt should contain month (plain or zero-padded)");
     }
+
+    @Test
+    void shouldServeRepeatedRequestFromCache() {
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("Cached Insight");
+
+        String first = service.generateInsight("A123", 2025, 10);
+        String second = service.generateInsight("A123", 2025, 10);
+
+        assertEquals("Cached Insight", first);
+        assertEquals("Cached Insight", second);
+        verify(agent, times(1)).generateInsight(anyString(), anyString());
+        assertEquals(1, insightCache.stats().hitCount());
+    }
+
+    @Test
+    void shouldRegenerateAfterTransactionsChangeInPreviousMonth() {
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("Before", "After");
+
+        service.generateInsight("A123", 2025, 11);
+        // October is the comparison month for a November insight
+        insightCache.onTransactionsChanged(new TransactionsChangedEvent("A123", YearMonth.of(2025, 10)));
+        String result = service.generateInsight("A123", 2025, 11);
+
+        assertEquals("After", result);
+        verify(agent, times(2)).generateInsight(anyString(), anyString());
+    }
+
+    @Test
+    void shouldNotCacheInsightGeneratedFromDataThatChangedMeanwhile() {
+        when(agent.generateInsight(anyString(), anyString())).thenAnswer(invocation -> {
+            // A write commits while the agent is still working
+            insightCache.onTransactionsChanged(new TransactionsChangedEvent("A123", YearMonth.of(2025, 11)));
+            return "Stale";
+        });
+
+        service.generateInsight("A123", 2025, 11);
+
+        assertTrue(insightCache.get("A123", YearMonth.of(2025, 11)).isEmpty());
+    }
+
+    @Test
+    void shouldShareOneAgentRunBetweenConcurrentIdenticalRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(agent.generateInsight(anyString(), anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "Shared Insight";
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> service.generateInsight("A123", 2025, 11));
+            Future<String> second = executor.submit(() -> service.generateInsight("A123", 2025, 11));
+            // Both requests are in: one runs the agent, the other waits for it
+            verify(agent, timeout(5000)).generateInsight(anyString(), anyString());
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("Shared Insight", first.get(5, TimeUnit.SECONDS));
+            assertEquals("Shared Insight", second.get(5, TimeUnit.SECONDS));
+        }
+        verify(agent, times(1)).generateInsight(anyString(), anyString());
+    }
+
+    @Test
+    void shouldNotCacheFailures() {
+        when(agent.generateInsight(anyString(), anyString()))
+                .thenThrow(new RuntimeException("Agent failure"))
+                .thenReturn("Recovered");
+
+        assertThrows(RuntimeException.class, () -> service.generateInsight("A123", 2025, 11));
+        assertEquals("Recovered", service.generateInsight("A123", 2025, 11));
+    }
+
+    @Test
+    void shouldUseFreshMemoryPerInsightAndEvictItAfterwards() {
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("OK");
+
+        service.generateInsight("A123", 2025, 11);
+        service.generateInsight("A123", 2025, 10);
+
+        ArgumentCaptor<String> memoryIds = ArgumentCaptor.forClass(String.class);
+        verify(agent, times(2)).generateInsight(memoryIds.capture(), anyString());
+        assertNotEquals(memoryIds.getAllValues().get(0), memoryIds.getAllValues().get(1));
+        verify(agent).evictChatMemory(memoryIds.getAllValues().get(0));
+        verify(agent).evictChatMemory(memoryIds.getAllValues().get(1));
+    }
+
+    @Test
+    void shouldContinueAccountScopedConversationWithoutCaching() {
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("First", "Follow-up");
+
+        assertEquals("First", service.continueConversation("A123", 2025, 11, "chat-1", null));
+        assertEquals("Follow-up", service.continueConversation("A123", 2025, 11, "chat-1", null));
+
+        verify(agent, times(2)).generateInsight(eq("conversation:A123:chat-1"), anyString());
+        verify(agent, never()).evictChatMemory(any());
+        assertTrue(insightCache.get("A123", YearMonth.of(2025, 11)).isEmpty());
+    }
+
+    @Test
+    void shouldSendFollowUpQuestionAsTheNextTurnOfTheConversation() {
+        // Given a real agent with conversation memory over a recording model
+        List<ChatRequest> requests = new ArrayList<>();
+        ChatModel model = mock(ChatModel.class);
+        when(model.chat(any(ChatRequest.class))).thenAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return ChatResponse.builder().aiMessage(AiMessage.from("Answer " + requests.size())).build();
+        });
+        Map<Object, ChatMemory> memories = new HashMap<>();
+        SpendingInsightAgent conversationalAgent = AiServices.builder(SpendingInsightAgent.class)
+                .chatModel(model)
+                .chatMemoryProvider(id -> memories.computeIfAbsent(id, k -> MessageWindowChatMemory.withMaxMessages(20)))
+                .build();
+        when(txnService.getTransactionRows(anyString(), any(), any())).thenReturn(List.of());
+        service = new SpendingInsightService(conversationalAgent, writer, analysisService, insightCache, insightStore,
+                new InsightRequestCoalescer(Duration.ofSeconds(5)), new ToolResultCache(), txnService, InsightMode.AGENT);
+
+        // When
+        service.continueConversation("A123", 2025, 11, "chat-1", null);
+        String answer = service.continueConversation("A123", 2025, 11, "chat-1", "Why was travel so high?");
+
+        // Then: the second turn's user message is the question, after the earlier turns
+        assertEquals("Answer 2", answer);
+        List<ChatMessage> second = requests.get(1).messages();
+        assertEquals(UserMessage.from("Why was travel so high?"), second.getLast());
+        assertEquals(List.of(ChatMessageType.SYSTEM, ChatMessageType.USER, ChatMessageType.AI, ChatMessageType.USER),
+                second.stream().map(ChatMessage::type).toList());
+        assertTrue(((UserMessage) second.get(1)).singleText().contains("Analyze spending for account A123 for 2025-11"));
+        assertEquals(AiMessage.from("Answer 1"), second.get(2));
+    }
+
+    @Test
+    void shouldOpenConversationWithAnalysisRequestWhenFirstTurnIsAQuestion() {
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("Answer");
+
+        service.continueConversation("A123", 2025, 11, "chat-2", "Which merchant did I spend most at?");
+
+        ArgumentCaptor<String> query = ArgumentCaptor.forClass(String.class);
+        verify(agent).generateInsight(eq("conversation:A123:chat-2"), query.capture());
+        assertTrue(query.getValue().startsWith("Analyze spending for account A123 for 2025-11"));
+        assertTrue(query.getValue().endsWith("Question: Which merchant did I spend most at?"));
+    }
+
+    @Test
+    void shouldServeStoredInsightWithoutCallingAgent() {
+        when(insightStore.find("A123", YearMonth.of(2025, 11))).thenReturn(Optional.of("Pre-generated"));
+
+        assertEquals("Pre-generated", service.generateInsight("A123", 2025, 11));
+        assertEquals("Pre-generated", service.generateInsight("A123", 2025, 11));
+
+        verify(agent, never()).generateInsight(anyString(), anyString());
+        // The second request is answered from the in-memory cache
+        verify(insightStore, times(1)).find("A123", YearMonth.of(2025, 11));
+    }
+
+    @Test
+    void shouldPrefetchRequestedAndPreviousMonthInOneQuery() {
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("OK");
+        when(txnService.getTransactionRows(anyString(), any(), any())).thenReturn(List.of());
+
+        service.generateInsight("A123", 2025, 11);
+
+        verify(txnService, times(1)).getTransactionRows(
+                "A123", LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 30));
+    }
+
+    @Test
+    void shouldStillGenerateInsightWhenPrefetchFails() {
+        when(agent.generateInsight(anyString(), anyString())).thenReturn("OK");
+        when(txnService.getTransactionRows(anyString(), any(), any()))
+                .thenThrow(new IllegalArgumentException("boom"));
+
+        assertEquals("OK", service.generateInsight("A123", 2025, 11));
+    }
+
+    @Test
+    void shouldUseSingleWriterCallInPrecomputedMode() {
+        YearMonth ym = YearMonth.of(2025, 11);
+        when(analysisService.analyze("A123", ym)).thenReturn(new SpendingAnalysis(
+                ym,
+                new BigDecimal("2051.00"),
+                new BigDecimal("690.00"),
+                new BigDecimal("197.2"),
+                true,
+                List.of(new SpendingAnalysis.CategoryChange("Travel", new BigDecimal("1400.00"),
+                        new BigDecimal("200.00"), new BigDecimal("600.0"), true)),
+                List.of(new SpendingAnalysis.LargeTransaction(LocalDate.of(2025, 11, 18),
+                        "Singapore Airlines", "Travel", new BigDecimal("1400.00"), new BigDecimal("68.3")))));
+        when(writer.writeInsight(anyString())).thenReturn("Narrated");
+
+        String result = service.generateInsight("A123", 2025, 11, InsightMode.PRECOMPUTED);
+
+        assertEquals("Narrated", result);
+        verifyNoInteractions(agent);
+        ArgumentCaptor<String> factsCaptor = ArgumentCaptor.forClass(String.class);
+        verify(writer, times(1)).writeInsight(factsCaptor.capture());
+        String facts = factsCaptor.getValue();
+        assertFalse(facts.contains("A123"), "Facts prompt must not contain the account ID");
+        assertTrue(facts.contains("+197.2% (SPIKE"));
+        assertTrue(facts.contains("Singapore Airlines (Travel): 1400.00 = 68.3% of total"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStreamTokensAndCacheCompletedInsight() {
+        TokenStream stream = mock(TokenStream.class, RETURNS_SELF);
+        doAnswer(invocation -> {
+            ArgumentCaptor<BiConsumer<PartialResponse, PartialResponseContext>> partial =
+                    ArgumentCaptor.forClass(BiConsumer.class);
+            ArgumentCaptor<Consumer<ChatResponse>> complete = ArgumentCaptor.forClass(Consumer.class);
+            verify(stream).onPartialResponseWithContext(partial.capture());
+            verify(stream).onCompleteResponse(complete.capture());
+            PartialResponseContext context = new PartialResponseContext(mock(StreamingHandle.class));
+            partial.getValue().accept(new PartialResponse("Streamed "), context);
+            partial.getValue().accept(new PartialResponse("insight"), context);
+            complete.getValue().accept(ChatResponse.builder().aiMessage(AiMessage.from("Streamed insight")).build());
+            return null;
+        }).when(stream).start();
+        when(agent.streamInsight(anyString(), anyString(), any())).thenReturn(stream);
+
+        List<String> tokens = new ArrayList<>();
+        List<String> completed = new ArrayList<>();
+        service.streamInsight("A123", 2025, 11, 900, new InsightStreamHandler() {
+            @Override
+            public void onToken(String token) {
+                tokens.add(token);
+            }
+
+            @Override
+            public void onComplete(String insight) {
+                completed.add(insight);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error);
+            }
+        });
+
+        assertEquals(List.of("Streamed ", "insight"), tokens);
+        assertEquals(List.of("Streamed insight"), completed);
+        // The requested budget travels with the run, for tools executed off this thread
+        ArgumentCaptor<InvocationParameters> parameters = ArgumentCaptor.forClass(InvocationParameters.class);
+        verify(agent).streamInsight(anyString(), anyString(), parameters.capture());
+        assertEquals(900, new ToolResultBudget(new MockEnvironment(), null, 4000)
+                .budgetFor("getRecentTransactions", parameters.getValue()));
+        // A later blocking request is served from the cache
+        assertEquals("Streamed insight", service.generateInsight("A123", 2025, 11));
+        verify(agent, never()).generateInsight(anyString(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldCancelModelStreamAndStopCallbacksWhenStreamIsCancelled() {
+        // Given a stream that has produced one token
+        TokenStream tokenStream = mock(TokenStream.class, RETURNS_SELF);
+        when(agent.streamInsight(anyString(), anyString(), any())).thenReturn(tokenStream);
+        List<String> tokens = new ArrayList<>();
+        InsightStreamHandler handler = new InsightStreamHandler() {
+            @Override
+            public void onToken(String token) {
+                tokens.add(token);
+            }
+
+            @Override
+            public void onComplete(String insight) {
+                fail("cancelled stream must not complete");
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                fail(error);
+            }
+        };
+        InsightStream stream = service.streamInsight("A123", 2025, 11, handler);
+        ArgumentCaptor<BiConsumer<PartialResponse, PartialResponseContext>> partial =
+                ArgumentCaptor.forClass(BiConsumer.class);
+        ArgumentCaptor<Consumer<ChatResponse>> complete = ArgumentCaptor.forClass(Consumer.class);
+        verify(tokenStream).onPartialResponseWithContext(partial.capture());
+        verify(tokenStream).onCompleteResponse(complete.capture());
+        StreamingHandle firstRoundTrip = mock(StreamingHandle.class);
+        partial.getValue().accept(new PartialResponse("Streamed "), new PartialResponseContext(firstRoundTrip));
+
+        // When
+        stream.cancel();
+
+        // Then: the model call is cancelled and its memory dropped
+        verify(firstRoundTrip).cancel();
+        ArgumentCaptor<String> memoryId = ArgumentCaptor.forClass(String.class);
+        verify(agent).streamInsight(memoryId.capture(), anyString(), any());
+        verify(agent).evictChatMemory(memoryId.getValue());
+
+        // And a round trip already under way is cancelled on its first token, which is dropped
+        StreamingHandle nextRoundTrip = mock(StreamingHandle.class);
+        partial.getValue().accept(new PartialResponse("late"), new PartialResponseContext(nextRoundTrip));
+        verify(nextRoundTrip).cancel();
+        complete.getValue().accept(ChatResponse.builder().aiMessage(AiMessage.from("Streamed late")).build());
+        assertEquals(List.of("Streamed "), tokens);
+    }
 }
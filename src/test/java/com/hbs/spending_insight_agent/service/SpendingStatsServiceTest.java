@@ -0,0 +1,181 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.CategoryAmountStats;
+import com.hbs.spending_insight_agent.model.SpendingAnomalies;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.repository.CategoryAmountStatsRepository;
+import com.hbs.spending_insight_agent.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Transactional
+class SpendingStatsServiceTest {
+
+    private static final String ACCOUNT = "STATS1";
+
+    @Autowired
+    private SpendingStatsService statsService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryAmountStatsRepository statsRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("MERGE INTO accounts(id, customer_name, currency, opened_on) KEY(id) "
+                + "VALUES ('" + ACCOUNT + "', 'Stats', 'SGD', DATE '2024-01-01')");
+    }
+
+    @Test
+    void shouldKeepRunningStatisticsInSyncWithWrites() {
+        // Given
+        Transaction first = save("Food", "10.00", LocalDate.of(2024, 1, 5), "Hawker");
+        save("Food", "20.00", LocalDate.of(2024, 1, 6), "Hawker");
+        Transaction third = save("Food", "60.00", LocalDate.of(2024, 1, 7), "Hawker");
+        save("Food", "30.00", LocalDate.of(2024, 2, 1), "Hawker");
+
+        // When: one amount is corrected and one row deleted (remaining amounts 15, 20, 30)
+        first.setAmount(new BigDecimal("15.00"));
+        transactionRepository.saveAndFlush(first);
+        transactionRepository.delete(third);
+        transactionRepository.flush();
+
+        // Then
+        CategoryAmountStats food = foodStats();
+        assertThat(food.getTxnCount()).isEqualTo(3L);
+        assertThat(food.getMeanAmount()).isCloseTo(65.0 / 3, within(1e-9));
+        assertThat(food.stdDev()).isCloseTo(Math.sqrt(((15 - 65.0 / 3) * (15 - 65.0 / 3)
+                + (20 - 65.0 / 3) * (20 - 65.0 / 3) + (30 - 65.0 / 3) * (30 - 65.0 / 3)) / 2), within(1e-9));
+
+        // And a full rebuild arrives at the same state
+        statsService.rebuildStats();
+        CategoryAmountStats rebuilt = foodStats();
+        assertThat(rebuilt.getTxnCount()).isEqualTo(3L);
+        assertThat(rebuilt.getMeanAmount()).isCloseTo(food.getMeanAmount(), within(1e-9));
+        assertThat(rebuilt.getM2()).isCloseTo(food.getM2(), within(1e-6));
+    }
+
+    @Test
+    void shouldFlagSpikesAgainstTheBaselineAndUnusualTransactions() {
+        // Given: three steady months of food spending
+        for (int month = 1; month <= 3; month++) {
+            for (String amount : new String[]{"18.00", "20.00", "22.00", "19.00", "21.00"}) {
+                save("Food", amount, LocalDate.of(2024, month, 10), "Hawker");
+            }
+        }
+        // And a month with a food outlier and a first travel booking
+        for (String amount : new String[]{"20.00", "21.00", "19.00"}) {
+            save("Food", amount, LocalDate.of(2024, 4, 10), "Hawker");
+        }
+        save("Food", "95.00", LocalDate.of(2024, 4, 12), "Omakase");
+        save("Travel", "600.00", LocalDate.of(2024, 4, 20), "Scoot");
+
+        // When
+        SpendingAnomalies anomalies = statsService.getAnomalies(ACCOUNT, YearMonth.of(2024, 4));
+
+        // Then
+        assertThat(anomalies.total()).isEqualByComparingTo("755.00");
+        assertThat(anomalies.baseline()).isEqualByComparingTo("100.00");
+        assertThat(anomalies.baselineMonths()).isEqualTo(3);
+        assertThat(anomalies.spike()).isTrue();
+        assertThat(anomalies.categorySpikes()).extracting(SpendingAnomalies.CategorySpike::category)
+                .containsExactly("Travel", "Food");
+        assertThat(anomalies.categorySpikes().getFirst().changePct()).isNull();
+
+        List<SpendingAnomalies.UnusualTransaction> unusual = anomalies.unusualTransactions();
+        assertThat(unusual).extracting(SpendingAnomalies.UnusualTransaction::merchant)
+                .containsExactly("Scoot", "Omakase");
+        assertThat(unusual.get(0).sharePct()).isEqualByComparingTo("79.5");
+        assertThat(unusual.get(0).zScore()).isNull();
+        assertThat(unusual.get(1).zScore()).isGreaterThan(3.0);
+    }
+
+    @Test
+    void shouldFetchOnlyCandidatesOfEachCategoryWhenOneCategoryHasALowThreshold() {
+        // Given: cheap, steady transit fares next to ordinary food spending
+        for (int day = 1; day <= 20; day++) {
+            save("Transit", day % 2 == 0 ? "1.50" : "2.00", LocalDate.of(2024, 1, day), "MRT");
+        }
+        for (int day = 1; day <= 10; day++) {
+            save("Food", day % 2 == 0 ? "18.00" : "22.00", LocalDate.of(2024, 1, day), "Hawker");
+        }
+        // And a month with one unusual fare among ordinary meals
+        for (int day = 1; day <= 10; day++) {
+            save("Food", day % 2 == 0 ? "19.00" : "21.00", LocalDate.of(2024, 2, day), "Hawker");
+        }
+        save("Transit", "9.00", LocalDate.of(2024, 2, 12), "Taxi");
+
+        // When
+        SpendingAnomalies anomalies = statsService.getAnomalies(ACCOUNT, YearMonth.of(2024, 2));
+        List<Transaction> candidates = transactionService.getTransactionsAbove(ACCOUNT,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), new BigDecimal("100.00"),
+                Map.of("Transit", new BigDecimal("3.00"), "Food", new BigDecimal("30.00")), 10);
+
+        // Then: the fare is flagged, and the transit threshold does not pull in the meals
+        assertThat(anomalies.unusualTransactions()).singleElement()
+                .satisfies(t -> assertThat(t.merchant()).isEqualTo("Taxi"));
+        assertThat(candidates).extracting(Transaction::getMerchant).containsExactly("Taxi");
+
+        // And candidates are capped, largest first
+        assertThat(transactionService.getTransactionsAbove(ACCOUNT, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29),
+                new BigDecimal("100.00"), Map.of("Food", BigDecimal.ZERO, "Transit", BigDecimal.ZERO), 3))
+                .extracting(Transaction::getAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("21.00"), new BigDecimal("21.00"), new BigDecimal("21.00"));
+    }
+
+    @Test
+    void shouldReportNoBaselineWithoutEarlierSpending() {
+        // Given
+        save("Food", "20.00", LocalDate.of(2024, 1, 10), "Hawker");
+
+        // When
+        SpendingAnomalies anomalies = statsService.getAnomalies(ACCOUNT, YearMonth.of(2024, 1));
+
+        // Then
+        assertThat(anomalies.baseline()).isNull();
+        assertThat(anomalies.spike()).isFalse();
+        assertThat(anomalies.categorySpikes()).isEmpty();
+        assertThat(anomalies.unusualTransactions()).singleElement()
+                .satisfies(t -> assertThat(t.sharePct()).isEqualByComparingTo("100.0"));
+    }
+
+    private CategoryAmountStats foodStats() {
+        return statsRepository.findByAccountId(ACCOUNT).stream()
+                .filter(s -> s.getCategory().equals("Food"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Transaction save(String category, String amount, LocalDate date, String merchant) {
+        return transactionRepository.saveAndFlush(Transaction.builder()
+                .accountId(ACCOUNT)
+                .category(category)
+                .amount(new BigDecimal(amount))
+                .date(date)
+                .merchant(merchant)
+                .build());
+    }
+}
@@ -0,0 +1,124 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hbs.spending_insight_agent.model.IngestResult;
+import com.hbs.spending_insight_agent.repository.TransactionBulkWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ingest throughput, row-at-a-time vs batched. Opt-in, as it loads a few hundred thousand rows:
+ * {@code mvn test -Dtest=TransactionIngestBenchmarkTest -Dbenchmark=true}
+ */
+@SpringBootTest
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionIngestBenchmarkTest {
+
+    private static final int ACCOUNTS = 20;
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+
+    @Autowired
+    private TransactionBulkWriter bulkWriter;
+
+    @Autowired
+    private AccountCurrencies currencies;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    private byte[] csv;
+
+    @BeforeEach
+    void setUp() {
+        for (int a = 0; a < ACCOUNTS; a++) {
+            jdbcTemplate.update("MERGE INTO accounts(id, customer_name, currency, opened_on) KEY(id) "
+                    + "VALUES (?, 'Bench', 'SGD', DATE '2020-01-01')", "BENCH" + a);
+        }
+        String[] categories = {"Food", "Transport", "Shopping", "Bills", "Entertainment"};
+        StringBuilder sb = new StringBuilder("account_id,date,amount,category,merchant\n");
+        LocalDate base = LocalDate.of(2023, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            sb.append("BENCH").append(i % ACCOUNTS).append(',')
+                    .append(base.plusDays(i % 365)).append(',')
+                    .append(1 + i % 500).append('.').append(10 + i % 90).append(',')
+                    .append(categories[i % categories.length]).append(',')
+                    .append("Merchant ").append(i % 250).append('\n');
+        }
+        csv = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM transactions WHERE account_id LIKE 'BENCH%'");
+        accountSummaryService.rebuildRollups();
+    }
+
+    @Test
+    void compareBatchSizes() {
+        // Warm-up, then measure
+        run(1000, Math.min(ROWS, 20_000));
+        for (int batchSize : new int[]{1, 100, 1000, 5000}) {
+            tearDown();
+            long start = System.nanoTime();
+            IngestResult result = run(batchSize, ROWS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            assertThat(result.inserted()).isEqualTo(ROWS);
+            log.info("Ingest benchmark: batch-size={}, rows={}, time={}s, throughput={} rows/s",
+                    batchSize, ROWS, String.format("%.2f", seconds), Math.round(ROWS / seconds));
+        }
+    }
+
+    private IngestResult run(int batchSize, int rows) {
+        TransactionIngestService service = new TransactionIngestService(
+                bulkWriter, currencies, events, objectMapper, batchSize, 1000);
+        int length = rows == ROWS ? csv.length : prefixLength(rows);
+        return transactionTemplate.execute(status -> {
+            try {
+                return service.ingest(IngestFormat.CSV, new ByteArrayInputStream(csv, 0, length));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** Byte length of the header plus the first {@code rows} lines. */
+    private int prefixLength(int rows) {
+        int newlines = 0;
+        for (int i = 0; i < csv.length; i++) {
+            if (csv[i] == '\n' && ++newlines == rows + 1) {
+                return i + 1;
+            }
+        }
+        return csv.length;
+    }
+}
@@ -0,0 +1,175 @@
+package com.hbs.spending_insight_agent.service;
+
+import com.hbs.spending_insight_agent.model.CategoryAmountStats;
+import com.hbs.spending_insight_agent.model.CategoryTotal;
+import com.hbs.spending_insight_agent.model.IngestResult;
+import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.repository.CategoryAmountStatsRepository;
+import com.hbs.spending_insight_agent.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class TransactionIngestServiceTest {
+
+    @Autowired
+    private TransactionIngestService ingestService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private SpendingStatsService statsService;
+
+    @Autowired
+    private CategoryAmountStatsRepository statsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Transactional
+    void shouldIngestCsvAndUpdateRollupsInTheSameTransaction() throws Exception {
+        // Given: a month with no rows in data.sql, and a quoted merchant containing a comma
+        String csv = """
+                account_id,date,amount,category,merchant
+                A123,2024-03-02,12.50,Food,"Kopi, Toast & Co"
+                A123,2024-03-09,7.50,Food,Hawker
+                A123,2024-03-15,300.00,,Landlord
+                """;
+
+        // When
+        IngestResult result = ingestService.ingest(IngestFormat.CSV, stream(csv));
+
+        // Then
+        assertThat(result.inserted()).isEqualTo(3);
+        assertThat(result.rejected()).isZero();
+        List<Transaction> march = transactionRepository.findByAccountIdAndDateBetween(
+                "A123", LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+        assertThat(march).extracting(Transaction::getMerchant)
+                .containsExactlyInAnyOrder("Kopi, Toast & Co", "Hawker", "Landlord");
+        assertThat(accountSummaryService.getTotalSpent("A123", YearMonth.of(2024, 3)))
+                .isEqualByComparingTo("320.00");
+        assertThat(accountSummaryService.getCategoryTotals("A123", YearMonth.of(2024, 3)))
+                .containsExactly(
+                        new CategoryTotal("Uncategorized", new BigDecimal("300.00"), 1L),
+                        new CategoryTotal("Food", new BigDecimal("20.00"), 2L));
+
+        // And the running size statistics match a rebuild from the table
+        CategoryAmountStats food = statsRepository.findById(new CategoryAmountStats.Key("A123", "Food")).orElseThrow();
+        statsService.rebuildStats();
+        CategoryAmountStats rebuilt = statsRepository.findById(new CategoryAmountStats.Key("A123", "Food")).orElseThrow();
+        assertThat(food.getTxnCount()).isEqualTo(rebuilt.getTxnCount());
+        assertThat(food.getMeanAmount()).isCloseTo(rebuilt.getMeanAmount(), within(1e-9));
+        assertThat(food.getM2()).isCloseTo(rebuilt.getM2(), within(1e-6));
+    }
+
+    @Test
+    @Transactional
+    void shouldKeepFeedOrderOfSameDayRowsWhenSortingBatches() throws Exception {
+        // Given: rows out of date order, several on the same day
+        String csv = """
+                account_id,date,amount,category,merchant
+                A123,2024-05-20,1.00,Food,First on the 20th
+                A123,2024-05-02,2.00,Food,Early
+                A123,2024-05-20,3.00,Food,Second on the 20th
+                A123,2024-05-20,4.00,Food,Third on the 20th
+                """;
+
+        // When
+        ingestService.ingest(IngestFormat.CSV, stream(csv));
+
+        // Then: (date, id) order lists same-day rows as they appeared in the feed
+        assertThat(transactionRepository.findByAccountIdAndDateBetweenOrderByDateAscIdAsc(
+                "A123", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31), Limit.unlimited()))
+                .extracting(Transaction::getMerchant)
+                .containsExactly("Early", "First on the 20th", "Second on the 20th", "Third on the 20th");
+    }
+
+    @Test
+    @Transactional
+    void shouldIngestNdjsonAndReportInvalidLines() throws Exception {
+        String ndjson = """
+                {"accountId":"A123","date":"2024-04-01","amount":19.99,"category":"Food","merchant":"GrabFood"}
+                {"accountId":"A123","date":"2024-04-31","amount":5,"category":"Food","merchant":"Bad date"}
+                {"accountId":"NOPE","date":"2024-04-02","amount":5,"category":"Food","merchant":"Unknown"}
+                not json
+
+                {"accountId":"A123","date":"2024-04-03","amount":"0.105","merchant":"Too precise"}
+                """;
+
+        IngestResult result = ingestService.ingest(IngestFormat.NDJSON, stream(ndjson));
+
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(4);
+        assertThat(result.errors()).extracting(IngestResult.LineError::line).containsExactly(2L, 3L, 4L, 6L);
+        assertThat(accountSummaryService.getTotalSpent("A123", YearMonth.of(2024, 4)))
+                .isEqualByComparingTo("19.99");
+    }
+
+    @Test
+    @Transactional
+    void shouldRejectAmountsFinerThanTheAccountCurrency() throws Exception {
+        jdbcTemplate.update("MERGE INTO accounts(id, customer_name, currency, opened_on) KEY(id) "
+                + "VALUES ('JPY1', 'Yamada', 'JPY', DATE '2024-01-01')");
+        String csv = """
+                account_id,date,amount
+                JPY1,2024-09-01,1500.00
+                JPY1,2024-09-02,99.50
+                """;
+
+        IngestResult result = ingestService.ingest(IngestFormat.CSV, stream(csv));
+
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.errors()).singleElement()
+                .satisfies(e -> assertThat(e.message()).contains("at most 0 decimals for JPY"));
+        assertThat(accountSummaryService.getTotalSpent("JPY1", YearMonth.of(2024, 9))).isEqualTo(new BigDecimal("1500"));
+    }
+
+    @Test
+    void shouldRejectWholeLoadWhenThereAreTooManyInvalidLines() {
+        // Given more than max-errors (1000) bad lines after a valid one
+        StringBuilder csv = new StringBuilder("account_id,date,amount\nA123,2024-05-01,1.00\n");
+        for (int i = 0; i < 1001; i++) {
+            csv.append("A123,not-a-date,1.00\n");
+        }
+
+        // When / Then: rolled back, including the valid row
+        assertThatThrownBy(() -> ingestService.ingest(IngestFormat.CSV, stream(csv.toString())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("line 3");
+        assertThat(transactionRepository.findByAccountIdAndDateBetween(
+                "A123", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31))).isEmpty();
+        assertThat(accountSummaryService.getTotalSpent("A123", YearMonth.of(2024, 5)))
+                .isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void shouldRejectCsvWithoutRequiredColumns() {
+        assertThatThrownBy(() -> ingestService.ingest(IngestFormat.CSV, stream("account,when,how_much\n")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
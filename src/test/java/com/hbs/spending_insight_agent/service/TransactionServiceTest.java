@@ -1,15 +1,22 @@
 package com.hbs.spending_insight_agent.service;
 
 import com.hbs.spending_insight_agent.model.Transaction;
+import com.hbs.spending_insight_agent.model.TransactionRow;
 import com.hbs.spending_insight_agent.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -23,6 +30,12 @@ class TransactionServiceTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private InsightCache insightCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setUp() {
         // Make the test independent of data.sql
@@ -160,4 +173,106 @@ class TransactionServiceTest {
         assertThat(txns).hasSize(500);  // adjust if your MAX_RESULTS != 500
     }
 
+    @Test
+    void shouldFetchRowsForSeveralAccountsCappedPerAccount() {
+        // Given A123's five November transactions, plus an account over the limit
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        LocalDate to   = LocalDate.of(2025, 11, 30);
+        jdbcTemplate.update("MERGE INTO accounts(id, customer_name, currency, opened_on) KEY(id) "
+                + "VALUES ('BUSY', 'Busy Shopper', 'SGD', DATE '2022-01-01')");
+        List<Object[]> busy = new ArrayList<>();
+        for (int i = 1; i <= TransactionService.MAX_TOOL_ROWS + 5; i++) {
+            busy.add(new Object[]{"BUSY", new BigDecimal("1.00"), "Test", "Merchant " + i, from.plusDays(i % 10)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO transactions(account_id, amount, category, merchant, date) "
+                + "VALUES (?, ?, ?, ?, ?)", busy);
+
+        // When
+        Map<String, List<TransactionRow>> rows =
+                transactionService.getTransactionRows(List.of("A123", "BUSY", "NONE"), from, to);
+
+        // Then
+        assertThat(rows.get("A123")).hasSize(5)
+                .isEqualTo(transactionService.getTransactionRows("A123", from, to));
+        assertThat(rows.get("BUSY")).hasSize(TransactionService.MAX_TOOL_ROWS)
+                .isEqualTo(transactionService.getTransactionRows("BUSY", from, to));
+        assertThat(rows.get("NONE")).isEmpty();
+    }
+
+    @Test
+    void shouldPageThroughNovemberTransactionsUsingKeyset() {
+        // Given
+        String accountId = "A123";
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        LocalDate to   = LocalDate.of(2025, 11, 30);
+
+        // When: walk the range two rows at a time
+        List<Transaction> seen = new ArrayList<>();
+        Window<Transaction> page = transactionService.getTransactionPage(
+                accountId, from, to, ScrollPosition.keyset(), 2);
+        seen.addAll(page.getContent());
+        while (page.hasNext()) {
+            page = transactionService.getTransactionPage(
+                    accountId, from, to, page.positionAt(page.size() - 1), 2);
+            seen.addAll(page.getContent());
+        }
+
+        // Then: every row exactly once, in date order
+        assertThat(seen).hasSize(5);
+        assertThat(seen).extracting(Transaction::getDate).isSorted();
+        assertThat(seen).extracting(Transaction::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldRejectInvalidPageSize() {
+        assertThatThrownBy(() -> transactionService.getTransactionPage(
+                "A123", LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30), ScrollPosition.keyset(), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Page size");
+    }
+
+    @Test
+    void shouldRankMerchantsBySpendAndKeepTopN() {
+        // When
+        var top = transactionService.getTopMerchants(
+                "A123", LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30), 2);
+
+        // Then
+        assertThat(top).extracting(m -> m.merchant()).containsExactly("Singapore Airlines", "Scoot Airlines");
+        assertThat(top.get(0).total()).isEqualByComparingTo("1400.00");
+        assertThatThrownBy(() -> transactionService.getTopMerchants(
+                "A123", LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30), TransactionService.MAX_TOP_MERCHANTS + 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Number of merchants");
+    }
+
+    @Test
+    void shouldStreamTransactionsWithoutMaterializingAList() {
+        // When
+        BigDecimal total = transactionService.readTransactions(
+                "A123",
+                LocalDate.of(2025, 11, 1),
+                LocalDate.of(2025, 11, 30),
+                stream -> stream.map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+
+        // Then
+        assertThat(total).isEqualByComparingTo("2630.50");
+    }
+
+    @Test
+    void shouldBumpInsightDataVersionWhenTransactionsAreCommitted() {
+        InsightCache.DataVersion before = insightCache.currentVersion("A123", YearMonth.of(2025, 11));
+
+        transactionRepository.save(Transaction.builder()
+                .accountId("A123")
+                .amount(new BigDecimal("15.00"))
+                .category("Food")
+                .merchant("Toast Box")
+                .date(LocalDate.of(2025, 11, 25))
+                .build());
+
+        InsightCache.DataVersion after = insightCache.currentVersion("A123", YearMonth.of(2025, 11));
+        assertThat(after.month()).isGreaterThan(before.month());
+        assertThat(after.previousMonth()).isEqualTo(before.previousMonth());
+    }
 }